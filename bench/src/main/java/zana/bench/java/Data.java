@@ -0,0 +1,137 @@
+package zana.bench.java;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well44497b;
+
+//----------------------------------------------------------------
+/** Reproducible benchmark data, with the layouts that matter for
+ * sorting and empirical distributions:
+ * <ul>
+ * <li><code>uniform</code>: iid uniform on [0,1).
+ * <li><code>sorted</code>: uniform, sorted increasing.
+ * <li><code>reversed</code>: uniform, sorted decreasing.
+ * <li><code>ties</code>: only 16 distinct values, so most
+ * elements are duplicates.
+ * </ul>
+ * All generators use a fixed seed, so every fork sees the same
+ * data.
+ *
+ * @author wahpenayo at gmail dot com
+ * @version 2026-10-18
+ */
+
+public final class Data {
+
+  private static final int SEED = 20181216;
+  private static final int DISTINCT_TIES = 16;
+
+  public static final RandomGenerator prng () {
+    return new Well44497b(SEED); }
+
+  //--------------------------------------------------------------
+
+  private static final void reverse (final double[] z) {
+    for (int i=0,j=z.length-1;i<j;i++,j--) {
+      final double t = z[i]; z[i] = z[j]; z[j] = t; } }
+
+  /** @param distribution one of <code>uniform</code>,
+   * <code>sorted</code>, <code>reversed</code>,
+   * <code>ties</code>.
+   * @param n length of the returned array.
+   */
+  public static final double[] doubles (final String distribution,
+                                        final int n) {
+    final RandomGenerator prng = prng();
+    final double[] z = new double[n];
+    switch (distribution) {
+    case "uniform" :
+      for (int i=0;i<n;i++) { z[i] = prng.nextDouble(); }
+      break;
+    case "sorted" :
+      for (int i=0;i<n;i++) { z[i] = prng.nextDouble(); }
+      Arrays.sort(z);
+      break;
+    case "reversed" :
+      for (int i=0;i<n;i++) { z[i] = prng.nextDouble(); }
+      Arrays.sort(z);
+      reverse(z);
+      break;
+    case "ties" :
+      for (int i=0;i<n;i++) { z[i] = prng.nextInt(DISTINCT_TIES); }
+      break;
+    default :
+      throw new IllegalArgumentException(
+        "Unknown distribution: " + distribution); }
+    return z; }
+
+  /** @see #doubles(String,int) */
+  public static final float[] floats (final String distribution,
+                                      final int n) {
+    final double[] z = doubles(distribution,n);
+    final float[] f = new float[n];
+    for (int i=0;i<n;i++) { f[i] = (float) z[i]; }
+    return f; }
+
+  /** Positive weights, uniform on (0,1]. */
+  public static final double[] weights (final int n) {
+    final RandomGenerator prng = prng();
+    final double[] w = new double[n];
+    for (int i=0;i<n;i++) { w[i] = 1.0 - prng.nextDouble(); }
+    return w; }
+
+  /** Positive weights, uniform on (0,1]. */
+  public static final float[] floatWeights (final int n) {
+    final double[] w = weights(n);
+    final float[] f = new float[n];
+    for (int i=0;i<n;i++) { f[i] = (float) w[i]; }
+    return f; }
+
+  /** Binary class labels, 0.0 or 1.0, from thresholding
+   * {@link #doubles(String,int)} at the middle of its range,
+   * so <code>sorted</code> gives all the 0s before all the 1s,
+   * etc.
+   */
+  public static final double[] binary (final String distribution,
+                                       final int n) {
+    final double[] z = doubles(distribution,n);
+    double zmin = Double.POSITIVE_INFINITY;
+    double zmax = Double.NEGATIVE_INFINITY;
+    for (final double zi : z) {
+      if (zi < zmin) { zmin = zi; }
+      if (zi > zmax) { zmax = zi; } }
+    final double threshold = 0.5*(zmin + zmax);
+    for (int i=0;i<n;i++) { z[i] = (z[i] < threshold) ? 0.0 : 1.0; }
+    return z; }
+
+  /** Probabilities in [0,1], uniformly distributed. */
+  public static final double[] probabilities (final int n) {
+    final RandomGenerator prng = prng();
+    final double[] p = new double[n];
+    for (int i=0;i<n;i++) { p[i] = prng.nextDouble(); }
+    return p; }
+
+  /** A random permutation of <code>[0,n)</code>, for example,
+   * the order of the data when sorted by some other variable.
+   */
+  public static final int[] permutation (final int n) {
+    final RandomGenerator prng = prng();
+    final int[] p = new int[n];
+    for (int i=0;i<n;i++) { p[i] = i; }
+    for (int i=n-1;i>0;i--) {
+      final int j = prng.nextInt(i+1);
+      final int t = p[i]; p[i] = p[j]; p[j] = t; }
+    return p; }
+
+  //--------------------------------------------------------------
+  // disabled constructor
+  //--------------------------------------------------------------
+  private
+  Data () {
+    super();
+    throw new UnsupportedOperationException(
+      getClass() + " is not instantiable."); }
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,148 @@
+package zana.bench.java.accumulator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.accumulator.Accumulator;
+import zana.java.accumulator.BinaryMinimumExpectedCostClass;
+import zana.java.accumulator.GiniImpurity;
+import zana.java.accumulator.MSSN;
+import zana.java.accumulator.Mean;
+import zana.java.accumulator.PositiveFraction;
+import zana.java.accumulator.Sum;
+
+//----------------------------------------------------------------
+/** Unweighted scalar {@link Accumulator}s.
+ * <ul>
+ * <li><code>add</code>: one pass over the data into a fresh
+ * accumulator.
+ * <li><code>splitScan</code>: the decision tree split search
+ * pattern, moving each datum in turn from a 'right' accumulator
+ * holding everything to an initially empty 'left' one, and
+ * evaluating both after every move.
+ * <li><code>addAll</code>, <code>addAllGather</code>: the same as
+ * <code>add</code>, with one bulk call, over the data in order,
+ * or gathered through a random permutation.
+ * <li><code>splitScanGather</code>: <code>splitScan</code> in the
+ * order of a random permutation, moving {@link #BLOCK} data per
+ * step with bulk calls, as when the split variable has ties.
+ * </ul>
+ * Binary class accumulators see the data thresholded to 0/1.
+ *
+ * @author wahpenayo at gmail dot com
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class AccumulatorBenchmark {
+
+  @Param({"1000","100000","1000000"})
+  public int n;
+
+  @Param({"uniform","sorted","reversed","ties"})
+  public String distribution;
+
+  @Param({"Sum","Mean","MSSN",
+    "GiniImpurity","PositiveFraction",
+    "BinaryMinimumExpectedCostClass"})
+  public String accumulator;
+
+  public static final int BLOCK = 16;
+
+  private double[] z;
+  private int[] index;
+
+  private final Accumulator make () {
+    switch (accumulator) {
+    case "Sum" : return new Sum();
+    case "Mean" : return new Mean();
+    case "MSSN" : return new MSSN();
+    case "GiniImpurity" : return new GiniImpurity();
+    case "PositiveFraction" : return new PositiveFraction();
+    case "BinaryMinimumExpectedCostClass" :
+      return new BinaryMinimumExpectedCostClass(0.5);
+    default :
+      throw new IllegalArgumentException(
+        "Unknown accumulator: " + accumulator); } }
+
+  private final boolean isBinary () {
+    return
+      accumulator.equals("GiniImpurity")
+      || accumulator.equals("PositiveFraction")
+      || accumulator.equals("BinaryMinimumExpectedCostClass"); }
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    z = isBinary()
+      ? Data.binary(distribution,n)
+        : Data.doubles(distribution,n); 
+    index = Data.permutation(n); }
+
+  //--------------------------------------------------------------
+
+  @Benchmark
+  public final double add () {
+    final Accumulator a = make();
+    for (final double zi : z) { a.add(zi); }
+    return a.doubleValue(); }
+
+  @Benchmark
+  public final double splitScan () {
+    final Accumulator left = make();
+    final Accumulator right = make();
+    for (final double zi : z) { right.add(zi); }
+    double best = Double.POSITIVE_INFINITY;
+    for (final double zi : z) {
+      right.delete(zi);
+      left.add(zi);
+      final double cost = left.doubleValue() + right.doubleValue();
+      if (cost < best) { best = cost; } }
+    return best; }
+
+  @Benchmark
+  public final double addAll () {
+    final Accumulator a = make();
+    a.addAll(z,0,n);
+    return a.doubleValue(); }
+
+  @Benchmark
+  public final double addAllGather () {
+    final Accumulator a = make();
+    a.addAll(z,index,0,n);
+    return a.doubleValue(); }
+
+  @Benchmark
+  public final double splitScanGather () {
+    final Accumulator left = make();
+    final Accumulator right = make();
+    right.addAll(z,0,n);
+    double best = Double.POSITIVE_INFINITY;
+    for (int start=0;start<n;start+=BLOCK) {
+      final int end = Math.min(n,start+BLOCK);
+      right.deleteAll(z,index,start,end);
+      left.addAll(z,index,start,end);
+      final double cost = left.doubleValue() + right.doubleValue();
+      if (cost < best) { best = cost; } }
+    return best; }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,101 @@
+package zana.bench.java.accumulator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.accumulator.Accumulator;
+import zana.java.accumulator.VectorMSSN;
+import zana.java.accumulator.VectorMean;
+
+//----------------------------------------------------------------
+/** {@link VectorMean} and {@link VectorMSSN}, fed
+ * <code>double[]</code> vectors of dimension
+ * <code>dimension</code>.
+ * <p>
+ * Only <code>add</code> and <code>splitScan</code> over
+ * <code>n/dimension</code> vectors, so the total number of
+ * coordinates is comparable to {@link AccumulatorBenchmark}.
+ *
+ * @author wahpenayo at gmail dot com
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class VectorAccumulatorBenchmark {
+
+  @Param({"1000","100000","1000000"})
+  public int n;
+
+  @Param({"uniform","sorted","reversed","ties"})
+  public String distribution;
+
+  @Param({"2","8","32"})
+  public int dimension;
+
+  @Param({"VectorMean","VectorMSSN"})
+  public String accumulator;
+
+  private double[][] z;
+
+  private final Accumulator make () {
+    switch (accumulator) {
+    case "VectorMean" : return new VectorMean(dimension);
+    case "VectorMSSN" : return new VectorMSSN(dimension);
+    default :
+      throw new IllegalArgumentException(
+        "Unknown accumulator: " + accumulator); } }
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    final int m = n / dimension;
+    final double[] zz = Data.doubles(distribution,m*dimension);
+    z = new double[m][];
+    for (int i=0;i<m;i++) {
+      z[i] = new double[dimension];
+      System.arraycopy(zz,i*dimension,z[i],0,dimension); } }
+
+  //--------------------------------------------------------------
+
+  @Benchmark
+  public final Object add () {
+    final Accumulator a = make();
+    for (final double[] zi : z) { a.add(zi); }
+    return a.value(); }
+
+  @Benchmark
+  public final double splitScan () {
+    final Accumulator left = make();
+    final Accumulator right = make();
+    for (final double[] zi : z) { right.add(zi); }
+    // VectorMean has no doubleValue()
+    final boolean cost = "VectorMSSN".equals(accumulator);
+    double best = Double.POSITIVE_INFINITY;
+    for (final double[] zi : z) {
+      right.delete(zi);
+      left.add(zi);
+      if (cost) {
+        final double c = left.doubleValue() + right.doubleValue();
+        if (c < best) { best = c; } } }
+    return best; }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,106 @@
+package zana.bench.java.accumulator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.accumulator.Accumulator;
+import zana.java.accumulator.weighted.BinaryMinimumExpectedCostClass;
+import zana.java.accumulator.weighted.GiniImpurity;
+import zana.java.accumulator.weighted.MSSN;
+import zana.java.accumulator.weighted.Mean;
+import zana.java.accumulator.weighted.PositiveFraction;
+
+//----------------------------------------------------------------
+/** Weighted scalar {@link Accumulator}s from
+ * <code>zana.java.accumulator.weighted</code>, with the same
+ * <code>add</code> and <code>splitScan</code> patterns as
+ * {@link AccumulatorBenchmark}.
+ *
+ * @author wahpenayo at gmail dot com
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class WeightedAccumulatorBenchmark {
+
+  @Param({"1000","100000","1000000"})
+  public int n;
+
+  @Param({"uniform","sorted","reversed","ties"})
+  public String distribution;
+
+  @Param({"Mean","MSSN",
+    "GiniImpurity","PositiveFraction",
+    "BinaryMinimumExpectedCostClass"})
+  public String accumulator;
+
+  private double[] z;
+  private double[] w;
+
+  private final Accumulator make () {
+    switch (accumulator) {
+    case "Mean" : return new Mean();
+    case "MSSN" : return new MSSN();
+    case "GiniImpurity" : return new GiniImpurity();
+    case "PositiveFraction" : return new PositiveFraction();
+    case "BinaryMinimumExpectedCostClass" :
+      return new BinaryMinimumExpectedCostClass(0.5);
+    default :
+      throw new IllegalArgumentException(
+        "Unknown accumulator: " + accumulator); } }
+
+  private final boolean isBinary () {
+    return
+      accumulator.equals("GiniImpurity")
+      || accumulator.equals("PositiveFraction")
+      || accumulator.equals("BinaryMinimumExpectedCostClass"); }
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    z = isBinary()
+      ? Data.binary(distribution,n)
+        : Data.doubles(distribution,n);
+    w = Data.weights(n); }
+
+  //--------------------------------------------------------------
+
+  @Benchmark
+  public final double add () {
+    final Accumulator a = make();
+    for (int i=0;i<n;i++) { a.add(z[i],w[i]); }
+    return a.doubleValue(); }
+
+  @Benchmark
+  public final double splitScan () {
+    final Accumulator left = make();
+    final Accumulator right = make();
+    for (int i=0;i<n;i++) { right.add(z[i],w[i]); }
+    double best = Double.POSITIVE_INFINITY;
+    for (int i=0;i<n;i++) {
+      right.delete(z[i],w[i]);
+      left.add(z[i],w[i]);
+      final double cost = left.doubleValue() + right.doubleValue();
+      if (cost < best) { best = cost; } }
+    return best; }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,129 @@
+package zana.bench.java.arrays;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.arrays.KeySorter;
+import zana.java.arrays.Sorter;
+
+//----------------------------------------------------------------
+/** {@link Sorter#quicksort} and {@link KeySorter#sort} with
+ * each of their payload array types, against {@link Arrays#sort}
+ * on the keys alone as a baseline.
+ * <p>
+ * The arrays are restored from unsorted copies before each
+ * invocation, so every call sorts the same input.
+ *
+ * @author wahpenayo at gmail dot com
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class SorterBenchmark {
+
+  @Param({"1000","100000","1000000"})
+  public int n;
+
+  @Param({"uniform","sorted","reversed","ties"})
+  public String distribution;
+
+  private double[] dz0;
+  private double[] dw0;
+  private float[] fz0;
+  private float[] fw0;
+
+  private double[] dz;
+  private double[] dw;
+  private float[] fz;
+  private float[] fw;
+  private int[] perm;
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    dz0 = Data.doubles(distribution,n);
+    dw0 = Data.weights(n);
+    fz0 = Data.floats(distribution,n);
+    fw0 = Data.floatWeights(n);
+    dz = new double[n];
+    dw = new double[n];
+    fz = new float[n];
+    fw = new float[n];
+    perm = new int[n]; }
+
+  @Setup(Level.Invocation)
+  public final void invocation () {
+    System.arraycopy(dz0,0,dz,0,n);
+    System.arraycopy(dw0,0,dw,0,n);
+    System.arraycopy(fz0,0,fz,0,n);
+    System.arraycopy(fw0,0,fw,0,n);
+    Sorter.iota(perm,n); }
+
+  //--------------------------------------------------------------
+
+  @Benchmark
+  public final double[] jdkDoubles () {
+    Arrays.sort(dz);
+    return dz; }
+
+  @Benchmark
+  public final float[] jdkFloats () {
+    Arrays.sort(fz);
+    return fz; }
+
+  @Benchmark
+  public final int[] doublesPermutation () {
+    Sorter.quicksort(dz,perm);
+    return perm; }
+
+  @Benchmark
+  public final double[] doublesDoubles () {
+    Sorter.quicksort(dz,dw);
+    return dw; }
+
+  @Benchmark
+  public final float[] floatsFloats () {
+    Sorter.quicksort(fz,fw);
+    return fw; }
+
+  @Benchmark
+  public final int[] keyDoublesPermutation () {
+    KeySorter.sort(dz,new Object[] { perm });
+    return perm; }
+
+  @Benchmark
+  public final double[] keyDoublesDoubles () {
+    KeySorter.sort(dz,new Object[] { dw });
+    return dw; }
+
+  @Benchmark
+  public final float[] keyFloatsFloats () {
+    KeySorter.sort(fz,new Object[] { fw });
+    return fw; }
+
+  @Benchmark
+  public final float[] keyFloatsPermutationFloats () {
+    KeySorter.sort(fz,new Object[] { perm, fw });
+    return fw; }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
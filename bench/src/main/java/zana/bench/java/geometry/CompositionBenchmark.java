@@ -0,0 +1,112 @@
+package zana.bench.java.geometry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.geometry.Dn;
+import zana.java.geometry.functions.Composition2;
+import zana.java.geometry.functions.DiagonalScaling;
+import zana.java.geometry.functions.Function;
+import zana.java.geometry.functions.FusedComposition;
+import zana.java.geometry.functions.Huber;
+import zana.java.geometry.functions.L2Distance2From;
+import zana.java.geometry.functions.L2Norm2;
+import zana.java.geometry.functions.LinearRows;
+import zana.java.geometry.functions.UniDiagonal;
+
+//----------------------------------------------------------------
+/** Generic {@link Composition2} chains versus
+ * {@link FusedComposition#compile(Function)}:
+ * the value of
+ * <code>L2Norm2 o UniDiagonal(Huber) o DiagonalScaling o
+ * LinearRows</code>, and the value and gradient of
+ * <code>L2Distance2From o LinearRows</code>, with {@link #m} rows
+ * and {@link #n} columns.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompositionBenchmark {
+
+  @Param({"16","256"})
+  public int m;
+
+  @Param({"8"})
+  public int n;
+
+  private Function chain;
+  private Function fusedChain;
+  private Function distance;
+  private Function fusedDistance;
+  private double[] p;
+  private double[] g;
+
+  private static final double[] random (final RandomGenerator prng,
+                                        final int k) {
+    final double[] x = new double[k];
+    for (int i=0;i<k;i++) { x[i] = prng.nextGaussian(); }
+    return x; }
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    final RandomGenerator prng = Data.prng();
+    final double[][] a = new double[m][];
+    for (int i=0;i<m;i++) { a[i] = random(prng,n); }
+    final LinearRows rows = LinearRows.make(a);
+    final Dn d = Dn.get(m);
+    chain =
+      Composition2.compose(
+        L2Norm2.get(d),
+        Composition2.compose(
+          UniDiagonal.make(d,Huber.get(0.5)),
+          Composition2.compose(
+            DiagonalScaling.make(random(prng,m)),
+            rows)));
+    fusedChain = FusedComposition.compile(chain);
+    distance =
+      Composition2.compose(L2Distance2From.make(random(prng,m)),rows);
+    fusedDistance = FusedComposition.compile(distance);
+    p = random(prng,n);
+    g = new double[n]; }
+
+  @Benchmark
+  public final double valueGeneric () {
+    return chain.doubleValue(p); }
+
+  @Benchmark
+  public final double valueFused () {
+    return fusedChain.doubleValue(p); }
+
+  @Benchmark
+  public final double gradientGeneric () {
+    return distance.valueAndGradient(p,g); }
+
+  @Benchmark
+  public final double gradientFused () {
+    return fusedDistance.valueAndGradient(p,g); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,129 @@
+package zana.bench.java.geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import clojure.lang.IFn;
+import zana.bench.java.Data;
+import zana.java.geometry.Dn;
+import zana.java.geometry.functions.AffineDual;
+import zana.java.geometry.functions.Composition2;
+import zana.java.geometry.functions.DesignCost;
+import zana.java.geometry.functions.Function;
+import zana.java.geometry.functions.Huber;
+import zana.java.geometry.functions.L2Cost;
+import zana.java.geometry.functions.PredictionCost;
+
+//----------------------------------------------------------------
+/** Scaling of {@link L2Cost} and {@link PredictionCost}, over
+ * {@link #n} records of {@link #dimension} predictors, with
+ * {@link #threads} threads: the cost of an affine model, and
+ * the fused value and gradient with respect to its parameters,
+ * from the data list, and from a precomputed {@link DesignCost}.
+ * The results are the same for every thread count greater than
+ * 1, and both representations; one thread sums with Kahan
+ * compensation instead.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class CostBenchmark {
+
+  @Param({"1000000"})
+  public int n;
+
+  @Param({"8"})
+  public int dimension;
+
+  @Param({"1","2","4","8"})
+  public int threads;
+
+  private Function model;
+  private double[] p;
+  private double[] gradient;
+  private L2Cost l2;
+  private Function l2Composed;
+  private PredictionCost huber;
+  private Function huberComposed;
+  private DesignCost l2Design;
+  private DesignCost huberDesign;
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    final RandomGenerator prng = Data.prng();
+    final List<double[]> data = new ArrayList<double[]>(n);
+    for (int i=0;i<n;i++) {
+      final double[] x = new double[dimension];
+      for (int j=0;j<dimension;j++) { x[j] = prng.nextGaussian(); }
+      data.add(x); }
+    final IFn.OD groundTruth = new IFn.OD() {
+      @Override
+      public final double invokePrim (final Object x) {
+        final double[] xi = (double[]) x;
+        double y = 1.0;
+        for (int j=0;j<xi.length;j++) { y += (j+1) * xi[j]; }
+        return y; } };
+    final Function parameterization =
+      AffineDual.make(Dn.get(dimension+1));
+    p = new double[dimension+1];
+    for (int j=0;j<p.length;j++) { p[j] = prng.nextGaussian(); }
+    gradient = new double[p.length];
+    model = (Function) parameterization.value(p);
+    l2 = L2Cost.make(groundTruth,data,threads);
+    l2Composed = Composition2.compose(l2,parameterization);
+    huber =
+      PredictionCost.make(Huber.get(0.5),groundTruth,data,threads);
+    huberComposed = Composition2.compose(huber,parameterization);
+    l2Design = l2.design(parameterization);
+    huberDesign = huber.design(parameterization); }
+
+  @Benchmark
+  public final double l2Value () {
+    return l2.doubleValue(model); }
+
+  @Benchmark
+  public final double l2ValueAndGradient () {
+    return l2Composed.valueAndGradient(p,gradient); }
+
+  @Benchmark
+  public final double huberValue () {
+    return huber.doubleValue(model); }
+
+  @Benchmark
+  public final double huberValueAndGradient () {
+    return huberComposed.valueAndGradient(p,gradient); }
+
+  @Benchmark
+  public final double l2DesignValueAndGradient () {
+    return l2Design.valueAndGradient(p,gradient); }
+
+  @Benchmark
+  public final double huberDesignValueAndGradient () {
+    return huberDesign.valueAndGradient(p,gradient); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
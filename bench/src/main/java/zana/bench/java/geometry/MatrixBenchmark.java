@@ -0,0 +1,106 @@
+package zana.bench.java.geometry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.geometry.Matrix;
+import zana.java.geometry.functions.LinearRows;
+
+//----------------------------------------------------------------
+/** Evaluating a {@link LinearRows} of {@link #m} rows and
+ * {@link #n} columns at {@link #k} vectors: one
+ * {@link LinearRows#value(Object)} call per vector, allocating
+ * the output, versus one blocked matrix product
+ * {@link LinearRows#values(Matrix,Matrix)} into a reused output.
+ * Also the matrix-vector product in both layouts.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatrixBenchmark {
+
+  @Param({"1000"})
+  public int m;
+
+  @Param({"8","64"})
+  public int n;
+
+  @Param({"64"})
+  public int k;
+
+  private LinearRows rows;
+  private Matrix rowMajor;
+  private Matrix columnMajor;
+  private Matrix x;
+  private Matrix y;
+  private double[][] xs;
+  private double[] x0;
+  private double[] y0;
+
+  private static final Matrix random (final RandomGenerator prng,
+                                      final int rows,
+                                      final int columns) {
+    final Matrix a = Matrix.make(rows,columns,true);
+    final double[] d = a.data();
+    for (int i=0;i<d.length;i++) { d[i] = prng.nextGaussian(); }
+    return a; }
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    final RandomGenerator prng = Data.prng();
+    rowMajor = random(prng,m,n);
+    columnMajor = rowMajor.copy(false);
+    rows = LinearRows.make(rowMajor);
+    x = random(prng,k,n);
+    y = Matrix.make(k,m,true);
+    xs = new double[k][n];
+    for (int r=0;r<k;r++) { x.row(r,xs[r]); }
+    x0 = xs[0];
+    y0 = new double[m]; }
+
+  @Benchmark
+  public final Object valuePerVector () {
+    Object last = null;
+    for (final double[] xr : xs) { last = rows.value(xr); }
+    return last; }
+
+  @Benchmark
+  public final Matrix valuesBatched () {
+    rows.values(x,y);
+    return y; }
+
+  @Benchmark
+  public final double[] timesRowMajor () {
+    rowMajor.times(x0,y0);
+    return y0; }
+
+  @Benchmark
+  public final double[] timesColumnMajor () {
+    columnMajor.times(x0,y0);
+    return y0; }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
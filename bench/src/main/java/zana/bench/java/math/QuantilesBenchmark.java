@@ -0,0 +1,84 @@
+package zana.bench.java.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.math.Statistics;
+
+//----------------------------------------------------------------
+/** The 99 percentiles of {@link #n} values:
+ * commons-math <code>DescriptiveStatistics</code>, as
+ * <code>zana.stats.statistics/quantiles</code> used to do it,
+ * versus the single-pass selection in
+ * {@link Statistics#quantiles(double[],double[],boolean)}, and a
+ * full sort as a baseline.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class QuantilesBenchmark {
+
+  @Param({"100000","10000000"})
+  public int n;
+
+  @Param({"uniform","sorted","ties"})
+  public String distribution;
+
+  private double[] z;
+  private double[] w;
+  private double[] p;
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    z = Data.doubles(distribution,n);
+    w = Data.weights(n);
+    p = new double[99];
+    for (int j=0;j<99;j++) { p[j] = (j + 1) / 100.0; } }
+
+  @Benchmark
+  public final double[] descriptiveStatistics () {
+    final DescriptiveStatistics ds = new DescriptiveStatistics(z);
+    final double[] q = new double[p.length];
+    for (int j=0;j<p.length;j++) {
+      q[j] = ds.getPercentile(100.0*p[j]); }
+    return q; }
+
+  @Benchmark
+  public final double[] sorted () {
+    final double[] zz = z.clone();
+    java.util.Arrays.sort(zz);
+    return zz; }
+
+  @Benchmark
+  public final double[] select () {
+    return Statistics.quantiles(z,p); }
+
+  @Benchmark
+  public final double[] selectWeighted () {
+    return Statistics.quantiles(z,w,p); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
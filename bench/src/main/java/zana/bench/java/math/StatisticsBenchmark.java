@@ -0,0 +1,113 @@
+package zana.bench.java.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.math.Compensated;
+import zana.java.math.Statistics;
+import zana.java.math.Superaccumulator;
+
+//----------------------------------------------------------------
+/** Compensated summation in {@link Statistics} and
+ * {@link Compensated}, with {@link Statistics#naiveSum(double[])}
+ * as the baseline, exact sums with {@link Superaccumulator}, and
+ * compensated and exact dot products, with a Kahan loop as the
+ * baseline.
+ *
+ * @author wahpenayo at gmail dot com
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class StatisticsBenchmark {
+
+  @Param({"1000","100000","1000000"})
+  public int n;
+
+  @Param({"uniform","sorted","reversed","ties"})
+  public String distribution;
+
+  private double[] dz;
+  private float[] fz;
+  private double[] dw;
+  private float[] fw;
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    dz = Data.doubles(distribution,n);
+    fz = Data.floats(distribution,n);
+    dw = Data.weights(n);
+    fw = Data.floatWeights(n); }
+
+  @Benchmark
+  public final double naiveSumDoubles () {
+    return Statistics.naiveSum(dz); }
+
+  @Benchmark
+  public final double kahanSumDoubles () {
+    return Statistics.kahanSum(dz); }
+
+  @Benchmark
+  public final double kahanSumFloats () {
+    return Statistics.kahanSum(fz); }
+
+  @Benchmark
+  public final double compensatedSumDoubles () {
+    return Compensated.sum(dz); }
+
+  @Benchmark
+  public final double compensatedSumFloats () {
+    return Compensated.sum(fz); }
+
+  @Benchmark
+  public final double exactSumDoubles () {
+    return Superaccumulator.sum(dz); }
+
+  /** The loop formerly inlined in <code>WEPDF</code>, etc. */
+  private static final double kahanDot (final double[] x,
+                                        final double[] y) {
+    double s = 0.0;
+    double c = 0.0;
+    for (int i=0;i<x.length;i++) {
+      final double zi = x[i]*y[i] - c;
+      final double t = s + zi;
+      c = (t - s) - zi;
+      s = t; }
+    return s; }
+
+  @Benchmark
+  public final double kahanDotDoubles () { return kahanDot(dz,dw); }
+
+  @Benchmark
+  public final double compensatedDotDoubles () {
+    return Compensated.dot(dz,dw); }
+
+  @Benchmark
+  public final double compensatedDotFloats () {
+    return Compensated.dot(fz,fw); }
+
+  @Benchmark
+  public final double exactDotDoubles () {
+    return Superaccumulator.dot(dz,dw); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
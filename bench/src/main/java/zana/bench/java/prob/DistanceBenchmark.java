@@ -0,0 +1,86 @@
+package zana.bench.java.prob;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.prob.Distance;
+import zana.java.prob.WECDF;
+
+//----------------------------------------------------------------
+/** {@link Distance} kernels, versus evaluating both cdfs at
+ * every atom of either distribution, one search at a time.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class DistanceBenchmark {
+
+  @Param({"100","10000","1000000"})
+  public int n;
+
+  private WECDF f;
+  private WECDF g;
+  private double y;
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    final float[] z = Data.floats("uniform",2*n);
+    final float[] w = Data.floatWeights(2*n);
+    final float[] z0 = new float[n];
+    final float[] w0 = new float[n];
+    final float[] z1 = new float[n];
+    final float[] w1 = new float[n];
+    System.arraycopy(z,0,z0,0,n); System.arraycopy(w,0,w0,0,n);
+    System.arraycopy(z,n,z1,0,n); System.arraycopy(w,n,w1,0,n);
+    f = WECDF.make(z0,w0);
+    g = WECDF.make(z1,w1);
+    y = 0.5; }
+
+  @Benchmark
+  public final double ksPointwise () {
+    double s = 0.0;
+    for (final float x : f.getZ()) {
+      s = Math.max(s,Math.abs(
+        f.cumulativeProbability(x) - g.cumulativeProbability(x))); }
+    for (final float x : g.getZ()) {
+      s = Math.max(s,Math.abs(
+        f.cumulativeProbability(x) - g.cumulativeProbability(x))); }
+    return s; }
+
+  @Benchmark
+  public final double ks () { return Distance.ks(f,g); }
+
+  @Benchmark
+  public final double wasserstein () { return Distance.wasserstein(f,g); }
+
+  @Benchmark
+  public final double cramerVonMises () {
+    return Distance.cramerVonMises(f,g); }
+
+  @Benchmark
+  public final double crps () { return Distance.crps(f,y); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,194 @@
+package zana.bench.java.prob;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well44497b;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import zana.bench.java.Data;
+import zana.java.prob.QuantileSketch;
+import zana.java.prob.WECDF;
+import zana.java.prob.WEPDF;
+
+//----------------------------------------------------------------
+/** Construction of, moments of, and cdf/quantile queries
+ * against, {@link WECDF} and {@link WEPDF}, and approximating
+ * them with a {@link QuantileSketch}.
+ * <p>
+ * The query benchmarks evaluate a fixed array of
+ * {@link #QUERIES} points or probabilities per invocation,
+ * one at a time, or with the batch methods, in random or
+ * sorted order.
+ * <p>
+ * The sampling benchmarks draw {@link #QUERIES} values per
+ * invocation, by the alias method, and, for comparison, by
+ * inverting the cdf at uniform probabilities.
+ *
+ * @author wahpenayo at gmail dot com
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class EmpiricalBenchmark {
+
+  public static final int QUERIES = 1024;
+
+  @Param({"1000","100000","1000000"})
+  public int n;
+
+  @Param({"uniform","sorted","reversed","ties"})
+  public String distribution;
+
+  private float[] z;
+  private float[] w;
+  private WECDF wecdf;
+  private WEPDF wepdf;
+  private double[] x;
+  private double[] p;
+  private double[] xSorted;
+  private double[] pSorted;
+  private double[] out;
+  private RandomGenerator rng;
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    z = Data.floats(distribution,n);
+    w = Data.floatWeights(n);
+    wecdf = WECDF.make(z,w);
+    wepdf = WEPDF.make(z,w);
+    // query points spread over (and a little beyond) the support
+    x = Data.doubles("uniform",QUERIES);
+    final double lo = wecdf.getSupportLowerBound();
+    final double hi = wecdf.getSupportUpperBound();
+    final double dx = hi - lo;
+    for (int i=0;i<QUERIES;i++) {
+      x[i] = (lo - 0.05*dx) + (1.1*dx*x[i]); }
+    p = Data.probabilities(QUERIES);
+    xSorted = Arrays.copyOf(x,QUERIES);
+    Arrays.sort(xSorted);
+    pSorted = Arrays.copyOf(p,QUERIES);
+    Arrays.sort(pSorted);
+    out = new double[QUERIES];
+    rng = new Well44497b(20261018L);
+    // build the alias tables outside the timed loops
+    wecdf.sample(rng);
+    wepdf.sample(rng); }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  @Benchmark
+  public final WECDF makeWECDF () { return WECDF.make(z,w); }
+
+  @Benchmark
+  public final WEPDF makeWEPDF () { return WEPDF.make(z,w); }
+
+  @Benchmark
+  public final WECDF sketchWECDF () {
+    final QuantileSketch sketch = QuantileSketch.make(0.01);
+    sketch.add(z,w);
+    return sketch.toWECDF(); }
+
+  //--------------------------------------------------------------
+  // queries
+  //--------------------------------------------------------------
+
+  @Benchmark
+  public final void cdfWECDF (final Blackhole bh) {
+    for (final double xi : x) {
+      bh.consume(wecdf.cumulativeProbability(xi)); } }
+
+  @Benchmark
+  public final void quantileWECDF (final Blackhole bh) {
+    for (final double pi : p) {
+      bh.consume(wecdf.inverseCumulativeProbability(pi)); } }
+
+  @Benchmark
+  public final void cdfWEPDF (final Blackhole bh) {
+    for (final double xi : x) {
+      bh.consume(wepdf.cumulativeProbability(xi)); } }
+
+  @Benchmark
+  public final void quantileWEPDF (final Blackhole bh) {
+    for (final double pi : p) {
+      bh.consume(wepdf.inverseCumulativeProbability(pi)); } }
+
+  //--------------------------------------------------------------
+  // moments
+  //--------------------------------------------------------------
+
+  @Benchmark
+  public final double meanWECDF () { return wecdf.getNumericalMean(); }
+
+  @Benchmark
+  public final double varianceWECDF () {
+    return wecdf.getNumericalVariance(); }
+
+  @Benchmark
+  public final double meanWEPDF () { return wepdf.getNumericalMean(); }
+
+  @Benchmark
+  public final double varianceWEPDF () {
+    return wepdf.getNumericalVariance(); }
+
+  //--------------------------------------------------------------
+  // batch queries
+  //--------------------------------------------------------------
+
+  @Benchmark
+  public final double[] cdfsWECDF () {
+    return wecdf.cumulativeProbabilities(x,out); }
+
+  @Benchmark
+  public final double[] cdfsSortedWECDF () {
+    return wecdf.cumulativeProbabilities(xSorted,out); }
+
+  @Benchmark
+  public final double[] quantilesWECDF () {
+    return wecdf.inverseCumulativeProbabilities(p,out); }
+
+  @Benchmark
+  public final double[] quantilesSortedWECDF () {
+    return wecdf.inverseCumulativeProbabilities(pSorted,out); }
+
+  //--------------------------------------------------------------
+  // sampling
+  //--------------------------------------------------------------
+
+  @Benchmark
+  public final double[] sampleWECDF () {
+    return wecdf.sample(rng,QUERIES,out); }
+
+  @Benchmark
+  public final double[] sampleWEPDF () {
+    return wepdf.sample(rng,QUERIES,out); }
+
+  @Benchmark
+  public final double[] sampleInverseWECDF () {
+    for (int i=0;i<QUERIES;i++) {
+      out[i] = wecdf.inverseCumulativeProbability(rng.nextDouble()); }
+    return out; }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,111 @@
+package zana.bench.java.prob;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.prob.EmpiricalCodec;
+import zana.java.prob.WECDF;
+
+//----------------------------------------------------------------
+/** Loading {@link #count} {@link WECDF}s, of {@link #atoms} atoms
+ * each: Java serialization, versus {@link EmpiricalCodec} files,
+ * raw and delta encoded, and mapped views queried in place.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class EmpiricalCodecBenchmark {
+
+  @Param({"10000"})
+  public int count;
+
+  @Param({"16","256"})
+  public int atoms;
+
+  private byte[] serialized;
+  private File raw;
+  private File delta;
+
+  @Setup(Level.Trial)
+  public final void trial () throws IOException {
+    final RandomGenerator prng = Data.prng();
+    final List<WECDF> cdfs = new ArrayList<WECDF>(count);
+    for (int k=0;k<count;k++) {
+      final float[] z = new float[atoms];
+      final float[] w = new float[atoms];
+      for (int j=0;j<atoms;j++) {
+        z[j] = (float) prng.nextGaussian();
+        w[j] = (float) (1.0 - prng.nextDouble()); }
+      cdfs.add(WECDF.make(z,w)); }
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(cdfs); }
+    serialized = bytes.toByteArray();
+    raw = File.createTempFile("raw",".bin");
+    delta = File.createTempFile("delta",".bin");
+    EmpiricalCodec.write(
+      cdfs,raw,EmpiricalCodec.RAW,EmpiricalCodec.RAW);
+    EmpiricalCodec.write(
+      cdfs,delta,EmpiricalCodec.DELTA,EmpiricalCodec.DELTA); }
+
+  @TearDown(Level.Trial)
+  public final void teardown () {
+    raw.delete();
+    delta.delete(); }
+
+  @Benchmark
+  public final Object javaSerialization ()
+    throws IOException, ClassNotFoundException {
+    try (final ObjectInputStream in = new ObjectInputStream(
+      new ByteArrayInputStream(serialized))) {
+      return in.readObject(); } }
+
+  @Benchmark
+  public final List readRaw () throws IOException {
+    return EmpiricalCodec.read(raw); }
+
+  @Benchmark
+  public final List readDelta () throws IOException {
+    return EmpiricalCodec.read(delta); }
+
+  @Benchmark
+  public final double mappedMedians () throws IOException {
+    double s = 0.0;
+    for (final EmpiricalCodec.View view : EmpiricalCodec.map(raw)) {
+      s += view.inverseCumulativeProbability(0.5); }
+    return s; }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,94 @@
+package zana.bench.java.prob;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.prob.Mixture;
+import zana.java.prob.WEPDF;
+
+//----------------------------------------------------------------
+/** Averaging many {@link WEPDF}s, as in quantile forest scoring:
+ * concatenating the atoms and re-sorting with
+ * {@link WEPDF#make(float[],float[])}, versus the k-way merge
+ * in {@link Mixture}, exact and bounded.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class MixtureBenchmark {
+
+  /** Number of leaves. */
+  @Param({"10","100","1000"})
+  public int leaves;
+
+  /** Atoms per leaf. */
+  @Param({"16","256"})
+  public int atoms;
+
+  private List<WEPDF> pdfs;
+  private float[] z;
+  private float[] w;
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    final RandomGenerator prng = Data.prng();
+    pdfs = new ArrayList<WEPDF>(leaves);
+    final int n = leaves*atoms;
+    z = new float[n];
+    w = new float[n];
+    int i = 0;
+    for (int k=0;k<leaves;k++) {
+      final float[] zk = new float[atoms];
+      final float[] wk = new float[atoms];
+      for (int j=0;j<atoms;j++) {
+        zk[j] = (float) prng.nextGaussian();
+        wk[j] = (float) (1.0 - prng.nextDouble()); }
+      final WEPDF pdf = WEPDF.make(zk,wk);
+      pdfs.add(pdf);
+      final float[] zp = pdf.getZ();
+      final float[] wp = pdf.getW();
+      System.arraycopy(zp,0,z,i,zp.length);
+      System.arraycopy(wp,0,w,i,wp.length);
+      i += zp.length; }
+    // ties within a leaf, if any, leave unused space
+    z = Arrays.copyOf(z,i);
+    w = Arrays.copyOf(w,i); }
+
+  @Benchmark
+  public final WEPDF concatenateAndSort () { return WEPDF.make(z,w); }
+
+  @Benchmark
+  public final WEPDF merge () { return Mixture.wepdf(pdfs,null); }
+
+  @Benchmark
+  public final WEPDF merge256 () {
+    return Mixture.wepdf(null,pdfs,null,256); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,80 @@
+package zana.bench.java.prob;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zana.bench.java.Data;
+import zana.java.prob.OrderStatisticTree;
+import zana.java.prob.WECDF;
+
+//----------------------------------------------------------------
+/** Sliding a window of {@link #n} points one step and querying
+ * the median: updating an {@link OrderStatisticTree}, versus
+ * rebuilding a {@link WECDF}.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=5,time=1)
+@Measurement(iterations=10,time=1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderStatisticTreeBenchmark {
+
+  @Param({"1000","100000"})
+  public int n;
+
+  private float[] z;
+  private float[] w;
+  private int start;
+  private OrderStatisticTree tree;
+
+  @Setup(Level.Trial)
+  public final void trial () {
+    z = Data.floats("uniform",4*n);
+    w = Data.floatWeights(4*n);
+    start = 0;
+    tree = OrderStatisticTree.make();
+    for (int i=0;i<n;i++) { tree.insert(z[i],w[i]); } }
+
+  private final int step () {
+    final int i = start;
+    start = (start + 1) % (3*n);
+    return i; }
+
+  @Benchmark
+  public final double slideTree () {
+    final int i = step();
+    if (0 == i) { tree.clear(); tree.insert(
+      Arrays.copyOf(z,n),Arrays.copyOf(w,n)); }
+    tree.delete(z[i],w[i]);
+    tree.insert(z[i+n],w[i+n]);
+    return tree.quantile(0.5); }
+
+  @Benchmark
+  public final double rebuildWECDF () {
+    final int i = step() + 1;
+    final WECDF cdf = WECDF.make(
+      Arrays.copyOfRange(z,i,i+n),Arrays.copyOfRange(w,i,i+n));
+    return cdf.inverseCumulativeProbability(0.5); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
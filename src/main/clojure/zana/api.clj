@@ -1,7 +1,7 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
 (ns ^{:author "wahpenayo at gmail dot com" 
-      :date "2018-04-16"
+      :date "2026-10-18"
       :doc "Primary external interface to Zana, providing a subset
             of the functions found in other <code>zana.xxx</code> 
             namespaces, created using 
@@ -149,8 +149,10 @@
                 generic/nmapc
                 generic/nmapcat
                 guava/not-nil
+                generic/parallelism
                 generic/partition
                 generic/pmap
+                generic/pmap-blocking
                 generic/pmap-doubles
                 #_generic/pmap-indexed
                 generic/pmapc
@@ -161,6 +163,7 @@
                 guava/some
                 guava/sort
                 guava/sort-by
+                guava/sort-by-keys
                 guava/split-at
                 #_guava/split-by
                 generic/!split-with
@@ -305,6 +308,7 @@
 (pn/import-fn r1/interval? real-interval?)
 (pn/import-vars r1/centered-interval
                 compose/compose
+                compose/fuse
                 r1/cspan
                 gf/affine-dual
                 gf/affine-functional
@@ -367,14 +371,31 @@
 (pn/import-vars probprng/well44497b
                 probprng/double-generator)
 (pn/import-vars measure/cdf
+                measure/cdf-doubles
+                measure/cramer-distance
+                measure/cramer-von-mises
+                measure/crps
                 measure/gaussian-distribution
+                measure/ks-distance
+                measure/make-order-statistic-tree
+                measure/make-quantile-sketch
                 measure/make-wecdf
                 measure/make-wepdf
+                measure/map-distributions
+                measure/pinball-loss
                 measure/pointmass
                 measure/quantile
+                measure/quantile-doubles
+                measure/read-distributions
+                measure/sample-doubles
+                measure/score-doubles
                 measure/uniform-distribution
+                measure/wasserstein-distance
+                measure/wecdf-mixture
                 measure/wecdf-to-wepdf
-                measure/wepdf-to-wecdf)
+                measure/wepdf-mixture
+                measure/wepdf-to-wecdf
+                measure/write-distributions)
 ;;----------------------------------------------------------------
 ;; ranks
 ;;----------------------------------------------------------------
@@ -383,6 +404,8 @@
 ;;----------------------------------------------------------------
 ;; accumulators
 ;;----------------------------------------------------------------
+(pn/import-fn accumulators/exact-mean exact-mean-accumulator)
+(pn/import-fn accumulators/exact-sum exact-sum-accumulator)
 (pn/import-fn accumulators/mean mean-accumulator)
 (pn/import-fn accumulators/mssn mssn-accumulator)
 
@@ -1,7 +1,7 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
 (ns ^{:author "wahpenayo at gmail dot com" 
-      :date "2018-02-09"
+      :date "2026-10-18"
       :doc 
       "Generic versions of clojure functions.
        Some implemented with defmulti, some with defprotocol, 
@@ -31,8 +31,7 @@
   (:import [java.util ArrayList Arrays Collection Collections 
             HashMap IdentityHashMap Iterator List Map Map$Entry 
             NoSuchElementException RandomAccess Set]
-           [java.util.concurrent 
-            Executors Future ThreadLocalRandom]
+           [java.util.concurrent ThreadLocalRandom]
            [clojure.lang Counted IFn IPersistentMap 
             IPersistentCollection Seqable Sequential]
            [com.google.common.base Function Predicate]
@@ -41,7 +40,8 @@
             Multimap Multiset Ordering Sets Table Table$Cell]
            [com.google.common.primitives 
             Booleans Bytes Chars Doubles Floats Ints Longs 
-            Shorts]))
+            Shorts]
+           [zana.java.concurrent Parallel]))
 ;;----------------------------------------------------------------
 ;; Accessing elements
 ;;----------------------------------------------------------------
@@ -980,95 +980,91 @@
 ;;----------------------------------------------------------------
 ;; concurrent mapping
 ;;----------------------------------------------------------------
-;; Looks like clojure functions are both Callable and Runnable,
-;; and ExecutorService treats them as Runnable (no return value).
-(defn- callable 
-  (^java.util.concurrent.Callable [f x] 
-    (assert (ifn? f) (print-str "Not a function:" f))
-    (reify java.util.concurrent.Callable 
-      (call [this] (f x))))
-  (^java.util.concurrent.Callable [f x0 x1] 
+;; All on shared pools (zana.java.concurrent.Parallel): fork/join
+;; range splitting into a few chunks per thread, rather than a new
+;; thread pool and a task per element on every call.
+;; Inputs are realized into arrays first. As with clojure.core/map, several
+;; inputs stop at the shortest, so an infinite seq may be mapped with finite
+;; ones; at least one input must be finite.
+
+;; Long/MAX_VALUE if unknown without realizing things, eg lazy seqs,
+;; iterators.
+(defn- known-size ^long [things]
+  (cond (nil? things) 0
+        (counted? things) (count things)
+        (and (instance? Collection things)
+             (not (instance? Sequential things))) (.size ^Collection things)
+        (.isArray (class things)) (java.lang.reflect.Array/getLength things)
+        :else Long/MAX_VALUE))
+
+(defn- elements
+  (^objects [things] (elements things Long/MAX_VALUE))
+  (^objects [things ^long n]
+    (if (and (instance? Collection things) (<= (known-size things) n))
+      (.toArray ^Collection things)
+      (let [a (ArrayList.)
+            it (iterator things)]
+        (while (and (< (.size a) n) (.hasNext it)) (.add a (.next it)))
+        (.toArray a)))))
+
+;; the first m elements of each input, m the length of the shortest; in
+;; lockstep if no length is known in advance.
+(defn- aligned [thingss]
+  (let [m (long (reduce (fn [^long m things] (Math/min m (known-size things)))
+                        Long/MAX_VALUE thingss))]
+    (if (< m Long/MAX_VALUE)
+      (mapv #(elements % m) thingss)
+      (let [^objects its (into-array Iterator (mapv iterator thingss))
+            as (mapv (fn [_] (ArrayList.)) thingss)]
+        (while (clojure.core/every? #(.hasNext ^Iterator %) its)
+          (dotimes [i (alength its)]
+            (.add ^ArrayList (as i) (.next ^Iterator (aget its i)))))
+        (mapv #(.toArray ^ArrayList %) as)))))
+
+(defn- results ^java.util.List [^objects a]
+  (Collections/unmodifiableList (Arrays/asList a)))
+
+(defn parallelism
+  "The number of threads used by [[pmap]], etc. Defaults to the
+   <code>zana.parallelism</code> system property, if set, 
+   otherwise the number of available processors. 
+   <code>(parallelism n)</code> changes it."
+  (^long [] (Parallel/parallelism))
+  ([^long n] (Parallel/setParallelism (int n))))
+;;----------------------------------------------------------------
+(defn nmap-doubles
+  "Like [[nmap]] with output in a <code>double[]</code>. 
+   No boxing if <code>f</code> is primitive 
+   (eg <code>(fn ^double [x] ...)</code>)."
+  (^doubles [^long n f things]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (reify java.util.concurrent.Callable 
-      (call [this] (f x0 x1))))
-  (^java.util.concurrent.Callable [f x0 x1 x2] 
+    (Parallel/mapDoubles (int n) f (elements things)))
+  (^doubles [^long n f things0 things1]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (reify java.util.concurrent.Callable 
-      (call [this] (f x0 x1 x2))))
-  (^java.util.concurrent.Callable [f x0 x1 x2 & args] 
+    (let [[a0 a1] (aligned [things0 things1])]
+      (Parallel/mapDoubles (int n) f ^objects a0 ^objects a1)))
+  (^doubles [n f things0 things1 things2]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (reify java.util.concurrent.Callable 
-      (call [this] (apply f x0 x1 x2 args)))))
-;;----------------------------------------------------------------
-;; TODO: how expensive does f have to be for this to be faster 
-;; than a serial loop
-(defn nmap-doubles
-  "Like [[nmap]] with output in a <code>double[]</code>."
-  (^doubles [^long n ^clojure.lang.IFn$OD f things]
-    (let [pool (Executors/newFixedThreadPool (int n))
-          tasks (map #(callable f %) things)
-          b (double-array (count things))
-          futures (iterator (.invokeAll pool tasks))]
-      (try
-        (loop [i 0]
-          (when (.hasNext futures)
-            (let [^Future future (.next futures)]
-              (aset b i (double (.get future))))
-            (recur (inc i))))
-        (finally (.shutdown pool)))
-      b))
-  (^doubles [^long n ^clojure.lang.IFn$OD f things0 things1]
-    (let [pool (Executors/newFixedThreadPool (int n))
-          tasks (map (fn [x0 x1] (callable f x0 x1)) 
-                     things0 things1)
-          b (double-array (min (count things0) (count things1)))
-          futures (iterator (.invokeAll pool tasks))]
-      (try
-        (loop [i 0]
-          (when (.hasNext futures)
-            (let [^Future future (.next futures)]
-              (aset b i (double (.get future))))
-            (recur (inc i))))
-        (finally (.shutdown pool)))
-      b))
-  (^doubles [n ^clojure.lang.IFn$OD f things0 things1 things2]
-    (let [pool (Executors/newFixedThreadPool (int n))
-          tasks (map (fn [x0 x1 x2] (callable f x0 x1 x2))
-                     things0 things1 things2)
-          b (double-array (min (count things0) 
-                               (count things1) 
-                               (count things2)))
-          futures (iterator (.invokeAll pool tasks))]
-      (try
-        (loop [i 0]
-          (when (.hasNext futures)
-            (let [^Future future (.next futures)]
-              (aset b i (double (.get future))))
-            (recur (inc i))))
-        (finally (.shutdown pool)))
-      b)))
+    (let [[a0 a1 a2] (aligned [things0 things1 things2])]
+      (Parallel/mapDoubles (int n) f ^objects a0 ^objects a1 ^objects a2))))
 ;;----------------------------------------------------------------
 (defn pmap-doubles
   "Like [[pmap]] with output in a <code>double[]</code>."
-  (^doubles [^clojure.lang.IFn$OD f things]
-    (assert (ifn? f) (print-str "Not a function:" f))
-    (nmap-doubles (.availableProcessors (Runtime/getRuntime)) 
-                  f things))
-  (^doubles [^clojure.lang.IFn$OD f things0 things1]
-    (assert (ifn? f) (print-str "Not a function:" f))
-    (nmap-doubles (.availableProcessors (Runtime/getRuntime))
-                  f things0 things1))
-  (^doubles [^clojure.lang.IFn$OD f things0 things1 things2]
-    (assert (ifn? f) (print-str "Not a function:" f))
-    (nmap-doubles (.availableProcessors (Runtime/getRuntime)) 
-                  f things0 things1 things2)))
+  (^doubles [f things]
+    (nmap-doubles (Parallel/parallelism) f things))
+  (^doubles [f things0 things1]
+    (nmap-doubles (Parallel/parallelism) f things0 things1))
+  (^doubles [f things0 things1 things2]
+    (nmap-doubles (Parallel/parallelism) f things0 things1 things2)))
 ;;----------------------------------------------------------------
 ;; TODO: nmap, pmap to one generic function
 (defmulti nmap 
   "Apply a function to each 'element' of some data structure, 
    returning a structure similar to the first argument. Use <
    code>n</code> threads to evaluate the function calls in 
-   parallel."
+   parallel. The inputs are realized first; given several, the 
+   result is as long as the shortest, which must be finite, so 
+   infinite seqs may be mapped along with finite ones."
   {:arglists '( [n f things0] 
                 [n f things0 things1] 
                 [n f things0 things1 things2])}
@@ -1080,66 +1076,48 @@
     ([n f things0 things1 things2] 
       [(class f) (class things0) (class things1) (class things2)])))
 
-(defn- nmap-collect-results 
-  ^Iterable [^long n ^java.util.Collection tasks]
-  (let [pool (Executors/newFixedThreadPool (int n))
-        a (ArrayList. (count tasks))]
-    (try
-      (mapc #(.add a (.get ^Future %)) (.invokeAll pool tasks))
-      (finally (.shutdown pool)))
-    (Collections/unmodifiableList a)))
-
-(defmethod nmap [IFn Iterator] [n ^IFn f ^Iterator things]
-  (nmap-collect-results n (map #(callable f %) things)))
-
-(defmethod nmap [IFn Object] [n ^IFn f ^Object things]
-  (nmap n f (iterator things)))
-
-(defmethod nmap 
-  [IFn Iterator Iterator] 
-  [^long n ^IFn f ^Iterator things0 ^Iterator things1]
-  (nmap-collect-results 
-    n (map (fn [x0 x1] (callable f x0 x1)) things0 things1)))
+(defmethod nmap [IFn Object] [^long n ^IFn f ^Object things]
+  (results (Parallel/map (int n) f (elements things))))
 
 (defmethod nmap 
   [IFn Object Object] 
   [^long n ^IFn f ^Object things0 ^Object things1]
-  (nmap n f (iterator things0) (iterator things1)))
-
-(defmethod nmap 
-  [IFn Iterator Iterator Iterator] 
-  [n ^IFn f ^Iterator i0 ^Iterator i1 ^Iterator i2]
-  (nmap-collect-results 
-    (long n) (map (fn [x0 x1 x2] (callable f x0 x1 x2)) 
-                  i0 i1 i2)))
+  (let [[a0 a1] (aligned [things0 things1])]
+    (results (Parallel/map (int n) f ^objects a0 ^objects a1))))
 
 (defmethod nmap 
   [IFn Object Object Object] 
   [n ^IFn f ^Object things0 ^Object things1 ^Object things2]
-  (nmap n f 
-        (iterator things0) (iterator things1) (iterator things2)))
+  (let [[a0 a1 a2] (aligned [things0 things1 things2])]
+    (results (Parallel/map (int n) f ^objects a0 ^objects a1 ^objects a2))))
 ;;----------------------------------------------------------------
 (defn pmap
   
-  "Eager version of <code>clojure.core/pmap</code> that uses as 
-   many threads as there are
+  "Eager version of <code>clojure.core/pmap</code> that uses 
+   [[parallelism]] threads, by default as many as there are
    <a href=\"https://docs.oracle.com/javase/8/docs/api/java/lang/Runtime.html#availableProcessors--\">
-   available processors."
+   available processors</a>."
   
   (^Iterable [f things]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (nmap (.availableProcessors (Runtime/getRuntime)) f 
-          things))
+    (nmap (Parallel/parallelism) f things))
   
   (^Iterable [f things0 things1]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (nmap (.availableProcessors (Runtime/getRuntime)) f 
-          things0 things1))
+    (nmap (Parallel/parallelism) f things0 things1))
   
   (^Iterable [f things0 things1 things2]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (nmap (.availableProcessors (Runtime/getRuntime)) f 
-          things0 things1 things2)))
+    (nmap (Parallel/parallelism) f things0 things1 things2)))
+;;----------------------------------------------------------------
+(defn pmap-blocking
+  "Like [[pmap]], for functions that spend most of their time
+   blocked (eg on I/O), rather than computing: one task per 
+   element, on virtual threads if the JVM has them (JDK 21+), 
+   otherwise on a shared cached thread pool."
+  ^Iterable [f things]
+  (assert (ifn? f) (print-str "Not a function:" f))
+  (results (Parallel/mapBlocking f (elements things))))
 ;;----------------------------------------------------------------
 ;; concurrent side effects; danger, danger!
 ;;----------------------------------------------------------------
@@ -1148,24 +1126,12 @@
    <code>nil</code>."
   ([^long n f things]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (let [pool (Executors/newFixedThreadPool (int n))
-          tasks (mapv #(callable f %) things)]
-      (assert (every? #(instance? Callable %) tasks))
-      (assert (every? #(not (instance? Runnable %)) tasks))
-      (try
-        (doseq [^Future future (.invokeAll pool tasks)] 
-          (.get future))
-        (finally (.shutdown pool))))
+    (Parallel/each (int n) f (elements things))
     nil)
   ([^long n f things0 things1]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (let [pool (Executors/newFixedThreadPool (int n))
-          tasks (mapv (fn [x0 x1] (callable f x0 x1)) 
-                      things0 things1)]
-      (try
-        (doseq [^Future future (.invokeAll pool tasks)] 
-          (.get future))
-        (finally (.shutdown pool))))
+    (let [[a0 a1] (aligned [things0 things1])]
+      (Parallel/each (int n) f ^objects a0 ^objects a1))
     nil))
 ;;----------------------------------------------------------------
 ;; TODO: move somewhere more appropriate
@@ -1177,12 +1143,10 @@
    <code>nil</code>."
   ([f things0 things1]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (nmapc (.availableProcessors (Runtime/getRuntime)) f 
-           things0 things1))
+    (nmapc (Parallel/parallelism) f things0 things1))
   ([f things]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (nmapc (.availableProcessors (Runtime/getRuntime)) f 
-           things)))
+    (nmapc (Parallel/parallelism) f things)))
 ;;----------------------------------------------------------------
 ;; mapcat and friends
 ;;----------------------------------------------------------------
@@ -1270,21 +1234,16 @@
   "A combination of [[nmap]] and [[mapcat]]."
   ([^long n f things]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (let [pool (Executors/newFixedThreadPool (int n))
-          tasks (mapv #(callable f %) things)
-          b (ArrayList.)]
-      (try
-        (doseq [^Future future (.invokeAll pool tasks)]
-          (when-let [^Iterable x (.get future)] x (.addAll b x)))
-        (finally (.shutdown pool)))
+    (let [b (ArrayList.)]
+      (doseq [x (Parallel/map (int n) f (elements things))]
+        (when x (add-all! b x)))
       (Collections/unmodifiableList b))))
 ;;----------------------------------------------------------------
 (defn pmapcat
   "A combination of [[pmap]] and [[mapcat]]."
   ([f things]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (nmapcat 
-      (.availableProcessors (Runtime/getRuntime)) f things)))
+    (nmapcat (Parallel/parallelism) f things)))
 ;;----------------------------------------------------------------
 ;; collection IO
 ;;----------------------------------------------------------------
@@ -1,7 +1,7 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
 (ns ^{:author "John Alan McDonald" 
-      :date "2017-10-21"
+      :date "2026-10-18"
       :doc "Eager versions of filter, map, reduce, etc." }
 
     zana.collections.guava
@@ -17,10 +17,11 @@
            [com.google.common.collect ImmutableList Iterables Iterators Multimap 
             Ordering Sets Table]
            [com.google.common.primitives Doubles]
-           [clojure.lang IFn]
+           [clojure.lang IFn IFn$OD]
            [java.util ArrayList Collection Collections HashMap IdentityHashMap 
             Iterator List Map Set]
-           [java.util.concurrent Executors Future]))
+           [java.util.concurrent Executors Future]
+           [zana.java.comparator SortBy]))
 ;;------------------------------------------------------------------------------
 ;; TODO: rename to zana.collections.eager
 ;; TODO: break up into list, map, set, table, ..., namespaces
@@ -480,12 +481,49 @@
 (defn sort-by
   "Sort <code>things</code> by the value of <code>f</code>,
    according to an instance of <code>com.google.common.collect.Ordering</code>,
-   defaulting to natural ordering for <code>Comparable</code>s
-   and lexicographc ordering of <code>toString</code> output otherwise."
-  (^Iterable [^Ordering ordering f ^Iterable things]
+   defaulting to natural ordering.
+   <br>
+   Stable. <code>f</code> is called once per element, not per comparison; a 
+   primitive <code>f</code> (eg <code>(fn ^double [x] ...)</code>) with
+   natural ordering sorts the <code>double</code> keys without boxing.
+   <br>
+   <code>f</code> is called in the calling thread, unless a number of 
+   threads <code>n</code> greater than 1 is given, in which case large 
+   inputs have <code>f</code> called from <code>n</code> threads, so it 
+   must be thread safe, and not depend on dynamic bindings.
+   See <code>zana.java.comparator.SortBy</code>."
+  (^Iterable [^long n ^Ordering ordering f ^Iterable things]
     (assert (ifn? f) (print-str "Not a function:" f))
-    (sort (.onResultOf ordering (function f)) things))
+    (if (<= (g/count things) 1)
+      (ImmutableList/copyOf things)
+      (let [a (Iterables/toArray things Object)]
+        (ImmutableList/copyOf
+          ^objects (if (and (identical? natural-ordering ordering) 
+                            (instance? IFn$OD f))
+                     (SortBy/sort (int n) ^IFn$OD f a)
+                     (SortBy/sort (int n) ordering ^IFn f a))))))
+  (^Iterable [^Ordering ordering f ^Iterable things]
+    (sort-by 1 ordering f things))
   (^Iterable [f ^Iterable things]
-    (assert (ifn? f) (print-str "Not a function:" f))
-    (sort-by natural-ordering f things)))
+    (sort-by 1 natural-ordering f things)))
+
+(defn sort-by-keys
+  "Stable sort of <code>things</code> lexicographically by the values of
+   a sequence of <code>double</code> valued functions <code>zs</code>:
+   by the first, ties broken by the second, and so on.
+   Each function is called once per element, in the calling thread, 
+   unless a number of threads <code>n</code> greater than 1 is given, in 
+   which case large inputs have the <code>zs</code> called from 
+   <code>n</code> threads, so they must be thread safe, and not depend on 
+   dynamic bindings."
+  (^Iterable [^long n zs ^Iterable things]
+    (assert (clojure.core/every? #(instance? IFn$OD %) zs)
+            (print-str "Not all double valued functions:" zs))
+    (if (<= (g/count things) 1)
+      (ImmutableList/copyOf things)
+      (ImmutableList/copyOf
+        (SortBy/sort (int n) ^"[Lclojure.lang.IFn$OD;" (into-array IFn$OD zs)
+                     (Iterables/toArray things Object)))))
+  (^Iterable [zs ^Iterable things]
+    (sort-by-keys 1 zs things)))
 ;;------------------------------------------------------------------------------
@@ -1,6 +1,6 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
-(ns ^{:author "John Alan McDonald" :date "2016-09-16"
+(ns ^{:author "John Alan McDonald" :date "2026-10-18"
       :doc "Data definition macro utilities." }
     
     zana.data.binaryio
@@ -10,7 +10,8 @@
             [zana.commons.core :as cc]
             [zana.io.gz :as gz]
             [zana.collections.generic :as g]
-            [zana.data.reflect :as r]))
+            [zana.data.reflect :as r])
+  (:import [zana.java.data ColumnCodec]))
 ;;------------------------------------------------------------------------------
 ;; Binary Output
 ;;------------------------------------------------------------------------------
@@ -172,4 +173,215 @@
                  (.add ~b ~r)
                  (recur)))
              (.build ~b)))))))
-;;------------------------------------------------------------------------------
\ No newline at end of file
+;;------------------------------------------------------------------------------
+;;------------------------------------------------------------------------------
+;; Columnar binary files
+;;------------------------------------------------------------------------------
+;; A header (magic number, version, classname, and the schema: field names and
+;; types, recursively), then blocks of up to ColumnCodec/BLOCK records: the
+;; record count followed by one length-prefixed chunk per field, so readers can
+;; skip fields they don't need. A record count of 0 ends the file.
+;; See zana.java.data.ColumnCodec for the chunk encodings.
+
+(defn- columnar-kind [field]
+  (let [hint (:tag (meta field))
+        c (r/type field)]
+    (case hint
+      (boolean byte short char int long float double) hint
+      (cond (r/datum-class? c) :datum
+            (= java.time.LocalDate c) :date
+            (= java.time.LocalDateTime c) :date-time
+            :else :object))))
+;;------------------------------------------------------------------------------
+(defn columnar-schema [fields]
+  `(def ~(with-meta 'columnar-schema {:no-doc true})
+     ~(mapv (fn [field]
+              [(str field)
+               (if (= :datum (columnar-kind field))
+                 (r/qualified-symbol (r/type field) "columnar-schema")
+                 (.getName (r/type field)))])
+            fields)))
+;;------------------------------------------------------------------------------
+(defn- columnar-field-writer [classname field rows n out compress]
+  (let [d (with-meta (gensym "d") {:tag (r/munge classname)})
+        i (gensym "i")
+        a (gensym "a")
+        access `(~(r/accessor field) ~d)
+        fill (fn [tag make value]
+               `(let [~(with-meta a {:tag tag}) (~make ~n)]
+                  (dotimes [~i ~n]
+                    (let [~d (.get ~rows ~i)] (aset ~a ~i ~value)))
+                  ~a))
+        chunk (fn [encode array]
+                `(ColumnCodec/writeChunk ~out (~encode ~array) ~compress))]
+    (case (columnar-kind field)
+      boolean (chunk `ColumnCodec/encodeBooleans
+                     (fill 'booleans `boolean-array `(boolean ~access)))
+      byte (chunk `ColumnCodec/encodeBytes
+                  (fill 'bytes `byte-array `(byte ~access)))
+      (short int long) (chunk `ColumnCodec/encodeLongs
+                              (fill 'longs `long-array `(long ~access)))
+      char (chunk `ColumnCodec/encodeLongs
+                  (fill 'longs `long-array `(long (int ~access))))
+      float (chunk `ColumnCodec/encodeFloats
+                   (fill 'floats `float-array `(float ~access)))
+      double (chunk `ColumnCodec/encodeDoubles
+                    (fill 'doubles `double-array `(double ~access)))
+      :date (chunk `ColumnCodec/encodeLocalDates
+                   (fill 'objects `object-array access))
+      :date-time (chunk `ColumnCodec/encodeLocalDateTimes
+                        (fill 'objects `object-array access))
+      :object (chunk `ColumnCodec/encodeObjects
+                     (fill 'objects `object-array access))
+      :datum `(ColumnCodec/writeNested
+                ~out
+                ~(fill 'objects `object-array access)
+                ~(r/qualified-symbol (r/type field) "write-columnar-block")
+                ~compress))))
+;;------------------------------------------------------------------------------
+(defn columnar-block-writer [classname fields]
+  (let [out (with-meta (gensym "out") {:tag 'java.io.DataOutput})
+        rows (with-meta (gensym "rows") {:tag 'java.util.List})
+        compress (gensym "compress")
+        c (gensym "c")
+        n (gensym "n")]
+    `(defn ~(with-meta 'write-columnar-block {:no-doc true})
+       ~(str "Write one chunk per field of the instances of <code>"
+             classname "</code> in <code>" rows "</code>.")
+       [~out ~rows ~compress]
+       (let [~n (.size ~rows)
+             ~c (boolean ~compress)]
+         ~@(map #(columnar-field-writer classname % rows n out c) fields)
+         nil))))
+;;------------------------------------------------------------------------------
+(defn columnar-file-writer [classname]
+  (let [rs (gensym "rs")
+        f (gensym "f")
+        compress (gensym "compress")
+        out (with-meta (gensym "out") {:tag 'java.io.DataOutputStream})
+        block (gensym "block")
+        v (with-meta (gensym "v") {:tag 'java.util.List})]
+    `(defn ~'write-columnar-file
+       ~(str "Write the instances of <code>" classname
+             "</code> in <code>" rs "</code> to the file <code>" f
+             "</code> in blocks of columns, so that it can later be read,"
+             " in whole or in part, with [[read-columnar-file]]."
+             " Strings and other objects are dictionary encoded per block,"
+             " nulls are a bitmap, and integers and dates are varint encoded"
+             " differences. If <code>" compress "</code>, each column chunk"
+             " is also deflated, where that makes it smaller."
+             " Usually several times smaller, and much faster to read, than"
+             " [[write-binary-file]].")
+       ([~rs ~f] (~'write-columnar-file ~rs ~f false))
+       ([~rs ~f ~compress]
+         (clojure.java.io/make-parents ~f)
+         (with-open [~out (java.io.DataOutputStream.
+                            (java.io.BufferedOutputStream.
+                              (zana.io.gz/output-stream ~f)))]
+           (ColumnCodec/writeHeader
+             ~out ~(str (r/munge classname)) (pr-str ~'columnar-schema))
+           (doseq [~block (partition-all ColumnCodec/BLOCK ~rs)]
+             (let [~v (vec ~block)]
+               (.writeInt ~out (.size ~v))
+               (~'write-columnar-block ~out ~v ~compress)))
+           (.writeInt ~out 0))))))
+;;------------------------------------------------------------------------------
+(defn- columnar-field-reader [field in n selected]
+  (let [k (keyword (str field))
+        kind (columnar-kind field)
+        chunk `(ColumnCodec/readChunk ~in)
+        decode (case kind
+                 boolean `(ColumnCodec/decodeBooleans ~chunk ~n)
+                 byte `(ColumnCodec/decodeBytes ~chunk ~n)
+                 (short int long char) `(ColumnCodec/decodeLongs ~chunk ~n)
+                 float `(ColumnCodec/decodeFloats ~chunk ~n)
+                 double `(ColumnCodec/decodeDoubles ~chunk ~n)
+                 :date `(ColumnCodec/decodeLocalDates ~chunk ~n)
+                 :date-time `(ColumnCodec/decodeLocalDateTimes ~chunk ~n)
+                 :object `(ColumnCodec/decodeObjects ~chunk ~n)
+                 :datum `(ColumnCodec/readNested
+                           ~chunk ~n
+                           ~(r/qualified-symbol
+                              (r/type field) "read-columnar-block")))]
+    `(if (or (nil? ~selected) (contains? ~selected ~k))
+       ~decode
+       (do (ColumnCodec/skipChunk ~in) nil))))
+
+(defn- columnar-column-symbol [field]
+  (with-meta (gensym (str field "-column"))
+    {:tag (case (columnar-kind field)
+            boolean 'booleans
+            byte 'bytes
+            (short int long char) 'longs
+            float 'floats
+            double 'doubles
+            'objects)}))
+
+;; default values for skipped fields: false, 0, NaN, nil
+(defn- columnar-field-value [field a i]
+  (case (columnar-kind field)
+    boolean `(if ~a (aget ~a ~i) false)
+    byte `(if ~a (aget ~a ~i) (byte 0))
+    short `(short (if ~a (aget ~a ~i) 0))
+    int `(int (if ~a (aget ~a ~i) 0))
+    long `(if ~a (aget ~a ~i) 0)
+    char `(char (if ~a (aget ~a ~i) 0))
+    float `(if ~a (aget ~a ~i) Float/NaN)
+    double `(if ~a (aget ~a ~i) Double/NaN)
+    `(when ~a (aget ~a ~i))))
+;;------------------------------------------------------------------------------
+(defn columnar-block-reader [classname fields]
+  (let [in (with-meta (gensym "in") {:tag 'java.io.DataInput})
+        n0 (gensym "n")
+        n (gensym "n")
+        selected (gensym "fields")
+        rows (with-meta (gensym "rows") {:tag 'objects})
+        i (gensym "i")
+        columns (mapv columnar-column-symbol fields)]
+    `(defn ~(with-meta 'read-columnar-block {:no-doc true})
+       ~(str "Read <code>" n0 "</code> instances of <code>" classname
+             "</code>, written with [[write-columnar-block]], decoding"
+             " only the fields whose keywords are in the set <code>"
+             selected "</code>, or all fields if it's <code>nil</code>.")
+       ~(with-meta [in n0 selected] {:tag 'objects})
+       (let [~n (int ~n0)
+             ~@(interleave
+                 columns
+                 (map #(columnar-field-reader % in n selected) fields))
+             ~rows (object-array ~n)]
+         (dotimes [~i ~n]
+           (aset ~rows ~i
+                 (~(r/constructor classname)
+                   ~@(map #(columnar-field-value %1 %2 i) fields columns))))
+         ~rows))))
+;;------------------------------------------------------------------------------
+(defn columnar-file-reader [classname]
+  (let [f (gensym "f")
+        selected (gensym "fields")
+        in (with-meta (gensym "in") {:tag 'java.io.DataInputStream})
+        b (with-meta (gensym "b")
+            {:tag 'com.google.common.collect.ImmutableList$Builder})
+        n (gensym "n")]
+    `(defn ~'read-columnar-file
+       ~(str "Read a list of instances of <code>" classname
+             "</code> from the file <code>" f "</code>, written with"
+             " [[write-columnar-file]]. If <code>" selected "</code>, a set"
+             " of field keywords, is supplied, the other columns are skipped"
+             " without decoding, and those fields are <code>false</code>,"
+             " <code>0</code>, <code>NaN</code> or <code>nil</code>.")
+       ([~f] (~'read-columnar-file ~f nil))
+       ([~f ~selected]
+         (let [~b (com.google.common.collect.ImmutableList/builder)]
+           (with-open [~in (java.io.DataInputStream.
+                             (java.io.BufferedInputStream.
+                               (zana.io.gz/input-stream ~f)))]
+             (ColumnCodec/readHeader
+               ~in ~(str (r/munge classname)) (pr-str ~'columnar-schema) ~f)
+             (loop []
+               (let [~n (.readInt ~in)]
+                 (when (< 0 ~n)
+                   (.addAll ~b (java.util.Arrays/asList
+                                 (~'read-columnar-block ~in ~n ~selected)))
+                   (recur)))))
+           (.build ~b))))))
+;;------------------------------------------------------------------------------
@@ -0,0 +1,158 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com"
+      :since "2026-10-18"
+      :date "2026-10-18"
+      :doc "Data definition macro utilities: columnar storage." }
+
+    zana.data.columns
+
+  (:require [clojure.java.io :as io]
+            [zana.data.reflect :as r])
+  (:import [zana.java.data Column ColumnStore]))
+;;------------------------------------------------------------------------------
+;; Each field becomes a Column (primitive or dictionary encoded Object), or,
+;; for fields hinted with another datum class, a nested ColumnStore.
+;; Records are only created on demand, by ColumnStore.get.
+;; nil records, eg nil nested datums, are marked in the store's null mask,
+;; and leave zeros (code -1 for Objects) in the field columns.
+;;------------------------------------------------------------------------------
+(defn- kind [field]
+  (let [hint (:tag (meta field))]
+    (case hint
+      (boolean byte short char int long float double) hint
+      (if (r/datum-class? (r/type field)) :datum :object))))
+
+(defn- method [prefix field]
+  (let [k (kind field)]
+    (symbol
+      (str "." prefix
+           (if (= :object k)
+             "Object"
+             (let [s (name k)]
+               (str (.toUpperCase (subs s 0 1)) (subs s 1))))))))
+;;------------------------------------------------------------------------------
+(defn- column-symbol [field]
+  (let [k (kind field)]
+    (with-meta (gensym (str field "-column"))
+      {:tag (if (= :datum k) 'zana.java.data.ColumnStore 'zana.java.data.Column)})))
+;;------------------------------------------------------------------------------
+(defn- names [fields] `(into-array String ~(mapv str fields)))
+;;------------------------------------------------------------------------------
+;; fn of [store ^long i] returning the ith record, closing over the column
+;; locals.
+
+(defn- row-fn [classname fields columns]
+  (let [s (gensym "store")
+        i (gensym "i")
+        arg (fn [field column]
+              (let [c (r/type field)
+                    k (kind field)
+                    call (if (= :datum k)
+                           `(.get ~column (int ~i))
+                           `(~(method "get" field) ~column (int ~i)))]
+                (if (#{:datum :object} k)
+                  (with-meta call {:tag (symbol (.getName ^Class c))})
+                  call)))]
+    `(fn [~s ~(with-meta i {:tag 'long})]
+       (~(r/constructor classname) ~@(map arg fields columns)))))
+;;------------------------------------------------------------------------------
+(defn- column-builder [classname field data n]
+  (let [d (with-meta (gensym "d") {:tag (r/munge classname)})
+        i (gensym "i")
+        a (gensym "a")
+        c (with-meta (gensym "c") {:tag 'zana.java.data.Column})
+        access `(~(r/accessor field) ~d)]
+    (case (kind field)
+      :datum `(let [~(with-meta a {:tag 'java.util.ArrayList})
+                    (java.util.ArrayList. (int ~n))]
+                (dotimes [~i ~n]
+                  (let [~d (.get ~data ~i)] (.add ~a (when ~d ~access))))
+                (~(r/qualified-symbol (r/type field) "column-store") ~a))
+      :object `(let [~(with-meta a {:tag 'objects}) (object-array ~n)]
+                 (dotimes [~i ~n]
+                   (let [~d (.get ~data ~i)] (when ~d (aset ~a ~i ~access))))
+                 (Column/dictionary ~a))
+      ;; else primitive
+      `(let [~c (Column/allocate ~(str (kind field)) (int ~n))]
+         (dotimes [~i ~n]
+           (let [~d (.get ~data ~i)]
+             (when ~d (~(method "put" field) ~c ~i ~access))))
+         ~c))))
+;;------------------------------------------------------------------------------
+(defn column-store-builder [classname fields]
+  (let [data0 (gensym "data")
+        data (with-meta (gensym "data") {:tag 'java.util.List})
+        n (gensym "n")
+        columns (mapv column-symbol fields)]
+    `(defn ~'column-store
+       ~(str "Return a <code>zana.java.data.ColumnStore</code> holding the"
+             " fields of the instances of <code>" classname
+             "</code> in <code>" data0
+             "</code> in direct (off heap) buffers: one column per primitive"
+             " field, a dictionary encoded column per <code>Object</code>"
+             " field, and a nested store per datum field."
+             " <code>nil</code> elements, and <code>nil</code> datum"
+             " fields, are kept in a null mask."
+             " The store is a read-only <code>java.util.List</code> whose"
+             " elements are created on demand.")
+       ~(with-meta [data0] {:tag 'zana.java.data.ColumnStore})
+       (let [~data (if (instance? java.util.RandomAccess ~data0)
+                     ~data0
+                     (vec ~data0))
+             ~n (.size ~data)
+             ~@(interleave
+                 columns
+                 (map #(column-builder classname % data n) fields))]
+         (ColumnStore.
+           (int ~n)
+           ~(names fields)
+           (object-array ~columns)
+           (ColumnStore/nulls ~data)
+           ~(row-fn classname fields columns))))))
+;;------------------------------------------------------------------------------
+(defn column-store-writer [classname fields]
+  (let [data (gensym "data")
+        f (gensym "f")
+        s (with-meta (gensym "s") {:tag 'zana.java.data.ColumnStore})]
+    `(defn ~'write-column-store
+       ~(str "Write the instances of <code>" classname "</code> in <code>"
+             data "</code> (a collection, or a store returned by"
+             " [[column-store]] or [[read-column-store]]) to the directory"
+             " <code>" f "</code>, so they can be memory mapped with"
+             " [[read-column-store]]. Returns the store.")
+       ~(with-meta [data f] {:tag 'zana.java.data.ColumnStore})
+       (let [~s (if (instance? ColumnStore ~data) ~data (~'column-store ~data))]
+         (assert (= ~(mapv str fields) (vec (.names ~s)))
+                 (str "Not a store of " ~(str classname) ": "
+                      (vec (.names ~s))))
+         (.write ~s (io/file ~f))
+         ~s))))
+;;------------------------------------------------------------------------------
+(defn- column-reader [field f]
+  (if (= :datum (kind field))
+    `(~(r/qualified-symbol (r/type field) "read-column-store")
+       (java.io.File. ~f ~(str field)))
+    `(Column/map (java.io.File. ~f ~(str field ".col")))))
+
+(defn column-store-reader [classname fields]
+  (let [f0 (gensym "f")
+        f (with-meta (gensym "f") {:tag 'java.io.File})
+        n (gensym "n")
+        columns (mapv column-symbol fields)]
+    `(defn ~'read-column-store
+       ~(str "Memory map the directory <code>" f0 "</code>, written with"
+             " [[write-column-store]], as a read-only"
+             " <code>java.util.List</code> of <code>" classname
+             "</code>, whose elements are created on demand.")
+       ~(with-meta [f0] {:tag 'zana.java.data.ColumnStore})
+       (let [~f (io/file ~f0)
+             ~n (ColumnStore/readSize ~f ~(names fields))
+             ~@(interleave columns (map #(column-reader % f) fields))]
+         (ColumnStore.
+           (int ~n)
+           ~(names fields)
+           (object-array ~columns)
+           (ColumnStore/readNulls ~f)
+           ~(row-fn classname fields columns))))))
+;;------------------------------------------------------------------------------
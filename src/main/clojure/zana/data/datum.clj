@@ -1,6 +1,6 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
-(ns ^{:author "John Alan McDonald" :date "2016-09-06"
+(ns ^{:author "John Alan McDonald" :date "2026-10-18"
       :doc "Syntatic sugar for record type definition.
             Note: one per namespace; some names are reserved.
             Best practice is one datum and a small number of related defs
@@ -17,19 +17,22 @@
             [zana.data.deftype :as deftype]
             [zana.data.textin :as textin]
             [zana.data.textout :as textout]
-            [zana.data.binaryio :as binaryio]))
+            [zana.data.binaryio :as binaryio]
+            [zana.data.columns :as columns]))
 ;;------------------------------------------------------------------------------
 ;; TODO: generate equals? function, for cases where identity semantics 
 ;; isn't right.
 ;;------------------------------------------------------------------------------
 (defn archetyper
-  "Return a closure containing a map used to de-dupe its argument."
+  "Return a closure containing a map used to de-dupe its argument.
+   Thread safe, so it can be shared by parallel parsers."
   ([]
-    (let [canon (java.util.HashMap.)]
+    (let [canon (java.util.concurrent.ConcurrentHashMap.)]
       (fn [item]
-        (or (.get ^java.util.Map canon item)
-            (.put ^java.util.Map canon item item)
-            item)))))
+        (when item
+          (or (.get ^java.util.concurrent.ConcurrentMap canon item)
+              (.putIfAbsent ^java.util.concurrent.ConcurrentMap canon item item)
+              item))))))
 ;;------------------------------------------------------------------------------
 (defn- numerical? 
   [defn-expression]
@@ -213,6 +216,44 @@
    by repeatedly calling <code>read-binary</code>, using an internal temporary 
    <code>archetype</code> function.
    </li>
+   <li><code>(write-columnar-file ^Iterable data f [compress?])</code>
+   writes <code>data</code> to <code>f</code> as blocks of columns, after a
+   header holding the field names and types: bitmaps for booleans and nulls,
+   varint encoded differences for integers and dates, per-block dictionaries 
+   for strings and other objects, and, optionally, deflated column chunks.
+   Usually several times smaller, and faster to read, than
+   <code>write-binary-file</code>.
+   </li>
+   <li><code>(read-columnar-file f [fields])</code> reads a file written with
+   <code>write-columnar-file</code>. If given a set of field keywords, the 
+   other columns are skipped, rather than decoded, and those fields get
+   default values (<code>false</code>, <code>0</code>, <code>NaN</code>, or
+   <code>nil</code>).
+   </li>
+   </ul>
+   </dd>
+
+   <dt>functions for columnar storage</dt>
+   <dd>
+   <ul>
+   <li><code>(column-store ^Iterable data)</code> returns a
+   <code>zana.java.data.ColumnStore</code>: the fields of the elements of
+   <code>data</code> in direct (off heap) buffers, one primitive column per
+   primitive field, one dictionary encoded column per <code>Object</code>
+   field, and a nested store per datum valued field.
+   The store is a read-only <code>java.util.List</code>; <code>(.get store i)
+   </code> creates the <code>i</code>th datum on demand, so the usual accessor
+   and attribute functions work on its elements, but a large data set costs
+   no more heap than its dictionaries.
+   </li>
+   <li><code>(write-column-store data f)</code> writes a store (or a 
+   collection, via <code>column-store</code>) to the directory <code>f</code>,
+   a file per column.
+   </li>
+   <li><code>(read-column-store f)</code> memory maps a directory written with
+   <code>write-column-store</code>, which takes about as long as opening the
+   files, rather than parsing them.
+   </li>
    </ul>
    </dd>
     
@@ -388,5 +429,13 @@
        ~(binaryio/binary-object-writer name fields)
        ~@(binaryio/binary-file-writer name)
        ~(binaryio/binary-object-reader name fields)
-       ~@(binaryio/binary-file-reader name))))
+       ~@(binaryio/binary-file-reader name)
+       ~(binaryio/columnar-schema fields)
+       ~(binaryio/columnar-block-writer name fields)
+       ~(binaryio/columnar-file-writer name)
+       ~(binaryio/columnar-block-reader name fields)
+       ~(binaryio/columnar-file-reader name)
+       ~(columns/column-store-builder name fields)
+       ~(columns/column-store-writer name fields)
+       ~(columns/column-store-reader name fields))))
 ;;------------------------------------------------------------------------------
\ No newline at end of file
@@ -1,6 +1,6 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
-(ns ^{:author "John Alan McDonald" :date "2017-10-21"
+(ns ^{:author "John Alan McDonald" :date "2026-10-18"
       :doc "Text input." }
     
     zana.data.textin
@@ -10,7 +10,12 @@
             [zana.commons.core :as cc]
             [zana.io.gz :as gz]
             [zana.collections.generic :as g]
-            [zana.data.reflect :as r]))
+            [zana.data.reflect :as r])
+  (:import [java.io BufferedReader]
+           [java.util ArrayDeque ArrayList Collection Collections List]
+           [java.util.concurrent Callable ExecutionException ForkJoinPool
+            Future]
+           [zana.java.data LineTokens]))
 ;;------------------------------------------------------------------------------
 ;; Text Input
 ;;------------------------------------------------------------------------------
@@ -25,6 +30,21 @@
            (clojure.string/lower-case (str field)) "_" "-"))
        (r/qualified-symbol c "default-header-key")])))
 ;;------------------------------------------------------------------------------
+;; Lower case, drop anything but word chars and "-", and replace runs of
+;; whitespace or "_" by "-", with the patterns compiled once, rather than
+;; by String.replaceAll on every call.
+
+(defn- standardize-header-token [token]
+  `(.replaceAll
+     (.matcher 
+       ~(re-pattern "[\\s_]+")
+       (.replaceAll 
+         (.matcher 
+           ~(re-pattern "[^\\-\\w]+")
+           ^String (clojure.string/lower-case ~token))
+         ""))
+     "-"))
+;;------------------------------------------------------------------------------
 ;; Return a definition for a function that converts a sequence of header String 
 ;; tokens into a sequence of keys. The key for a non-Datum (non-recursive) field
 ;; is a Keyword. The key for a Datum field is a sequence of Keywords 
@@ -45,11 +65,7 @@
           `(let 
              [;; Assuming field names are lower case and have "-" not "_".
               ~standardize (fn ~'standardize ~(with-meta [arg] {:tag 'String})
-                             (.replaceAll
-                               (.replaceAll 
-                                 ^String (clojure.string/lower-case ~token) 
-                                 "[^\\-\\w]+" "")
-                               "[\\s_]+" "-"))
+                             ~(standardize-header-token token))
               ]
              (defn ~(with-meta 'default-header-key {:no-doc true}) 
                [~arg]
@@ -62,12 +78,7 @@
                    ~k))))
           `(defn ~(with-meta 'default-header-key {:no-doc true}) 
              [~arg]
-             (keyword 
-               (.replaceAll
-                 (.replaceAll 
-                   ^String (clojure.string/lower-case ~token) 
-                   "[^\\-\\w]+" "")
-                 "[\\s_]+" "-")))))))
+             (keyword ~(standardize-header-token token)))))))
 ;;------------------------------------------------------------------------------
 ;; return a function that takes a sequence of token strings and returns a tuple 
 ;; tree. A tuple is a hashmap where the keys are keyword versions of the datum's
@@ -215,6 +226,140 @@
              (println ~tuple)
              (throw ~throwable)))))))
 ;;------------------------------------------------------------------------------
+;;------------------------------------------------------------------------------
+;; Parallel parsing
+;;------------------------------------------------------------------------------
+(def ^:private ^:const batch-size 4096)
+
+(defn- read-batch ^List [^BufferedReader r ^long n]
+  (let [batch (ArrayList. (int (min n batch-size)))]
+    (loop [i 0]
+      (when (< i (min n batch-size))
+        (when-let [line (.readLine r)]
+          (.add batch line)
+          (recur (inc i)))))
+    batch))
+
+(defn- result ^Collection [^Future f]
+  (try
+    (.get f)
+    (catch ExecutionException e (throw (.getCause e)))))
+
+(defn parse-lines
+  "Read up to <code>n</code> lines from <code>r</code>, and parse them, in 
+   batches, on the common fork/join pool, while later lines are being read.
+   <code>make-parser</code> is called once per batch, and should return a 
+   function of a line, which need not be thread safe.
+   Returns an unmodifiable list of the parsed values in input order."
+  ^List [^BufferedReader r ^long n make-parser]
+  (let [pool (ForkJoinPool/commonPool)
+        in-flight (ArrayDeque.)
+        max-in-flight (inc (* 2 (.getParallelism pool)))
+        results (ArrayList.)]
+    (loop [remaining n]
+      (let [^List batch (read-batch r remaining)]
+        (when-not (.isEmpty batch)
+          (.add in-flight
+            (.submit pool 
+              ^Callable (fn parse-batch []
+                          (let [parse (make-parser)
+                                out (ArrayList. (.size batch))]
+                            (doseq [line batch] (.add out (parse line)))
+                            out))))
+          (when (<= max-in-flight (.size in-flight))
+            (.addAll results (result (.poll in-flight))))
+          (recur (- remaining (.size batch))))))
+    (while (not (.isEmpty in-flight))
+      (.addAll results (result (.poll in-flight))))
+    (Collections/unmodifiableList results)))
+;;------------------------------------------------------------------------------
+(defn column-index
+  "Index of the last header key equal to <code>k</code>, 
+   matching the <code>assoc</code> in [[tuple-tree]], or -1."
+  ^long [^List header k]
+  (.lastIndexOf header k))
+;;------------------------------------------------------------------------------
+;; Code to parse a field straight from the kth token of LineTokens tk,
+;; with the same result as default-parser, or nil if the field needs the
+;; tuple tree (custom parser, datum valued, or other Object type).
+
+(defn- direct-parser [field-spec tk k archetype]
+  (when-not (sequential? field-spec)
+    (let [hint (:tag (meta field-spec))
+          c (r/type field-spec)
+          value (gensym "value")
+          svalue (with-meta value {:tag 'String})]
+      (when-not (r/datum-class? c)
+        (case hint
+          boolean `(.parseBoolean ~tk ~k)
+          char `(let [~svalue (.token ~tk ~k)]
+                  (when ~value 
+                    (assert (== 1 (count ~value)) (pr-str ~value)) 
+                    (first ~value)))
+          byte `(.parseByte ~tk ~k)
+          short `(.parseShort ~tk ~k)
+          int `(.parseInt ~tk ~k)
+          long `(.parseLong ~tk ~k)
+          float `(.parseFloat ~tk ~k)
+          double `(.parseDouble ~tk ~k)
+          String `(let [~svalue (.token ~tk ~k)]
+                    (when ~value
+                      (case (.toLowerCase ~value)
+                        ("" "nil" "null") nil 
+                        (~archetype ~value))))
+          java.time.LocalDate `(let [~svalue (.token ~tk ~k)]
+                                 (when-not (empty? ~value)
+                                   (~archetype 
+                                     (java.time.LocalDate/parse ~value))))
+          java.time.LocalDateTime `(let [~svalue (.token ~tk ~k)]
+                                     (when-not (empty? ~value)
+                                       (java.time.LocalDateTime/parse 
+                                         ~value)))
+          nil)))))
+;;------------------------------------------------------------------------------
+;; Return a function of a header (vector of keys) and an archetyper, which 
+;; returns a make-parser function for parse-lines.
+;; Primitive, String and date fields with default parsers are parsed directly 
+;; from the line; the tuple tree is only created if some field needs it.
+
+(defn- line-parser-factory [classname field-specs]
+  (let [fields (mapv r/extract-field field-specs)
+        field-parser (field-to-parser field-specs)
+        header (with-meta (gensym "header") {:tag 'java.util.List})
+        sep (gensym "sep")
+        archetype (gensym "archetype")
+        tk (with-meta (gensym "tk") {:tag 'zana.java.data.LineTokens})
+        line (with-meta (gensym "line") {:tag 'String})
+        tuple (gensym "tuple")
+        columns (mapv #(gensym (str % "-column")) fields)
+        direct (mapv #(direct-parser %1 tk %2 archetype) field-specs columns)
+        need-tuple? (some nil? direct)
+        args (mapv (fn [field d]
+                     (or d
+                         (let [prsr (field-parser field)]
+                           (if prsr
+                             `(~prsr ~tuple ~archetype)
+                             `(~archetype (~(keyword field) ~tuple))))))
+                   fields direct)]
+    `(fn ~'line-parser-factory [~header ~sep ~archetype]
+       (let [~@(mapcat (fn [column field d]
+                         (when d
+                           [column `(int (column-index ~header ~(keyword field)))]))
+                       columns fields direct)]
+         (fn ~'make-parser []
+           (let [~tk (zana.java.data.LineTokens. ~sep)]
+             (fn ~'parse-line [~line]
+               (.split ~tk ~line)
+               (try
+                 (let [~tuple ~(when need-tuple?
+                                 `(tuple-tree ~header (.tokens ~tk)))]
+                   (~(r/constructor classname) ~@args))
+                 (catch Throwable t#
+                   (binding [*out* *err*]
+                     (println "failed to parse:")
+                     (println ~line))
+                   (throw t#))))))))))
+;;------------------------------------------------------------------------------
 ;; only thing here specific to the particular data is the reference to
 ;; parse-tuple
 ;; Should this be a global function rather than a datum specific one emitted
@@ -227,15 +372,8 @@
         n (gensym "n") 
         hk (gensym "hk") 
         r (gensym "r")
-        lines (gensym "lines")
-        splitter (with-meta (gensym "splitter")
-                   {:tag 'com.google.common.base.Splitter})
+        tk (with-meta (gensym "tk") {:tag 'zana.java.data.LineTokens})
         header (gensym "header")
-        parse (gensym "parse")
-        line (gensym "line")
-        tokens (gensym "tokens")
-        parse-tuple (gensym "parse-tuple")
-        tuple (gensym "tuple")
         archetype (gensym "archetype")
         fields (mapv r/extract-field field-specs)]
     `((require '[clojure.string] '[zana.api])
@@ -246,6 +384,9 @@
                "</code> from the file <code>" f 
                "</code>, assuming the field values separated by <code>" sep
                "</code> (which defaults to <code>\"\\t\"</code>.<br>"
+               "Lines are parsed in parallel batches, returned in file order."
+               " Numerical fields are parsed without creating token"
+               " <code>String</code>s.<br>"
                "This implements a complicated and restrictive strategy for "
                "dealing with nested datum classes, and should be replaced by "
                "something simpler and more flexible.")
@@ -256,32 +397,13 @@
              {:tag java.util.Collection})
            (with-open [~r (zana.api/reader ~f)]
              (let [~archetype (zana.api/archetyper)
-                   ~lines (line-seq ~r)
-;                   ~header (mapv ~hk (clojure.string/split (first ~lines) ~sep -1))
-;                   ~parse (fn ~'parse-line [~line]
-;                            (let [~tokens (clojure.string/split ~line ~sep -1)
-;                                  ~tuple (tuple-tree ~header ~tokens)]
-;                              (try
-;                                (~'parse-tuple ~tuple ~archetype)
-;                                (catch Throwable t#
-;                                  (println "failed to parse:")
-;                                  (pp/pprint ~tuple)
-;                                  (.printStackTrace t#)
-;                                  (throw t#)))))
-                   ~splitter (com.google.common.base.Splitter/on ~sep)
-                   ~header (mapv ~hk (.split ~splitter (first ~lines)))
-                   ~parse (fn ~'parse-line [~line]
-                            (let [~tokens (.split ~splitter ~line)
-                                  ~tuple (tuple-tree ~header ~tokens)]
-                              (try
-                                (~'parse-tuple ~tuple ~archetype)
-                                (catch Throwable t#
-                                  (println "failed to parse:")
-                                  (pp/pprint ~tuple)
-                                  (.printStackTrace t#)
-                                  (throw t#)))))]
-               ;; TODO: a chunked concurrent version of this
-               (zana.api/map ~parse (take ~n (rest ~lines))))))
+                   ~tk (zana.java.data.LineTokens. ~sep)
+                   _# (.split ~tk (.readLine ~r))
+                   ~header (mapv ~hk (.tokens ~tk))]
+               (parse-lines 
+                 ~r ~n
+                 (~(line-parser-factory classname field-specs)
+                   ~header ~sep ~archetype)))))
          (~(with-meta `[~f ~sep ~hk] {:tag 'java.util.Collection})
            (~'read-tsv-file ~f ~sep ~hk Long/MAX_VALUE))
          (~(with-meta `[~f ~sep] {:tag 'java.util.Collection})
@@ -1,7 +1,7 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
 (ns ^{:author "wahpenayo at gmail dot com" 
-      :date "2018-04-14"
+      :date "2026-10-18"
       :doc 
       "Generic function composition." }
     
@@ -10,7 +10,8 @@
   #_(:require )
   (:import [zana.java.geometry.functions 
             AffineDual AffineFunctional Composition2 Function 
-            LinearDual LinearFunctional LinearRows Sample]))
+            FusedComposition LinearDual LinearFunctional LinearRows 
+            Sample]))
 ;;----------------------------------------------------------------
 ;; TODO: https://github.com/palisades-lakes/faster-multimethods
 
@@ -45,4 +46,11 @@
   [^Sample f0 ^LinearDual f1]
   (.compose f0 f1))
 ;;----------------------------------------------------------------
-  
\ No newline at end of file
+(defn fuse
+  "Return a <code>zana.java.geometry.Function</code> with the same
+   values as <code>f</code>, a composition, whose terms are compiled 
+   into one evaluator, with preallocated buffers, and a fused 
+   gradient, or <code>f</code> itself, if it can't be compiled."
+  ^Function [^Function f]
+  (FusedComposition/compile f))
+;;----------------------------------------------------------------
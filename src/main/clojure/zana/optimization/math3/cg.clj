@@ -1,7 +1,7 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
 (ns ^{:author "wahpenayo at gmail dot com" 
-      :date "2018-04-14"
+      :date "2026-10-18"
       :doc 
       "Pose unconstrained differentiable optimization problems 
        using `Function` and solve them with the
@@ -31,7 +31,7 @@
            [zana.java.geometry
             Dn]
            [zana.java.geometry.functions
-            Function LinearFunctional]))
+            Function]))
 ;;----------------------------------------------------------------
 (def ^:private defaults
   "Default options for [[zana.optimization.math3.cg/optimize]]."
@@ -103,24 +103,54 @@
 ;;----------------------------------------------------------------
 ;; skip Preconditioner for now.
 ;;----------------------------------------------------------------
-(deftype ObjectiveWrapper [^Function f]
+;; The optimizer asks for the gradient at each new point, and then
+;; the value at the same point; the line search asks only for 
+;; values. Remember the last point, so repeated requests are free,
+;; and get gradients from `Function.valueAndGradient`, which can 
+;; make one pass over a cost's data for both.
+
+(definterface Evaluations
+  (^double value [^doubles p])
+  (^doubles gradient [^doubles p]))
+
+(deftype CachedEvaluations [^Function f
+                            ^:unsynchronized-mutable ^doubles point
+                            ^:unsynchronized-mutable ^double y
+                            ^:unsynchronized-mutable ^doubles g]
+  Evaluations
+  (value [_ p]
+    (when-not (Arrays/equals point p)
+      (set! y (.doubleValue f p))
+      (set! point (Arrays/copyOf p (alength p)))
+      (set! g nil))
+    y)
+  (gradient [_ p]
+    (when-not (and g (Arrays/equals point p))
+      (let [gp (double-array (alength p))]
+        (set! y (.valueAndGradient f p gp))
+        (set! point (Arrays/copyOf p (alength p)))
+        (set! g gp)))
+    ;; the optimizer negates the gradient in place
+    (Arrays/copyOf g (alength g))))
+
+(defn- cached-evaluations ^Evaluations [^Function f]
+  (CachedEvaluations. f nil Double/NaN nil))
+;;----------------------------------------------------------------
+(deftype ObjectiveWrapper [^Evaluations e]
   MultivariateFunction
-  (value [_ p] (.doubleValue f p)))
+  (value [_ p] (.value e p)))
 
 (defn- objective-function
-  ^ObjectiveFunction [^Function f]
-  (ObjectiveFunction. (ObjectiveWrapper. f)))
+  ^ObjectiveFunction [^Evaluations e]
+  (ObjectiveFunction. (ObjectiveWrapper. e)))
 ;;----------------------------------------------------------------
-(deftype GradientWrapper [^Function f]
+(deftype GradientWrapper [^Evaluations e]
   MultivariateVectorFunction
-  (value [_ p] 
-    (let [df (.derivativeAt f p)]
-      (assert (instance? LinearFunctional df)
-              (print-str f "\n" df))
-      (.dual ^LinearFunctional df))))
+  (value [_ p] (.gradient e p)))
+
 (defn- objective-function-gradient
-  ^ObjectiveFunctionGradient [^Function f]
-  (ObjectiveFunctionGradient. (GradientWrapper. f)))
+  ^ObjectiveFunctionGradient [^Evaluations e]
+  (ObjectiveFunctionGradient. (GradientWrapper. e)))
 ;;----------------------------------------------------------------
 ;; TODO: look into spec
 #_(defn- check
@@ -180,7 +210,7 @@
                    (:line-search-absolute-tolerance options))
                  (double 
                    (:initial-bracket-range options)))
-        objective (:objective options)
+        objective (cached-evaluations (:objective options))
         _(assert (:start options)
                  "No :start point in options.")
         start (double-array (:start options))
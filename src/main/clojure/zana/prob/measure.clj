@@ -1,13 +1,14 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* false) ;; warnings in cheshire.generate
 (ns ^{:author "wahpenayo at gmail dot com" 
-      :date "2017-12-06"
+      :date "2026-10-18"
       :doc "Probability measures over <b>R</b>." }
     
     zana.prob.measure
   
   (:refer-clojure :exclude [every?])
-  (:require [cheshire.generate]
+  (:require [clojure.java.io :as io]
+            [cheshire.generate]
             [zana.commons.core :as zcc]
             [zana.collections.clojurize :as zccl]
             [zana.io.edn :as zedn]
@@ -21,7 +22,9 @@
            [org.apache.commons.math3.random RandomGenerator]
            [zana.java.arrays Sorter]
            [zana.java.math Statistics]
-           [zana.java.prob ApproximatelyEqual 
+           [zana.java.prob ApproximatelyEqual Distance
+            EmpiricalCodec EmpiricalCodec$View Mixture
+            OrderStatisticTree QuantileSketch
             TranslatedRealDistribution WECDF WEPDF]))
 (set! *unchecked-math* :warn-on-boxed)
 ;;----------------------------------------------------------------
@@ -97,6 +100,43 @@
   (^WECDF [z]
     (WECDF/make (to-floats z))))
 ;;----------------------------------------------------------------
+(defn make-quantile-sketch
+  "Create a bounded memory, mergeable <code>QuantileSketch</code>,
+   whose centroids each hold at most <code>epsilon</code> of the
+   total weight, optionally adding the data <code>z</code>, with
+   weights <code>w</code> (default 1.0).
+   Use <code>(.add sketch z w)</code> and
+   <code>(.merge sketch other)</code> to update, and
+   <code>(.toWECDF sketch)</code> or <code>(.toWEPDF sketch)</code>
+   to get an approximate distribution, whose cdf is within
+   <code>(.rankErrorBound sketch)</code> of the exact one."
+  (^QuantileSketch [^double epsilon]
+    (QuantileSketch/make epsilon))
+  (^QuantileSketch [^double epsilon z]
+    (let [z (to-floats z)]
+      (make-quantile-sketch epsilon z (float-array (alength z) 1.0))))
+  (^QuantileSketch [^double epsilon z w]
+    (let [sketch (QuantileSketch/make epsilon)]
+      (.add sketch (to-floats z) (to-floats w))
+      sketch)))
+;;----------------------------------------------------------------
+(defn make-order-statistic-tree
+  "Create a mutable, exact, weighted empirical distribution 
+   (<code>OrderStatisticTree</code>), optionally adding the data 
+   <code>z</code>, with weights <code>w</code> (default 1.0).
+   <code>(.insert tree z w)</code>, <code>(.delete tree z w)</code>,
+   <code>(.cdf tree x)</code> and <code>(.quantile tree p)</code>
+   are O(log n); <code>(.toWECDF tree)</code> is an O(n) 
+   immutable snapshot. For sliding windows, etc."
+  (^OrderStatisticTree [] (OrderStatisticTree/make))
+  (^OrderStatisticTree [z]
+    (let [z (to-floats z)]
+      (make-order-statistic-tree z (float-array (alength z) 1.0))))
+  (^OrderStatisticTree [z w]
+    (let [tree (OrderStatisticTree/make)]
+      (.insert tree (to-floats z) (to-floats w))
+      tree)))
+;;----------------------------------------------------------------
 (defn wepdf-to-wecdf
   "Convert a point mass density representation to a cumulative one."
   ^WECDF [^WEPDF pdf] (WECDF/make pdf))
@@ -104,6 +144,33 @@
   "Convert a cumulative representation to a point mass density one."
   ^WEPDF [^WECDF cdf] (WEPDF/make cdf))
 ;;----------------------------------------------------------------
+(defn- mixture-args ^java.util.List [rpms] 
+  (if (instance? java.util.List rpms) rpms (vec rpms)))
+(defn- mixture-weights ^doubles [weights]
+  (when-not (nil? weights) (double-array weights)))
+(defn wepdf-mixture
+  "Mixture of the <code>WEPDF</code>s and/or <code>WECDF</code>s in
+   <code>rpms</code>, with mixture <code>weights</code> (default:
+   equal), as a <code>WEPDF</code>.
+   A k-way merge of the already sorted atoms, with no re-sort.
+   Exact, unless there would be more than <code>max-atoms</code>
+   atoms, in which case adjacent atoms are pooled into that many
+   bins of about equal mass. See <code>zana.java.prob.Mixture</code>."
+  (^WEPDF [rpms weights ^long max-atoms]
+    (Mixture/wepdf nil (mixture-args rpms) (mixture-weights weights) 
+                   (int max-atoms)))
+  (^WEPDF [rpms weights]
+    (Mixture/wepdf (mixture-args rpms) (mixture-weights weights)))
+  (^WEPDF [rpms] (wepdf-mixture rpms nil)))
+(defn wecdf-mixture
+  "Like <code>wepdf-mixture</code>, but returns a <code>WECDF</code>."
+  (^WECDF [rpms weights ^long max-atoms]
+    (Mixture/wecdf nil (mixture-args rpms) (mixture-weights weights) 
+                   (int max-atoms)))
+  (^WECDF [rpms weights]
+    (Mixture/wecdf (mixture-args rpms) (mixture-weights weights)))
+  (^WECDF [rpms] (wecdf-mixture rpms nil)))
+;;----------------------------------------------------------------
 ;; TODO: generic function api for general probability measures
 (defn pointmass ^double [^RealDistribution rpm ^double z]
   (.probability rpm z))
@@ -112,6 +179,199 @@
 (defn quantile ^double [^RealDistribution rpm ^double p]
   (.inverseCumulativeProbability rpm p))
 ;;----------------------------------------------------------------
+;; batch versions
+;;----------------------------------------------------------------
+(defn cdf-doubles
+  "Evaluate the cdf at every element of <code>z</code>, a
+   <code>double[]</code> or <code>float[]</code>, writing the
+   results into <code>out</code> (a new <code>double[]</code> if
+   not supplied).
+   Same values as <code>(cdf rpm (aget z i))</code>, but much
+   faster for <code>WECDF</code>, especially if <code>z</code> is
+   sorted."
+  (^doubles [^RealDistribution rpm z ^doubles out]
+    (cond
+      (zcc/double-array? z)
+      (let [^doubles z z]
+        (if (instance? WECDF rpm)
+          (.cumulativeProbabilities ^WECDF rpm z out)
+          (do
+            (dotimes [i (alength z)]
+              (aset out i (.cumulativeProbability rpm (aget z i))))
+            out)))
+
+      (zcc/float-array? z)
+      (let [^floats z z]
+        (if (instance? WECDF rpm)
+          (.cumulativeProbabilities ^WECDF rpm z out)
+          (do
+            (dotimes [i (alength z)]
+              (aset out i (.cumulativeProbability rpm (aget z i))))
+            out)))
+
+      :else
+      (throw
+        (IllegalArgumentException.
+          (str "can't evaluate the cdf at a " (class z))))))
+  (^doubles [^RealDistribution rpm z]
+    (cdf-doubles rpm z (double-array (count z)))))
+;;----------------------------------------------------------------
+(defn quantile-doubles
+  "Evaluate the quantile function at every element of
+   <code>p</code>, a <code>double[]</code> or
+   <code>float[]</code>, writing the results into
+   <code>out</code> (a new <code>double[]</code> if not
+   supplied).
+   Same values as <code>(quantile rpm (aget p i))</code>, but
+   much faster for <code>WECDF</code>, especially if
+   <code>p</code> is sorted."
+  (^doubles [^RealDistribution rpm p ^doubles out]
+    (cond
+      (zcc/double-array? p)
+      (let [^doubles p p]
+        (if (instance? WECDF rpm)
+          (.inverseCumulativeProbabilities ^WECDF rpm p out)
+          (do
+            (dotimes [i (alength p)]
+              (aset out i
+                    (.inverseCumulativeProbability rpm (aget p i))))
+            out)))
+
+      (zcc/float-array? p)
+      (let [^floats p p]
+        (if (instance? WECDF rpm)
+          (.inverseCumulativeProbabilities ^WECDF rpm p out)
+          (do
+            (dotimes [i (alength p)]
+              (aset out i
+                    (.inverseCumulativeProbability rpm (aget p i))))
+            out)))
+
+      :else
+      (throw
+        (IllegalArgumentException.
+          (str "can't evaluate quantiles at a " (class p))))))
+  (^doubles [^RealDistribution rpm p]
+    (quantile-doubles rpm p (double-array (count p)))))
+;;----------------------------------------------------------------
+(defn sample-doubles
+  "Draw <code>n</code> samples from <code>rpm</code> using the
+   generator <code>rng</code>, writing them into <code>out</code>
+   (a new <code>double[]</code> if not supplied).
+   O(1) per draw for <code>WEPDF</code> and <code>WECDF</code>,
+   which sample from a cached alias table.
+   Since the generator is an argument, parallel workers can draw
+   from the same distribution, each with its own stream."
+  (^doubles [^RealDistribution rpm ^RandomGenerator rng ^long n 
+             ^doubles out]
+    (assert (<= n (alength out)))
+    (cond 
+      (instance? WEPDF rpm) (.sample ^WEPDF rpm rng (int n) out)
+      (instance? WECDF rpm) (.sample ^WECDF rpm rng (int n) out)
+      :else (do
+              (dotimes [i n]
+                (aset out i (.inverseCumulativeProbability 
+                              rpm (.nextDouble rng))))
+              out)))
+  (^doubles [^RealDistribution rpm ^RandomGenerator rng ^long n]
+    (sample-doubles rpm rng n (double-array n))))
+;;----------------------------------------------------------------
+;; distances and scores
+;;----------------------------------------------------------------
+(defn- to-wecdf ^WECDF [rpm]
+  (cond (instance? WECDF rpm) rpm
+        (instance? WEPDF rpm) (WECDF/make ^WEPDF rpm)
+        :else (throw 
+                (IllegalArgumentException.
+                  (str "can't convert " (class rpm) " to WECDF")))))
+(defn- to-wecdfs ^"[Lzana.java.prob.WECDF;" [rpms]
+  (into-array WECDF (map to-wecdf rpms)))
+(defn ks-distance
+  "Kolmogorov-Smirnov distance, <code>sup |F-G|</code>, between
+   <code>WECDF</code>s or <code>WEPDF</code>s, or from one to the
+   point mass at a number <code>y</code>.
+   One merge sweep over the sorted atoms; see 
+   <code>zana.java.prob.Distance</code>."
+  ^double [f g]
+  (if (number? g)
+    (Distance/ks (to-wecdf f) (double g))
+    (Distance/ks (to-wecdf f) (to-wecdf g))))
+(defn wasserstein-distance
+  "Wasserstein-1 distance, <code>&int; |F-G| dx</code>, between
+   <code>WECDF</code>s or <code>WEPDF</code>s, or from one to the
+   point mass at a number <code>y</code>, 
+   which is <code>E|X-y|</code>."
+  ^double [f g]
+  (if (number? g)
+    (Distance/wasserstein (to-wecdf f) (double g))
+    (Distance/wasserstein (to-wecdf f) (to-wecdf g))))
+(defn cramer-distance
+  "Cram&eacute;r distance, <code>&int; (F-G)<sup>2</sup> dx</code>,
+   between <code>WECDF</code>s or <code>WEPDF</code>s, or from one 
+   to the point mass at a number <code>y</code>, which is the 
+   CRPS."
+  ^double [f g]
+  (if (number? g)
+    (Distance/crps (to-wecdf f) (double g))
+    (Distance/cramer (to-wecdf f) (to-wecdf g))))
+(defn cramer-von-mises
+  "Cram&eacute;r-von Mises distance,
+   <code>&int; (F-G)<sup>2</sup> dH</code>, where 
+   <code>H=(F+G)/2</code>, between <code>WECDF</code>s or 
+   <code>WEPDF</code>s."
+  ^double [f g]
+  (Distance/cramerVonMises (to-wecdf f) (to-wecdf g)))
+(defn crps
+  "Continuous ranked probability score of <code>f</code> as a
+   prediction of <code>y</code>."
+  ^double [f ^double y]
+  (Distance/crps (to-wecdf f) y))
+(defn pinball-loss
+  "Pinball (quantile) loss of the <code>p</code> quantile of 
+   <code>f</code>, as a prediction of <code>y</code>, averaged 
+   over <code>p</code>, if that's a sequence of probabilities."
+  ^double [f ^double y p]
+  (if (number? p)
+    (Distance/pinball (to-wecdf f) y (double p))
+    (Distance/pinball (to-wecdf f) y (double-array p))))
+(defn score-doubles
+  "Score pairs <code>(fs[i],ys[i])</code> in parallel, returning
+   a <code>double[]</code>.
+   <code>metric</code> is one of 
+   <code>:ks :wasserstein :cramer :crps :cramer-von-mises 
+   :pinball</code>. <code>ys</code> are numbers for 
+   <code>:crps</code> and <code>:pinball</code> (which also needs 
+   probabilities <code>ps</code>), distributions for 
+   <code>:cramer-von-mises</code>, and either for <code>:ks</code>,
+   <code>:wasserstein</code> and <code>:cramer</code>, which, as in
+   [[cramer-distance]], is the CRPS for numbers."
+  (^doubles [metric fs ys]
+    (let [fs (to-wecdfs fs)
+          observed? (or (zcc/double-array? ys) (number? (first ys)))]
+      (if observed?
+        (let [ys (double-array ys)]
+          (case metric
+            :ks (Distance/ks fs ys)
+            :wasserstein (Distance/wasserstein fs ys)
+            (:cramer :crps) (Distance/crps fs ys)
+            (throw (IllegalArgumentException.
+                     (str "can't score observations with " metric)))))
+        (let [ys (to-wecdfs ys)]
+          (case metric
+            :ks (Distance/ks fs ys)
+            :wasserstein (Distance/wasserstein fs ys)
+            :cramer (Distance/cramer fs ys)
+            :cramer-von-mises (Distance/cramerVonMises fs ys)
+            (throw (IllegalArgumentException.
+                     (str "can't compare distributions with " 
+                          metric))))))))
+  (^doubles [metric fs ys ps]
+    (when-not (= :pinball metric)
+      (throw (IllegalArgumentException.
+               (str "only :pinball takes probabilities, not " metric))))
+    (Distance/pinball (to-wecdfs fs) (double-array ys) 
+                      (double-array ps))))
+;;----------------------------------------------------------------
 ;; text serialization
 ;;----------------------------------------------------------------
 ;; TODO: JSON/END serialization for RandomGenerator classes
@@ -285,3 +545,46 @@
   org.apache.commons.math3.distribution.UniformRealDistribution
   UniformRealDistribution-encoder)
 ;;----------------------------------------------------------------
+;; binary files of WEPDFs and WECDFs
+;;----------------------------------------------------------------
+(defn- coding [k]
+  (case k
+    :raw EmpiricalCodec/RAW
+    :delta EmpiricalCodec/DELTA
+    :quantized EmpiricalCodec/QUANTIZED
+    (throw (IllegalArgumentException. (str "Unknown encoding: " k)))))
+(defn write-distributions
+  "Write a sequence of <code>WEPDF</code>s and/or
+   <code>WECDF</code>s to <code>file</code>, in the compact
+   binary format of <code>zana.java.prob.EmpiricalCodec</code>.
+   <code>options</code> may give the encodings of <code>:z</code>
+   (<code>:raw</code>, the default, or <code>:delta</code>) and
+   <code>:w</code> (<code>:raw</code>, the default,
+   <code>:delta</code>, or the lossy <code>:quantized</code>).
+   Only <code>:raw</code> sections can be mapped without copying."
+  ([rpms file options]
+    (EmpiricalCodec/write
+      (if (instance? java.util.List rpms) rpms (vec rpms))
+      (io/file file)
+      (byte (coding (:z options :raw)))
+      (byte (coding (:w options :raw)))))
+  ([rpms file] (write-distributions rpms file {})))
+(defn read-distributions
+  "Read all the distributions in a file written by
+   <code>write-distributions</code>, into a list of
+   <code>WEPDF</code>s and/or <code>WECDF</code>s, each
+   <code>=</code> to the one written, unless its weights were
+   <code>:quantized</code>."
+  ^java.util.List [file]
+  (EmpiricalCodec/read (io/file file)))
+(defn map-distributions
+  "Memory-map a file written by <code>write-distributions</code>,
+   as a read-only list of <code>EmpiricalCodec$View</code>s, whose
+   <code>:raw</code> sections aren't copied. Views of
+   <code>WECDF</code>s answer <code>.cumulativeProbability</code>
+   and <code>.inverseCumulativeProbability</code> in place;
+   <code>.toDistribution</code> copies any view into a
+   <code>WEPDF</code> or <code>WECDF</code>."
+  ^java.util.List [file]
+  (EmpiricalCodec/map (io/file file)))
+;;----------------------------------------------------------------
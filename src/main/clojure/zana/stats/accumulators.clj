@@ -1,12 +1,15 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
-(ns ^{:author "John Alan McDonald" :date "2017-01-04"
+(ns ^{:author "John Alan McDonald" :date "2026-10-18"
       :doc "factory functions for Accumulator classes from 
             zana.java.accumulator." }
     
     zana.stats.accumulators
   
-  (:require [zana.commons.core :as cc]))
+  (:require [zana.commons.core :as cc])
+  (:import [java.util.concurrent Future]
+           [zana.java.accumulator Accumulator]
+           [zana.java.concurrent Parallel]))
 ;;------------------------------------------------------------------------------
 ;; assuming cost scaled so false-negative-cost + false-positive-cost = 1.0
 
@@ -42,6 +45,19 @@
   ^zana.java.accumulator.Accumulator [] 
   (zana.java.accumulator.Mean.))
 
+(defn exact-mean 
+  "An accumulator that returns the mean of its values, computed from their
+   exact sum, so the result is the same whatever order the values arrive in,
+   and however they are split among accumulators that are later merged."
+  ^zana.java.accumulator.Accumulator [] 
+  (zana.java.accumulator.ExactMean.))
+
+(defn exact-sum 
+  "An accumulator that returns the correctly rounded sum of its values,
+   independent of their order, and of any partitioning and merging."
+  ^zana.java.accumulator.Accumulator [] 
+  (zana.java.accumulator.ExactSum.))
+
 (defn mssn 
   "An accumulator for the mean squared sum of its values. This is equivalent
    to mean squared error for choosing L2 regression split points, but is
@@ -104,69 +120,145 @@
   (zana.java.accumulator.weighted.MSSN.))
 
 ;;------------------------------------------------------------------------------
+;; fork/join driver
+;;------------------------------------------------------------------------------
+;; Chunk size doesn't depend on the number of threads, so results are the
+;; same on every machine, and for every thread count greater than 1.
 
-(defn make-calculator 
-  "Return a function wrapping an accumulator factory. 
-   Used for one-pass calculation of accumulator statistics, it computes a
-   (weighted) statistic for a data set by making a new accumulator and
-   adding all the data values to it."
-  (^clojure.lang.IFn$OD [accumulator-factory]
-    (fn calculator 
-      (^double [d]
-        (let [^zana.java.accumulator.Accumulator a (accumulator-factory)]
-          (cond (cc/double-array? d) 
-                (let [^doubles d (doubles d)
-                      n (alength d)]
-                  (dotimes [i n] (.add a (aget d i))))
-                ;;(instance? Iterable d) (.add a ^Iterable d)
-                :else (throw 
-                        (IllegalArgumentException.
-                          (print-str "Can't compute the mean of " d))))
-          (.doubleValue a)))
-      (^double [d w] 
-        (let [^zana.java.accumulator.Accumulator a (accumulator-factory)]
-          (cond (cc/double-array? d) 
-                (let [^doubles d (doubles d)
-                      ^doubles w (doubles w)
-                      n (alength d)]
-                  (assert (== n (alength w)))
-                  (dotimes [i n] (.add a (aget d i) (aget w i))))
-                ;;(instance? Iterable d) (.add a ^Iterable d ^Iterable w)
-                :else (throw 
-                        (IllegalArgumentException.
-                          (print-str "Can't compute the mean of " d))))
-          (.doubleValue a)))))
-  
-  (^clojure.lang.IFn$OD [accumulator-factory 
+(def ^:private ^:const grain 
+  "Number of elements accumulated by each parallel task."
+  32768)
+
+(defn- accumulate 
+  "Return an accumulator, from <code>accumulator-factory</code>, with the 
+   elements <code>[0,n)</code> of some data added to it by 
+   <code>(add-range a start end)</code>, in the calling thread.
+   If <code>threads</code> is greater than 1, large data is instead split 
+   into chunks of [[grain]] elements, each accumulated in its own 
+   accumulator on a fork/join pool with that many threads, and the results 
+   merged in order."
+  ^zana.java.accumulator.Accumulator [accumulator-factory threads n add-range]
+  (let [threads (long threads)
+        n (long n)]
+    (if (or (<= threads 1) (< n (* 2 grain)))
+      (let [a (accumulator-factory)] 
+        (add-range a 0 n) 
+        a)
+      (let [tasks (mapv (fn [^long start]
+                          (fn chunk []
+                            (let [a (accumulator-factory)]
+                              (add-range a start (min n (+ start grain)))
+                              a)))
+                        (range 0 n grain))
+            futures (.invokeAll (Parallel/pool (int threads)) 
+                      ^java.util.Collection tasks)
+            ^Accumulator a (.get ^Future (first futures))]
+        (doseq [^Future future (rest futures)]
+          (.merge a ^Accumulator (.get future)))
+        a))))
+
+(defn- check-threads ^long [n]
+  (let [n (long n)]
+    (when (< n 1)
+      (throw (IllegalArgumentException.
+               (str "number of threads must be positive: " n))))
+    n))
+
+;;------------------------------------------------------------------------------
+
+(defn- array-calculator ^clojure.lang.IFn$OD [^long threads accumulator-factory]
+  (fn calculator 
+    (^double [d]
+      (cond (cc/double-array? d) 
+            (let [^doubles d (doubles d)]
+              (.doubleValue
+                (accumulate 
+                  accumulator-factory threads (alength d)
+                  (fn add-range [^Accumulator a ^long start ^long end]
+                    (.addAll a d (int start) (int end))))))
+            ;;(instance? Iterable d) (.add a ^Iterable d)
+            :else (throw 
+                    (IllegalArgumentException.
+                      (print-str "Can't compute the mean of " d)))))
+    (^double [d w] 
+      (cond (cc/double-array? d) 
+            (let [^doubles d (doubles d)
+                  ^doubles w (doubles w)
+                  n (alength d)]
+              (assert (== n (alength w)))
+              (.doubleValue
+                (accumulate 
+                  accumulator-factory threads n
+                  (fn add-range [^Accumulator a ^long start ^long end]
+                    (.addAll a d w (int start) (int end))))))
+            ;;(instance? Iterable d) (.add a ^Iterable d ^Iterable w)
+            :else (throw 
+                    (IllegalArgumentException.
+                      (print-str "Can't compute the mean of " d)))))))
+
+(defn- list-calculator 
+  (^clojure.lang.IFn$OD [^long threads
+                         accumulator-factory 
                          ^clojure.lang.IFn$OD z 
                          ^clojure.lang.IFn$OD w]
     (fn calculator ^double [^java.util.List data]
       (assert (instance? java.util.RandomAccess data))
-      (let [^zana.java.accumulator.Accumulator a (accumulator-factory)
-            n (.size data)]
-        (dotimes [i n] 
-          (let [di (.get data i)]
-            (.add a (.invokePrim z di) (.invokePrim w di))))
-        (.doubleValue a))))
+      (.doubleValue
+        (accumulate 
+          accumulator-factory threads (.size data)
+          (fn add-range [^Accumulator a ^long start ^long end]
+            (loop [i start]
+              (when (< i end)
+                (let [di (.get data i)]
+                  (.add a (.invokePrim z di) (.invokePrim w di)))
+                (recur (inc i)))))))))
   
-  (^clojure.lang.IFn$OD [accumulator-factory 
+  (^clojure.lang.IFn$OD [^long threads
+                         accumulator-factory 
                          ^clojure.lang.IFn$OD z]
     (fn calculator ^double [^java.util.List data]
       (assert (instance? java.util.RandomAccess data))
-      (let [^zana.java.accumulator.Accumulator a (accumulator-factory)
-            n (.size data)]
-        (dotimes [i n] 
-          (let [di (.get data i)]
-            (.add a (.invokePrim z di))))
-        (.doubleValue a)))))
-
-;;------------------------------------------------------------------------------
+      (.doubleValue
+        (accumulate 
+          accumulator-factory threads (.size data)
+          (fn add-range [^Accumulator a ^long start ^long end]
+            (loop [i start]
+              (when (< i end)
+                (.add a (.invokePrim z (.get data i)))
+                (recur (inc i))))))))))
 
-(defn make-object-calculator 
+(defn make-calculator 
   "Return a function wrapping an accumulator factory. 
    Used for one-pass calculation of accumulator statistics, it computes a
    (weighted) statistic for a data set by making a new accumulator and
-   adding all the data values to it."
+   adding all the data values to it, in the calling thread.
+   Given a leading number of threads <code>n</code> greater than 1, large 
+   data sets are instead split into chunks, accumulated in parallel on a 
+   fork/join pool with <code>n</code> threads, and the chunk accumulators 
+   merged, so <code>z</code> and <code>w</code> must then be safe to call 
+   from multiple threads."
+  {:arglists '([accumulator-factory]
+               [n accumulator-factory]
+               [accumulator-factory z]
+               [n accumulator-factory z]
+               [accumulator-factory z w]
+               [n accumulator-factory z w])}
+  (^clojure.lang.IFn$OD [accumulator-factory]
+    (array-calculator 1 accumulator-factory))
+  (^clojure.lang.IFn$OD [x0 x1]
+    (if (number? x0)
+      (array-calculator (check-threads x0) x1)
+      (list-calculator 1 x0 x1)))
+  (^clojure.lang.IFn$OD [x0 x1 x2]
+    (if (number? x0)
+      (list-calculator (check-threads x0) x1 x2)
+      (list-calculator 1 x0 x1 x2)))
+  (^clojure.lang.IFn$OD [n accumulator-factory z w]
+    (list-calculator (check-threads n) accumulator-factory z w)))
+
+;;------------------------------------------------------------------------------
+
+(defn- object-calculator 
   #_(^clojure.lang.IFn [accumulator-factory]
       (fn calculator 
         ([d]
@@ -186,27 +278,54 @@
                               (print-str "Can't compute the mean of " d))))
               (.value a)))))
   
-  (^clojure.lang.IFn [accumulator-factory 
+  (^clojure.lang.IFn [^long threads
+                      accumulator-factory 
                       ^clojure.lang.IFn z 
                       ^clojure.lang.IFn$OD w]
     (fn calculator [^java.util.List data]
       (assert (instance? java.util.RandomAccess data))
-      (let [^zana.java.accumulator.Accumulator a (accumulator-factory)
-            n (.size data)]
-        (dotimes [i n] 
-          (let [di (.get data i)]
-            (.add a (.invoke z di) (.invokePrim w di))))
-        (.value a))))
+      (.value
+        (accumulate 
+          accumulator-factory threads (.size data)
+          (fn add-range [^Accumulator a ^long start ^long end]
+            (loop [i start]
+              (when (< i end)
+                (let [di (.get data i)]
+                  (.add a (.invoke z di) (.invokePrim w di)))
+                (recur (inc i)))))))))
   
-  (^clojure.lang.IFn [accumulator-factory 
+  (^clojure.lang.IFn [^long threads
+                      accumulator-factory 
                       ^clojure.lang.IFn z]
     (fn calculator [^java.util.List data]
       (assert (instance? java.util.RandomAccess data))
-      (let [^zana.java.accumulator.Accumulator a (accumulator-factory)
-            n (.size data)]
-        (dotimes [i n] 
-          (let [di (.get data i)]
-            (.add a (.invoke z di))))
-        (.value a)))))
+      (.value
+        (accumulate 
+          accumulator-factory threads (.size data)
+          (fn add-range [^Accumulator a ^long start ^long end]
+            (loop [i start]
+              (when (< i end)
+                (.add a (.invoke z (.get data i)))
+                (recur (inc i))))))))))
+
+(defn make-object-calculator 
+  "Return a function wrapping an accumulator factory. 
+   Used for one-pass calculation of accumulator statistics, it computes a
+   (weighted) statistic for a data set by making a new accumulator and
+   adding all the data values to it, in the calling thread.
+   Given a leading number of threads, large data sets are accumulated in 
+   parallel, as in [[make-calculator]]."
+  {:arglists '([accumulator-factory z]
+               [n accumulator-factory z]
+               [accumulator-factory z w]
+               [n accumulator-factory z w])}
+  (^clojure.lang.IFn [accumulator-factory z]
+    (object-calculator 1 accumulator-factory z))
+  (^clojure.lang.IFn [x0 x1 x2]
+    (if (number? x0)
+      (object-calculator (check-threads x0) x1 x2)
+      (object-calculator 1 x0 x1 x2)))
+  (^clojure.lang.IFn [n accumulator-factory z w]
+    (object-calculator (check-threads n) accumulator-factory z w)))
 
 ;------------------------------------------------------------------------------
\ No newline at end of file
@@ -1,6 +1,6 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
-(ns ^{:author "John Alan McDonald" :date "2016-10-20"
+(ns ^{:author "John Alan McDonald" :date "2026-10-18"
       :doc "Convert attribute functions to corresponding (fractional) ranks
             over some data set." }
     
@@ -60,10 +60,10 @@
         (fn [i xi] 
           (assert (Double/isNaN (.getOrDefault m xi Double/NaN))
                   (print-str "Duplicate element in data:\n" xi))
-          (.put m xi (/ (double i) n-1)) 
-          (range (g/count data))
-          data)
-        (wrap/lookup-function m))))
+          (.put m xi (/ (double i) n-1)))
+        (range n)
+        data)
+      (wrap/lookup-function m)))
   (^clojure.lang.IFn$OD [^clojure.lang.IFn z ^Iterable data]
     (franks (guava/sort-by z data))))
 ;;------------------------------------------------------------------------------
@@ -1,6 +1,6 @@
 (set! *unchecked-math* :warn-on-boxed)
 (ns ^{:author "wahpenayo at gmail dot com" 
-      :date "2018-04-16"
+      :date "2026-10-18"
       :doc "Stats that don't have an obvious home." }
     
     zana.stats.statistics
@@ -12,8 +12,6 @@
             [zana.stats.accumulators :as accumulators])
   (:import [java.util List Map]
            [clojure.lang IFn IFn$OD IFn$OL]
-           [org.apache.commons.math3.stat.descriptive 
-            DescriptiveStatistics]
            [zana.java.functions IFnODWithMeta]
            [zana.java.math Statistics]
            [zana.java.prob ApproximatelyEqual]))
@@ -511,22 +509,28 @@
                 (recur x))))
           xmax)))))
 ;;----------------------------------------------------------------
+(defn- quantiles-in-place [^doubles zs ^doubles ws ps]
+  (let [ps (double-array ps)]
+    (vec 
+      (if ws
+        (Statistics/quantiles zs ws ps true)
+        (Statistics/quantiles zs ps true)))))
+
 (defn quantiles
   "Return a vector of the quantiles of the doubles in 
    <code>zs</code>, or the doubles resulting from mapping 
-   <code>z</code> over <code>data</code>. 
+   <code>z</code> over <code>data</code>, optionally weighted by
+   mapping <code>w</code>. 
    Return quantiles corresponding to the <code>ps</code>, which 
-   must be numbers between 0.0 and 1.0 (both ends inclusive)."
-  ([zs ps]
-    (let [^doubles zs (into-array Double/TYPE zs)
-          ds (DescriptiveStatistics. zs)]
-      (mapv (fn ^double [^double p]
-              ;; TODO: better 'equality' test?
-              (cond (== 0.0 p) (.getMin ds)
-                    (== 1.0 p) (.getMax ds)
-                    :else (.getPercentile ds (* 100.0 p))))
-            ps)))
-  ([z data ps] (quantiles (g/map-to-doubles z data) ps)))
+   must be numbers between 0.0 and 1.0 (both ends inclusive).
+   Interpolates like commons-math <code>DescriptiveStatistics</code>,
+   but finds all the quantiles in a single selection pass.
+   See <code>zana.java.math.Statistics/quantiles</code>."
+  ([zs ps] (quantiles-in-place (into-array Double/TYPE zs) nil ps))
+  ([z data ps] (quantiles-in-place (g/map-to-doubles z data) nil ps))
+  ([z w data ps] 
+    (quantiles-in-place 
+      (g/map-to-doubles z data) (g/map-to-doubles w data) ps)))
 ;;----------------------------------------------------------------
 ;; TODO: Kahan summation; use accumulators?
 (defn sum
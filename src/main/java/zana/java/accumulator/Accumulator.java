@@ -27,7 +27,10 @@ package zana.java.accumulator;
  * 1.0.
  * <p>
  * Other operations update the value by adding or deleting arrays or collections
- * of numbers.
+ * of numbers. The <code>addAll</code> and <code>deleteAll</code> methods take
+ * primitive arrays, optionally gathered through an <code>int[]</code> index,
+ * and should be implemented with tight loops over <code>final</code> methods,
+ * which avoids the cost of an interface call per element.
  * <p>
  * Accumulators support efficient 'map-reduce' updating operations of two basic
  * kinds, corresponding to the motivating applications above:
@@ -43,13 +46,17 @@ package zana.java.accumulator;
  * <p>
  * Note that nothing ensures consistency --- weight-value pairs may be deleted
  * that were never added.
+ * <p>
+ * Accumulators of the same class can be combined with {@link #merge}, so a
+ * large data set can be split into chunks, each accumulated by a different
+ * thread, and the results merged.
  *  <p>
  *  <em>TODO:</em> Reduce the number of methods in the interface to a minimum,
  *  let implementing classes handle special cases themselves.
  *  
  *  
  * @author John Alan McDonald
- * @version 2017-01-04
+ * @version 2026-10-18
  */
 
 public interface  
@@ -125,6 +132,83 @@ Accumulator {
    */
   void delete (final Object z);
 
+  //----------------------------------------------------------------------------
+  // bulk primitive updates, equivalent to calling add/delete on each element,
+  // but without per element interface dispatch.
+  //----------------------------------------------------------------------------
+  /** Add <code>z[i]</code> with weight <code>1.0</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  void addAll (final double[] z, 
+               final int start,
+               final int end);
+
+  /** Add <code>z[i]</code> with weight <code>w[i]</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  void addAll (final double[] z, 
+               final double[] w, 
+               final int start,
+               final int end);
+
+  /** Add <code>z[index[i]]</code> with weight <code>1.0</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  void addAll (final double[] z, 
+               final int[] index, 
+               final int start,
+               final int end);
+
+  /** Add <code>z[index[i]]</code> with weight <code>w[index[i]]</code>, 
+   * for <code>start &lt;= i &lt; end</code>.
+   */
+  void addAll (final double[] z, 
+               final double[] w, 
+               final int[] index, 
+               final int start,
+               final int end);
+
+  /** Delete <code>z[i]</code> with weight <code>1.0</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  void deleteAll (final double[] z, 
+                  final int start,
+                  final int end);
+
+  /** Delete <code>z[i]</code> with weight <code>w[i]</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  void deleteAll (final double[] z, 
+                  final double[] w, 
+                  final int start,
+                  final int end);
+
+  /** Delete <code>z[index[i]]</code> with weight <code>1.0</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  void deleteAll (final double[] z, 
+                  final int[] index, 
+                  final int start,
+                  final int end);
+
+  /** Delete <code>z[index[i]]</code> with weight <code>w[index[i]]</code>, 
+   * for <code>start &lt;= i &lt; end</code>.
+   */
+  void deleteAll (final double[] z, 
+                  final double[] w, 
+                  final int[] index, 
+                  final int start,
+                  final int end);
+
+  //----------------------------------------------------------------------------
+  /** Update the state of the accumulator to be the same (up to rounding) as
+   * if everything added to and deleted from <code>that</code> had been added
+   * to and deleted from this one. <code>that</code> is not modified.
+   * @throws UnsupportedOperationException if <code>that</code> isn't an
+   * instance of the same class, with the same parameters.
+   */
+  void merge (final Accumulator that);
+
   //----------------------------------------------------------------------------
 } // end class
 //----------------------------------------------------------------------------
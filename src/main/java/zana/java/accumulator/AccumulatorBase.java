@@ -4,7 +4,7 @@ package zana.java.accumulator;
 /** Sharable code for {@link zana.java.accumulator.Accumulator} implementations.
  *
  * @author John Alan McDonald
- * @version 2017-01-04
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked") 
@@ -24,6 +24,10 @@ public abstract class AccumulatorBase extends Object implements Accumulator {
     _netCount -= 1L; 
     assert _netCount >= 0; }
 
+  public final void incrementNetCount (final long n) { 
+    _netCount += n; 
+    assert _netCount >= 0; }
+
   public static final double NEGATIVE_WEIGHT_BOUND = -0.5*Math.ulp((float) 1.0);
 
   //----------------------------------------------------------------------------
@@ -55,6 +59,16 @@ public abstract class AccumulatorBase extends Object implements Accumulator {
   @Override
   public double maximum () { return Double.POSITIVE_INFINITY; }
 
+  //----------------------------------------------------------------------------
+  /** Subclasses with parameters should also check that they match.
+   * @throws UnsupportedOperationException unless <code>that</code> is an
+   * instance of the same class as this.
+   */
+  protected void checkMergeable (final Accumulator that) {
+    if (getClass() != that.getClass()) {
+      throw new UnsupportedOperationException(
+        getClass().getName() + ".merge(" + that.getClass().getName() + ")"); } }
+
   //----------------------------------------------------------------------------
   // unsupported weighted methods
   //----------------------------------------------------------------------------
@@ -71,6 +85,36 @@ public abstract class AccumulatorBase extends Object implements Accumulator {
   public void delete (double z, double w) {
     throw new UnsupportedOperationException(getClass().getName()); }
 
+  @Override
+  public void addAll (final double[] z, 
+                      final double[] w, 
+                      final int start, 
+                      final int end) {
+    throw new UnsupportedOperationException(getClass().getName()); }
+
+  @Override
+  public void addAll (final double[] z, 
+                      final double[] w, 
+                      final int[] index, 
+                      final int start, 
+                      final int end) {
+    throw new UnsupportedOperationException(getClass().getName()); }
+
+  @Override
+  public void deleteAll (final double[] z, 
+                         final double[] w, 
+                         final int start, 
+                         final int end) {
+    throw new UnsupportedOperationException(getClass().getName()); }
+
+  @Override
+  public void deleteAll (final double[] z, 
+                         final double[] w, 
+                         final int[] index, 
+                         final int start, 
+                         final int end) {
+    throw new UnsupportedOperationException(getClass().getName()); }
+
   //----------------------------------------------------------------------------
   // construction
   //----------------------------------------------------------------------------
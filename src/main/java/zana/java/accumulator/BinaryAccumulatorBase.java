@@ -4,7 +4,7 @@ package zana.java.accumulator;
 /** Base for binary classification accumulators.
  *
  * @author John Alan McDonald
- * @version 2017-01-03
+ * @version 2026-10-18
  */
 
 public abstract class BinaryAccumulatorBase extends AccumulatorBase {
@@ -61,6 +61,73 @@ public abstract class BinaryAccumulatorBase extends AccumulatorBase {
       throw new UnsupportedOperationException(
         getClass().getName() + ".delete(" + z.getClass().getName() + ")"); } }
 
+  //----------------------------------------------------------------------------
+
+  /** Number of <code>1.0</code>s, without data dependent branches. */
+  private static final long countPositive (final double[] z, 
+                                           final int start,
+                                           final int end) {
+    long p = 0L;
+    for (int i=start;i<end;i++) {
+      final double zi = z[i];
+      assert (0.0 == zi) || (1.0 == zi) : "invalid binary value: " + zi; 
+      p += (1.0 == zi) ? 1L : 0L; }
+    return p; }
+
+  /** Number of <code>1.0</code>s, without data dependent branches. */
+  private static final long countPositive (final double[] z, 
+                                           final int[] index,
+                                           final int start,
+                                           final int end) {
+    long p = 0L;
+    for (int i=start;i<end;i++) {
+      final double zi = z[index[i]];
+      assert (0.0 == zi) || (1.0 == zi) : "invalid binary value: " + zi; 
+      p += (1.0 == zi) ? 1L : 0L; }
+    return p; }
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final int start,
+                            final int end) {
+    incrementNetCount(end-start);
+    _positiveCount += countPositive(z,start,end); }
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final int[] index,
+                            final int start,
+                            final int end) {
+    incrementNetCount(end-start);
+    _positiveCount += countPositive(z,index,start,end); }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final int start,
+                               final int end) {
+    incrementNetCount(start-end);
+    _positiveCount -= countPositive(z,start,end); 
+    assert _positiveCount >= 0L; }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final int[] index,
+                               final int start,
+                               final int end) {
+    incrementNetCount(start-end);
+    _positiveCount -= countPositive(z,index,start,end); 
+    assert _positiveCount >= 0L; }
+
+  //----------------------------------------------------------------------------
+
+  @Override
+  public final void merge (final Accumulator that) {
+    checkMergeable(that);
+    final BinaryAccumulatorBase b = (BinaryAccumulatorBase) that;
+    incrementNetCount(b.netCount());
+    _positiveCount += b._positiveCount;
+    assert _positiveCount <= netCount(); }
+
   //----------------------------------------------------------------------------
   // construction
   //----------------------------------------------------------------------------
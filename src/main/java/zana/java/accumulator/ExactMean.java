@@ -0,0 +1,36 @@
+package zana.java.accumulator;
+
+//----------------------------------------------------------------
+/** Unweighted mean: the correctly rounded sum, divided by the
+ * count, so the same for any order or partitioning of the data.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class
+
+ExactMean extends ExactSumBase {
+
+  //--------------------------------------------------------------
+  // Accumulator interface
+  //--------------------------------------------------------------
+  /** Default with no data is 0.0.
+   */
+
+  @Override
+  public final double doubleValue () {
+    if (0L == netCount()) { return 0.0; }
+    assert 0 < netCount();
+    return sum() / netCount(); }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  public ExactMean () { super(); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
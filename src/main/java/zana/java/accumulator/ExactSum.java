@@ -0,0 +1,32 @@
+package zana.java.accumulator;
+
+//----------------------------------------------------------------
+/** Exact summation, correctly rounded.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class
+
+ExactSum extends ExactSumBase {
+
+  //--------------------------------------------------------------
+  // Accumulator interface
+  //--------------------------------------------------------------
+  /** Default with no data is 0.0.
+   */
+
+  @Override
+  public final double doubleValue () { return sum(); }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  public ExactSum () { super(); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,111 @@
+package zana.java.accumulator;
+
+import zana.java.math.Superaccumulator;
+
+//----------------------------------------------------------------
+/** Statistics based on the exact sum of the zs, in a
+ * {@link Superaccumulator}. Unlike {@link SumBase}, the result
+ * doesn't depend on the order of the additions and deletions,
+ * nor on how the data was partitioned among accumulators that
+ * were later merged.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public abstract class ExactSumBase extends AccumulatorBase {
+
+  //--------------------------------------------------------------
+  // slots
+  //--------------------------------------------------------------
+  /** Mutable! Not Synchronized!
+   */
+  private final Superaccumulator _sum;
+
+  /** Correctly rounded. */
+  public final double sum () { return _sum.doubleValue(); }
+
+  @Override
+  public final void clear () { super.clear(); _sum.clear(); }
+
+  //--------------------------------------------------------------
+  // Accumulator interface
+  //--------------------------------------------------------------
+
+  @Override
+  public final void add (final double z) {
+    incrementNetCount();
+    _sum.add(z); }
+
+  @Override
+  public final void add (final Object z) {
+    if (z instanceof Number) { add(((Number) z).doubleValue()); }
+    else {
+      throw new UnsupportedOperationException(
+        getClass().getName() + ".add(" + z.getClass().getName() + ")"); } }
+
+  @Override
+  public final void delete (final double z) {
+    decrementNetCount();
+    _sum.subtract(z); }
+
+  @Override
+  public final void delete (final Object z) {
+    if (z instanceof Number) { delete(((Number) z).doubleValue()); }
+    else {
+      throw new UnsupportedOperationException(
+        getClass().getName() + ".delete(" + z.getClass().getName() + ")"); } }
+
+  //--------------------------------------------------------------
+
+  @Override
+  public final void addAll (final double[] z,
+                            final int start,
+                            final int end) {
+    incrementNetCount(end-start);
+    _sum.addAll(z,start,end); }
+
+  @Override
+  public final void addAll (final double[] z,
+                            final int[] index,
+                            final int start,
+                            final int end) {
+    incrementNetCount(end-start);
+    for (int i=start;i<end;i++) { _sum.add(z[index[i]]); } }
+
+  @Override
+  public final void deleteAll (final double[] z,
+                               final int start,
+                               final int end) {
+    incrementNetCount(start-end);
+    for (int i=start;i<end;i++) { _sum.subtract(z[i]); } }
+
+  @Override
+  public final void deleteAll (final double[] z,
+                               final int[] index,
+                               final int start,
+                               final int end) {
+    incrementNetCount(start-end);
+    for (int i=start;i<end;i++) { _sum.subtract(z[index[i]]); } }
+
+  //--------------------------------------------------------------
+  /** Exact, so merging in any order, or any tree of merges, gives
+   * the same result as adding all the data to one accumulator.
+   */
+  @Override
+  public final void merge (final Accumulator that) {
+    checkMergeable(that);
+    final ExactSumBase s = (ExactSumBase) that;
+    incrementNetCount(s.netCount());
+    _sum.merge(s._sum); }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  public ExactSumBase () { super(); _sum = new Superaccumulator(); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -4,7 +4,7 @@ package zana.java.accumulator;
 /** Statistics based on the weighted sum of the zs.
  *
  * @author John Alan McDonald
- * @version 2017-01-04
+ * @version 2026-10-18
  */
 
 public abstract class SumBase extends AccumulatorBase {
@@ -31,8 +31,39 @@ public abstract class SumBase extends AccumulatorBase {
   
   private final void decrementSum (final double z) { incrementSum(-z); }
 
+  /** Kahan sum of <code>sign*z[i]</code>, in local variables. */
+  private final void incrementSum (final double sign,
+                                   final double[] z, 
+                                   final int start,
+                                   final int end) { 
+    double s = _sum;
+    double c = _correction;
+    for (int i=start;i<end;i++) {
+      final double z0 = (sign*z[i]) - c;
+      final double z1 = s + z0;
+      c = (z1 - s) - z0;
+      s = z1; }
+    _sum = s;
+    _correction = c; }
+
+  /** Kahan sum of <code>sign*z[index[i]]</code>, in local variables. */
+  private final void incrementSum (final double sign,
+                                   final double[] z, 
+                                   final int[] index,
+                                   final int start,
+                                   final int end) { 
+    double s = _sum;
+    double c = _correction;
+    for (int i=start;i<end;i++) {
+      final double z0 = (sign*z[index[i]]) - c;
+      final double z1 = s + z0;
+      c = (z1 - s) - z0;
+      s = z1; }
+    _sum = s;
+    _correction = c; }
+
   @Override
-  public final void clear () { super.clear(); _sum = 0.0; }
+  public final void clear () { super.clear(); _sum = 0.0; _correction = 0.0; }
   
   //----------------------------------------------------------------------------
   // Accumulator interface
@@ -62,6 +93,51 @@ public abstract class SumBase extends AccumulatorBase {
       throw new UnsupportedOperationException(
         getClass().getName() + ".delete(" + z.getClass().getName() + ")"); } }
 
+  //----------------------------------------------------------------------------
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final int start,
+                            final int end) {
+    incrementNetCount(end-start); 
+    incrementSum(1.0,z,start,end); }
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final int[] index,
+                            final int start,
+                            final int end) {
+    incrementNetCount(end-start); 
+    incrementSum(1.0,z,index,start,end); }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final int start,
+                               final int end) {
+    incrementNetCount(start-end); 
+    incrementSum(-1.0,z,start,end); }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final int[] index,
+                               final int start,
+                               final int end) {
+    incrementNetCount(start-end); 
+    incrementSum(-1.0,z,index,start,end); }
+
+  //----------------------------------------------------------------------------
+
+  /** Adds <code>that</code>'s sum, and then its Kahan correction, so 
+   * the low order bits it has accumulated aren't lost.
+   */
+  @Override
+  public final void merge (final Accumulator that) {
+    checkMergeable(that);
+    final SumBase s = (SumBase) that;
+    incrementNetCount(s.netCount());
+    incrementSum(s._sum);
+    incrementSum(-s._correction); }
+
   //----------------------------------------------------------------------------
   // construction
   //----------------------------------------------------------------------------
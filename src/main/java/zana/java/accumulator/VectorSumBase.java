@@ -9,7 +9,7 @@ import java.util.Arrays;
  * _sum and _corrrection instances, and determine what add means.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2017-10-31
+ * @version 2026-10-18
  */
 
 public abstract class VectorSumBase extends AccumulatorBase {
@@ -116,6 +116,124 @@ public abstract class VectorSumBase extends AccumulatorBase {
       throw new UnsupportedOperationException(
         getClass().getName() + ".delete(" + z.getClass().getName() + ")"); } }
 
+  //----------------------------------------------------------------------------
+  // bulk updates: no scalar versions, vector versions without instanceof
+  //----------------------------------------------------------------------------
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final int start,
+                            final int end) {
+    throw new UnsupportedOperationException(
+      getClass().getName() + ".addAll(double[],int,int)"); }
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final int[] index,
+                            final int start,
+                            final int end) {
+    throw new UnsupportedOperationException(
+      getClass().getName() + ".addAll(double[],int[],int,int)"); }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final int start,
+                               final int end) {
+    throw new UnsupportedOperationException(
+      getClass().getName() + ".deleteAll(double[],int,int)"); }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final int[] index,
+                               final int start,
+                               final int end) {
+    throw new UnsupportedOperationException(
+      getClass().getName() + ".deleteAll(double[],int[],int,int)"); }
+
+  /** Add the vectors <code>z[i]</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  public final void addAll (final double[][] z, 
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(z[i]); } }
+
+  /** Add the vectors <code>z[index[i]]</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  public final void addAll (final double[][] z, 
+                            final int[] index,
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(z[index[i]]); } }
+
+  /** Add the vectors <code>z[i]</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  public final void addAll (final float[][] z, 
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(z[i]); } }
+
+  /** Add the vectors <code>z[index[i]]</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  public final void addAll (final float[][] z, 
+                            final int[] index,
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(z[index[i]]); } }
+
+  /** Delete the vectors <code>z[i]</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  public final void deleteAll (final double[][] z, 
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { delete(z[i]); } }
+
+  /** Delete the vectors <code>z[index[i]]</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  public final void deleteAll (final double[][] z, 
+                               final int[] index,
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { delete(z[index[i]]); } }
+
+  /** Delete the vectors <code>z[i]</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  public final void deleteAll (final float[][] z, 
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { delete(z[i]); } }
+
+  /** Delete the vectors <code>z[index[i]]</code>, for 
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  public final void deleteAll (final float[][] z, 
+                               final int[] index,
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { delete(z[index[i]]); } }
+
+  //----------------------------------------------------------------------------
+
+  /** Adds <code>that</code>'s sums, and then their Kahan corrections, 
+   * so the low order bits it has accumulated aren't lost.
+   */
+  @Override
+  public final void merge (final Accumulator that) {
+    checkMergeable(that);
+    final VectorSumBase v = (VectorSumBase) that;
+    if (_dimension != v._dimension) {
+      throw new UnsupportedOperationException(
+        "Can't merge dimensions " + _dimension + " and " + v._dimension); }
+    incrementNetCount(v.netCount());
+    incrementSum(v._sum);
+    decrementSum(v._correction); }
+
   //----------------------------------------------------------------------------
   // construction
   //----------------------------------------------------------------------------
@@ -4,7 +4,7 @@ package zana.java.accumulator.weighted;
 /** Sharable code for {@link zana.java.accumulator.Accumulator} implementations.
  *
  * @author John Alan McDonald
- * @version 2017-01-03
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked") 
@@ -77,7 +77,25 @@ extends zana.java.accumulator.AccumulatorBase {
    */
 
   @Override
-  public void clear () { super.clear(); _netWeight = 0.0;}
+  public void clear () { 
+    super.clear(); _netWeight = 0.0; _netCorrection = 0.0; }
+
+  /** Add <code>that</code>'s net count and weight, including its Kahan 
+   * correction. For use in {@link #merge}.
+   */
+  protected final void mergeNet (final AccumulatorBase that) {
+    incrementNetCount(that.netCount());
+    addToNetWeight(that._netWeight);
+    addToNetWeight(-that._netCorrection); }
+
+  /** Kahan update, with no sign check, since a net weight may be slightly
+   * negative.
+   */
+  private final void addToNetWeight (final double w) { 
+    final double w0 = w - _netCorrection;
+    final double w1 = _netWeight + w0;
+    _netCorrection = (w1 - _netWeight) - w0;
+    _netWeight = w1; }
 
 //  @Override
 //  public final void add (final double[] zs, 
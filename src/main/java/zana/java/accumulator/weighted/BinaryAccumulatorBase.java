@@ -1,10 +1,12 @@
 package zana.java.accumulator.weighted;
 
+import zana.java.accumulator.Accumulator;
+
 //------------------------------------------------------------------------------
 /** Base for binary classification accumulators.
  *
  * @author John Alan McDonald
- * @version 2017-01-03
+ * @version 2026-10-18
  */
 
 public abstract class BinaryAccumulatorBase extends AccumulatorBase {
@@ -36,6 +38,14 @@ public abstract class BinaryAccumulatorBase extends AccumulatorBase {
     _positiveCorrection = (w1 - _positiveWeight) - w0;
     _positiveWeight = w1; }
 
+  /** Kahan update, with no sign check, for {@link #merge}.
+   */
+  private final void addToPositiveWeight (final double w) { 
+    final double w0 = w - _positiveCorrection;
+    final double w1 = _positiveWeight + w0;
+    _positiveCorrection = (w1 - _positiveWeight) - w0;
+    _positiveWeight = w1; }
+
   
   /** See <a href=https://en.wikipedia.org/wiki/Kahan_summation_algorithm>
    * Kahan summation algorithm</a>.
@@ -57,7 +67,8 @@ public abstract class BinaryAccumulatorBase extends AccumulatorBase {
   //----------------------------------------------------------------------------
 
   @Override
-  public final void clear () { super.clear(); _positiveWeight = 0.0; }
+  public final void clear () { 
+    super.clear(); _positiveWeight = 0.0; _positiveCorrection = 0.0; }
 
   @Override
   public final void add (final double z) {
@@ -105,6 +116,83 @@ public abstract class BinaryAccumulatorBase extends AccumulatorBase {
     throw new UnsupportedOperationException(
       getClass().getName() + ".delete(" + z.getClass().getName() + ")"); } 
 
+  //----------------------------------------------------------------------------
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(z[i]); } }
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final int[] index,
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(z[index[i]]); } }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { delete(z[i]); } }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final int[] index,
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { delete(z[index[i]]); } }
+
+  //----------------------------------------------------------------------------
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final double[] w, 
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(z[i],w[i]); } }
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final double[] w, 
+                            final int[] index,
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { 
+      final int j = index[i];
+      add(z[j],w[j]); } }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final double[] w, 
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { delete(z[i],w[i]); } }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final double[] w, 
+                               final int[] index,
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { 
+      final int j = index[i];
+      delete(z[j],w[j]); } }
+
+  //----------------------------------------------------------------------------
+
+  /** Adds <code>that</code>'s weights, and then their Kahan corrections, 
+   * so the low order bits it has accumulated aren't lost.
+   */
+  @Override
+  public final void merge (final Accumulator that) {
+    checkMergeable(that);
+    final BinaryAccumulatorBase b = (BinaryAccumulatorBase) that;
+    mergeNet(b);
+    addToPositiveWeight(b._positiveWeight);
+    addToPositiveWeight(-b._positiveCorrection); }
+
   //----------------------------------------------------------------------------
   // construction
   //----------------------------------------------------------------------------
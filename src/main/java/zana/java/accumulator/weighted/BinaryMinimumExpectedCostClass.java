@@ -1,11 +1,13 @@
 
 package zana.java.accumulator.weighted;
 
+import zana.java.accumulator.Accumulator;
+
 //------------------------------------------------------------------------------
 /** Minimum cost class for binary classification/probability, with case weights.
  *
  * @author  wahpenayo at gmail dot com
- * @version 2017-10-31
+ * @version 2026-10-18
  */
 
 public final class
@@ -42,6 +44,16 @@ extends BinaryAccumulatorBase {
                    ? 0.0 
                    : 1.0; }
   
+  @Override
+  protected final void checkMergeable (final Accumulator that) {
+    super.checkMergeable(that);
+    final double c = 
+      ((BinaryMinimumExpectedCostClass) that).falsePositiveCost();
+    if (falsePositiveCost() != c) {
+      throw new UnsupportedOperationException(
+        "Can't merge false positive costs " + falsePositiveCost() + 
+        " and " + c); } }
+
   //----------------------------------------------------------------------------
   // construction
   //----------------------------------------------------------------------------
@@ -1,10 +1,12 @@
 package zana.java.accumulator.weighted;
 
+import zana.java.accumulator.Accumulator;
+
 //------------------------------------------------------------------------------
 /** Statistics based on the weighted sum of the zs.
  *
  * @author John Alan McDonald
- * @version 2017-01-03
+ * @version 2026-10-18
  */
 
 public abstract class
@@ -36,7 +38,7 @@ extends AccumulatorBase {
   private final void decrementSum (final double wz) { incrementSum(-wz); }
 
   @Override
-  public final void clear () { super.clear(); _sum = 0.0; }
+  public final void clear () { super.clear(); _sum = 0.0; _correction = 0.0; }
   
   //----------------------------------------------------------------------------
   // Accumulator interface
@@ -76,6 +78,83 @@ extends AccumulatorBase {
     throw new UnsupportedOperationException(
       getClass().getName() + ".delete(" + z.getClass().getName() + ")"); } 
 
+  //----------------------------------------------------------------------------
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(z[i]); } }
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final int[] index,
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(z[index[i]]); } }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { delete(z[i]); } }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final int[] index,
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { delete(z[index[i]]); } }
+
+  //----------------------------------------------------------------------------
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final double[] w, 
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(z[i],w[i]); } }
+
+  @Override
+  public final void addAll (final double[] z, 
+                            final double[] w, 
+                            final int[] index,
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { 
+      final int j = index[i];
+      add(z[j],w[j]); } }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final double[] w, 
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { delete(z[i],w[i]); } }
+
+  @Override
+  public final void deleteAll (final double[] z, 
+                               final double[] w, 
+                               final int[] index,
+                               final int start,
+                               final int end) {
+    for (int i=start;i<end;i++) { 
+      final int j = index[i];
+      delete(z[j],w[j]); } }
+
+  //----------------------------------------------------------------------------
+
+  /** Adds <code>that</code>'s sum, and then its Kahan correction, so 
+   * the low order bits it has accumulated aren't lost.
+   */
+  @Override
+  public final void merge (final Accumulator that) {
+    checkMergeable(that);
+    final WeightedSumBase s = (WeightedSumBase) that;
+    mergeNet(s);
+    incrementSum(s._sum);
+    incrementSum(-s._correction); }
+
   //----------------------------------------------------------------------------
   // construction
   //----------------------------------------------------------------------------
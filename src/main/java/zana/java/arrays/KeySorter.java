@@ -0,0 +1,617 @@
+package zana.java.arrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+//----------------------------------------------------------------------------
+/** Stable sort of a <code>float[]</code> or <code>double[]</code> key array,
+ * carrying any number of payload arrays (<code>int[]</code>,
+ * <code>long[]</code>, <code>float[]</code>, <code>double[]</code>,
+ * <code>Object[]</code>) along in the same permutation.
+ * <p>
+ * The keys are mapped to {@link Search#sortable(float)}-style integer keys,
+ * and sorted, together with an index permutation, by:
+ * <ul>
+ * <li> an introsort (quicksort with a depth limit, falling back to heapsort,
+ * and insertion sort for short ranges) for small arrays,
+ * <li> an LSD radix sort on 8 bit digits for large arrays, skipping digits
+ * that are the same for every key,
+ * <li> and, for very large arrays, a radix sort whose histogram and scatter
+ * passes are split into chunks run in the common
+ * {@link ForkJoinPool}.
+ * </ul>
+ * The payloads are then permuted in a single gather pass each.
+ * <p>
+ * Unlike {@link Sorter}, equal keys stay in their original order, running
+ * time doesn't degrade on duplicate-heavy or adversarial input, and
+ * <code>-0.0 &lt; 0.0</code>, as in {@link Arrays#sort(float[])}.
+ * NaN keys throw {@link IllegalArgumentException}.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class KeySorter extends Object {
+
+  /** Shorter ranges are insertion sorted. */
+  private static final int INSERTION_MAX = 16;
+  /** Shorter arrays are introsorted, longer ones radix sorted. */
+  private static final int RADIX_MIN = 512;
+  /** Minimum number of elements per parallel chunk. */
+  private static final int GRAIN = 1 << 15;
+  private static final int BITS = 8;
+  private static final int RADIX = 1 << BITS;
+  private static final int MASK = RADIX - 1;
+
+  //----------------------------------------------------------------------------
+  // parallel chunks
+  //----------------------------------------------------------------------------
+
+  private interface Chunk { void run (int k); }
+
+  /** @return number of chunks to split <code>n</code> elements into;
+   * 1 means run serially.
+   */
+  private static final int chunks (final int n) {
+    final int p = ForkJoinPool.getCommonPoolParallelism();
+    if ((p <= 1) || (n < 2*GRAIN)) { return 1; }
+    return Math.min(4*p, n/GRAIN); }
+
+  /** @return start of chunk <code>k</code> of <code>c</code>, in
+   * <code>[0,n)</code>.
+   */
+  private static final int chunkStart (final int k,
+                                       final int c,
+                                       final int n) {
+    return (int) ((((long) k) * n) / c); }
+
+  /** Run <code>body</code> on chunks <code>0,...,c-1</code>, in the common
+   * pool if <code>c &gt; 1</code>.
+   */
+  private static final void forEachChunk (final int c,
+                                          final Chunk body) {
+    if (1 == c) { body.run(0); return; }
+    final List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(c);
+    for (int k=0;k<c;k++) {
+      final int kk = k;
+      tasks.add(new Callable<Object>() {
+        @Override
+        public final Object call () { body.run(kk); return null; } }); }
+    try {
+      for (final Future<Object> f :
+        ForkJoinPool.commonPool().invokeAll(tasks)) {
+        f.get(); } }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e); }
+    catch (final ExecutionException e) {
+      throw new RuntimeException(e.getCause()); } }
+
+  //----------------------------------------------------------------------------
+  // int keys with index permutation
+  //----------------------------------------------------------------------------
+  /** Lexicographic on <code>(u,p)</code>, which makes the sort stable
+   * when <code>p</code> starts in order.
+   */
+  private static final boolean less (final int[] u,
+                                     final int[] p,
+                                     final int i,
+                                     final int j) {
+    final int ui = u[i];
+    final int uj = u[j];
+    return (ui < uj) || ((ui == uj) && (p[i] < p[j])); }
+
+  private static final void swap (final int[] u,
+                                  final int[] p,
+                                  final int i,
+                                  final int j) {
+    final int ui = u[i]; u[i] = u[j]; u[j] = ui;
+    final int pi = p[i]; p[i] = p[j]; p[j] = pi; }
+
+  private static final void insertionSort (final int[] u,
+                                           final int[] p,
+                                           final int start,
+                                           final int end) {
+    for (int i=start+1;i<end;i++) {
+      for (int j=i;(j>start) && less(u,p,j,j-1);j--) {
+        swap(u,p,j,j-1); } } }
+
+  private static final void siftDown (final int[] u,
+                                      final int[] p,
+                                      final int start,
+                                      final int i0,
+                                      final int n) {
+    int i = i0;
+    for (;;) {
+      int child = (2*i) + 1;
+      if (child >= n) { return; }
+      if (((child+1) < n) && less(u,p,start+child,start+child+1)) {
+        child++; }
+      if (! less(u,p,start+i,start+child)) { return; }
+      swap(u,p,start+i,start+child);
+      i = child; } }
+
+  private static final void heapSort (final int[] u,
+                                      final int[] p,
+                                      final int start,
+                                      final int end) {
+    final int n = end - start;
+    for (int i=(n/2)-1;i>=0;i--) { siftDown(u,p,start,i,n); }
+    for (int i=n-1;i>0;i--) {
+      swap(u,p,start,start+i);
+      siftDown(u,p,start,0,i); } }
+
+  private static final void introSort (final int[] u,
+                                       final int[] p,
+                                       final int start,
+                                       final int end,
+                                       final int depth) {
+    int lo = start;
+    int hi = end;
+    int d = depth;
+    while ((hi - lo) > INSERTION_MAX) {
+      if (0 == d) { heapSort(u,p,lo,hi); return; }
+      d--;
+      // median of 3 to lo
+      final int mid = (lo + hi) >>> 1;
+      final int last = hi - 1;
+      if (less(u,p,mid,lo)) { swap(u,p,mid,lo); }
+      if (less(u,p,last,lo)) { swap(u,p,last,lo); }
+      if (less(u,p,last,mid)) { swap(u,p,last,mid); }
+      swap(u,p,lo,mid);
+      // partition; (u,p) pairs are distinct
+      int i = lo;
+      int j = hi;
+      for (;;) {
+        do { i++; } while ((i < last) && less(u,p,i,lo));
+        do { j--; } while (less(u,p,lo,j));
+        if (i >= j) { break; }
+        swap(u,p,i,j); }
+      swap(u,p,lo,j);
+      // recurse on the shorter side
+      if ((j - lo) < (hi - j - 1)) {
+        introSort(u,p,lo,j,d);
+        lo = j + 1; }
+      else {
+        introSort(u,p,j+1,hi,d);
+        hi = j; } }
+    insertionSort(u,p,lo,hi); }
+
+  private static final int depthLimit (final int n) {
+    return 2 * (32 - Integer.numberOfLeadingZeros(n)); }
+
+  /** Histogram digit counts for each chunk, then, unless every key has the
+   * same digit, replace counts by scatter offsets.
+   * @return false if the digit is constant, and the pass can be skipped.
+   */
+  private static final boolean offsets (final int[] counts,
+                                        final int c,
+                                        final int n) {
+    for (int b=0;b<RADIX;b++) {
+      int total = 0;
+      for (int k=0;k<c;k++) { total += counts[(k*RADIX)+b]; }
+      if (total == n) { return false; }
+      if (0 != total) { break; } }
+    int running = 0;
+    for (int b=0;b<RADIX;b++) {
+      for (int k=0;k<c;k++) {
+        final int kb = (k*RADIX) + b;
+        final int t = counts[kb];
+        counts[kb] = running;
+        running += t; } }
+    return true; }
+
+  private static final void radixSort (final int[] u,
+                                       final int[] p,
+                                       final int n) {
+    final int c = chunks(n);
+    final int[] counts = new int[c*RADIX];
+    int[] us = u;
+    int[] ps = p;
+    int[] ud = new int[n];
+    int[] pd = new int[n];
+    for (int shift=0;shift<32;shift+=BITS) {
+      // flip the sign bit on the top digit
+      final int flip = ((32 - BITS) == shift) ? (RADIX >>> 1) : 0;
+      final int s = shift;
+      final int[] us0 = us;
+      final int[] ps0 = ps;
+      final int[] ud0 = ud;
+      final int[] pd0 = pd;
+      Arrays.fill(counts,0);
+      forEachChunk(c, new Chunk() {
+        @Override
+        public final void run (final int k) {
+          final int k0 = k*RADIX;
+          final int end = chunkStart(k+1,c,n);
+          for (int i=chunkStart(k,c,n);i<end;i++) {
+            counts[k0 + (((us0[i] >>> s) & MASK) ^ flip)]++; } } });
+      if (! offsets(counts,c,n)) { continue; }
+      forEachChunk(c, new Chunk() {
+        @Override
+        public final void run (final int k) {
+          final int k0 = k*RADIX;
+          final int end = chunkStart(k+1,c,n);
+          for (int i=chunkStart(k,c,n);i<end;i++) {
+            final int ui = us0[i];
+            final int j = counts[k0 + (((ui >>> s) & MASK) ^ flip)]++;
+            ud0[j] = ui;
+            pd0[j] = ps0[i]; } } });
+      us = ud0; ud = us0;
+      ps = pd0; pd = ps0; }
+    if (us != u) {
+      System.arraycopy(us,0,u,0,n);
+      System.arraycopy(ps,0,p,0,n); } }
+
+  /** Sort <code>u</code>, applying the same permutation to
+   * <code>p</code>, which should start as <code>0,...,n-1</code>.
+   */
+  private static final void sort (final int[] u,
+                                  final int[] p) {
+    final int n = u.length;
+    if (n < RADIX_MIN) { introSort(u,p,0,n,depthLimit(n)); }
+    else { radixSort(u,p,n); } }
+
+  //----------------------------------------------------------------------------
+  // long keys with index permutation
+  //----------------------------------------------------------------------------
+
+  private static final boolean less (final long[] u,
+                                     final int[] p,
+                                     final int i,
+                                     final int j) {
+    final long ui = u[i];
+    final long uj = u[j];
+    return (ui < uj) || ((ui == uj) && (p[i] < p[j])); }
+
+  private static final void swap (final long[] u,
+                                  final int[] p,
+                                  final int i,
+                                  final int j) {
+    final long ui = u[i]; u[i] = u[j]; u[j] = ui;
+    final int pi = p[i]; p[i] = p[j]; p[j] = pi; }
+
+  private static final void insertionSort (final long[] u,
+                                           final int[] p,
+                                           final int start,
+                                           final int end) {
+    for (int i=start+1;i<end;i++) {
+      for (int j=i;(j>start) && less(u,p,j,j-1);j--) {
+        swap(u,p,j,j-1); } } }
+
+  private static final void siftDown (final long[] u,
+                                      final int[] p,
+                                      final int start,
+                                      final int i0,
+                                      final int n) {
+    int i = i0;
+    for (;;) {
+      int child = (2*i) + 1;
+      if (child >= n) { return; }
+      if (((child+1) < n) && less(u,p,start+child,start+child+1)) {
+        child++; }
+      if (! less(u,p,start+i,start+child)) { return; }
+      swap(u,p,start+i,start+child);
+      i = child; } }
+
+  private static final void heapSort (final long[] u,
+                                      final int[] p,
+                                      final int start,
+                                      final int end) {
+    final int n = end - start;
+    for (int i=(n/2)-1;i>=0;i--) { siftDown(u,p,start,i,n); }
+    for (int i=n-1;i>0;i--) {
+      swap(u,p,start,start+i);
+      siftDown(u,p,start,0,i); } }
+
+  private static final void introSort (final long[] u,
+                                       final int[] p,
+                                       final int start,
+                                       final int end,
+                                       final int depth) {
+    int lo = start;
+    int hi = end;
+    int d = depth;
+    while ((hi - lo) > INSERTION_MAX) {
+      if (0 == d) { heapSort(u,p,lo,hi); return; }
+      d--;
+      final int mid = (lo + hi) >>> 1;
+      final int last = hi - 1;
+      if (less(u,p,mid,lo)) { swap(u,p,mid,lo); }
+      if (less(u,p,last,lo)) { swap(u,p,last,lo); }
+      if (less(u,p,last,mid)) { swap(u,p,last,mid); }
+      swap(u,p,lo,mid);
+      int i = lo;
+      int j = hi;
+      for (;;) {
+        do { i++; } while ((i < last) && less(u,p,i,lo));
+        do { j--; } while (less(u,p,lo,j));
+        if (i >= j) { break; }
+        swap(u,p,i,j); }
+      swap(u,p,lo,j);
+      if ((j - lo) < (hi - j - 1)) {
+        introSort(u,p,lo,j,d);
+        lo = j + 1; }
+      else {
+        introSort(u,p,j+1,hi,d);
+        hi = j; } }
+    insertionSort(u,p,lo,hi); }
+
+  private static final void radixSort (final long[] u,
+                                       final int[] p,
+                                       final int n) {
+    final int c = chunks(n);
+    final int[] counts = new int[c*RADIX];
+    long[] us = u;
+    int[] ps = p;
+    long[] ud = new long[n];
+    int[] pd = new int[n];
+    for (int shift=0;shift<64;shift+=BITS) {
+      final int flip = ((64 - BITS) == shift) ? (RADIX >>> 1) : 0;
+      final int s = shift;
+      final long[] us0 = us;
+      final int[] ps0 = ps;
+      final long[] ud0 = ud;
+      final int[] pd0 = pd;
+      Arrays.fill(counts,0);
+      forEachChunk(c, new Chunk() {
+        @Override
+        public final void run (final int k) {
+          final int k0 = k*RADIX;
+          final int end = chunkStart(k+1,c,n);
+          for (int i=chunkStart(k,c,n);i<end;i++) {
+            counts[k0 + ((((int) (us0[i] >>> s)) & MASK) ^ flip)]++; } } });
+      if (! offsets(counts,c,n)) { continue; }
+      forEachChunk(c, new Chunk() {
+        @Override
+        public final void run (final int k) {
+          final int k0 = k*RADIX;
+          final int end = chunkStart(k+1,c,n);
+          for (int i=chunkStart(k,c,n);i<end;i++) {
+            final long ui = us0[i];
+            final int j =
+              counts[k0 + ((((int) (ui >>> s)) & MASK) ^ flip)]++;
+            ud0[j] = ui;
+            pd0[j] = ps0[i]; } } });
+      us = ud0; ud = us0;
+      ps = pd0; pd = ps0; }
+    if (us != u) {
+      System.arraycopy(us,0,u,0,n);
+      System.arraycopy(ps,0,p,0,n); } }
+
+  private static final void sort (final long[] u,
+                                  final int[] p) {
+    final int n = u.length;
+    if (n < RADIX_MIN) { introSort(u,p,0,n,depthLimit(n)); }
+    else { radixSort(u,p,n); } }
+
+  //----------------------------------------------------------------------------
+  // sortable keys
+  //----------------------------------------------------------------------------
+  /** Like {@link Search#sortable(float)}: signed <code>long</code>
+   * comparison of the result orders doubles the same as
+   * {@link Double#compare(double,double)}. The map is its own inverse.
+   */
+  private static final long sortable (final long bits) {
+    return bits ^ ((bits >> 63) & 0x7fffffffffffffffL); }
+
+  private static final int sortable (final int bits) {
+    return bits ^ ((bits >> 31) & 0x7fffffff); }
+
+  private static final int[] sortableKeys (final float[] keys,
+                                           final int start,
+                                           final int end) {
+    final int[] u = new int[end-start];
+    for (int i=start;i<end;i++) {
+      final float ki = keys[i];
+      if (ki != ki) {
+        throw new IllegalArgumentException("Can't sort NaN."); }
+      u[i-start] = sortable(Float.floatToRawIntBits(ki)); }
+    return u; }
+
+  private static final long[] sortableKeys (final double[] keys,
+                                            final int start,
+                                            final int end) {
+    final long[] u = new long[end-start];
+    for (int i=start;i<end;i++) {
+      final double ki = keys[i];
+      if (ki != ki) {
+        throw new IllegalArgumentException("Can't sort NaN."); }
+      u[i-start] = sortable(Double.doubleToRawLongBits(ki)); }
+    return u; }
+
+  //----------------------------------------------------------------------------
+  // payloads
+  //----------------------------------------------------------------------------
+  /** Replace <code>a[start+i]</code> by <code>a[start+p[i]]</code>,
+   * for each <code>a</code> in <code>payloads</code>.
+   * @param p a permutation of <code>0,...,p.length-1</code>
+   * @param start offset of the permuted range in each payload
+   * @param payloads each an <code>int[]</code>, <code>long[]</code>,
+   * <code>float[]</code>, <code>double[]</code> or <code>Object[]</code>
+   * @throws UnsupportedOperationException for any other payload type.
+   */
+  public static final void permute (final int[] p,
+                                    final int start,
+                                    final Object[] payloads) {
+    final int n = p.length;
+    final int c = chunks(n);
+    for (final Object payload : payloads) {
+      if (payload instanceof int[]) {
+        final int[] a = (int[]) payload;
+        final int[] a0 = Arrays.copyOfRange(a,start,start+n);
+        forEachChunk(c, new Chunk() {
+          @Override
+          public final void run (final int k) {
+            final int end = chunkStart(k+1,c,n);
+            for (int i=chunkStart(k,c,n);i<end;i++) {
+              a[start+i] = a0[p[i]]; } } }); }
+      else if (payload instanceof long[]) {
+        final long[] a = (long[]) payload;
+        final long[] a0 = Arrays.copyOfRange(a,start,start+n);
+        forEachChunk(c, new Chunk() {
+          @Override
+          public final void run (final int k) {
+            final int end = chunkStart(k+1,c,n);
+            for (int i=chunkStart(k,c,n);i<end;i++) {
+              a[start+i] = a0[p[i]]; } } }); }
+      else if (payload instanceof float[]) {
+        final float[] a = (float[]) payload;
+        final float[] a0 = Arrays.copyOfRange(a,start,start+n);
+        forEachChunk(c, new Chunk() {
+          @Override
+          public final void run (final int k) {
+            final int end = chunkStart(k+1,c,n);
+            for (int i=chunkStart(k,c,n);i<end;i++) {
+              a[start+i] = a0[p[i]]; } } }); }
+      else if (payload instanceof double[]) {
+        final double[] a = (double[]) payload;
+        final double[] a0 = Arrays.copyOfRange(a,start,start+n);
+        forEachChunk(c, new Chunk() {
+          @Override
+          public final void run (final int k) {
+            final int end = chunkStart(k+1,c,n);
+            for (int i=chunkStart(k,c,n);i<end;i++) {
+              a[start+i] = a0[p[i]]; } } }); }
+      else if (payload instanceof Object[]) {
+        final Object[] a = (Object[]) payload;
+        final Object[] a0 = Arrays.copyOfRange(a,start,start+n);
+        forEachChunk(c, new Chunk() {
+          @Override
+          public final void run (final int k) {
+            final int end = chunkStart(k+1,c,n);
+            for (int i=chunkStart(k,c,n);i<end;i++) {
+              a[start+i] = a0[p[i]]; } } }); }
+      else {
+        throw new UnsupportedOperationException(
+          "Can't permute " + payload); } } }
+
+  //----------------------------------------------------------------------------
+  // float keys
+  //----------------------------------------------------------------------------
+  /** @return <code>p</code> such that <code>keys[start+p[i]]</code> is
+   * non-decreasing in <code>i</code>, with ties in their original order.
+   * <code>keys</code> is not modified.
+   * @throws IllegalArgumentException if there are any NaNs.
+   */
+  public static final int[] permutation (final float[] keys,
+                                         final int start,
+                                         final int end) {
+    final int[] u = sortableKeys(keys,start,end);
+    final int[] p = Sorter.iota(end-start);
+    sort(u,p);
+    return p; }
+
+  /** @return <code>p</code> such that <code>keys[p[i]]</code> is
+   * non-decreasing in <code>i</code>, with ties in their original order.
+   * <code>keys</code> is not modified.
+   * @throws IllegalArgumentException if there are any NaNs.
+   */
+  public static final int[] permutation (final float[] keys) {
+    return permutation(keys,0,keys.length); }
+
+  /** Stable sort of <code>keys[start,end)</code>, applying the same
+   * permutation to the same range of each payload.
+   * @param payloads each an <code>int[]</code>, <code>long[]</code>,
+   * <code>float[]</code>, <code>double[]</code> or <code>Object[]</code>,
+   * at least <code>end</code> long.
+   * @throws IllegalArgumentException if there are any NaNs.
+   */
+  public static final void sort (final float[] keys,
+                                 final int start,
+                                 final int end,
+                                 final Object[] payloads) {
+    assert (0 <= start) && (start <= end) && (end <= keys.length);
+    final int n = end - start;
+    if (n <= 1) { return; }
+    final int[] u = sortableKeys(keys,start,end);
+    final int[] p = Sorter.iota(n);
+    sort(u,p);
+    for (int i=0;i<n;i++) {
+      keys[start+i] = Float.intBitsToFloat(sortable(u[i])); }
+    permute(p,start,payloads); }
+
+  /** Stable sort of <code>keys</code>, applying the same permutation to
+   * each payload.
+   * @param payloads each an <code>int[]</code>, <code>long[]</code>,
+   * <code>float[]</code>, <code>double[]</code> or <code>Object[]</code>,
+   * the same length as <code>keys</code>.
+   * @throws IllegalArgumentException if there are any NaNs.
+   */
+  public static final void sort (final float[] keys,
+                                 final Object[] payloads) {
+    sort(keys,0,keys.length,payloads); }
+
+  //----------------------------------------------------------------------------
+  // double keys
+  //----------------------------------------------------------------------------
+  /** @return <code>p</code> such that <code>keys[start+p[i]]</code> is
+   * non-decreasing in <code>i</code>, with ties in their original order.
+   * <code>keys</code> is not modified.
+   * @throws IllegalArgumentException if there are any NaNs.
+   */
+  public static final int[] permutation (final double[] keys,
+                                         final int start,
+                                         final int end) {
+    final long[] u = sortableKeys(keys,start,end);
+    final int[] p = Sorter.iota(end-start);
+    sort(u,p);
+    return p; }
+
+  /** @return <code>p</code> such that <code>keys[p[i]]</code> is
+   * non-decreasing in <code>i</code>, with ties in their original order.
+   * <code>keys</code> is not modified.
+   * @throws IllegalArgumentException if there are any NaNs.
+   */
+  public static final int[] permutation (final double[] keys) {
+    return permutation(keys,0,keys.length); }
+
+  /** Stable sort of <code>keys[start,end)</code>, applying the same
+   * permutation to the same range of each payload.
+   * @param payloads each an <code>int[]</code>, <code>long[]</code>,
+   * <code>float[]</code>, <code>double[]</code> or <code>Object[]</code>,
+   * at least <code>end</code> long.
+   * @throws IllegalArgumentException if there are any NaNs.
+   */
+  public static final void sort (final double[] keys,
+                                 final int start,
+                                 final int end,
+                                 final Object[] payloads) {
+    assert (0 <= start) && (start <= end) && (end <= keys.length);
+    final int n = end - start;
+    if (n <= 1) { return; }
+    final long[] u = sortableKeys(keys,start,end);
+    final int[] p = Sorter.iota(n);
+    sort(u,p);
+    for (int i=0;i<n;i++) {
+      keys[start+i] = Double.longBitsToDouble(sortable(u[i])); }
+    permute(p,start,payloads); }
+
+  /** Stable sort of <code>keys</code>, applying the same permutation to
+   * each payload.
+   * @param payloads each an <code>int[]</code>, <code>long[]</code>,
+   * <code>float[]</code>, <code>double[]</code> or <code>Object[]</code>,
+   * the same length as <code>keys</code>.
+   * @throws IllegalArgumentException if there are any NaNs.
+   */
+  public static final void sort (final double[] keys,
+                                 final Object[] payloads) {
+    sort(keys,0,keys.length,payloads); }
+
+  //----------------------------------------------------------------------------
+  // disabled constructor
+  //----------------------------------------------------------------------------
+  private
+  KeySorter () {
+    super();
+    throw new UnsupportedOperationException(
+      "Can't instantiate " + getClass()); }
+  //----------------------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------------------
@@ -0,0 +1,178 @@
+package zana.java.arrays;
+//----------------------------------------------------------------------------
+/** Searching sorted <code>float[]</code> arrays, with results that are
+ * identical to {@link java.util.Arrays#binarySearch(float[],float)}, but
+ * faster for many queries:
+ * <ul>
+ * <li> Single queries use a branch-free binary search: the loop count
+ * depends only on the length of the range, and the only data dependent
+ * operation is a conditional move, so there are no mispredicted branches.
+ * <li> Non-decreasing sequences of queries can be answered with a single
+ * galloping (exponential search) sweep, which costs
+ * <code>O(m log(n/m))</code> for <code>m</code> queries into an
+ * array of length <code>n</code>, and degenerates to a linear merge when
+ * <code>m</code> is comparable to <code>n</code>.
+ * </ul>
+ * Comparisons are made on {@link #sortable(float)} keys, which order
+ * floats the same way as {@link Float#compare(float,float)} (and
+ * therefore {@link java.util.Arrays#binarySearch(float[],float)}):
+ * <code>-0.0F &lt; 0.0F</code>, and <code>NaN</code> is greater than
+ * everything else.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class Search extends Object {
+
+  //----------------------------------------------------------------------------
+  /** @return an <code>int</code> whose signed order is the same as the
+   * order of <code>x</code> under {@link Float#compare(float,float)}.
+   */
+  public static final int sortable (final float x) {
+    final int bits = Float.floatToIntBits(x);
+    return bits ^ ((bits >> 31) & 0x7fffffff); }
+  //----------------------------------------------------------------------------
+  /** @return true if the {@link #sortable(float)} keys of
+   * <code>(float) x[i]</code> are non-decreasing.
+   */
+  public static final boolean isSortable (final double[] x) {
+    final int n = x.length;
+    if (1 >= n) { return true; }
+    int k0 = sortable((float) x[0]);
+    for (int i=1;i<n;i++) {
+      final int k1 = sortable((float) x[i]);
+      if (k0 > k1) { return false; }
+      k0 = k1; }
+    return true; }
+  //----------------------------------------------------------------------------
+  /** @return true if the {@link #sortable(float)} keys of
+   * <code>x[i]</code> are non-decreasing.
+   */
+  public static final boolean isSortable (final float[] x) {
+    final int n = x.length;
+    if (1 >= n) { return true; }
+    int k0 = sortable(x[0]);
+    for (int i=1;i<n;i++) {
+      final int k1 = sortable(x[i]);
+      if (k0 > k1) { return false; }
+      k0 = k1; }
+    return true; }
+  //----------------------------------------------------------------------------
+  // branch-free binary search
+  //----------------------------------------------------------------------------
+  /** Branch-free binary search.
+   * @param a sorted, no <code>NaN</code>s.
+   * @param start first index in search range.
+   * @param length number of elements in search range.
+   * @param key a {@link #sortable(float)} key.
+   * @return the index of the first element in
+   * <code>[start,start+length)</code> whose key is greater than
+   * <code>key</code>, or <code>start+length</code> if there isn't one.
+   */
+  public static final int upperBound (final float[] a,
+                                      final int start,
+                                      final int length,
+                                      final int key) {
+    if (0 >= length) { return start; }
+    int base = start;
+    int n = length;
+    while (n > 1) {
+      final int half = n >>> 1;
+      base = (sortable(a[base + half]) <= key) ? base + half : base;
+      n -= half; }
+    return base + ((sortable(a[base]) <= key) ? 1 : 0); }
+  //----------------------------------------------------------------------------
+  /** Branch-free binary search.
+   * @param a sorted, no <code>NaN</code>s.
+   * @param start first index in search range.
+   * @param length number of elements in search range.
+   * @param key a {@link #sortable(float)} key.
+   * @return the index of the first element in
+   * <code>[start,start+length)</code> whose key is greater than or equal
+   * to <code>key</code>, or <code>start+length</code> if there isn't one.
+   */
+  public static final int lowerBound (final float[] a,
+                                      final int start,
+                                      final int length,
+                                      final int key) {
+    if (0 >= length) { return start; }
+    int base = start;
+    int n = length;
+    while (n > 1) {
+      final int half = n >>> 1;
+      base = (sortable(a[base + half]) < key) ? base + half : base;
+      n -= half; }
+    return base + ((sortable(a[base]) < key) ? 1 : 0); }
+  //----------------------------------------------------------------------------
+  /** @see #upperBound(float[],int,int,int) */
+  public static final int upperBound (final float[] a,
+                                      final float x) {
+    return upperBound(a,0,a.length,sortable(x)); }
+  //----------------------------------------------------------------------------
+  /** @see #lowerBound(float[],int,int,int) */
+  public static final int lowerBound (final float[] a,
+                                      final float x) {
+    return lowerBound(a,0,a.length,sortable(x)); }
+  //----------------------------------------------------------------------------
+  // galloping search
+  //----------------------------------------------------------------------------
+  /** Exponential search forward from <code>from</code>, followed by a
+   * branch-free binary search of the bracketing range. Use for
+   * non-decreasing sequences of keys, passing the previous result as
+   * <code>from</code>.
+   * @param a sorted, no <code>NaN</code>s.
+   * @param from a lower bound on the result, eg, the result for a smaller
+   * key.
+   * @param key a {@link #sortable(float)} key.
+   * @return same as <code>upperBound(a,0,a.length,key)</code>, assuming
+   * that is at least <code>from</code>.
+   */
+  public static final int gallopUpperBound (final float[] a,
+                                            final int from,
+                                            final int key) {
+    final int n = a.length;
+    int lo = from;
+    int hi = from;
+    int step = 1;
+    while ((hi < n) && (sortable(a[hi]) <= key)) {
+      lo = hi + 1;
+      hi = lo + step;
+      step <<= 1; }
+    final int end = Math.min(hi,n);
+    return upperBound(a,lo,end-lo,key); }
+  //----------------------------------------------------------------------------
+  /** Exponential search forward from <code>from</code>, followed by a
+   * branch-free binary search of the bracketing range.
+   * @param a sorted, no <code>NaN</code>s.
+   * @param from a lower bound on the result, eg, the result for a smaller
+   * key.
+   * @param key a {@link #sortable(float)} key.
+   * @return same as <code>lowerBound(a,0,a.length,key)</code>, assuming
+   * that is at least <code>from</code>.
+   */
+  public static final int gallopLowerBound (final float[] a,
+                                            final int from,
+                                            final int key) {
+    final int n = a.length;
+    int lo = from;
+    int hi = from;
+    int step = 1;
+    while ((hi < n) && (sortable(a[hi]) < key)) {
+      lo = hi + 1;
+      hi = lo + step;
+      step <<= 1; }
+    final int end = Math.min(hi,n);
+    return lowerBound(a,lo,end-lo,key); }
+  //----------------------------------------------------------------------------
+  // disabled constructor
+  //----------------------------------------------------------------------------
+  private
+  Search () {
+    super();
+    throw new UnsupportedOperationException(
+      "Can't instantiate " + getClass()); }
+  //----------------------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------------------
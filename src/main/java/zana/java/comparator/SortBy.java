@@ -1,149 +1,241 @@
 package zana.java.comparator;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
+import clojure.lang.IFn;
+import zana.java.arrays.KeySorter;
+import zana.java.concurrent.Parallel;
+
 //----------------------------------------------------------------------------
-/** Quicksort of List by clojure.lang.IFn.OD, etc.
+/** Sort objects by the values of key functions, evaluating each key once
+ * per element, rather than once per comparison: decorate, sort,
+ * undecorate.
+ * <p>
+ * Keys are evaluated in the calling thread, unless a number of
+ * <code>threads</code> greater than 1 is given, in which case the key
+ * functions of large inputs are called from that many fork/join threads,
+ * and must be thread safe.
+ * <p>
+ * <code>double</code> keys are sorted as an index permutation by
+ * {@link KeySorter}, which is applied to the elements in one pass.
+ * All sorts are stable. Keys are ordered as by
+ * {@link Double#compare(double,double)}: <code>-0.0 &lt; 0.0</code>, and
+ * <code>NaN</code> after everything else.
  *
  * @author John Alan McDonald
  * @since 2017-01-03
- * @version 2017-10-23
+ * @version 2026-10-18
  */
 
-@SuppressWarnings("unchecked") 
+@SuppressWarnings("unchecked")
 public final class SortBy extends Object {
 
-  //----------------------------------------------------------------------------
-  /** Swap <code>i</code>th and <code>j</code>th elements of <code>a</code> and
-   * <code>p</code>.
-   * @param a modified by swap.
-   * @param i index of element to swap.
-   * @param j index of element to swap.
+  /** Shorter inputs have their keys evaluated in the calling thread,
+   * whatever the requested number of threads.
    */
-  private static final void swap (final List a,
-                                  final int i,
-                                  final int j) {
-    final Object ai = a.get(i); 
-    a.set(i,a.get(j)); 
-    a.set(j,ai); }
+  private static final int PARALLEL_MIN = 1 << 14;
+
+  private static final int threads (final int threads,
+                                    final int n) {
+    return (n < PARALLEL_MIN) ? 1 : Math.max(1,threads); }
+
+  //----------------------------------------------------------------------------
+  // keys
   //----------------------------------------------------------------------------
-  /** Swap <code>n</code> items starting at <code>i0</code> with <code>n</code>
-   * items starting at <code>i1</code> in <code>x</code> and <code>p</code>.
-   * No check that ranges aren't overlapping.
-   * @param x modified by swap.
-   * @param p modified by swap.
-   * @param i0 starting index of 'source' elements.
-   * @param i1 starting index of 'destination' elements.
-   * @param n number of elements to swap.
+  /** @return <code>z(a[i])</code> for each <code>i</code>, evaluated
+   * on up to <code>threads</code> threads.
    */
-  private static final void swap (final List a,
-                                  final int i0,
-                                  final int i1,
-                                  final int n) {
-    int j = i0;
-    int k = i1;
-    for (int i=0;i<n;i++) { swap(a, j, k); j++; k++; } }
+  public static final double[] keys (final int threads,
+                                     final IFn.OD z,
+                                     final Object[] a) {
+    final int t = threads(threads,a.length);
+    if ((1 < t) && (z instanceof IFn)) {
+      return Parallel.mapDoubles(t,(IFn) z,a); }
+    final double[] k = new double[a.length];
+    for (int i=0;i<a.length;i++) { k[i] = z.invokePrim(a[i]); }
+    return k; }
+
+  /** @return <code>z(a[i])</code> for each <code>i</code>. */
+  public static final double[] keys (final IFn.OD z,
+                                     final Object[] a) {
+    return keys(1,z,a); }
+
+  /** @return <code>f(a[i])</code> for each <code>i</code>, evaluated
+   * on up to <code>threads</code> threads.
+   */
+  public static final Object[] keys (final int threads,
+                                     final IFn f,
+                                     final Object[] a) {
+    final int t = threads(threads,a.length);
+    if (1 < t) { return Parallel.map(t,f,a); }
+    final Object[] k = new Object[a.length];
+    for (int i=0;i<a.length;i++) { k[i] = f.invoke(a[i]); }
+    return k; }
+
+  /** @return <code>f(a[i])</code> for each <code>i</code>. */
+  public static final Object[] keys (final IFn f,
+                                     final Object[] a) {
+    return keys(1,f,a); }
+
+  //----------------------------------------------------------------------------
+  // permutations
   //----------------------------------------------------------------------------
-  /** @return the index of the median of the three indexed doubles.
+  /** @return the stable sorting permutation of <code>z</code>, with
+   * <code>NaN</code>s last.
+   */
+  private static final int[] permutation (final double[] z) {
+    final int n = z.length;
+    int nans = 0;
+    for (final double zi : z) { if (Double.isNaN(zi)) { nans++; } }
+    if (0 == nans) { return KeySorter.permutation(z); }
+    final int m = n - nans;
+    final double[] numbers = new double[m];
+    final int[] index = new int[m];
+    final int[] p = new int[n];
+    for (int i=0,j=0,k=m;i<n;i++) {
+      if (Double.isNaN(z[i])) { p[k++] = i; }
+      else { numbers[j] = z[i]; index[j++] = i; } }
+    final int[] q = KeySorter.permutation(numbers);
+    for (int i=0;i<m;i++) { p[i] = index[q[i]]; }
+    return p; }
+
+  /** @return <code>p</code> such that <code>z(a[p[i]])</code> is
+   * non-decreasing in <code>i</code>, with ties in their original order.
    */
-  private static final int indexOfMedian (final clojure.lang.IFn.OD z,
-                                          final List a,
-                                          final int i,
-                                          final int j,
-                                          final int k) {
-    final double zi = z.invokePrim(a.get(i));
-    final double zj = z.invokePrim(a.get(j));
-    final double zk = z.invokePrim(a.get(k));
-    if (Double.compare(zi,zj) < 0) {
-      if (Double.compare(zj,zk) < 0) { return j; }
-      if (Double.compare(zi,zk) < 0) { return k; }
-      return i; }
-    if (Double.compare(zj,zk) > 0) { return j; }
-    if (Double.compare(zi,zk) > 0) { return k; }
-    return i; }
+  public static final int[] permutation (final int threads,
+                                         final IFn.OD z,
+                                         final Object[] a) {
+    return permutation(keys(threads,z,a)); }
+
+  public static final int[] permutation (final IFn.OD z,
+                                         final Object[] a) {
+    return permutation(1,z,a); }
+
+  /** @return <code>p</code> such that
+   * <code>[zs[0](a[p[i]]), zs[1](a[p[i]]), ...]</code> is
+   * lexicographically non-decreasing in <code>i</code>, with ties in their
+   * original order.
+   */
+  public static final int[] permutation (final int threads,
+                                         final IFn.OD[] zs,
+                                         final Object[] a) {
+    final int n = a.length;
+    int[] p = null;
+    // least significant key first; each pass is stable
+    for (int k=zs.length-1;k>=0;k--) {
+      final double[] z = keys(threads,zs[k],a);
+      if (null == p) { p = permutation(z); }
+      else {
+        final double[] zp = new double[n];
+        for (int i=0;i<n;i++) { zp[i] = z[p[i]]; }
+        final int[] q = permutation(zp);
+        final int[] pq = new int[n];
+        for (int i=0;i<n;i++) { pq[i] = p[q[i]]; }
+        p = pq; } }
+    if (null == p) {
+      p = new int[n];
+      for (int i=0;i<n;i++) { p[i] = i; } }
+    return p; }
+
+  public static final int[] permutation (final IFn.OD[] zs,
+                                         final Object[] a) {
+    return permutation(1,zs,a); }
+
+  private static final Object[] gather (final int[] p,
+                                        final Object[] a) {
+    final Object[] b = new Object[p.length];
+    for (int i=0;i<p.length;i++) { b[i] = a[p[i]]; }
+    return b; }
+
   //----------------------------------------------------------------------------
-  /** For length < 7. */
-  private static final void smallQuicksort (final clojure.lang.IFn.OD z,
-                                            final List a,
-                                            final int start,
-                                            final int length) {
-    final int end = start + length;
-    for (int i=start; i<end; i++) {
-      double z1 = z.invokePrim(a.get(i));
-      for (int j=i;j > start;j--) {
-        final double z0 = z.invokePrim(a.get(j-1));
-        if (Double.compare(z0,z1)<0) { break; }
-        z1 = z0;
-        swap(a,j,j-1); } } }
+  // sorted copies
   //----------------------------------------------------------------------------
-  /** For length < 7. */
-  private static final double initialPivot (final clojure.lang.IFn.OD z,
-                                            final List a,
-                                            final int start,
-                                            final int length) {
-    int i = start + (length >> 1);
-    if (length > 7) {
-      int i0 = start;
-      int i1 = (start + length) - 1;
-      if (length > 40) {
-        final int s = length/8;
-        i0 = indexOfMedian(z, a, i0, i0+s, i0+(2*s));
-        i = indexOfMedian(z, a, i-s, i, i+s);
-        i1 = indexOfMedian(z, a, i1-(2*s), i1-s, i1); }
-      i = indexOfMedian(z, a, i0, i, i1); }
-    return z.invokePrim(a.get(i)); }
+  /** @return a copy of <code>a</code>, stably sorted by <code>z</code>,
+   * evaluated on up to <code>threads</code> threads.
+   */
+  public static final Object[] sort (final int threads,
+                                     final IFn.OD z,
+                                     final Object[] a) {
+    return gather(permutation(threads,z,a),a); }
+
+  /** @return a copy of <code>a</code>, stably sorted by <code>z</code>.
+   */
+  public static final Object[] sort (final IFn.OD z,
+                                     final Object[] a) {
+    return sort(1,z,a); }
+
+  /** @return a copy of <code>a</code>, stably sorted lexicographically by
+   * <code>zs</code>, evaluated on up to <code>threads</code> threads.
+   */
+  public static final Object[] sort (final int threads,
+                                     final IFn.OD[] zs,
+                                     final Object[] a) {
+    return gather(permutation(threads,zs,a),a); }
+
+  /** @return a copy of <code>a</code>, stably sorted lexicographically by
+   * <code>zs</code>.
+   */
+  public static final Object[] sort (final IFn.OD[] zs,
+                                     final Object[] a) {
+    return sort(1,zs,a); }
+
+  private static final class Keyed {
+    private final Object _key;
+    private final Object _value;
+    Keyed (final Object key, final Object value) {
+      _key = key; _value = value; } }
+
+  /** @return a copy of <code>a</code>, stably sorted by the values of
+   * <code>f</code>, evaluated on up to <code>threads</code> threads, and
+   * compared with <code>c</code>.
+   */
+  public static final Object[] sort (final int threads,
+                                     final Comparator c,
+                                     final IFn f,
+                                     final Object[] a) {
+    final Object[] k = keys(threads,f,a);
+    final Keyed[] ka = new Keyed[a.length];
+    for (int i=0;i<a.length;i++) { ka[i] = new Keyed(k[i],a[i]); }
+    Arrays.sort(ka, new Comparator<Keyed>() {
+      @Override
+      public final int compare (final Keyed k0, final Keyed k1) {
+        return c.compare(k0._key,k1._key); } });
+    final Object[] b = new Object[a.length];
+    for (int i=0;i<a.length;i++) { b[i] = ka[i]._value; }
+    return b; }
+
+  /** @return a copy of <code>a</code>, stably sorted by the values of
+   * <code>f</code>, compared with <code>c</code>.
+   */
+  public static final Object[] sort (final Comparator c,
+                                     final IFn f,
+                                     final Object[] a) {
+    return sort(1,c,f,a); }
+
   //----------------------------------------------------------------------------
-  private static final void innerQuicksort (final clojure.lang.IFn.OD z,
-                                            final List a,
-                                            final int start,
-                                            final int length) {
-    final int end = start + length;
-    if (length < 7) { smallQuicksort(z,a,start,length); return; }
-    final int endm1 = end - 1;
-    final double v = initialPivot(z,a,start,length);
-    int j0 = start;
-    int j1 = start;
-    int j2 = endm1;
-    int j3 = endm1;
-    for (;;) {
-      while (j1 <= j2) { 
-        final double z1 = z.invokePrim(a.get(j1));
-        final int c = Double.compare(z1,v);
-        if (c > 0) { break; }
-        else if (c == 0) { swap(a, j0++, j1); }
-        j1++; }
-      while (j2 >= j1) {
-        final double z2 = z.invokePrim(a.get(j2));
-        final int c = Double.compare(z2,v);
-        if (c < 0) { break; }
-        else if (c == 0) { swap(a, j2, j3--); }
-        j2--; }
-      if (j1 > j2) { break; }
-      swap(a, j1++, j2--); }
-    final int k0 = Math.min(j0-start,j1-j0);
-    swap(a, start, j1-k0, k0);
-    final int k1 = Math.min(j3-j2,end-j3-1);
-    swap(a, j1, end-k1, k1);
-    final int k2 = j1-j0;
-    if (k2 > 1) { innerQuicksort(z, a, start, k2); }
-    final int k3 = j3-j2;
-    if (k3 > 1) { innerQuicksort(z, a, end-k3, k3); } }
+  // in place
   //----------------------------------------------------------------------------
-  /** @param a list to (partially) sort
+  /** Stable sort of a range of a <code>List</code>, by <code>z</code>,
+   * setting each element once.
+   * @param a list to (partially) sort
    * @param start start of range of elements to sort
    * @param length number of elements to sort
    */
-  public static final void quicksort (final clojure.lang.IFn.OD z,
+  public static final void quicksort (final IFn.OD z,
                                       final List a,
                                       final int start,
                                       final int length) {
     assert (0 <= start) && (0 <= length) && (length <= (a.size() - start));
     if (length <= 1) { return; }
-    innerQuicksort(z, a, start, length); }
+    final List range = a.subList(start,start+length);
+    final Object[] sorted = sort(z,range.toArray());
+    for (int i=0;i<length;i++) { range.set(i,sorted[i]); } }
   //----------------------------------------------------------------------------
   /** @param a List to sort
    */
-  public static final void quicksort (final clojure.lang.IFn.OD z,
+  public static final void quicksort (final IFn.OD z,
                                       final List a) {
     if (a.size() <= 1) { return; }
     quicksort(z, a, 0, a.size()); }
@@ -155,4 +247,4 @@ public final class SortBy extends Object {
     throw new UnsupportedOperationException("Can't instantiate " + getClass()); }
   //----------------------------------------------------------------------------
 } // end class
-//----------------------------------------------------------------------------
\ No newline at end of file
+//----------------------------------------------------------------------------
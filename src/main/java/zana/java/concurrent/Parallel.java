@@ -0,0 +1,334 @@
+package zana.java.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadFactory;
+
+import clojure.lang.IFn;
+
+//----------------------------------------------------------------
+/** Parallel map over arrays, on shared, long-lived pools, rather
+ * than a new thread pool per call.
+ * <p>
+ * CPU bound loops split the index range in halves, fork/join
+ * style, down to about {@link #CHUNKS} chunks per thread, so
+ * idle threads steal work from busy ones, and a cheap function
+ * costs one task per chunk, not per element. A loop on
+ * <code>n</code> threads runs in the common pool, if that has
+ * parallelism <code>n</code>, otherwise in a cached
+ * <code>ForkJoinPool</code> of parallelism <code>n</code>.
+ * One thread, or one element, runs in the calling thread.
+ * <p>
+ * Blocking (I/O bound) functions get one task per element, in
+ * a virtual thread per task executor, if the JVM has one
+ * (JDK 21+), otherwise in a shared cached pool of daemon
+ * threads.
+ * <p>
+ * Exceptions thrown by the function are rethrown in the calling
+ * thread.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class Parallel extends Object {
+
+  /** Target number of chunks per thread. */
+  public static final int CHUNKS = 4;
+
+  //--------------------------------------------------------------
+  // configuration
+  //--------------------------------------------------------------
+
+  private static final int initialParallelism () {
+    final String p = System.getProperty("zana.parallelism");
+    if (null != p) { return Integer.parseInt(p.trim()); }
+    return Runtime.getRuntime().availableProcessors(); }
+
+  private static volatile int _parallelism = initialParallelism();
+
+  /** @return the number of threads used by <code>pmap</code>,
+   * etc. Defaults to the <code>zana.parallelism</code> system
+   * property, if set, otherwise the number of available
+   * processors.
+   */
+  public static final int parallelism () { return _parallelism; }
+
+  public static final void setParallelism (final int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException(
+        "parallelism must be positive: " + n); }
+    _parallelism = n; }
+
+  //--------------------------------------------------------------
+  // pools
+  //--------------------------------------------------------------
+
+  private static final ConcurrentHashMap<Integer,ForkJoinPool>
+  _pools = new ConcurrentHashMap<Integer,ForkJoinPool>();
+
+  /** @return a shared pool with parallelism <code>n</code>. */
+  public static final ForkJoinPool pool (final int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException(
+        "number of threads must be positive: " + n); }
+    if (n == ForkJoinPool.getCommonPoolParallelism()) {
+      return ForkJoinPool.commonPool(); }
+    final Integer k = Integer.valueOf(n);
+    final ForkJoinPool pool = _pools.get(k);
+    if (null != pool) { return pool; }
+    final ForkJoinPool created = new ForkJoinPool(n);
+    final ForkJoinPool other = _pools.putIfAbsent(k,created);
+    if (null == other) { return created; }
+    created.shutdown();
+    return other; }
+
+  private static final class Blocking {
+    private static final ExecutorService EXECUTOR = create();
+    private static final ExecutorService create () {
+      try {
+        final Method m =
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        return (ExecutorService) m.invoke(null); }
+      catch (final ReflectiveOperationException e) {
+        return Executors.newCachedThreadPool(
+          new ThreadFactory() {
+            @Override
+            public final Thread newThread (final Runnable r) {
+              final Thread t = new Thread(r,"zana-blocking");
+              t.setDaemon(true);
+              return t; } }); } } }
+
+  /** @return the shared executor for blocking tasks. */
+  public static final ExecutorService blockingExecutor () {
+    return Blocking.EXECUTOR; }
+
+  //--------------------------------------------------------------
+  // range splitting
+  //--------------------------------------------------------------
+
+  /** A loop body, over the indexes <code>[start,end)</code>.
+   */
+  public interface Body { void apply (int start, int end); }
+
+  private static final class Chunk extends RecursiveAction {
+    private static final long serialVersionUID = 0L;
+    private final Body _body;
+    private final int _start;
+    private final int _end;
+    private final int _grain;
+    Chunk (final Body body,
+           final int start,
+           final int end,
+           final int grain) {
+      _body = body; _start = start; _end = end; _grain = grain; }
+    @Override
+    protected final void compute () {
+      if ((_end - _start) <= _grain) { _body.apply(_start,_end); }
+      else {
+        final int middle = (_start + _end) >>> 1;
+        invokeAll(
+          new Chunk(_body,_start,middle,_grain),
+          new Chunk(_body,middle,_end,_grain)); } } }
+
+  /** Apply <code>body</code> to chunks covering
+   * <code>[0,n)</code>, using <code>threads</code> threads.
+   */
+  public static final void run (final int threads,
+                                 final int n,
+                                 final Body body) {
+    if (threads < 1) {
+      throw new IllegalArgumentException(
+        "number of threads must be positive: " + threads); }
+    if (n <= 0) { return; }
+    if ((1 == threads) || (1 == n)) { body.apply(0,n); return; }
+    final long chunks = ((long) CHUNKS) * threads;
+    final int grain = (int) Math.max(1L,(n + chunks - 1L) / chunks);
+    pool(threads).invoke(new Chunk(body,0,n,grain)); }
+
+  private static final int length (final Object[] x0,
+                                   final Object[] x1) {
+    return Math.min(x0.length,x1.length); }
+
+  private static final int length (final Object[] x0,
+                                   final Object[] x1,
+                                   final Object[] x2) {
+    return Math.min(length(x0,x1),x2.length); }
+
+  //--------------------------------------------------------------
+  // map
+  //--------------------------------------------------------------
+
+  public static final Object[] map (final int threads,
+                                    final IFn f,
+                                    final Object[] x) {
+    final Object[] y = new Object[x.length];
+    run(threads,y.length,new Body() {
+      @Override
+      public final void apply (final int start, final int end) {
+        for (int i=start;i<end;i++) { y[i] = f.invoke(x[i]); } } });
+    return y; }
+
+  public static final Object[] map (final int threads,
+                                    final IFn f,
+                                    final Object[] x0,
+                                    final Object[] x1) {
+    final Object[] y = new Object[length(x0,x1)];
+    run(threads,y.length,new Body() {
+      @Override
+      public final void apply (final int start, final int end) {
+        for (int i=start;i<end;i++) {
+          y[i] = f.invoke(x0[i],x1[i]); } } });
+    return y; }
+
+  public static final Object[] map (final int threads,
+                                    final IFn f,
+                                    final Object[] x0,
+                                    final Object[] x1,
+                                    final Object[] x2) {
+    final Object[] y = new Object[length(x0,x1,x2)];
+    run(threads,y.length,new Body() {
+      @Override
+      public final void apply (final int start, final int end) {
+        for (int i=start;i<end;i++) {
+          y[i] = f.invoke(x0[i],x1[i],x2[i]); } } });
+    return y; }
+
+  //--------------------------------------------------------------
+  // primitive output; no boxing if f implements the matching
+  // primitive interface.
+  //--------------------------------------------------------------
+
+  private static final double toDouble (final Object x) {
+    return ((Number) x).doubleValue(); }
+
+  public static final double[] mapDoubles (final int threads,
+                                           final IFn f,
+                                           final Object[] x) {
+    final double[] y = new double[x.length];
+    if (f instanceof IFn.OD) {
+      final IFn.OD g = (IFn.OD) f;
+      run(threads,y.length,new Body() {
+        @Override
+        public final void apply (final int start, final int end) {
+          for (int i=start;i<end;i++) { y[i] = g.invokePrim(x[i]); } } }); }
+    else {
+      run(threads,y.length,new Body() {
+        @Override
+        public final void apply (final int start, final int end) {
+          for (int i=start;i<end;i++) {
+            y[i] = toDouble(f.invoke(x[i])); } } }); }
+    return y; }
+
+  public static final double[] mapDoubles (final int threads,
+                                           final IFn f,
+                                           final Object[] x0,
+                                           final Object[] x1) {
+    final double[] y = new double[length(x0,x1)];
+    if (f instanceof IFn.OOD) {
+      final IFn.OOD g = (IFn.OOD) f;
+      run(threads,y.length,new Body() {
+        @Override
+        public final void apply (final int start, final int end) {
+          for (int i=start;i<end;i++) {
+            y[i] = g.invokePrim(x0[i],x1[i]); } } }); }
+    else {
+      run(threads,y.length,new Body() {
+        @Override
+        public final void apply (final int start, final int end) {
+          for (int i=start;i<end;i++) {
+            y[i] = toDouble(f.invoke(x0[i],x1[i])); } } }); }
+    return y; }
+
+  public static final double[] mapDoubles (final int threads,
+                                           final IFn f,
+                                           final Object[] x0,
+                                           final Object[] x1,
+                                           final Object[] x2) {
+    final double[] y = new double[length(x0,x1,x2)];
+    if (f instanceof IFn.OOOD) {
+      final IFn.OOOD g = (IFn.OOOD) f;
+      run(threads,y.length,new Body() {
+        @Override
+        public final void apply (final int start, final int end) {
+          for (int i=start;i<end;i++) {
+            y[i] = g.invokePrim(x0[i],x1[i],x2[i]); } } }); }
+    else {
+      run(threads,y.length,new Body() {
+        @Override
+        public final void apply (final int start, final int end) {
+          for (int i=start;i<end;i++) {
+            y[i] = toDouble(f.invoke(x0[i],x1[i],x2[i])); } } }); }
+    return y; }
+
+  //--------------------------------------------------------------
+  // side effects only
+  //--------------------------------------------------------------
+
+  public static final void each (final int threads,
+                                 final IFn f,
+                                 final Object[] x) {
+    run(threads,x.length,new Body() {
+      @Override
+      public final void apply (final int start, final int end) {
+        for (int i=start;i<end;i++) { f.invoke(x[i]); } } }); }
+
+  public static final void each (final int threads,
+                                 final IFn f,
+                                 final Object[] x0,
+                                 final Object[] x1) {
+    run(threads,length(x0,x1),new Body() {
+      @Override
+      public final void apply (final int start, final int end) {
+        for (int i=start;i<end;i++) { f.invoke(x0[i],x1[i]); } } }); }
+
+  //--------------------------------------------------------------
+  // blocking functions
+  //--------------------------------------------------------------
+  /** Map <code>f</code>, which is expected to block (eg on
+   * I/O), over <code>x</code>, one task per element, in the
+   * {@link #blockingExecutor()}.
+   */
+  public static final Object[] mapBlocking (final IFn f,
+                                            final Object[] x)
+    throws InterruptedException {
+    final List<Future<Object>> futures =
+      new ArrayList<Future<Object>>(x.length);
+    try {
+      for (final Object xi : x) {
+        futures.add(blockingExecutor().submit(new Callable<Object>() {
+          @Override
+          public final Object call () { return f.invoke(xi); } })); }
+      final Object[] y = new Object[x.length];
+      for (int i=0;i<y.length;i++) { y[i] = futures.get(i).get(); }
+      return y; }
+    catch (final ExecutionException e) {
+      final Throwable t = e.getCause();
+      if (t instanceof RuntimeException) { throw (RuntimeException) t; }
+      if (t instanceof Error) { throw (Error) t; }
+      throw new RuntimeException(t); }
+    finally {
+      for (final Future<Object> future : futures) {
+        future.cancel(true); } } }
+
+  //--------------------------------------------------------------
+  // disabled constructor
+  //--------------------------------------------------------------
+
+  private Parallel () {
+    throw new UnsupportedOperationException(
+      "Can't instantiate " + getClass()); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,287 @@
+package zana.java.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+//----------------------------------------------------------------
+/** A fixed width column of primitive values, or of
+ * dictionary-encoded <code>Object</code>s, in a direct or
+ * memory-mapped {@link ByteBuffer}, rather than in individual
+ * heap objects.
+ * <p>
+ * Element types are named as in Clojure type hints:
+ * <code>"boolean"</code>, <code>"byte"</code>,
+ * <code>"short"</code>, <code>"char"</code>, <code>"int"</code>,
+ * <code>"long"</code>, <code>"float"</code>,
+ * <code>"double"</code>; anything else is stored as an
+ * <code>int</code> code into an <code>Object[]</code>
+ * dictionary of distinct values, with <code>-1</code> for
+ * <code>null</code>.
+ * <p>
+ * A column file is a 32 byte header, followed by the raw
+ * values, followed by the serialized dictionary, if any.
+ * Buffers are limited to <code>Integer.MAX_VALUE</code> bytes.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class Column extends Object {
+
+  private static final int MAGIC = 0x7a636f6c; // "zcol"
+  private static final int VERSION = 1;
+  private static final int HEADER = 32;
+
+  //--------------------------------------------------------------
+
+  private static enum Type {
+    BOOLEAN(1), BYTE(1), SHORT(2), CHAR(2), INT(4), LONG(8),
+    FLOAT(4), DOUBLE(8), OBJECT(4);
+    private final int _width;
+    private Type (final int width) { _width = width; }
+    private static final Type of (final String name) {
+      switch (name) {
+      case "boolean" : return BOOLEAN;
+      case "byte" : return BYTE;
+      case "short" : return SHORT;
+      case "char" : return CHAR;
+      case "int" : return INT;
+      case "long" : return LONG;
+      case "float" : return FLOAT;
+      case "double" : return DOUBLE;
+      default : return OBJECT; } } }
+
+  //--------------------------------------------------------------
+  // fields
+  //--------------------------------------------------------------
+
+  private final Type _type;
+  private final int _size;
+  private final ByteBuffer _buffer;
+  private final Object[] _dictionary;
+
+  /** Number of elements. */
+  public final int size () { return _size; }
+
+  /** @return the element type, as a Clojure type hint name,
+   * <code>"object"</code> for dictionary-encoded columns.
+   */
+  public final String type () {
+    return _type.name().toLowerCase(); }
+
+  /** @return a copy of the distinct values in a dictionary
+   * encoded column, <code>null</code> otherwise.
+   */
+  public final Object[] dictionary () {
+    return (null == _dictionary) ? null : _dictionary.clone(); }
+
+  //--------------------------------------------------------------
+  // getters
+  //--------------------------------------------------------------
+
+  public final boolean getBoolean (final int i) {
+    return 0 != _buffer.get(i); }
+  public final byte getByte (final int i) {
+    return _buffer.get(i); }
+  public final short getShort (final int i) {
+    return _buffer.getShort(i << 1); }
+  public final char getChar (final int i) {
+    return _buffer.getChar(i << 1); }
+  public final int getInt (final int i) {
+    return _buffer.getInt(i << 2); }
+  public final long getLong (final int i) {
+    return _buffer.getLong(i << 3); }
+  public final float getFloat (final int i) {
+    return _buffer.getFloat(i << 2); }
+  public final double getDouble (final int i) {
+    return _buffer.getDouble(i << 3); }
+  /** @return the dictionary value whose code is at
+   * <code>i</code>; <code>null</code> for code <code>-1</code>.
+   */
+  public final Object getObject (final int i) {
+    final int code = _buffer.getInt(i << 2);
+    return (code < 0) ? null : _dictionary[code]; }
+
+  //--------------------------------------------------------------
+  // setters, for columns built in memory; mapped columns are
+  // read-only.
+  //--------------------------------------------------------------
+
+  public final void putBoolean (final int i, final boolean x) {
+    _buffer.put(i, x ? (byte) 1 : (byte) 0); }
+  public final void putByte (final int i, final byte x) {
+    _buffer.put(i, x); }
+  public final void putShort (final int i, final short x) {
+    _buffer.putShort(i << 1, x); }
+  public final void putChar (final int i, final char x) {
+    _buffer.putChar(i << 1, x); }
+  public final void putInt (final int i, final int x) {
+    _buffer.putInt(i << 2, x); }
+  public final void putLong (final int i, final long x) {
+    _buffer.putLong(i << 3, x); }
+  public final void putFloat (final int i, final float x) {
+    _buffer.putFloat(i << 2, x); }
+  public final void putDouble (final int i, final double x) {
+    _buffer.putDouble(i << 3, x); }
+
+  //--------------------------------------------------------------
+  // io
+  //--------------------------------------------------------------
+
+  private static final byte[] serialize (final Object[] dictionary)
+    throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+      oos.writeObject(dictionary); }
+    return bytes.toByteArray(); }
+
+  /** Write to <code>f</code>, so that the column can later be
+   * mapped with {@link #map(File)}.
+   */
+  public final void write (final File f) throws IOException {
+    final long nbytes = ((long) _size) * _type._width;
+    final ByteBuffer header = ByteBuffer.allocate(HEADER);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.putInt(_type.ordinal());
+    header.putInt(_size);
+    header.putLong((null == _dictionary) ? 0L : HEADER + nbytes);
+    // rest of header is reserved
+    header.clear();
+    final ByteBuffer data = _buffer.duplicate();
+    data.clear();
+    data.limit((int) nbytes);
+    try (final RandomAccessFile raf = new RandomAccessFile(f,"rw");
+      final FileChannel channel = raf.getChannel()) {
+      channel.truncate(0L);
+      while (header.hasRemaining()) { channel.write(header); }
+      while (data.hasRemaining()) { channel.write(data); }
+      if (null != _dictionary) {
+        final ByteBuffer d = ByteBuffer.wrap(serialize(_dictionary));
+        while (d.hasRemaining()) { channel.write(d); } } } }
+
+  /** Memory-map a column written with {@link #write(File)}.
+   * The values are paged in by the operating system as needed.
+   */
+  public static final Column map (final File f) throws IOException {
+    try (final RandomAccessFile raf = new RandomAccessFile(f,"r");
+      final FileChannel channel = raf.getChannel()) {
+      final ByteBuffer header = ByteBuffer.allocate(HEADER);
+      while (header.hasRemaining()) {
+        if (channel.read(header) < 0) {
+          throw new IllegalArgumentException(
+            "Not a column file: " + f); } }
+      header.flip();
+      if ((MAGIC != header.getInt()) || (VERSION != header.getInt())) {
+        throw new IllegalArgumentException(
+          "Not a column file: " + f); }
+      final Type type = Type.values()[header.getInt()];
+      final int n = header.getInt();
+      final long dictionaryStart = header.getLong();
+      final long nbytes = ((long) n) * type._width;
+      final long end = Math.max(HEADER + nbytes,dictionaryStart);
+      if (channel.size() < end) {
+        throw new EOFException(
+          "Truncated column file: " + f + ", missing "
+            + (end - channel.size()) + " bytes"); }
+      final ByteBuffer buffer =
+        channel.map(FileChannel.MapMode.READ_ONLY,HEADER,nbytes);
+      Object[] dictionary = null;
+      if (0L < dictionaryStart) {
+        final ByteBuffer d = ByteBuffer.allocate(
+          (int) (channel.size() - dictionaryStart));
+        channel.position(dictionaryStart);
+        while (d.hasRemaining()) {
+          if (channel.read(d) < 0) {
+            throw new EOFException(
+              "Truncated column file: " + f + ", missing "
+                + d.remaining() + " dictionary bytes"); } }
+        try (final ObjectInputStream ois = new ObjectInputStream(
+          new ByteArrayInputStream(d.array()))) {
+          dictionary = (Object[]) ois.readObject(); }
+        catch (final ClassNotFoundException e) {
+          throw new IOException(e); } }
+      return new Column(type,n,buffer,dictionary); } }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  private Column (final Type type,
+                  final int size,
+                  final ByteBuffer buffer,
+                  final Object[] dictionary) {
+    assert (Type.OBJECT == type) == (null != dictionary);
+    _type = type;
+    _size = size;
+    _buffer = buffer;
+    _dictionary = dictionary; }
+
+  private static final ByteBuffer allocate (final Type type,
+                                            final int n) {
+    final long nbytes = ((long) n) * type._width;
+    if (Integer.MAX_VALUE < nbytes) {
+      throw new IllegalArgumentException(
+        "Too many elements for one column: " + n); }
+    return ByteBuffer.allocateDirect((int) nbytes); }
+
+  /** @return a zeroed column of <code>n</code> primitive values,
+   * in a direct buffer, to be filled with the
+   * <code>put</code> methods.
+   * @param type a primitive type hint name, eg
+   * <code>"double"</code>.
+   */
+  public static final Column allocate (final String type,
+                                       final int n) {
+    final Type t = Type.of(type);
+    if (Type.OBJECT == t) {
+      throw new IllegalArgumentException(
+        "Not a primitive type: " + type
+        + "; use dictionary(Object[]) instead"); }
+    return new Column(t,n,allocate(t,n),null); }
+
+  /** @return a dictionary-encoded column of
+   * <code>values</code>, in a direct buffer. Values are
+   * compared with <code>equals</code>; they must be
+   * {@link java.io.Serializable} for the column to be written.
+   */
+  public static final Column dictionary (final Object[] values) {
+    final int n = values.length;
+    final ByteBuffer buffer = allocate(Type.OBJECT,n);
+    final Map<Object,Integer> codes = new HashMap<Object,Integer>();
+    for (int i=0;i<n;i++) {
+      final Object x = values[i];
+      int code = -1;
+      if (null != x) {
+        final Integer c = codes.get(x);
+        if (null == c) {
+          code = codes.size();
+          codes.put(x,Integer.valueOf(code)); }
+        else {
+          code = c.intValue(); } }
+      buffer.putInt(i << 2, code); }
+    final Object[] dictionary = new Object[codes.size()];
+    for (final Map.Entry<Object,Integer> e : codes.entrySet()) {
+      dictionary[e.getValue().intValue()] = e.getKey(); }
+    return new Column(Type.OBJECT,n,buffer,dictionary); }
+
+  //--------------------------------------------------------------
+
+  @Override
+  public final String toString () {
+    return "Column[" + type() + "," + _size + "]"; }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
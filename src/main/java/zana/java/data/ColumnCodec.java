@@ -0,0 +1,518 @@
+package zana.java.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import clojure.lang.IFn;
+import clojure.lang.RT;
+
+//----------------------------------------------------------------
+/** Compact encodings for blocks of column values, used by the
+ * columnar binary files written by the
+ * <code>write-columnar-file</code> functions generated by
+ * <code>zana.api/define-datum</code>.
+ * <p>
+ * Each column of a block is written as a length-prefixed
+ * <em>chunk</em>, optionally deflated, so a reader can skip
+ * columns it doesn't need without decoding them. Chunk
+ * contents:
+ * <ul>
+ * <li><code>boolean</code>: a bitmap.
+ * <li><code>byte</code>: the raw bytes.
+ * <li><code>short</code>, <code>char</code>, <code>int</code>,
+ * <code>long</code>: zigzag varints of the differences between
+ * successive values.
+ * <li><code>float</code>, <code>double</code>: the raw IEEE bits.
+ * <li>{@link LocalDate}: a null bitmap, then zigzag varint
+ * differences of the epoch days of the non-null values.
+ * <li>{@link LocalDateTime}: a null bitmap, then, for each
+ * non-null value, the zigzag varint difference of the (UTC)
+ * epoch second, and the nanosecond as a varint.
+ * <li>anything else: a null bitmap, a dictionary of the distinct
+ * values (UTF-8 if all are <code>String</code>s, otherwise
+ * Java serialization), and a varint dictionary code per
+ * non-null value.
+ * <li>nested datums: a null bitmap, then the nested block of
+ * non-null values.
+ * </ul>
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class ColumnCodec extends Object {
+
+  private static final int MAGIC = 0x7a636266; // "zcbf"
+  private static final int VERSION = 1;
+
+  /** Maximum number of records in a block. */
+  public static final int BLOCK = 1 << 16;
+
+  private static final byte RAW = 0;
+  private static final byte DEFLATED = 1;
+
+  private static final byte STRINGS = 0;
+  private static final byte SERIALIZED = 1;
+
+  //--------------------------------------------------------------
+  // header
+  //--------------------------------------------------------------
+  /** Write the file header: magic number, version, class name,
+   * and schema.
+   */
+  public static final void writeHeader (final DataOutput out,
+                                        final String classname,
+                                        final String schema)
+    throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeUTF(classname);
+    out.writeUTF(schema); }
+
+  /** Read and check the file header.
+   * @throws IllegalArgumentException if <code>source</code>
+   * isn't a columnar file, or holds another class or schema.
+   */
+  public static final void readHeader (final DataInput in,
+                                       final String classname,
+                                       final String schema,
+                                       final Object source)
+    throws IOException {
+    if ((MAGIC != in.readInt()) || (VERSION != in.readInt())) {
+      throw new IllegalArgumentException(
+        "Not a columnar file: " + source); }
+    final String c = in.readUTF();
+    final String s = in.readUTF();
+    if (! (classname.equals(c) && schema.equals(s))) {
+      throw new IllegalArgumentException(
+        "Columnar file " + source + " holds " + c + " " + s
+        + ", not " + classname + " " + schema); } }
+
+  //--------------------------------------------------------------
+  // chunks
+  //--------------------------------------------------------------
+  /** Write <code>bytes</code> as a chunk, deflated if
+   * <code>compress</code> and that makes it smaller.
+   */
+  public static final void writeChunk (final DataOutput out,
+                                       final byte[] bytes,
+                                       final boolean compress)
+    throws IOException {
+    if (compress && (64 <= bytes.length)) {
+      final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(bytes);
+        deflater.finish();
+        final byte[] buffer = new byte[bytes.length];
+        int m = 0;
+        while ((! deflater.finished()) && (m < buffer.length)) {
+          m += deflater.deflate(buffer,m,buffer.length-m); }
+        if (deflater.finished() && ((m + 4) < bytes.length)) {
+          out.writeInt(m + 5);
+          out.writeByte(DEFLATED);
+          out.writeInt(bytes.length);
+          out.write(buffer,0,m);
+          return; } }
+      finally { deflater.end(); } }
+    out.writeInt(bytes.length + 1);
+    out.writeByte(RAW);
+    out.write(bytes); }
+
+  /** @return the contents of the next chunk, inflated if
+   * necessary.
+   */
+  public static final byte[] readChunk (final DataInput in)
+    throws IOException {
+    final int length = in.readInt() - 1;
+    final byte flag = in.readByte();
+    if (RAW == flag) {
+      final byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return bytes; }
+    if (DEFLATED != flag) {
+      throw new IOException("Unknown chunk encoding: " + flag); }
+    final byte[] bytes = new byte[in.readInt()];
+    final byte[] deflated = new byte[length - 4];
+    in.readFully(deflated);
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(deflated);
+      int m = 0;
+      while (m < bytes.length) {
+        final int k = inflater.inflate(bytes,m,bytes.length-m);
+        if ((0 == k) && (inflater.finished() || inflater.needsInput())) {
+          throw new IOException("Truncated chunk"); }
+        m += k; } }
+    catch (final DataFormatException e) { throw new IOException(e); }
+    finally { inflater.end(); }
+    return bytes; }
+
+  /** Skip the next chunk without decoding it. */
+  public static final void skipChunk (final DataInput in)
+    throws IOException {
+    int remaining = in.readInt();
+    while (0 < remaining) {
+      final int k = in.skipBytes(remaining);
+      if (0 < k) { remaining -= k; }
+      else { in.readByte(); remaining--; } } }
+
+  //--------------------------------------------------------------
+  // byte level encoding
+  //--------------------------------------------------------------
+
+  private static final class Bytes extends ByteArrayOutputStream {
+    Bytes (final int n) { super(Math.max(32,n)); }
+    final void writeVarLong (final long x) {
+      long y = x;
+      while (0L != (y & ~0x7FL)) {
+        write((int) ((y & 0x7FL) | 0x80L));
+        y >>>= 7; }
+      write((int) y); }
+    final void writeZigZag (final long x) {
+      writeVarLong((x << 1) ^ (x >> 63)); }
+    final void writeInt (final int x) {
+      write(x >>> 24); write(x >>> 16); write(x >>> 8); write(x); }
+    final void writeLong (final long x) {
+      writeInt((int) (x >>> 32)); writeInt((int) x); } }
+
+  private static final class Cursor {
+    private final byte[] _bytes;
+    private int _i;
+    Cursor (final byte[] bytes, final int start) {
+      _bytes = bytes; _i = start; }
+    final long readVarLong () {
+      long x = 0L;
+      for (int shift=0;;shift+=7) {
+        final int b = _bytes[_i++];
+        x |= ((long) (b & 0x7F)) << shift;
+        if (0 == (b & 0x80)) { return x; } } }
+    final long readZigZag () {
+      final long y = readVarLong();
+      return (y >>> 1) ^ -(y & 1L); }
+    final int readInt () {
+      final int x = ((_bytes[_i] & 0xFF) << 24)
+        | ((_bytes[_i+1] & 0xFF) << 16)
+        | ((_bytes[_i+2] & 0xFF) << 8)
+        | (_bytes[_i+3] & 0xFF);
+      _i += 4;
+      return x; }
+    final long readLong () {
+      final long hi = readInt();
+      return (hi << 32) | (readInt() & 0xFFFFFFFFL); }
+    final byte[] readBytes (final int n) {
+      final byte[] b = Arrays.copyOfRange(_bytes,_i,_i+n);
+      _i += n;
+      return b; } }
+
+  //--------------------------------------------------------------
+  // bitmaps: bit i set for true, or for null.
+  //--------------------------------------------------------------
+
+  private static final int bitmapLength (final int n) {
+    return (n + 7) >>> 3; }
+
+  private static final boolean bit (final byte[] bitmap,
+                                    final int i) {
+    return 0 != (bitmap[i >>> 3] & (1 << (i & 7))); }
+
+  private static final byte[] nulls (final Object[] x) {
+    final byte[] bitmap = new byte[bitmapLength(x.length)];
+    for (int i=0;i<x.length;i++) {
+      if (null == x[i]) { bitmap[i >>> 3] |= (1 << (i & 7)); } }
+    return bitmap; }
+
+  //--------------------------------------------------------------
+  // primitives
+  //--------------------------------------------------------------
+
+  public static final byte[] encodeBooleans (final boolean[] x) {
+    final byte[] bitmap = new byte[bitmapLength(x.length)];
+    for (int i=0;i<x.length;i++) {
+      if (x[i]) { bitmap[i >>> 3] |= (1 << (i & 7)); } }
+    return bitmap; }
+
+  public static final boolean[] decodeBooleans (final byte[] b,
+                                                final int n) {
+    final boolean[] x = new boolean[n];
+    for (int i=0;i<n;i++) { x[i] = bit(b,i); }
+    return x; }
+
+  public static final byte[] encodeBytes (final byte[] x) {
+    return x; }
+
+  public static final byte[] decodeBytes (final byte[] b,
+                                          final int n) {
+    assert n == b.length;
+    return b; }
+
+  /** Zigzag varint differences, so slowly changing or small
+   * values (counts, ids, codes) take 1 or 2 bytes.
+   */
+  public static final byte[] encodeLongs (final long[] x) {
+    final Bytes b = new Bytes(x.length);
+    long previous = 0L;
+    for (final long xi : x) {
+      b.writeZigZag(xi - previous);
+      previous = xi; }
+    return b.toByteArray(); }
+
+  public static final long[] decodeLongs (final byte[] b,
+                                          final int n) {
+    final Cursor c = new Cursor(b,0);
+    final long[] x = new long[n];
+    long previous = 0L;
+    for (int i=0;i<n;i++) {
+      previous += c.readZigZag();
+      x[i] = previous; }
+    return x; }
+
+  public static final byte[] encodeFloats (final float[] x) {
+    final Bytes b = new Bytes(4*x.length);
+    for (final float xi : x) { b.writeInt(Float.floatToRawIntBits(xi)); }
+    return b.toByteArray(); }
+
+  public static final float[] decodeFloats (final byte[] b,
+                                            final int n) {
+    final Cursor c = new Cursor(b,0);
+    final float[] x = new float[n];
+    for (int i=0;i<n;i++) { x[i] = Float.intBitsToFloat(c.readInt()); }
+    return x; }
+
+  public static final byte[] encodeDoubles (final double[] x) {
+    final Bytes b = new Bytes(8*x.length);
+    for (final double xi : x) {
+      b.writeLong(Double.doubleToRawLongBits(xi)); }
+    return b.toByteArray(); }
+
+  public static final double[] decodeDoubles (final byte[] b,
+                                              final int n) {
+    final Cursor c = new Cursor(b,0);
+    final double[] x = new double[n];
+    for (int i=0;i<n;i++) {
+      x[i] = Double.longBitsToDouble(c.readLong()); }
+    return x; }
+
+  //--------------------------------------------------------------
+  // dates
+  //--------------------------------------------------------------
+
+  public static final byte[] encodeLocalDates (final Object[] x) {
+    final Bytes b = new Bytes(x.length);
+    b.write(nulls(x),0,bitmapLength(x.length));
+    long previous = 0L;
+    for (final Object xi : x) {
+      if (null != xi) {
+        final long day = ((LocalDate) xi).toEpochDay();
+        b.writeZigZag(day - previous);
+        previous = day; } }
+    return b.toByteArray(); }
+
+  /** Repeated dates within a block share an instance. */
+  public static final Object[] decodeLocalDates (final byte[] b,
+                                                 final int n) {
+    final Cursor c = new Cursor(b,bitmapLength(n));
+    final Object[] x = new Object[n];
+    final Map<Long,LocalDate> dates = new HashMap<Long,LocalDate>();
+    long previous = 0L;
+    for (int i=0;i<n;i++) {
+      if (! bit(b,i)) {
+        previous += c.readZigZag();
+        final Long day = Long.valueOf(previous);
+        LocalDate date = dates.get(day);
+        if (null == date) {
+          date = LocalDate.ofEpochDay(previous);
+          dates.put(day,date); }
+        x[i] = date; } }
+    return x; }
+
+  public static final byte[] encodeLocalDateTimes (final Object[] x) {
+    final Bytes b = new Bytes(2*x.length);
+    b.write(nulls(x),0,bitmapLength(x.length));
+    long previous = 0L;
+    for (final Object xi : x) {
+      if (null != xi) {
+        final LocalDateTime dt = (LocalDateTime) xi;
+        final long second = dt.toEpochSecond(ZoneOffset.UTC);
+        b.writeZigZag(second - previous);
+        b.writeVarLong(dt.getNano());
+        previous = second; } }
+    return b.toByteArray(); }
+
+  public static final Object[] decodeLocalDateTimes (final byte[] b,
+                                                     final int n) {
+    final Cursor c = new Cursor(b,bitmapLength(n));
+    final Object[] x = new Object[n];
+    long previous = 0L;
+    for (int i=0;i<n;i++) {
+      if (! bit(b,i)) {
+        previous += c.readZigZag();
+        x[i] = LocalDateTime.ofEpochSecond(
+          previous,(int) c.readVarLong(),ZoneOffset.UTC); } }
+    return x; }
+
+  //--------------------------------------------------------------
+  // dictionary encoded objects
+  //--------------------------------------------------------------
+
+  private static final byte[] serialize (final Object[] dictionary)
+    throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+      oos.writeObject(dictionary); }
+    return bytes.toByteArray(); }
+
+  /** Resolves classes with the Clojure loader, so dynamically
+   * defined classes (eg enums) can be read.
+   */
+  private static final class ClojureObjectInputStream
+  extends ObjectInputStream {
+    ClojureObjectInputStream (final InputStream in)
+      throws IOException { super(in); }
+    @Override
+    protected final Class<?> resolveClass (final ObjectStreamClass d)
+      throws IOException, ClassNotFoundException {
+      try { return Class.forName(d.getName(),false,RT.baseLoader()); }
+      catch (final ClassNotFoundException e) {
+        return super.resolveClass(d); } } }
+
+  private static final Object[] deserialize (final byte[] bytes)
+    throws IOException {
+    try (final ObjectInputStream ois = new ClojureObjectInputStream(
+      new ByteArrayInputStream(bytes))) {
+      return (Object[]) ois.readObject(); }
+    catch (final ClassNotFoundException e) {
+      throw new IOException(e); } }
+
+  /** Values are compared with <code>equals</code>; if not all
+   * <code>String</code>s, they must be
+   * {@link java.io.Serializable}.
+   */
+  public static final byte[] encodeObjects (final Object[] x)
+    throws IOException {
+    final Map<Object,Integer> codes = new HashMap<Object,Integer>();
+    final List<Object> dictionary = new ArrayList<Object>();
+    final Bytes c = new Bytes(x.length);
+    boolean strings = true;
+    for (final Object xi : x) {
+      if (null != xi) {
+        Integer code = codes.get(xi);
+        if (null == code) {
+          code = Integer.valueOf(dictionary.size());
+          codes.put(xi,code);
+          dictionary.add(xi);
+          strings = strings && (xi instanceof String); }
+        c.writeVarLong(code.intValue()); } }
+    final Bytes b = new Bytes(x.length);
+    b.write(nulls(x),0,bitmapLength(x.length));
+    b.writeVarLong(dictionary.size());
+    if (strings) {
+      b.write(STRINGS);
+      for (final Object s : dictionary) {
+        final byte[] utf8 = ((String) s).getBytes(StandardCharsets.UTF_8);
+        b.writeVarLong(utf8.length);
+        b.write(utf8,0,utf8.length); } }
+    else {
+      b.write(SERIALIZED);
+      final byte[] s = serialize(dictionary.toArray());
+      b.writeVarLong(s.length);
+      b.write(s,0,s.length); }
+    c.writeTo(b);
+    return b.toByteArray(); }
+
+  /** Equal values within a block share an instance. */
+  public static final Object[] decodeObjects (final byte[] b,
+                                              final int n)
+    throws IOException {
+    final Cursor c = new Cursor(b,bitmapLength(n));
+    final Object[] dictionary = new Object[(int) c.readVarLong()];
+    final byte kind = c.readBytes(1)[0];
+    if (STRINGS == kind) {
+      for (int k=0;k<dictionary.length;k++) {
+        dictionary[k] = new String(
+          c.readBytes((int) c.readVarLong()),StandardCharsets.UTF_8); } }
+    else if (SERIALIZED == kind) {
+      final Object[] d = deserialize(c.readBytes((int) c.readVarLong()));
+      System.arraycopy(d,0,dictionary,0,dictionary.length); }
+    else {
+      throw new IOException("Unknown dictionary encoding: " + kind); }
+    final Object[] x = new Object[n];
+    for (int i=0;i<n;i++) {
+      if (! bit(b,i)) { x[i] = dictionary[(int) c.readVarLong()]; } }
+    return x; }
+
+  //--------------------------------------------------------------
+  // nested datums
+  //--------------------------------------------------------------
+  /** Write a chunk holding a null bitmap and the block of
+   * non-null values, written by
+   * <code>(writeBlock out values compress)</code>.
+   */
+  public static final void writeNested (final DataOutput out,
+                                        final Object[] x,
+                                        final IFn writeBlock,
+                                        final boolean compress)
+    throws IOException {
+    final List<Object> present = new ArrayList<Object>(x.length);
+    for (final Object xi : x) { if (null != xi) { present.add(xi); } }
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final DataOutputStream dos = new DataOutputStream(bytes);
+    dos.write(nulls(x));
+    writeBlock.invoke(dos,present,Boolean.valueOf(compress));
+    dos.flush();
+    // nested chunks are already compressed, if requested
+    writeChunk(out,bytes.toByteArray(),false); }
+
+  /** Decode a chunk written by
+   * {@link #writeNested(DataOutput,Object[],IFn,boolean)},
+   * reading the non-null values with
+   * <code>(readBlock in m nil)</code>.
+   */
+  public static final Object[] readNested (final byte[] b,
+                                           final int n,
+                                           final IFn readBlock)
+    throws IOException {
+    final int nb = bitmapLength(n);
+    int m = 0;
+    for (int i=0;i<n;i++) { if (! bit(b,i)) { m++; } }
+    final DataInputStream dis = new DataInputStream(
+      new ByteArrayInputStream(b,nb,b.length-nb));
+    final Object[] present =
+      (Object[]) readBlock.invoke(dis,Long.valueOf(m),null);
+    final Object[] x = new Object[n];
+    for (int i=0,j=0;i<n;i++) {
+      if (! bit(b,i)) { x[i] = present[j++]; } }
+    return x; }
+
+  //--------------------------------------------------------------
+  // disabled constructor
+  //--------------------------------------------------------------
+
+  private ColumnCodec () {
+    throw new UnsupportedOperationException(
+      "Can't instantiate " + getClass()); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
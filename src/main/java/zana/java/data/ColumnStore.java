@@ -0,0 +1,231 @@
+package zana.java.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import clojure.lang.IFn;
+
+//----------------------------------------------------------------
+/** Columnar storage for datum records: one {@link Column} per
+ * primitive or <code>Object</code> valued field, and a nested
+ * <code>ColumnStore</code> per datum valued field, in field
+ * definition order.
+ * <p>
+ * A read-only, random access {@link java.util.List} view of the
+ * records: {@link #get(int)} constructs the <code>i</code>th
+ * datum from the columns on demand, so the usual accessor and
+ * attribute functions work on its elements, while the records
+ * themselves take no heap space beyond the column buffers and
+ * dictionaries.
+ * <p>
+ * <code>null</code> records, including <code>null</code>
+ * nested datums, are marked in an optional <code>boolean</code>
+ * mask {@link Column}; their field columns hold zeros (code
+ * <code>-1</code> for <code>Object</code> fields) and
+ * {@link #get(int)} returns <code>null</code>.
+ * <p>
+ * Usually created by the <code>column-store</code> and
+ * <code>read-column-store</code> functions generated by
+ * <code>zana.api/define-datum</code>.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class ColumnStore extends AbstractList<Object>
+implements RandomAccess {
+
+  private static final int MAGIC = 0x7a73746f; // "zsto"
+  private static final int VERSION = 1;
+  private static final String HEADER = "store.bin";
+  private static final String NULLS = "store.nulls";
+
+  //--------------------------------------------------------------
+  // fields
+  //--------------------------------------------------------------
+
+  private final int _size;
+  private final String[] _names;
+  private final Object[] _columns;
+  private final Column _nulls;
+  private final IFn.OLO _row;
+
+  @Override
+  public final int size () { return _size; }
+
+  /** @return a copy of the field names, in definition order. */
+  public final String[] names () { return _names.clone(); }
+
+  /** @return the <code>k</code>th {@link Column} or nested
+   * <code>ColumnStore</code>.
+   */
+  public final Object column (final int k) { return _columns[k]; }
+
+  /** @return the <code>boolean</code> {@link Column} marking
+   * <code>null</code> records, or <code>null</code> if there
+   * are none.
+   */
+  public final Column nulls () { return _nulls; }
+
+  /** @return the {@link Column} or nested
+   * <code>ColumnStore</code> for the named field.
+   */
+  public final Object column (final String name) {
+    for (int k=0;k<_names.length;k++) {
+      if (_names[k].equals(name)) { return _columns[k]; } }
+    throw new IllegalArgumentException(
+      "No column named " + name + " in " + Arrays.toString(_names)); }
+
+  //--------------------------------------------------------------
+  // List interface
+  //--------------------------------------------------------------
+
+  @Override
+  public final Object get (final int i) {
+    if ((i < 0) || (_size <= i)) {
+      throw new IndexOutOfBoundsException(
+        "Index: " + i + ", Size: " + _size); }
+    if ((null != _nulls) && _nulls.getBoolean(i)) { return null; }
+    return _row.invokePrim(this,i); }
+
+  //--------------------------------------------------------------
+  // io
+  //--------------------------------------------------------------
+
+  /** Write to the directory <code>dir</code>: a small header
+   * file, a file per {@link Column}, a sub-directory per
+   * nested <code>ColumnStore</code>, and the null mask, if any.
+   */
+  public final void write (final File dir) throws IOException {
+    if (! (dir.isDirectory() || dir.mkdirs())) {
+      throw new IOException("Can't create " + dir); }
+    try (final DataOutputStream out = new DataOutputStream(
+      new BufferedOutputStream(
+        new FileOutputStream(new File(dir,HEADER))))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(_size);
+      out.writeInt(_names.length);
+      for (final String name : _names) { out.writeUTF(name); } }
+    final File nulls = new File(dir,NULLS);
+    if (null != _nulls) { _nulls.write(nulls); }
+    else if (nulls.exists() && (! nulls.delete())) {
+      throw new IOException("Can't delete " + nulls); }
+    for (int k=0;k<_names.length;k++) {
+      final Object c = _columns[k];
+      if (c instanceof Column) {
+        ((Column) c).write(new File(dir,_names[k] + ".col")); }
+      else {
+        ((ColumnStore) c).write(new File(dir,_names[k])); } } }
+
+  /** @return the number of records in the store written to
+   * <code>dir</code>.
+   * @throws IllegalArgumentException if <code>dir</code> doesn't
+   * hold a store with the given field names.
+   */
+  public static final int readSize (final File dir,
+                                    final String[] names)
+    throws IOException {
+    try (final DataInputStream in = new DataInputStream(
+      new BufferedInputStream(
+        new FileInputStream(new File(dir,HEADER))))) {
+      if ((MAGIC != in.readInt()) || (VERSION != in.readInt())) {
+        throw new IllegalArgumentException(
+          "Not a column store: " + dir); }
+      final int n = in.readInt();
+      final String[] names1 = new String[in.readInt()];
+      for (int k=0;k<names1.length;k++) { names1[k] = in.readUTF(); }
+      if (! Arrays.equals(names,names1)) {
+        throw new IllegalArgumentException(
+          "Column store " + dir + " has fields "
+            + Arrays.toString(names1) + ", not "
+            + Arrays.toString(names)); }
+      return n; } }
+
+  /** @return the memory-mapped null mask of the store written to
+   * <code>dir</code>, or <code>null</code> if it has no
+   * <code>null</code> records.
+   */
+  public static final Column readNulls (final File dir)
+    throws IOException {
+    final File f = new File(dir,NULLS);
+    return f.exists() ? Column.map(f) : null; }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+  /** @return a <code>boolean</code> {@link Column} marking the
+   * <code>null</code> elements of <code>data</code>, or
+   * <code>null</code> if there are none.
+   */
+  public static final Column nulls (final List<?> data) {
+    final int n = data.size();
+    Column nulls = null;
+    for (int i=0;i<n;i++) {
+      if (null == data.get(i)) {
+        if (null == nulls) { nulls = Column.allocate("boolean",n); }
+        nulls.putBoolean(i,true); } }
+    return nulls; }
+
+  /** @param size number of records
+   * @param names field names, in definition order
+   * @param columns a {@link Column} or <code>ColumnStore</code>
+   * per field, each with <code>size</code> elements.
+   * @param nulls a <code>boolean</code> {@link Column} with
+   * <code>size</code> elements, <code>true</code> for
+   * <code>null</code> records; <code>null</code> if there are
+   * none.
+   * @param row <code>(fn [store ^long i] ...)</code> returning
+   * the <code>i</code>th record.
+   */
+  public ColumnStore (final int size,
+                      final String[] names,
+                      final Object[] columns,
+                      final Column nulls,
+                      final IFn.OLO row) {
+    super();
+    assert names.length == columns.length;
+    for (int k=0;k<columns.length;k++) {
+      final Object c = columns[k];
+      final int n;
+      if (c instanceof Column) { n = ((Column) c).size(); }
+      else if (c instanceof ColumnStore) {
+        n = ((ColumnStore) c).size(); }
+      else {
+        throw new IllegalArgumentException(
+          "Not a column: " + names[k] + " " + c); }
+      if (n != size) {
+        throw new IllegalArgumentException(
+          "Column " + names[k] + " has " + n + " elements, not "
+            + size); } }
+    if ((null != nulls)
+      && ((! "boolean".equals(nulls.type())) || (nulls.size() != size))) {
+      throw new IllegalArgumentException(
+        "Not a null mask for " + size + " records: " + nulls); }
+    _size = size;
+    _names = names.clone();
+    _columns = columns.clone();
+    _nulls = nulls;
+    _row = row; }
+
+  /** A store with no <code>null</code> records. */
+  public ColumnStore (final int size,
+                      final String[] names,
+                      final Object[] columns,
+                      final IFn.OLO row) {
+    this(size,names,columns,null,row); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
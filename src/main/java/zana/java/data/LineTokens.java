@@ -0,0 +1,192 @@
+package zana.java.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+//----------------------------------------------------------------
+/** Token boundaries in one line of delimited text, so that
+ * primitive fields can be parsed straight from the line,
+ * without creating a <code>String</code> per token.
+ * <p>
+ * Splits the same way as
+ * <code>com.google.common.base.Splitter.on(Pattern)</code>,
+ * keeping empty tokens. Single character separators (eg
+ * <code>#"\t"</code>) are found with <code>indexOf</code>;
+ * anything else with a {@link Matcher}.
+ * <p>
+ * A token index beyond the end of the line, or negative, is
+ * missing, and treated like a <code>null</code> token.
+ * <p>
+ * Mutable and not thread safe: use one instance per thread,
+ * calling {@link #split(String)} for each line.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class LineTokens extends Object {
+
+  private final Pattern _separator;
+  /** -1 unless the separator is a single literal char. */
+  private final int _char;
+
+  private String _line = null;
+  private int _count = 0;
+  private int[] _starts = new int[64];
+  private int[] _ends = new int[64];
+
+  //--------------------------------------------------------------
+
+  private static final int literalChar (final Pattern p) {
+    final String s = p.pattern();
+    if (0 != p.flags()) { return -1; }
+    if ("\\t".equals(s)) { return '\t'; }
+    if ((1 == s.length()) && (0 > ".$|()[{^?*+\\".indexOf(s.charAt(0)))) {
+      return s.charAt(0); }
+    return -1; }
+
+  private final void add (final int start, final int end) {
+    if (_count == _starts.length) {
+      _starts = Arrays.copyOf(_starts,2*_count);
+      _ends = Arrays.copyOf(_ends,2*_count); }
+    _starts[_count] = start;
+    _ends[_count] = end;
+    _count++; }
+
+  /** Find the token boundaries in <code>line</code>. */
+  public final void split (final String line) {
+    _line = line;
+    _count = 0;
+    int start = 0;
+    if (0 <= _char) {
+      final char c = (char) _char;
+      for (int end=line.indexOf(c);end>=0;end=line.indexOf(c,start)) {
+        add(start,end);
+        start = end + 1; } }
+    else {
+      final Matcher m = _separator.matcher(line);
+      while (m.find()) {
+        add(start,m.start());
+        start = m.end(); } }
+    add(start,line.length()); }
+
+  //--------------------------------------------------------------
+
+  /** @return the number of tokens in the current line. */
+  public final int count () { return _count; }
+
+  private final boolean missing (final int k) {
+    return (k < 0) || (_count <= k); }
+
+  /** @return the <code>k</code>th token, or <code>null</code> if
+   * missing.
+   */
+  public final String token (final int k) {
+    if (missing(k)) { return null; }
+    return _line.substring(_starts[k],_ends[k]); }
+
+  /** @return all the tokens, as <code>String</code>s. */
+  public final List<String> tokens () {
+    final List<String> tokens = new ArrayList<String>(_count);
+    for (int k=0;k<_count;k++) { tokens.add(token(k)); }
+    return tokens; }
+
+  /** @return true if the <code>k</code>th token is missing or
+   * empty.
+   */
+  public final boolean isEmpty (final int k) {
+    return missing(k) || (_starts[k] == _ends[k]); }
+
+  //--------------------------------------------------------------
+  // parsing, with the same results as the default
+  // zana.data.textin parsers applied to the token.
+  //--------------------------------------------------------------
+  /** Like {@link Boolean#parseBoolean(String)}: false if
+   * missing.
+   */
+  public final boolean parseBoolean (final int k) {
+    if (missing(k)) { return false; }
+    final int start = _starts[k];
+    return ((_ends[k] - start) == 4)
+      && _line.regionMatches(true,start,"true",0,4); }
+
+  /** Like {@link Long#parseLong(String)}, but only creates a
+   * <code>String</code> for unusual input.
+   * @throws NumberFormatException if missing, empty, or not an
+   * integer.
+   */
+  public final long parseLong (final int k) {
+    if (missing(k)) { return Long.parseLong(null); }
+    final int start = _starts[k];
+    final int end = _ends[k];
+    int i = start;
+    boolean negative = false;
+    if ((i < end) && ('-' == _line.charAt(i))) { negative = true; i++; }
+    // up to 18 digits can't overflow
+    if ((i == end) || (18 < (end - i))) {
+      return Long.parseLong(_line.substring(start,end)); }
+    long x = 0L;
+    for (;i<end;i++) {
+      final int d = _line.charAt(i) - '0';
+      if ((d < 0) || (9 < d)) {
+        return Long.parseLong(_line.substring(start,end)); }
+      x = (10L*x) + d; }
+    return negative ? -x : x; }
+
+  /** Like {@link Integer#parseInt(String)}.
+   * @throws NumberFormatException if missing, empty, not an
+   * integer, or out of range.
+   */
+  public final int parseInt (final int k) {
+    final long x = parseLong(k);
+    if ((x < Integer.MIN_VALUE) || (Integer.MAX_VALUE < x)) {
+      throw new NumberFormatException(
+        "Value out of range. Value:\"" + token(k) + "\""); }
+    return (int) x; }
+
+  /** Like {@link Short#parseShort(String)}. */
+  public final short parseShort (final int k) {
+    final long x = parseLong(k);
+    if ((x < Short.MIN_VALUE) || (Short.MAX_VALUE < x)) {
+      throw new NumberFormatException(
+        "Value out of range. Value:\"" + token(k) + "\""); }
+    return (short) x; }
+
+  /** Like {@link Byte#parseByte(String)}. */
+  public final byte parseByte (final int k) {
+    final long x = parseLong(k);
+    if ((x < Byte.MIN_VALUE) || (Byte.MAX_VALUE < x)) {
+      throw new NumberFormatException(
+        "Value out of range. Value:\"" + token(k) + "\""); }
+    return (byte) x; }
+
+  /** Like {@link Double#parseDouble(String)}, but
+   * <code>NaN</code> if missing or empty.
+   */
+  public final double parseDouble (final int k) {
+    if (isEmpty(k)) { return Double.NaN; }
+    return Double.parseDouble(token(k)); }
+
+  /** Like {@link Float#parseFloat(String)}, but
+   * <code>NaN</code> if missing or empty.
+   */
+  public final float parseFloat (final int k) {
+    if (isEmpty(k)) { return Float.NaN; }
+    return Float.parseFloat(token(k)); }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  public LineTokens (final Pattern separator) {
+    super();
+    _separator = separator;
+    _char = literalChar(separator); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
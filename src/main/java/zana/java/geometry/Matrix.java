@@ -0,0 +1,381 @@
+package zana.java.geometry;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+//----------------------------------------------------------------
+/** Dense <code>m</code> by <code>n</code> matrices, whose
+ * elements are in a single <code>double[]</code>, in row major
+ * or column major order.
+ * <p>
+ * {@link #transpose()} is a view, sharing the elements, with the
+ * other layout, so <code>A<sup>T</sup></code> costs nothing.
+ * <p>
+ * The matrix-vector and matrix-matrix kernels are cache blocked,
+ * in tiles of {@link #BLOCK}, and write into caller supplied
+ * outputs. Every output element is a fused multiply-add
+ * accumulation, in increasing order of the inner index, starting
+ * from 0.0, whatever the layouts and blocking, so the results
+ * are the same, bit for bit, as
+ * {@link zana.java.arrays.Arrays#dot(double[],double[])} of the
+ * corresponding row and column.
+ * <p>
+ * Mutable! Not Synchronized!
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class Matrix implements Serializable {
+
+  private static final long serialVersionUID = 0L;
+
+  /** Tile size, in rows and columns, for the kernels. */
+  public static final int BLOCK = 64;
+
+  //--------------------------------------------------------------
+  // fields
+  //--------------------------------------------------------------
+
+  private final double[] _data;
+  /** The elements, not a copy. */
+  public final double[] data () { return _data; }
+
+  private final int _rows;
+  public final int rows () { return _rows; }
+
+  private final int _columns;
+  public final int columns () { return _columns; }
+
+  private final boolean _rowMajor;
+  public final boolean isRowMajor () { return _rowMajor; }
+
+  /** Offset between consecutive rows. */
+  private final int rowStride () {
+    return _rowMajor ? _columns : 1; }
+
+  /** Offset between consecutive columns. */
+  private final int columnStride () {
+    return _rowMajor ? 1 : _rows; }
+
+  public final int index (final int i, final int j) {
+    return (i * rowStride()) + (j * columnStride()); }
+
+  public final double get (final int i, final int j) {
+    return _data[index(i,j)]; }
+
+  public final void set (final int i, final int j, final double v) {
+    _data[index(i,j)] = v; }
+
+  //--------------------------------------------------------------
+  // views and copies
+  //--------------------------------------------------------------
+  /** A view, sharing the elements. */
+  public final Matrix transpose () {
+    return new Matrix(_data,_columns,_rows,! _rowMajor); }
+
+  public final Matrix copy (final boolean rowMajor) {
+    final Matrix c = make(_rows,_columns,rowMajor);
+    if (rowMajor == _rowMajor) {
+      System.arraycopy(_data,0,c._data,0,_data.length); }
+    else {
+      for (int i=0;i<_rows;i++) {
+        for (int j=0;j<_columns;j++) { c.set(i,j,get(i,j)); } } }
+    return c; }
+
+  /** Copy row <code>i</code> into <code>out</code>. */
+  public final void row (final int i, final double[] out) {
+    checkLength(_columns,out.length);
+    if (_rowMajor) {
+      System.arraycopy(_data,i*_columns,out,0,_columns); }
+    else {
+      for (int j=0;j<_columns;j++) { out[j] = _data[i + (j*_rows)]; } } }
+
+  //--------------------------------------------------------------
+  // kernels
+  //--------------------------------------------------------------
+
+  private static final void checkLength (final int expected,
+                                         final int actual) {
+    if (expected != actual) {
+      throw new IllegalArgumentException(
+        "dims differ: " + expected + ", " + actual); } }
+
+  private static final void checkRange (final int n,
+                                        final double[] a,
+                                        final int offset) {
+    if ((offset < 0) || ((a.length - offset) < n)) {
+      throw new IllegalArgumentException(
+        "[" + offset + "," + (offset + n) + ") not in [0," 
+        + a.length + ")"); } }
+
+  /** <code>y = A x</code>, overwriting <code>y</code>, which
+   * must not be <code>x</code>.
+   */
+  public final void times (final double[] x,
+                           final double[] y) {
+    checkLength(_columns,x.length);
+    checkLength(_rows,y.length);
+    times(_data,_rows,_columns,_rowMajor,x,0,y,0,true); }
+
+  /** <code>y = A x</code>, with <code>x</code> the 
+   * {@link #columns()} elements of <code>xs</code> starting at 
+   * <code>xOffset</code>, overwriting the {@link #rows()} elements
+   * of <code>ys</code> starting at <code>yOffset</code>. 
+   * <code>ys</code> must not be <code>xs</code>.
+   */
+  public final void times (final double[] xs,
+                           final int xOffset,
+                           final double[] ys,
+                           final int yOffset) {
+    checkRange(_columns,xs,xOffset);
+    checkRange(_rows,ys,yOffset);
+    times(_data,_rows,_columns,_rowMajor,xs,xOffset,ys,yOffset,true); }
+
+  /** <code>out = A<sup>T</sup> v</code>, overwriting
+   * <code>out</code>, which must not be <code>v</code>.
+   */
+  public final void transposeTimes (final double[] v,
+                                    final double[] out) {
+    checkLength(_rows,v.length);
+    checkLength(_columns,out.length);
+    // the transpose's layout, without allocating the view
+    times(_data,_columns,_rows,! _rowMajor,v,0,out,0,true); }
+
+  /** <code>out += A<sup>T</sup> v</code>, with <code>v</code> the
+   * {@link #rows()} elements of <code>vs</code> starting at
+   * <code>vOffset</code>. Each element of <code>out</code>
+   * continues its fused multiply-add accumulation, so the products
+   * with consecutive row blocks of a matrix, in order, are the
+   * same, bit for bit, as the product with the whole matrix.
+   */
+  public final void transposeTimesAdd (final double[] vs,
+                                       final int vOffset,
+                                       final double[] out) {
+    checkRange(_rows,vs,vOffset);
+    checkLength(_columns,out.length);
+    times(_data,_columns,_rows,! _rowMajor,vs,vOffset,out,0,false); }
+
+  /** <code>y = A x</code>, or <code>y += A x</code> if not 
+   * <code>clear</code>, for the <code>m</code> by <code>n</code> 
+   * matrix in <code>a</code>, <code>x</code> and <code>y</code>
+   * starting at <code>xo</code> and <code>yo</code>.
+   */
+  private static final void times (final double[] a,
+                                   final int m,
+                                   final int n,
+                                   final boolean rowMajor,
+                                   final double[] x,
+                                   final int xo,
+                                   final double[] y,
+                                   final int yo,
+                                   final boolean clear) {
+    if (x == y) {
+      throw new IllegalArgumentException("output aliases input"); }
+    if (clear) { Arrays.fill(y,yo,yo+m,0.0); }
+    if (rowMajor) {
+      // a block of x is reused by every row
+      for (int j0=0;j0<n;j0+=BLOCK) {
+        final int j1 = Math.min(n,j0+BLOCK);
+        int i = 0;
+        // 4 independent fma chains, each in its own order
+        for (;i+3<m;i+=4) {
+          final int k0 = i*n;
+          final int k1 = k0+n;
+          final int k2 = k1+n;
+          final int k3 = k2+n;
+          final int yi = yo+i;
+          double s0 = y[yi];
+          double s1 = y[yi+1];
+          double s2 = y[yi+2];
+          double s3 = y[yi+3];
+          for (int j=j0;j<j1;j++) {
+            final double xj = x[xo+j];
+            s0 = Math.fma(a[k0+j],xj,s0);
+            s1 = Math.fma(a[k1+j],xj,s1);
+            s2 = Math.fma(a[k2+j],xj,s2);
+            s3 = Math.fma(a[k3+j],xj,s3); }
+          y[yi] = s0; y[yi+1] = s1; y[yi+2] = s2; y[yi+3] = s3; }
+        for (;i<m;i++) {
+          final int k = i*n;
+          double s = y[yo+i];
+          for (int j=j0;j<j1;j++) { s = Math.fma(a[k+j],x[xo+j],s); }
+          y[yo+i] = s; } } }
+    else {
+      // a block of y stays in cache, for all the columns
+      for (int i0=0;i0<m;i0+=BLOCK) {
+        final int i1 = Math.min(m,i0+BLOCK);
+        for (int j=0;j<n;j++) {
+          final double xj = x[xo+j];
+          final int k = j*m;
+          for (int i=i0;i<i1;i++) { 
+            y[yo+i] = Math.fma(a[k+i],xj,y[yo+i]); } } } } }
+
+  /** <code>c = a b</code>, overwriting <code>c</code>, which
+   * must not share elements with <code>a</code> or
+   * <code>b</code>. Any layouts.
+   */
+  public static final void multiply (final Matrix a,
+                                     final Matrix b,
+                                     final Matrix c) {
+    checkLength(a._columns,b._rows);
+    checkLength(a._rows,c._rows);
+    checkLength(b._columns,c._columns);
+    if ((c._data == a._data) || (c._data == b._data)) {
+      throw new IllegalArgumentException("output aliases input"); }
+    final int m = a._rows;
+    final int n = a._columns;
+    final int p = b._columns;
+    final double[] aa = a._data;
+    final double[] bb = b._data;
+    final double[] cc = c._data;
+    final int ar = a.rowStride();
+    final int ac = a.columnStride();
+    final int br = b.rowStride();
+    final int bc = b.columnStride();
+    final int cr = c.rowStride();
+    final int ck = c.columnStride();
+    Arrays.fill(cc,0.0);
+    // dot products when a's rows and b's columns are contiguous,
+    // otherwise axpys along the rows of b and c
+    final boolean dots = (1 == ac) && (1 == br);
+    for (int i0=0;i0<m;i0+=BLOCK) {
+      final int i1 = Math.min(m,i0+BLOCK);
+      for (int j0=0;j0<n;j0+=BLOCK) {
+        final int j1 = Math.min(n,j0+BLOCK);
+        for (int k0=0;k0<p;k0+=BLOCK) {
+          final int k1 = Math.min(p,k0+BLOCK);
+          if (dots) {
+            for (int i=i0;i<i1;i++) {
+              final int ai = i*ar;
+              final int ci = i*cr;
+              int k = k0;
+              // 4 independent fma chains, each in its own order
+              for (;k+3<k1;k+=4) {
+                final int b0 = k*bc;
+                final int b1 = b0+bc;
+                final int b2 = b1+bc;
+                final int b3 = b2+bc;
+                final int c0 = ci + (k*ck);
+                double s0 = cc[c0];
+                double s1 = cc[c0+ck];
+                double s2 = cc[c0+(2*ck)];
+                double s3 = cc[c0+(3*ck)];
+                for (int j=j0;j<j1;j++) {
+                  final double aij = aa[ai+j];
+                  s0 = Math.fma(aij,bb[b0+j],s0);
+                  s1 = Math.fma(aij,bb[b1+j],s1);
+                  s2 = Math.fma(aij,bb[b2+j],s2);
+                  s3 = Math.fma(aij,bb[b3+j],s3); }
+                cc[c0] = s0; 
+                cc[c0+ck] = s1; 
+                cc[c0+(2*ck)] = s2; 
+                cc[c0+(3*ck)] = s3; }
+              for (;k<k1;k++) {
+                final int bk = k*bc;
+                final int cik = ci + (k*ck);
+                double s = cc[cik];
+                for (int j=j0;j<j1;j++) {
+                  s = Math.fma(aa[ai+j],bb[bk+j],s); }
+                cc[cik] = s; } } }
+          else {
+            for (int i=i0;i<i1;i++) {
+              final int ci = i*cr;
+              for (int j=j0;j<j1;j++) {
+                final double aij = aa[(i*ar) + (j*ac)];
+                final int bj = j*br;
+                for (int k=k0;k<k1;k++) {
+                  final int cik = ci + (k*ck);
+                  cc[cik] = Math.fma(aij,bb[bj + (k*bc)],cc[cik]); } } } } } } } }
+
+  //--------------------------------------------------------------
+  // Object interface
+  //--------------------------------------------------------------
+  // elementwise, whatever the layout
+
+  @Override
+  public final int hashCode () {
+    int h = 17;
+    h += 31*_rows;
+    h += 31*_columns;
+    for (int i=0;i<_rows;i++) {
+      for (int j=0;j<_columns;j++) {
+        h = (31*h) + Double.hashCode(get(i,j)); } }
+    return h; }
+
+  @Override
+  public final boolean equals (final Object o) {
+    if (! (o instanceof Matrix)) { return false; }
+    final Matrix that = (Matrix) o;
+    if ((_rows != that._rows) || (_columns != that._columns)) {
+      return false; }
+    if (_rowMajor == that._rowMajor) {
+      return Arrays.equals(_data,that._data); }
+    for (int i=0;i<_rows;i++) {
+      for (int j=0;j<_columns;j++) {
+        if (Double.doubleToLongBits(get(i,j))
+          != Double.doubleToLongBits(that.get(i,j))) {
+          return false; } } }
+    return true; }
+
+  @Override
+  public final String toString () {
+    return getClass().getSimpleName()
+      + "[" + _rows + "," + _columns + ","
+      + (_rowMajor ? "row" : "column") + " major]"; }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  private Matrix (final double[] data,
+                  final int rows,
+                  final int columns,
+                  final boolean rowMajor) {
+    assert data.length == ((long) rows) * columns;
+    _data = data;
+    _rows = rows;
+    _columns = columns;
+    _rowMajor = rowMajor; }
+
+  /** A matrix of zeros. */
+  public static final Matrix make (final int rows,
+                                   final int columns,
+                                   final boolean rowMajor) {
+    if ((rows < 0) || (columns < 0)) {
+      throw new IllegalArgumentException(
+        "negative dimension: " + rows + ", " + columns); }
+    final long n = ((long) rows) * columns;
+    if (n > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+        "too many elements: " + rows + " * " + columns); }
+    return new Matrix(new double[(int) n],rows,columns,rowMajor); }
+
+  /** Copies <code>rows</code>, which must all have the same
+   * length.
+   */
+  public static final Matrix make (final double[][] rows,
+                                   final boolean rowMajor) {
+    final int m = rows.length;
+    final int n = (0 == m) ? 0 : rows[0].length;
+    final Matrix a = make(m,n,rowMajor);
+    for (int i=0;i<m;i++) {
+      checkLength(n,rows[i].length);
+      if (rowMajor) { System.arraycopy(rows[i],0,a._data,i*n,n); }
+      else { for (int j=0;j<n;j++) { a.set(i,j,rows[i][j]); } } }
+    return a; }
+
+  /** Shares <code>data</code>, which isn't copied. */
+  public static final Matrix wrap (final double[] data,
+                                   final int rows,
+                                   final int columns,
+                                   final boolean rowMajor) {
+    if (data.length != ((long) rows) * columns) {
+      throw new IllegalArgumentException(
+        "dims differ: " + data.length + ", " + rows + " * " + columns); }
+    return new Matrix(data,rows,columns,rowMajor); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
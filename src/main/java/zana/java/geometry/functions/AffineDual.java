@@ -1,13 +1,14 @@
 package zana.java.geometry.functions;
 
 import zana.java.geometry.Dn;
+import zana.java.geometry.Matrix;
 
 //----------------------------------------------------------------
 /** Map <code>double[n+1]</code> to corresponding affine 
  * functional on the n-dimensional domain.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-14
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -33,6 +34,26 @@ public final class AffineDual extends Function {
       this.toString() + "\n" + xx;
     return this; }
 
+  /** Evaluate the affine functional with homogeneous 
+   * coordinates <code>p</code> at each row of <code>x</code>, 
+   * which has one column fewer, writing the values into 
+   * <code>out</code>.
+   * Same values, bit for bit, as 
+   * <code>value(p).doubleValue(x<sub>i</sub>)</code>.
+   */
+  public final void values (final double[] p,
+                            final Matrix x,
+                            final double[] out) {
+    final int n = p.length - 1;
+    assert ((Dn) domain()).dimension() == p.length;
+    if ((n != x.columns()) || (x.rows() != out.length)) {
+      throw new IllegalArgumentException(
+        "dims differ: " + x + ", " + p.length + ", " + out.length); }
+    // the linear part is the first n entries of p, not copied
+    x.times(p,0,out,0);
+    final double t = p[n];
+    for (int i=0;i<out.length;i++) { out[i] = t + out[i]; } }
+
   //--------------------------------------------------------------
   // Object interface
   //--------------------------------------------------------------
@@ -59,7 +80,7 @@ public final class AffineDual extends Function {
   //--------------------------------------------------------------
 
   private AffineDual (final Dn domain) {
-     super(domain,Dn.get(1)); }
+     super(domain,Function.class); }
 
   public static final AffineDual make (final Dn domain) {
      return new AffineDual(domain);}
@@ -8,7 +8,7 @@ package zana.java.geometry.functions;
  * function implementation is used where.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-02
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -21,7 +21,10 @@ public final class Composition2 extends Function {
   //--------------------------------------------------------------
 
   private final Function _f0;
+  final Function outer () { return _f0; }
+
   private final Function _f1;
+  final Function inner () { return _f1; }
 
   //--------------------------------------------------------------
   // methods
@@ -49,6 +52,29 @@ public final class Composition2 extends Function {
     final Function d0 = _f0.derivativeAt(_f1.value(x));
     return compose(d0,d1); }
 
+  /** One pass over the data for an {@link L2Cost} or
+   * {@link PredictionCost} of a {@link LinearDual} or
+   * {@link AffineDual} parameterization. Otherwise, for a
+   * {@link LinearRows} inner term, the chain rule without
+   * building the composed derivative. Otherwise, the default.
+   */
+  @Override
+  public double valueAndGradient (final double[] p,
+                                  final double[] gradOut) {
+    if ((_f1 instanceof AffineDual) || (_f1 instanceof LinearDual)) {
+      if (_f0 instanceof L2Cost) {
+        return ((L2Cost) _f0).valueAndGradient(_f1,p,gradOut); }
+      if (_f0 instanceof PredictionCost) {
+        return ((PredictionCost) _f0).valueAndGradient(_f1,p,gradOut); } }
+    if (_f1 instanceof LinearRows) {
+      final LinearRows lr = (LinearRows) _f1;
+      final double[] y = lr.value(p);
+      final double[] g0 = new double[y.length];
+      final double v = _f0.valueAndGradient(y,g0);
+      lr.transposeTimes(g0,gradOut);
+      return v; }
+    return super.valueAndGradient(p,gradOut); }
+
   //--------------------------------------------------------------
   // Object interface
   //--------------------------------------------------------------
@@ -0,0 +1,117 @@
+package zana.java.geometry.functions;
+
+import zana.java.concurrent.Parallel;
+import zana.java.math.Superaccumulator;
+
+//----------------------------------------------------------------
+/** Sums over the records of a training data list, for
+ * {@link L2Cost}, {@link PredictionCost} and {@link DesignCost}.
+ * <p>
+ * Made with one thread, the default, the costs sum in the calling
+ * thread, in record order, with Kahan compensation, see
+ * {@link #add(double[],double[],int,double)}. Made with more,
+ * they sum exactly, as follows.
+ * <p>
+ * The records are split into fixed partitions of
+ * {@link #PARTITION} records, which don't depend on the number of
+ * threads. Runs of partitions are summed on the number of threads
+ * the caller asks for, in
+ * {@link Parallel#run(int,int,Parallel.Body) fork/join} tasks,
+ * each into its own {@link Superaccumulator}s, which are then
+ * merged in partition order. The sums are exact until the final
+ * rounding, so the results are the same, bit for bit, whatever
+ * the number of threads, or the order in which the tasks finish.
+ * Shorter lists are summed exactly in the calling thread.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+final class DataSums extends Object {
+
+  /** Records per partition. */
+  static final int PARTITION = 1 << 12;
+
+  /** Shorter lists are summed in the calling thread. */
+  static final int PARALLEL_MIN = 1 << 14;
+
+  private static final int threads (final int threads,
+                                    final int n) {
+    if ((threads <= 1) || (n < PARALLEL_MIN)) { return 1; }
+    return Math.min(threads,partitions(n)); }
+
+  private static final int partitions (final int n) {
+    return (n + PARTITION - 1) / PARTITION; }
+
+  //--------------------------------------------------------------
+  /** One Kahan step: adds <code>x</code> to <code>s[j]</code>,
+   * with the running compensation in <code>c[j]</code>.
+   */
+  static final void add (final double[] s,
+                         final double[] c,
+                         final int j,
+                         final double x) {
+    final double z = x - c[j];
+    final double t = s[j] + z;
+    c[j] = (t - s[j]) - z;
+    s[j] = t; }
+
+  //--------------------------------------------------------------
+  /** Adds the terms for the records <code>[start,end)</code> to
+   * <code>sums</code>. Called from several threads at once.
+   */
+  interface Body {
+    void apply (int start, int end, Superaccumulator[] sums); }
+
+  private static final Superaccumulator[] make (final int k) {
+    final Superaccumulator[] s = new Superaccumulator[k];
+    for (int j=0;j<k;j++) { s[j] = new Superaccumulator(); }
+    return s; }
+
+  //--------------------------------------------------------------
+  /** @return <code>k</code> sums over records
+   * <code>[0,n)</code>, on up to <code>threads</code> threads.
+   */
+  static final Superaccumulator[] sums (final int threads,
+                                        final int n,
+                                        final int k,
+                                        final Body body) {
+    final Superaccumulator[] total = make(k);
+    final int t = threads(threads,n);
+    if (1 == t) { body.apply(0,n,total); return total; }
+
+    final int m = partitions(n);
+    // indexed by first partition, so merged in partition order
+    final Superaccumulator[][] partial = new Superaccumulator[m][];
+    Parallel.run(t,m,new Parallel.Body() {
+      @Override
+      public final void apply (final int start, final int end) {
+        final Superaccumulator[] s = make(k);
+        body.apply(
+          start*PARTITION,Math.min(n,end*PARTITION),s);
+        partial[start] = s; } });
+    for (final Superaccumulator[] s : partial) {
+      if (null != s) {
+        for (int j=0;j<k;j++) { total[j].merge(s[j]); } } }
+    return total; }
+
+  /** @return the sum over records <code>[0,n)</code>, correctly
+   * rounded, on up to <code>threads</code> threads.
+   */
+  static final double sum (final int threads,
+                           final int n,
+                           final Body body) {
+    return sums(threads,n,1,body)[0].doubleValue(); }
+
+  //--------------------------------------------------------------
+  // disabled constructor
+  //--------------------------------------------------------------
+
+  private DataSums () {
+    throw new UnsupportedOperationException(
+      "Can't instantiate " + getClass()); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
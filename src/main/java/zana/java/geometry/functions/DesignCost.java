@@ -0,0 +1,306 @@
+package zana.java.geometry.functions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import clojure.lang.IFn;
+import zana.java.geometry.Dn;
+import zana.java.math.Superaccumulator;
+
+//----------------------------------------------------------------
+/** The cost of a linear or affine prediction model, as a
+ * function of its parameters, with the design matrix and ground
+ * truth computed once, rather than at every evaluation.
+ *
+ * \[c(p) = \sum_{i} \rho(x_i \cdot p - y_i)\]
+ * where
+ * the \(x_i\) are the rows of the design matrix: the training
+ * records, embedded in homogeneous coordinates (with a trailing
+ * 1) for affine models, and the \(y_i\) are the ground truth.
+ * \(\rho\) defaults to \(e^2\).
+ *
+ * Evaluation is a dense matrix-vector product and a residual
+ * reduction, over primitive arrays, with no per record function
+ * calls, except \(\rho\), if given.
+ * Same values and gradients, bit for bit, as
+ * {@link L2Cost} and {@link PredictionCost} composed with
+ * {@link AffineDual} or {@link LinearDual}, with the same sums.
+ * Like them, it sums in the calling thread, Kahan compensated,
+ * unless made with a number of <code>threads</code> greater than
+ * 1, in which case the sums are exact, long data is summed in
+ * parallel, and \(\rho\) must be safe to call from several
+ * threads.
+ *
+ * The rows are stored in blocks of contiguous rows, one block per
+ * partition of the parallel sums, so tens of millions of records
+ * fit, whatever the number of parameters.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+@SuppressWarnings("unchecked")
+public final class DesignCost extends Function {
+
+  private static final long serialVersionUID = 0L;
+
+  private static final int BLOCK = DataSums.PARTITION;
+  private static final int SHIFT =
+    Integer.numberOfTrailingZeros(BLOCK);
+
+  //--------------------------------------------------------------
+  // fields
+  //--------------------------------------------------------------
+
+  /** Row major blocks of {@link #BLOCK} rows. */
+  private final double[][] _rows;
+
+  private final double[] _y;
+
+  /** <code>null</code> means squared error. */
+  private final Function _rho;
+
+  /** Maximum number of threads for the sums over the data. */
+  private final int _threads;
+  public final int threads () { return _threads; }
+
+  private final int dimension () {
+    return ((Dn) domain()).dimension(); }
+
+  //--------------------------------------------------------------
+  // methods
+  //--------------------------------------------------------------
+
+  /** Add the terms for records <code>[start,end)</code>: the value
+   * to <code>sums[0]</code>, and, if <code>gradient</code>, the
+   * gradient coordinates to the following <code>sums</code>.
+   */
+  private final void accumulate (final double[] p,
+                                 final boolean gradient,
+                                 final int start,
+                                 final int end,
+                                 final Superaccumulator[] sums) {
+    final int n = p.length;
+    final Superaccumulator s = sums[0];
+    for (int i=start;i<end;i++) {
+      final double[] block = _rows[i >>> SHIFT];
+      final int k = (i & (BLOCK-1)) * n;
+      double xp = 0.0;
+      for (int j=0;j<n;j++) { xp = Math.fma(block[k+j],p[j],xp); }
+      final double ei = xp - _y[i];
+      final double di;
+      if (null == _rho) {
+        s.addProduct(ei,ei);
+        di = 2 * ei; }
+      else {
+        s.add(_rho.doubleValue(ei));
+        di = gradient ? _rho.slopeAt(ei) : 0.0; }
+      if (gradient) {
+        for (int j=0;j<n;j++) {
+          sums[j+1].addProduct(di,block[k+j]); } } } }
+
+  /** Kahan sums in record order, in the calling thread: the value,
+   * returned, and, if <code>gradOut</code> isn't
+   * <code>null</code>, the gradient.
+   */
+  private final double serial (final double[] p,
+                               final double[] gradOut) {
+    final int n = p.length;
+    final boolean gradient = (null != gradOut);
+    final double[] s = new double[n+1];
+    final double[] c = new double[n+1];
+    for (int i=0;i<_y.length;i++) {
+      final double[] block = _rows[i >>> SHIFT];
+      final int k = (i & (BLOCK-1)) * n;
+      double xp = 0.0;
+      for (int j=0;j<n;j++) { xp = Math.fma(block[k+j],p[j],xp); }
+      final double ei = xp - _y[i];
+      final double di;
+      if (null == _rho) {
+        DataSums.add(s,c,0,ei*ei);
+        di = 2 * ei; }
+      else {
+        DataSums.add(s,c,0,_rho.doubleValue(ei));
+        di = gradient ? _rho.slopeAt(ei) : 0.0; }
+      if (gradient) {
+        for (int j=0;j<n;j++) {
+          DataSums.add(s,c,j+1,di*block[k+j]); } } }
+    if (gradient) { System.arraycopy(s,1,gradOut,0,n); }
+    return s[0]; }
+
+  @Override
+  public final double doubleValue (final Object p) {
+    final double[] pp = (double[]) p;
+    assert dimension() == pp.length;
+    if (1 == _threads) { return serial(pp,null); }
+    return DataSums.sum(_threads,_y.length,new DataSums.Body() {
+      @Override
+      public final void apply (final int start,
+                               final int end,
+                               final Superaccumulator[] sums) {
+        accumulate(pp,false,start,end,sums); } }); }
+
+  @Override
+  public final double valueAndGradient (final double[] p,
+                                        final double[] gradOut) {
+    final int n = dimension();
+    assert n == p.length;
+    assert n == gradOut.length;
+    if (1 == _threads) { return serial(p,gradOut); }
+    final Superaccumulator[] sums = DataSums.sums(
+      _threads,_y.length,n+1,new DataSums.Body() {
+        @Override
+        public final void apply (final int start,
+                                 final int end,
+                                 final Superaccumulator[] s) {
+          accumulate(p,true,start,end,s); } });
+    for (int j=0;j<n;j++) { gradOut[j] = sums[j+1].doubleValue(); }
+    return sums[0].doubleValue(); }
+
+  @Override
+  public final Function derivativeAt (final Object p) {
+    final double[] g = new double[dimension()];
+    valueAndGradient((double[]) p,g);
+    return LinearFunctional.make(g); }
+
+  //--------------------------------------------------------------
+  // Object methods
+  //--------------------------------------------------------------
+
+  @Override
+  public final int hashCode () {
+    int h = super.hashCode();
+    h += 31*Arrays.hashCode(_y);
+    h += 31*((null == _rho) ? 0 : _rho.hashCode());
+    return h; }
+
+  @Override
+  public final boolean equals (final Object o) {
+    return
+      (o instanceof DesignCost)
+      &&
+      (super.equals(o))
+      &&
+      Objects.equals(_rho,((DesignCost) o)._rho)
+      &&
+      Arrays.equals(_y,((DesignCost) o)._y)
+      &&
+      Arrays.deepEquals(_rows,((DesignCost) o)._rows); }
+
+  // TODO: protect against large data sets!
+  @Override
+  public final String toString () {
+    return
+      getClass().getSimpleName() + "[" + domain()
+      + "," + _y.length
+      + "," + ((null == _rho) ? "L2" : _rho.toString())
+      + "]"; }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  private static final double[][] blocks (final int m,
+                                          final int n) {
+    final int nb = (m + BLOCK - 1) >>> SHIFT;
+    final double[][] rows = new double[nb][];
+    for (int b=0;b<nb;b++) {
+      rows[b] = new double[Math.min(BLOCK,m - (b << SHIFT)) * n]; }
+    return rows; }
+
+  private DesignCost (final double[][] rows,
+                      final double[] y,
+                      final int n,
+                      final Function rho,
+                      final int threads) {
+    super(Dn.get(n),Dn.get(1));
+    assert (null == rho) || Dn.get(1).equals(rho.domain());
+    assert (null == rho) || Dn.get(1).equals(rho.codomain());
+    _rows = rows;
+    _y = y;
+    _rho = rho; 
+    _threads = threads; }
+
+  private static final void checkThreads (final int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException(
+        "threads not positive: " + threads); } }
+
+  /** Embed <code>data</code>, which must be <code>double[]</code>
+   * vectors, as <code>parameterization</code>, a
+   * {@link LinearDual} or {@link AffineDual}, would.
+   */
+  static final DesignCost make (final Function rho,
+                                final IFn.OD groundTruth,
+                                final List data,
+                                final Function parameterization,
+                                final int threads) {
+    checkThreads(threads);
+    final boolean affine = (parameterization instanceof AffineDual);
+    if (! (affine || (parameterization instanceof LinearDual))) {
+      throw new IllegalArgumentException(
+        "Not an AffineDual or LinearDual: " + parameterization); }
+    final int n = ((Dn) parameterization.domain()).dimension();
+    final int d = affine ? n-1 : n;
+    final int m = data.size();
+    final double[][] rows = blocks(m,n);
+    final double[] y = new double[m];
+    for (int i=0;i<m;i++) {
+      final Object xi = data.get(i);
+      y[i] = groundTruth.invokePrim(xi);
+      final double[] x = (double[]) xi;
+      if (d != x.length) {
+        throw new IllegalArgumentException(
+          "record " + i + " has dimension " + x.length +
+          ", not " + d); }
+      final double[] block = rows[i >>> SHIFT];
+      final int k = (i & (BLOCK-1)) * n;
+      System.arraycopy(x,0,block,k,d);
+      if (affine) { block[k+d] = 1.0; } }
+    return new DesignCost(rows,y,n,rho,threads); }
+
+  /** Squared error of the linear model with the
+   * <code>design</code> matrix, for example from
+   * {@link Sample#compose(AffineDual)}, and ground truth
+   * <code>y</code>.
+   */
+  public static final DesignCost make (final LinearRows design,
+                                       final double[] y) {
+    return make(null,design,y,1); }
+
+  /** Sum of <code>rho</code> of the residuals of the linear model
+   * with the <code>design</code> matrix, for example from
+   * {@link Sample#compose(AffineDual)}, and ground truth
+   * <code>y</code>.
+   */
+  public static final DesignCost make (final Function rho,
+                                       final LinearRows design,
+                                       final double[] y) {
+    return make(rho,design,y,1); }
+
+  /** Like {@link #make(Function,LinearRows,double[])}, summing 
+   * long data on up to <code>threads</code> threads. 
+   * <code>null</code> <code>rho</code> means squared error.
+   */
+  public static final DesignCost make (final Function rho,
+                                       final LinearRows design,
+                                       final double[] y,
+                                       final int threads) {
+    checkThreads(threads);
+    final int m = ((Dn) design.codomain()).dimension();
+    final int n = ((Dn) design.domain()).dimension();
+    if (m != y.length) {
+      throw new IllegalArgumentException(
+        "design has " + m + " rows, but " + y.length + " y"); }
+    final double[][] rows = blocks(m,n);
+    for (int i=0;i<m;i++) {
+      final double[] block = rows[i >>> SHIFT];
+      final int k = (i & (BLOCK-1)) * n;
+      for (int j=0;j<n;j++) { block[k+j] = design.coordinate(i,j); } }
+    return new DesignCost(rows,y.clone(),n,rho,threads); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
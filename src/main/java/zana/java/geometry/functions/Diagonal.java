@@ -9,7 +9,7 @@ import zana.java.geometry.Dn;
  * coordinate.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-02
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -19,6 +19,9 @@ public final class Diagonal extends Function  {
 
   private final Function[] _coordinateTransforms;
 
+  final Function transform (final int i) {
+    return _coordinateTransforms[i]; }
+
   //--------------------------------------------------------------
   // methods
   //--------------------------------------------------------------
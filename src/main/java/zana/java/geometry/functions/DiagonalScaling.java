@@ -9,7 +9,7 @@ import zana.java.geometry.Dn;
  * Only handles domain == codomain for now.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-02
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -19,6 +19,8 @@ public final class DiagonalScaling extends Function  {
 
   private final double[] _diagonal;
 
+  final double coordinate (final int i) { return _diagonal[i]; }
+
   //--------------------------------------------------------------
   // methods
   //--------------------------------------------------------------
@@ -6,7 +6,7 @@ import zana.java.geometry.Dn;
 /** Constant double.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-02-27
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -27,6 +27,9 @@ public final class DoubleConstantFunction extends Function  {
   @Override
   public final double doubleValue (final double x) { 
     return _a; }
+
+  @Override
+  public final double slopeAt (final double x) { return 0.0; }
   
   //--------------------------------------------------------------
   // construction
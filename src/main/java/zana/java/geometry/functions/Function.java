@@ -12,7 +12,7 @@ import clojure.lang.ISeq;
 /** Base class for functions from and to geometric spaces.
  *
  * @author wahpenayo at gmail dot com
- * @version 2018-04-17
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -441,6 +441,32 @@ implements IFn, IFn.DD, IFn.OD, Serializable {
     throw new UnsupportedOperationException(
       getClass().getName()); }
 
+  //--------------------------------------------------------------
+  /** For a real-valued function on <b>R</b><sup>n</sup>, return
+   * the value at <code>p</code>, and write the gradient (the
+   * {@link LinearFunctional#dual() dual} of the
+   * {@link #derivativeAt(Object) derivative}) into 
+   * <code>gradOut</code>.
+   * <p>
+   * Functions whose value and derivative both need a pass over
+   * the same data should override this to make one pass. The
+   * value must be the same as {@link #doubleValue(Object)}'s.
+   * <br>This default just calls both.
+   * @throws UnsupportedOperationException if the derivative
+   * isn't a {@link LinearFunctional}.
+   */
+  public double valueAndGradient (final double[] p,
+                                  final double[] gradOut) {
+    final Function d = derivativeAt(p);
+    if (! (d instanceof LinearFunctional)) {
+      throw new UnsupportedOperationException(
+        getClass().getName() + ".valueAndGradient: derivative is a " 
+        + d.getClass().getName()); }
+    final double[] g = ((LinearFunctional) d).dual();
+    assert gradOut.length == g.length;
+    System.arraycopy(g,0,gradOut,0,g.length);
+    return doubleValue(p); }
+
   //--------------------------------------------------------------
   // IFn interfaces
   //--------------------------------------------------------------
@@ -0,0 +1,524 @@
+package zana.java.geometry.functions;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import zana.java.geometry.Dn;
+import zana.java.math.Compensated;
+
+//----------------------------------------------------------------
+/** A {@link Composition} or {@link Composition2} tree, compiled
+ * into a single evaluator: a chain of stages, innermost first,
+ * that pass <code>double[]</code> intermediates through
+ * preallocated buffers, rather than allocating and boxing them at
+ * each term, and a reverse pass for the gradient, rather than a
+ * new composition of derivative objects per call.
+ * <p>
+ * Known terms get specialized stages: {@link LinearRows},
+ * {@link LinearFunctional}, {@link AffineFunctional},
+ * {@link L2Norm2}, {@link Sum}, and the real-valued
+ * functionals, like {@link L2Distance2From}, through their
+ * {@link Function#valueAndGradient(double[],double[])}.
+ * Adjacent coordinate-wise terms, {@link DiagonalScaling},
+ * {@link Diagonal}, {@link UniDiagonal}, and scalar functions
+ * like {@link Scaling}, {@link Square}, {@link Huber}, and
+ * {@link HuberQR}, are fused into one loop.
+ * Other terms on <b>R</b><sup>n</sup> fall back to their own
+ * <code>value</code> and <code>derivativeAt</code>.
+ * <p>
+ * Values are the same, bit for bit, as the uncompiled
+ * composition's. {@link #doubleValue(Object)},
+ * {@link #value(double[],double[])} and
+ * {@link #valueAndGradient(double[],double[])} don't allocate,
+ * once a thread has its buffers.
+ * <p>
+ * Thread safe: each thread gets its own buffers.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+@SuppressWarnings("unchecked")
+public final class FusedComposition extends Function {
+
+  private static final long serialVersionUID = 0L;
+
+  //--------------------------------------------------------------
+  // stages
+  //--------------------------------------------------------------
+  /** One step of the chain, from <b>R</b><sup>in</sup> to
+   * <b>R</b><sup>out</sup>.
+   */
+  private abstract static class Stage implements Serializable {
+    private static final long serialVersionUID = 0L;
+    final int _in;
+    final int _out;
+    /** Write the value at <code>x</code> into <code>y</code>. */
+    abstract void forward (double[] x, double[] y);
+    /** Write <code>J<sup>T</sup>gy</code> into
+     * <code>gx</code>, where <code>J</code> is the Jacobian at
+     * <code>x</code>, and <code>y</code> the value there.
+     * <code>work</code> has room for {@link #work()} doubles.
+     */
+    abstract void backward (double[] x,
+                            double[] y,
+                            double[] gy,
+                            double[] gx,
+                            double[] work);
+    int work () { return 0; }
+    Stage (final int in, final int out) { _in = in; _out = out; } }
+
+  //--------------------------------------------------------------
+
+  private static final class Rows extends Stage {
+    private static final long serialVersionUID = 0L;
+    private final LinearRows _f;
+    @Override
+    final void forward (final double[] x, final double[] y) {
+      _f.value(x,y); }
+    @Override
+    final void backward (final double[] x,
+                         final double[] y,
+                         final double[] gy,
+                         final double[] gx,
+                         final double[] work) {
+      _f.transposeTimes(gy,gx); }
+    Rows (final LinearRows f, final int in, final int out) {
+      super(in,out); _f = f; } }
+
+  //--------------------------------------------------------------
+  /** A real-valued function of one coordinate. */
+  private abstract static class Op implements Serializable {
+    private static final long serialVersionUID = 0L;
+    abstract double apply (int i, double x);
+    abstract double slope (int i, double x); }
+
+  private static final class ScalarOp extends Op {
+    private static final long serialVersionUID = 0L;
+    private final Function _f;
+    @Override
+    final double apply (final int i, final double x) {
+      return _f.doubleValue(x); }
+    @Override
+    final double slope (final int i, final double x) {
+      return _f.slopeAt(x); }
+    ScalarOp (final Function f) { _f = f; } }
+
+  private static final class DiagonalOp extends Op {
+    private static final long serialVersionUID = 0L;
+    private final Diagonal _f;
+    @Override
+    final double apply (final int i, final double x) {
+      return _f.transform(i).doubleValue(x); }
+    @Override
+    final double slope (final int i, final double x) {
+      return _f.transform(i).slopeAt(x); }
+    DiagonalOp (final Diagonal f) { _f = f; } }
+
+  private static final class ScaleOp extends Op {
+    private static final long serialVersionUID = 0L;
+    private final DiagonalScaling _f;
+    @Override
+    final double apply (final int i, final double x) {
+      return _f.coordinate(i)*x; }
+    @Override
+    final double slope (final int i, final double x) {
+      return _f.coordinate(i); }
+    ScaleOp (final DiagonalScaling f) { _f = f; } }
+
+  /** Coordinate-wise terms, fused into one loop. */
+  private static final class Elementwise extends Stage {
+    private static final long serialVersionUID = 0L;
+    private final Op[] _ops;
+    @Override
+    final void forward (final double[] x, final double[] y) {
+      for (int i=0;i<_in;i++) {
+        double v = x[i];
+        for (final Op op : _ops) { v = op.apply(i,v); }
+        y[i] = v; } }
+    // same products, in the same order, as unfused terms
+    @Override
+    final void backward (final double[] x,
+                         final double[] y,
+                         final double[] gy,
+                         final double[] gx,
+                         final double[] work) {
+      final int k = _ops.length;
+      for (int i=0;i<_in;i++) {
+        double v = x[i];
+        for (int j=0;j<k;j++) {
+          work[j] = _ops[j].slope(i,v);
+          v = _ops[j].apply(i,v); }
+        double g = gy[i];
+        for (int j=k-1;j>=0;j--) { g = work[j]*g; }
+        gx[i] = g; } }
+    @Override
+    final int work () { return _ops.length; }
+    final Elementwise fuse (final Elementwise that) {
+      final Op[] ops = Arrays.copyOf(_ops,_ops.length+that._ops.length);
+      System.arraycopy(that._ops,0,ops,_ops.length,that._ops.length);
+      return new Elementwise(ops,_in); }
+    Elementwise (final Op[] ops, final int n) {
+      super(n,n); _ops = ops; } }
+
+  //--------------------------------------------------------------
+  /** A functional with a constant gradient. */
+  private static final class Dual extends Stage {
+    private static final long serialVersionUID = 0L;
+    private final Function _f;
+    private final double[] _dual;
+    @Override
+    final void forward (final double[] x, final double[] y) {
+      y[0] = _f.doubleValue(x); }
+    @Override
+    final void backward (final double[] x,
+                         final double[] y,
+                         final double[] gy,
+                         final double[] gx,
+                         final double[] work) {
+      final double g = gy[0];
+      for (int i=0;i<_in;i++) { gx[i] = g*_dual[i]; } }
+    Dual (final Function f, final double[] dual) {
+      super(dual.length,1); _f = f; _dual = dual; } }
+
+  private static final class SumOfSquares extends Stage {
+    private static final long serialVersionUID = 0L;
+    @Override
+    final void forward (final double[] x, final double[] y) {
+      y[0] = Compensated.sumOfSquares(x); }
+    @Override
+    final void backward (final double[] x,
+                         final double[] y,
+                         final double[] gy,
+                         final double[] gx,
+                         final double[] work) {
+      final double g = gy[0];
+      for (int i=0;i<_in;i++) { gx[i] = g*(2.0*x[i]); } }
+    SumOfSquares (final int n) { super(n,1); } }
+
+  private static final class Total extends Stage {
+    private static final long serialVersionUID = 0L;
+    @Override
+    final void forward (final double[] x, final double[] y) {
+      y[0] = Compensated.sum(x); }
+    @Override
+    final void backward (final double[] x,
+                         final double[] y,
+                         final double[] gy,
+                         final double[] gx,
+                         final double[] work) {
+      Arrays.fill(gx,gy[0]); }
+    Total (final int n) { super(n,1); } }
+
+  /** Other real-valued functions on <b>R</b><sup>n</sup>. */
+  private static final class Functional extends Stage {
+    private static final long serialVersionUID = 0L;
+    private final Function _f;
+    @Override
+    final void forward (final double[] x, final double[] y) {
+      y[0] = _f.doubleValue(x); }
+    @Override
+    final void backward (final double[] x,
+                         final double[] y,
+                         final double[] gy,
+                         final double[] gx,
+                         final double[] work) {
+      _f.valueAndGradient(x,gx);
+      final double g = gy[0];
+      if (1.0 != g) {
+        for (int i=0;i<_in;i++) { gx[i] = g*gx[i]; } } }
+    Functional (final Function f, final int n) {
+      super(n,1); _f = f; } }
+
+  //--------------------------------------------------------------
+  /** Unknown vector-valued terms: their own value and
+   * derivative, allocating.
+   */
+  private static final class Generic extends Stage {
+    private static final long serialVersionUID = 0L;
+    private final Function _f;
+    @Override
+    final void forward (final double[] x, final double[] y) {
+      System.arraycopy(_f.value(x),0,y,0,_out); }
+    @Override
+    final void backward (final double[] x,
+                         final double[] y,
+                         final double[] gy,
+                         final double[] gx,
+                         final double[] work) {
+      final Function d = _f.derivativeAt(x);
+      if (d instanceof LinearRows) {
+        ((LinearRows) d).transposeTimes(gy,gx);
+        return; }
+      // columns of the Jacobian
+      final double[] e = new double[_in];
+      for (int j=0;j<_in;j++) {
+        e[j] = 1.0;
+        gx[j] = zana.java.arrays.Arrays.dot(gy,(double[]) d.value(e));
+        e[j] = 0.0; } }
+    Generic (final Function f, final int in, final int out) {
+      super(in,out); _f = f; } }
+
+  //--------------------------------------------------------------
+  // compilation
+  //--------------------------------------------------------------
+
+  private static final int dimension (final Object space) {
+    return (space instanceof Dn) ? ((Dn) space).dimension() : -1; }
+
+  /** Append the terms of <code>f</code>, innermost first. */
+  private static final void flatten (final Function f,
+                                     final List<Function> terms) {
+    if (f instanceof Composition) {
+      final List t = ((Composition) f).terms();
+      for (int i=t.size()-1;i>=0;i--) {
+        flatten((Function) t.get(i),terms); } }
+    else if (f instanceof Composition2) {
+      flatten(((Composition2) f).inner(),terms);
+      flatten(((Composition2) f).outer(),terms); }
+    else if (f instanceof FusedComposition) {
+      flatten(((FusedComposition) f)._source,terms); }
+    else {
+      terms.add(f); } }
+
+  private static final boolean isScalar (final Function f) {
+    return
+      (f instanceof Scaling)
+      || (f instanceof Square)
+      || (f instanceof Huber)
+      || (f instanceof HuberQR)
+      || (f instanceof DoubleConstantFunction); }
+
+  /** @return <code>null</code> if <code>f</code> isn't a map
+   * between <b>R</b><sup>n</sup> spaces.
+   */
+  private static final Stage stage (final Function f) {
+    final int in = dimension(f.domain());
+    final int out = dimension(f.codomain());
+    if ((in < 0) || (out < 0)) { return null; }
+    if (f instanceof LinearRows) {
+      return new Rows((LinearRows) f,in,out); }
+    if (isScalar(f)) {
+      return new Elementwise(new Op[] { new ScalarOp(f) },1); }
+    if (f instanceof UniDiagonal) {
+      final Function t = ((UniDiagonal) f).transform();
+      if (! isScalar(t)) { return new Generic(f,in,out); }
+      return new Elementwise(new Op[] { new ScalarOp(t) },in); }
+    if (f instanceof Diagonal) {
+      for (int i=0;i<in;i++) {
+        if (! isScalar(((Diagonal) f).transform(i))) {
+          return new Generic(f,in,out); } }
+      return new Elementwise(new Op[] { new DiagonalOp((Diagonal) f) },in); }
+    if (f instanceof DiagonalScaling) {
+      return new Elementwise(
+        new Op[] { new ScaleOp((DiagonalScaling) f) },in); }
+    if (1 != out) { return new Generic(f,in,out); }
+    if (f instanceof LinearFunctional) {
+      return new Dual(f,((LinearFunctional) f).dual()); }
+    if (f instanceof AffineFunctional) {
+      return new Dual(f,((AffineFunctional) f).linearPart().dual()); }
+    if (f instanceof L2Norm2) { return new SumOfSquares(in); }
+    if (f instanceof Sum) { return new Total(in); }
+    return new Functional(f,in); }
+
+  /** @return a fused evaluator for <code>f</code>, if it is a
+   * composition of maps between <b>R</b><sup>n</sup> spaces,
+   * otherwise <code>f</code> itself.
+   */
+  public static final Function compile (final Function f) {
+    final List<Function> terms = new ArrayList<Function>();
+    flatten(f,terms);
+    if (terms.size() < 2) { return f; }
+    final List<Stage> stages = new ArrayList<Stage>();
+    for (final Function t : terms) {
+      final Stage s = stage(t);
+      if (null == s) { return f; }
+      final int k = stages.size();
+      if (0 < k) {
+        final Stage previous = stages.get(k-1);
+        if (previous._out != s._in) { return f; }
+        if ((previous instanceof Elementwise)
+          && (s instanceof Elementwise)) {
+          stages.set(k-1,((Elementwise) previous).fuse((Elementwise) s));
+          continue; } }
+      stages.add(s); }
+    return new FusedComposition(
+      (f instanceof FusedComposition) ? ((FusedComposition) f)._source : f,
+      stages.toArray(new Stage[stages.size()])); }
+
+  //--------------------------------------------------------------
+  // fields
+  //--------------------------------------------------------------
+
+  private final Function _source;
+  private final Stage[] _stages;
+
+  /** One thread's buffers. */
+  private static final class Scratch {
+    /** <code>values[k]</code> is the output of stage
+     * <code>k-1</code>; <code>values[0]</code> is unused, the
+     * input is read in place.
+     */
+    final double[][] values;
+    /** <code>gradients[k]</code> is with respect to
+     * <code>values[k]</code>.
+     */
+    final double[][] gradients;
+    final double[] work;
+    final double[] scalar = new double[1];
+    Scratch (final Stage[] stages) {
+      final int k = stages.length;
+      values = new double[k+1][];
+      gradients = new double[k+1][];
+      int w = 0;
+      for (int i=0;i<k;i++) {
+        values[i+1] = new double[stages[i]._out];
+        gradients[i+1] = new double[stages[i]._out];
+        w = Math.max(w,stages[i].work()); }
+      work = new double[w]; } }
+
+  private transient volatile ThreadLocal<Scratch> _scratch;
+
+  private final Scratch scratch () {
+    ThreadLocal<Scratch> tl = _scratch;
+    if (null == tl) {
+      tl = new ThreadLocal<Scratch>();
+      _scratch = tl; }
+    Scratch s = tl.get();
+    if (null == s) {
+      s = new Scratch(_stages);
+      tl.set(s); }
+    return s; }
+
+  private final int inputDimension () { return _stages[0]._in; }
+  private final int outputDimension () {
+    return _stages[_stages.length-1]._out; }
+
+  //--------------------------------------------------------------
+  // evaluation
+  //--------------------------------------------------------------
+
+  /** @return the last stage's output buffer. */
+  private final double[] forward (final double[] x,
+                                  final Scratch s) {
+    assert inputDimension() == x.length;
+    double[] in = x;
+    for (int k=0;k<_stages.length;k++) {
+      final double[] out = s.values[k+1];
+      _stages[k].forward(in,out);
+      in = out; }
+    return in; }
+
+  /** Write <code>J<sup>T</sup>gy</code> into <code>gx</code>,
+   * after {@link #forward(double[],Scratch)} at <code>x</code>.
+   */
+  private final void backward (final double[] x,
+                               final double[] gy,
+                               final double[] gx,
+                               final Scratch s) {
+    double[] g = gy;
+    for (int k=_stages.length-1;k>=0;k--) {
+      final double[] out = (0 == k) ? gx : s.gradients[k];
+      _stages[k].backward(
+        (0 == k) ? x : s.values[k],s.values[k+1],g,out,s.work);
+      g = out; } }
+
+  /** Write the value at <code>x</code> into <code>y</code>,
+   * without allocating.
+   */
+  public final void value (final double[] x, final double[] y) {
+    final double[] v = forward(x,scratch());
+    assert y.length == v.length;
+    System.arraycopy(v,0,y,0,v.length); }
+
+  @Override
+  public final Object value (final Object x) {
+    return forward((double[]) x,scratch()).clone(); }
+
+  @Override
+  public final Object value (final double x) {
+    final Scratch s = scratch();
+    s.scalar[0] = x;
+    return forward(s.scalar,s).clone(); }
+
+  @Override
+  public final double doubleValue (final Object x) {
+    return forward((double[]) x,scratch())[0]; }
+
+  @Override
+  public final double doubleValue (final double x) {
+    final Scratch s = scratch();
+    s.scalar[0] = x;
+    return forward(s.scalar,s)[0]; }
+
+  @Override
+  public final double valueAndGradient (final double[] p,
+                                        final double[] gradOut) {
+    if (1 != outputDimension()) {
+      throw new UnsupportedOperationException(
+        "valueAndGradient: not real-valued: " + codomain()); }
+    assert inputDimension() == gradOut.length;
+    final Scratch s = scratch();
+    final double y = forward(p,s)[0];
+    final double[] gy = s.gradients[_stages.length];
+    gy[0] = 1.0;
+    backward(p,gy,gradOut,s);
+    return y; }
+
+  /** A {@link LinearFunctional} for real-valued compositions,
+   * otherwise the Jacobian, as {@link LinearRows}.
+   */
+  @Override
+  public final Function derivativeAt (final Object x) {
+    final double[] p = (double[]) x;
+    final int n = inputDimension();
+    final int m = outputDimension();
+    if (1 == m) {
+      final double[] g = new double[n];
+      valueAndGradient(p,g);
+      return LinearFunctional.make(g); }
+    final Scratch s = scratch();
+    forward(p,s);
+    final double[][] rows = new double[m][n];
+    final double[] gy = s.gradients[_stages.length];
+    for (int i=0;i<m;i++) {
+      Arrays.fill(gy,0.0);
+      gy[i] = 1.0;
+      backward(p,gy,rows[i],s); }
+    return LinearRows.make(rows); }
+
+  //--------------------------------------------------------------
+  // Object interface
+  //--------------------------------------------------------------
+
+  @Override
+  public final int hashCode () {
+    return 31*_source.hashCode(); }
+
+  @Override
+  public final boolean equals (final Object o) {
+    return
+      (o instanceof FusedComposition)
+      &&
+      _source.equals(((FusedComposition) o)._source); }
+
+  @Override
+  public final String toString () {
+    return getClass().getSimpleName() + "[" + _source + "]"; }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  private FusedComposition (final Function source,
+                            final Stage[] stages) {
+    super(source.domain(),source.codomain());
+    _source = source;
+    _stages = stages; }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -13,7 +13,7 @@ import zana.java.geometry.Dn;
  * TODO: factor out differentiable rho.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-06
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -80,6 +80,22 @@ public final class HuberDistanceFrom extends Function {
       dx[i] = -drho(_target[i] - xx[i]); } 
     return LinearFunctional.make(dx); }
 
+  /** One pass, with the same value as {@link #doubleValue} and
+   * gradient as {@link #derivativeAt}.
+   */
+  @Override
+  public final double valueAndGradient (final double[] x,
+                                        final double[] gradOut) {
+    final int n = _target.length;
+    assert n == x.length;
+    assert n == gradOut.length;
+    double s = 0.0;
+    for (int i=0;i<n;i++) {
+      final double dy = _target[i] - x[i];
+      gradOut[i] = -drho(dy);
+      s += rho(dy); } 
+    return s; }
+
   //--------------------------------------------------------------
   // Object methods
   //--------------------------------------------------------------
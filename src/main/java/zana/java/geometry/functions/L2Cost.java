@@ -6,6 +6,7 @@ import com.google.common.collect.ImmutableList;
 
 import clojure.lang.IFn;
 import zana.java.geometry.Dn;
+import zana.java.math.Superaccumulator;
 
 //----------------------------------------------------------------
 /** A real-valued function on a space of prediction functions, 
@@ -29,10 +30,18 @@ import zana.java.geometry.Dn;
  * reducing and mapping functions, and the derivative computed
  * using the chain rule.
  * 
+ * Sums are Kahan compensated, in the calling thread, by default.
+ * Made with a number of <code>threads</code> greater than 1, the
+ * sums are exact, and long data lists are summed in parallel, on
+ * up to that many fork/join threads, in fixed partitions, so the
+ * results are the same, bit for bit, for any number of threads
+ * greater than 1. The ground truth and the model functions must
+ * then be safe to call from several threads.
+ * 
  * TODO: should this be in taiga instead?
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-02
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -44,29 +53,49 @@ public final class L2Cost extends Function {
   // fields
   //--------------------------------------------------------------
 
-  private final List _data;
+  /** Random access, for the parallel partitions. */
+  private final ImmutableList _data;
 
   private final IFn.OD _groundTruth;
 
+  /** Maximum number of threads for the sums over the data. */
+  private final int _threads;
+  public final int threads () { return _threads; }
+
   //--------------------------------------------------------------
   // methods
   //--------------------------------------------------------------
-  // TODO: replace Kahan sum with fully accurate?
+  // Serial Kahan sums over the data, in order, or, on more than 
+  // one thread, exact sums, correctly rounded, so the cost doesn't 
+  // depend on how the data is split among threads. See DataSums.
 
   @Override
   public final double doubleValue (final Object f) { 
     final Function ff = (Function) f;
-    double s = 0.0;
-    double c = 0.0;
-    for (final Object xi : _data) {
-      // TODO: precompute y_i?
-      final double yi = _groundTruth.invokePrim(xi);
-      final double ei = ff.doubleValue(xi) - yi;
-      final double zi =  ei*ei - c;
-      final double t = s + zi;
-      c = (t - s) - zi;
-      s = t; } 
-    return s; }
+    if (1 == _threads) {
+      double s = 0.0;
+      double c = 0.0;
+      for (final Object xi : _data) {
+        // TODO: precompute y_i?
+        final double yi = _groundTruth.invokePrim(xi);
+        final double ei = ff.doubleValue(xi) - yi;
+        final double zi =  ei*ei - c;
+        final double t = s + zi;
+        c = (t - s) - zi;
+        s = t; } 
+      return s; }
+    return DataSums.sum(_threads,_data.size(),new DataSums.Body() {
+      @Override
+      public final void apply (final int start,
+                               final int end,
+                               final Superaccumulator[] sums) {
+        final Superaccumulator s = sums[0];
+        for (int i=start;i<end;i++) {
+          final Object xi = _data.get(i);
+          // TODO: precompute y_i?
+          final double yi = _groundTruth.invokePrim(xi);
+          final double ei = ff.doubleValue(xi) - yi;
+          s.addProduct(ei,ei); } } }); }
 
   //--------------------------------------------------------------
 
@@ -76,21 +105,31 @@ public final class L2Cost extends Function {
     @Override
     public final double doubleValue (final Object f) { 
       final Function ff = (Function) f;
-      double s = 0.0;
-      double c = 0.0;
-      for (final Object xi : _data) {
-        final double yi = _groundTruth.invokePrim(xi);
-        // TODO: fused multiply add for more accuracy?
-        // TODO: precompute y_i, f0(x_i), ...
-        final double zi = 
-          (2 
-            * (_f0.doubleValue(xi) - yi) 
-            * ff.doubleValue(xi))
-          - c;
-        final double t = s + zi;
-        c = (t - s) - zi;
-        s = t; } 
-      return s; }
+      if (1 == _threads) {
+        double s = 0.0;
+        double c = 0.0;
+        for (final Object xi : _data) {
+          final double yi = _groundTruth.invokePrim(xi);
+          // TODO: precompute y_i, f0(x_i), ...
+          final double zi = 
+            (2 * (_f0.doubleValue(xi) - yi) * ff.doubleValue(xi)) - c;
+          final double t = s + zi;
+          c = (t - s) - zi;
+          s = t; } 
+        return s; }
+      return DataSums.sum(_threads,_data.size(),new DataSums.Body() {
+        @Override
+        public final void apply (final int start,
+                                 final int end,
+                                 final Superaccumulator[] sums) {
+          final Superaccumulator s = sums[0];
+          for (int i=start;i<end;i++) {
+            final Object xi = _data.get(i);
+            final double yi = _groundTruth.invokePrim(xi);
+            // TODO: precompute y_i, f0(x_i), ...
+            s.addProduct(
+              2 * (_f0.doubleValue(xi) - yi),
+              ff.doubleValue(xi)); } } }); }
 
     private DerivativeAt (final Function f) {
       super(
@@ -103,6 +142,67 @@ public final class L2Cost extends Function {
   public final Function derivativeAt (final Object f) { 
     return new DerivativeAt((Function) f); }
 
+  //--------------------------------------------------------------
+  /** The value and gradient, at <code>p</code>, of this cost
+   * composed with <code>parameterization</code>, a
+   * {@link LinearDual} or {@link AffineDual}, in one pass over 
+   * the data, which must be <code>double[]</code> vectors.
+   * Same sums as {@link #doubleValue(Object)} and 
+   * {@link #derivativeAt(Object)}, so the same results.
+   */
+  public final double valueAndGradient (final Function parameterization,
+                                        final double[] p,
+                                        final double[] gradOut) {
+    final boolean affine = (parameterization instanceof AffineDual);
+    assert affine || (parameterization instanceof LinearDual);
+    final Function f = (Function) parameterization.value(p);
+    final int n = gradOut.length;
+    final int m = affine ? n-1 : n;
+    // gradient coordinates, then the value
+    if (1 == _threads) {
+      final double[] s = new double[n+1];
+      final double[] c = new double[n+1];
+      for (final Object xi : _data) {
+        final double yi = _groundTruth.invokePrim(xi);
+        final double ei = f.doubleValue(xi) - yi;
+        DataSums.add(s,c,n,ei*ei);
+        final double di = 2 * ei;
+        final double[] x = (double[]) xi;
+        assert m == x.length;
+        for (int j=0;j<m;j++) { DataSums.add(s,c,j,di*x[j]); }
+        if (affine) { DataSums.add(s,c,m,di); } }
+      System.arraycopy(s,0,gradOut,0,n);
+      return s[n]; }
+    final Superaccumulator[] g = DataSums.sums(
+      _threads,_data.size(),n+1,new DataSums.Body() {
+        @Override
+        public final void apply (final int start,
+                                 final int end,
+                                 final Superaccumulator[] sums) {
+          final Superaccumulator s = sums[n];
+          for (int i=start;i<end;i++) {
+            final Object xi = _data.get(i);
+            final double yi = _groundTruth.invokePrim(xi);
+            final double ei = f.doubleValue(xi) - yi;
+            s.addProduct(ei,ei);
+            final double di = 2 * ei;
+            final double[] x = (double[]) xi;
+            assert m == x.length;
+            for (int j=0;j<m;j++) { sums[j].addProduct(di,x[j]); }
+            if (affine) { sums[m].add(di); } } } });
+    for (int j=0;j<n;j++) { gradOut[j] = g[j].doubleValue(); }
+    return g[n].doubleValue(); }
+
+  /** This cost composed with <code>parameterization</code>, a
+   * {@link LinearDual} or {@link AffineDual}, with the ground 
+   * truth and the embedded data, which must be 
+   * <code>double[]</code> vectors, computed once, for repeated 
+   * evaluation by an optimizer. 
+   */
+  public final DesignCost design (final Function parameterization) {
+    return DesignCost.make(
+      null,_groundTruth,_data,parameterization,_threads); }
+
   //--------------------------------------------------------------
   // Object methods
   //--------------------------------------------------------------
@@ -139,16 +239,30 @@ public final class L2Cost extends Function {
   //--------------------------------------------------------------
 
   private L2Cost (final IFn.OD groundTruth,
-                  final List data) {
+                  final ImmutableList data,
+                  final int threads) {
     super(Function.class,Dn.get(1)); 
     _groundTruth = groundTruth; 
-    _data = data; }
+    _data = data; 
+    _threads = threads; }
 
+  /** Sums over the data in the calling thread. */
   public static final L2Cost make (final IFn.OD groundTruth,
                                    final List data) {
+    return make(groundTruth,data,1); }
+
+  /** Sums over long data on up to <code>threads</code> threads.
+   */
+  public static final L2Cost make (final IFn.OD groundTruth,
+                                   final List data,
+                                   final int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException(
+        "threads not positive: " + threads); }
     return new L2Cost(
       groundTruth,
-      ImmutableList.copyOf(data)); }
+      ImmutableList.copyOf(data),
+      threads); }
 
   //--------------------------------------------------------------
 } // end class
@@ -11,7 +11,7 @@ import zana.java.geometry.Dn;
  *  {@link zana.java.geometry.Dn}.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-06
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -37,6 +37,8 @@ public final class L2Distance2From extends Function {
       this.toString() + "\n" + xx;
     final int n = _target.length;
     assert n == xx.length;
+    // Not zana.java.math.Compensated: the optimization regression
+    // tests depend on this exact rounding.
     double s = 0.0;
     double c = 0.0;
     for (int i=0;i<n;i++) {
@@ -59,6 +61,24 @@ public final class L2Distance2From extends Function {
     for (int i=0;i<n;i++) { dx[i] = 2.0*(xx[i] - _target[i]); } 
     return LinearFunctional.make(dx); }
 
+  /** One pass, with the same value as {@link #doubleValue}. */
+  @Override
+  public final double valueAndGradient (final double[] x,
+                                        final double[] gradOut) {
+    final int n = _target.length;
+    assert n == x.length;
+    assert n == gradOut.length;
+    double s = 0.0;
+    double c = 0.0;
+    for (int i=0;i<n;i++) {
+      final double di = _target[i] - x[i];
+      gradOut[i] = 2.0*(x[i] - _target[i]);
+      final double zi =  di*di - c;
+      final double t = s + zi;
+      c = (t - s) - zi;
+      s = t; } 
+    return s; }
+
   //--------------------------------------------------------------
   // Object methods
   //--------------------------------------------------------------
@@ -6,12 +6,13 @@ import java.util.Map;
 import org.apache.commons.math3.util.MathArrays;
 
 import zana.java.geometry.Dn;
+import zana.java.math.Compensated;
 
 //----------------------------------------------------------------
 /** Squared l2 norm on {@link zana.java.geometry.Dn}.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-02
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -22,21 +23,14 @@ public final class L2Norm2 extends Function {
   //--------------------------------------------------------------
   // methods
   //--------------------------------------------------------------
-  // TODO: replace Kahan sum with fully accurate?
+  // TODO: replace compensated sum with fully accurate?
 
   @Override
   public final double doubleValue (final Object x) { 
     final double[] xx = (double[]) x;
     assert ((Dn) domain()).dimension() == xx.length :
       this.toString() + "\n" + xx;
-    double s = 0.0;
-    double c = 0.0;
-    for (final double xi : xx) {
-      final double zi =  xi*xi - c;
-      final double t = s + zi;
-      c = (t - s) - zi;
-      s = t; } 
-    return s; }
+    return Compensated.sumOfSquares(xx); }
 
   @Override
   public final Function derivativeAt (final Object x) { 
@@ -1,13 +1,14 @@
 package zana.java.geometry.functions;
 
 import zana.java.geometry.Dn;
+import zana.java.geometry.Matrix;
 
 //----------------------------------------------------------------
 /** Map <code>double[n]</code> to corresponding linear 
  * functional on the n-dimensional domain.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-14
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -33,6 +34,18 @@ public final class LinearDual extends Function {
       this.toString() + "\n" + xx;
     return this; }
 
+  /** Evaluate the linear functional with dual vector 
+   * <code>p</code> at each row of <code>x</code>, writing the 
+   * values into <code>out</code>: <code>out = xp</code>.
+   * Same values, bit for bit, as 
+   * <code>value(p).doubleValue(x<sub>i</sub>)</code>.
+   */
+  public final void values (final double[] p,
+                            final Matrix x,
+                            final double[] out) {
+    assert ((Dn) domain()).dimension() == p.length;
+    x.times(p,out); }
+
   //--------------------------------------------------------------
   // Object interface
   //--------------------------------------------------------------
@@ -59,7 +72,7 @@ public final class LinearDual extends Function {
   //--------------------------------------------------------------
 
   private LinearDual (final Dn domain) {
-     super(domain,Dn.get(1)); }
+     super(domain,Function.class); }
 
   public static final LinearDual make (final Dn domain) {
      return new LinearDual(domain);}
@@ -9,7 +9,7 @@ import zana.java.geometry.Dn;
 /** Linear functionals (dual vectors) on linear spaces.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-02
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -30,14 +30,9 @@ public final class LinearFunctional extends Function {
   //--------------------------------------------------------------
   
   public final LinearFunctional compose (final LinearRows lr) {
-    final int m = ((Dn) lr.codomain()).dimension();
     final int n = ((Dn) lr.domain()).dimension();
     final double[] d = new double[n];
-    for (int j=0;j<n;j++) {
-      double s = 0.0;
-      for (int i=0;i<m;i++) {
-        s = Math.fma(_dual[i],lr.coordinate(i,j),s); }
-      d[j] = s; }
+    lr.transposeTimes(_dual,d);
     return new LinearFunctional(d); }
   
   //--------------------------------------------------------------
@@ -5,13 +5,17 @@ import java.util.List;
 
 import clojure.lang.IFn;
 import zana.java.geometry.Dn;
+import zana.java.geometry.Matrix;
 
 //----------------------------------------------------------------
 /** General linear function represented by canonical dual vectors
- * (that is, matrix rows).
+ * (that is, matrix rows), stored contiguously, in row major
+ * {@link Matrix} blocks of up to {@link #BLOCK} rows, so the
+ * number of rows times columns isn't limited by the length of an
+ * array.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-06
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -24,10 +28,41 @@ public final class LinearRows extends Function {
   //--------------------------------------------------------------
   // TODO: list of linear functionals?
   
-  private final double[][] _rows;
-  
+  /** Rows per block, at most. */
+  public static final int BLOCK = 1 << 12;
+
+  /** Row major blocks of {@link #_blockRows} rows, the last one 
+   * possibly shorter.
+   */
+  private final Matrix[] _blocks;
+
+  /** A power of 2, {@link #BLOCK}, or fewer for very long rows. */
+  private final int _blockRows;
+  private final int _shift;
+
+  private final int rows () { 
+    return ((Dn) codomain()).dimension(); }
+
+  private final int columns () { 
+    return ((Dn) domain()).dimension(); }
+
   public final double coordinate (final int i, final int j) {
-    return _rows[i][j]; }
+    return _blocks[i >>> _shift].get(i & (_blockRows-1),j); }
+
+  /** A copy of the rows, in one {@link Matrix}, which throws an
+   * {@link IllegalArgumentException} if there are too many 
+   * elements.
+   */
+  public final Matrix matrix () { 
+    final int m = rows();
+    final int n = columns();
+    final Matrix a = Matrix.make(m,n,true);
+    final double[] aa = a.data();
+    for (int b=0;b<_blocks.length;b++) {
+      final double[] block = _blocks[b].data();
+      System.arraycopy(
+        block,0,aa,(b << _shift)*n,block.length); }
+    return a; }
 
   //--------------------------------------------------------------
   // Functional methods
@@ -36,25 +71,71 @@ public final class LinearRows extends Function {
   @Override
   public final double[] value (final Object x) {
     final double[] xx = (double[]) x;
-    final int n = xx.length;
-    assert ((Dn) domain()).dimension() == n :
+    assert ((Dn) domain()).dimension() == xx.length :
       domain().toString() + "\n" + Arrays.toString(xx);
-     final double[] y = new double[((Dn) codomain()).dimension()];
-     //System.out.println("x:" + Arrays.toString(xx));
-     //System.out.println("row[0]:" + Arrays.toString(_rows[0]));
-     
-    int i = 0;
-    for (final double[] row : _rows) {
-      assert n == row.length;
-      y[i] = zana.java.arrays.Arrays.dot(row,xx); 
-      i++; }
+    final double[] y = new double[rows()];
+    value(xx,y);
     return y; }
+
+  /** Write <code>Ax</code> into <code>y</code>. Same as
+   * {@link #value(Object)}, without allocating.
+   */
+  public final void value (final double[] x,
+                           final double[] y) {
+    if ((columns() != x.length) || (rows() != y.length)) {
+      throw new IllegalArgumentException(
+        "dims differ: " + columns() + ", " + x.length + "; "
+        + rows() + ", " + y.length); }
+    for (int b=0;b<_blocks.length;b++) {
+      _blocks[b].times(x,0,y,b << _shift); } }
+
+  /** Evaluate at each row of <code>x</code>, writing the values
+   * into the corresponding rows of <code>y</code>: 
+   * <code>y = xA<sup>T</sup></code>, in one blocked matrix
+   * product per block of rows. 
+   * Same values as {@link #value(Object)}, bit for bit.
+   */
+  public final void values (final Matrix x,
+                            final Matrix y) {
+    if (1 == _blocks.length) {
+      Matrix.multiply(x,_blocks[0].transpose(),y); 
+      return; }
+    if ((x.rows() != y.rows()) || (rows() != y.columns())) {
+      throw new IllegalArgumentException(
+        "dims differ: " + y + ", " + x.rows() + " * " + rows()); }
+    final int k = x.rows();
+    final Matrix yb = Matrix.make(k,_blockRows,true);
+    for (int b=0;b<_blocks.length;b++) {
+      final Matrix block = _blocks[b];
+      final int mb = block.rows();
+      final Matrix ybb = 
+        (mb == _blockRows) ? yb : Matrix.make(k,mb,true);
+      Matrix.multiply(x,block.transpose(),ybb);
+      final int j0 = b << _shift;
+      for (int r=0;r<k;r++) {
+        for (int j=0;j<mb;j++) { y.set(r,j0+j,ybb.get(r,j)); } } } }
   
   @Override
   public final Function derivativeAt (final Object x) {
     // a linear function is its own derivative, independent of x
     return this; }
 
+  /** Write <code>v<sup>T</sup>A</code> into <code>out</code>,
+   * where <code>A</code> has these rows: the dual of the
+   * composition of the linear functional <code>v</code> with
+   * this, as in {@link LinearFunctional#compose(LinearRows)}, 
+   * without allocating.
+   */
+  public final void transposeTimes (final double[] v,
+                                    final double[] out) {
+    if (rows() != v.length) {
+      throw new IllegalArgumentException(
+        "dims differ: " + rows() + ", " + v.length); }
+    Arrays.fill(out,0.0);
+    // continue each accumulation, block after block
+    for (int b=0;b<_blocks.length;b++) {
+      _blocks[b].transposeTimesAdd(v,b << _shift,out); } }
+
   //--------------------------------------------------------------
   // Object interface
   //--------------------------------------------------------------
@@ -62,26 +143,22 @@ public final class LinearRows extends Function {
   @Override
   public int hashCode () {
     int h = super.hashCode();
-    h += 31*Arrays.hashCode(_rows);
+    h += 31*Arrays.hashCode(_blocks);
     return h; }
 
   @Override
   public boolean equals (final Object o) {
     if (! super.equals(o)) { return false; }
     if (! (o instanceof LinearRows)) { return false; }
-    final LinearRows that = (LinearRows) o;
-    final int m = _rows.length;
-    if (m != that._rows.length) { return false; }
-    for (int i=0; i<m;i++) {
-      if (! Arrays.equals(_rows[i],that._rows[i])) {
-        return false; } }
-    return true; }
+    return Arrays.equals(_blocks,((LinearRows) o)._blocks); }
   
   @Override
   public String toString () { 
+    final double[] row0 = new double[columns()];
+    _blocks[0].row(0,row0);
     return getClass().getSimpleName() + 
-      "[" + _rows.length + "," + _rows[0].length + "]"
-  + "[" + Arrays.toString(_rows[0])
+      "[" + rows() + "," + columns() + "]"
+  + "[" + Arrays.toString(row0)
   //+ ", " + Arrays.toString(_rows[1]) 
   + "...]"; 
   }
@@ -105,13 +182,6 @@ public final class LinearRows extends Function {
     throw new IllegalArgumentException(
       "can't coerce " + row + " to a double[]."); }
 
-  private static final double[][] copy (final double[][] rows) {
-    final int m = rows.length;
-    final double[][] a = new double[m][];
-    for (int i=0;i<m;i++) {
-      a[i] = Arrays.copyOf(rows[i],rows[i].length); }
-    return a; }
-
   private static final double[][] doubleArray2d (final List rows) {
     final int m = rows.size();
     final double[][] a = new double[m][];
@@ -121,29 +191,87 @@ public final class LinearRows extends Function {
 
   //--------------------------------------------------------------
 
-  LinearRows (final double[][] rows) {
-    super(Dn.get(rows[0].length),Dn.get(rows.length));
-    _rows = rows;}
+  /** Rows per block, for rows of length <code>n</code>: the
+   * largest power of 2 up to {@link #BLOCK} whose blocks fit in
+   * an array.
+   */
+  private static final int blockRows (final int n) {
+    return Integer.highestOneBit(
+      Math.min(BLOCK,Integer.MAX_VALUE / Math.max(1,n))); }
+
+  /** Zeros, in the blocks of an <code>m</code> by <code>n</code>
+   * {@link LinearRows}. Row <code>i</code> starts at 
+   * {@link #offset(int,int) offset(i,n)} in the data of block
+   * {@link #block(int,int) block(i,n)}.
+   */
+  static final Matrix[] blocks (final int m,
+                                final int n) {
+    if ((m < 0) || (n < 0)) {
+      throw new IllegalArgumentException(
+        "negative dimension: " + m + ", " + n); }
+    final int mb = blockRows(n);
+    final Matrix[] blocks = new Matrix[Math.max(1,(m + mb - 1) / mb)];
+    for (int b=0;b<blocks.length;b++) {
+      blocks[b] = 
+        Matrix.make(Math.max(0,Math.min(mb,m - (b*mb))),n,true); }
+    return blocks; }
+
+  static final int block (final int i, final int n) {
+    return i / blockRows(n); }
+
+  static final int offset (final int i, final int n) {
+    return (i & (blockRows(n)-1)) * n; }
+
+  LinearRows (final Matrix[] blocks,
+              final int m,
+              final int n) {
+    super(Dn.get(n),Dn.get(m));
+    _blocks = blocks;
+    _blockRows = blockRows(n);
+    _shift = Integer.numberOfTrailingZeros(_blockRows); }
 
   public static final LinearRows make (final double[][] rows) {
-    return new LinearRows(copy(rows)); }
+    final int m = rows.length;
+    final int n = (0 == m) ? 0 : rows[0].length;
+    final Matrix[] blocks = blocks(m,n);
+    for (int i=0;i<m;i++) {
+      if (n != rows[i].length) {
+        throw new IllegalArgumentException(
+          "dims differ: " + n + ", " + rows[i].length); }
+      System.arraycopy(
+        rows[i],0,blocks[block(i,n)].data(),offset(i,n),n); }
+    return new LinearRows(blocks,m,n); }
+
+  /** Copies <code>rows</code>, in row major order. */
+  public static final LinearRows make (final Matrix rows) {
+    final int m = rows.rows();
+    final int n = rows.columns();
+    final Matrix[] blocks = blocks(m,n);
+    final double[] row = new double[n];
+    for (int i=0;i<m;i++) {
+      rows.row(i,row);
+      System.arraycopy(row,0,blocks[block(i,n)].data(),offset(i,n),n); }
+    return new LinearRows(blocks,m,n); }
 
   public static final LinearRows make (final Object rows) {
     if (rows instanceof double[][]) {
-      return new LinearRows(copy((double[][]) rows)); }
+      return make((double[][]) rows); }
+    if (rows instanceof Matrix) {
+      return make((Matrix) rows); }
     if (rows instanceof List) {
       return make(doubleArray2d((List) rows)); }
     throw new IllegalArgumentException(
-      "Not a double[][] or list of lists:" + rows); }
+      "Not a double[][], Matrix, or list of lists:" + rows); }
 
   public static final LinearRows generate (final int m,
                                            final int n,
                                            final IFn.D g) {
-    final double[][] rows = new double[m][n];
+    final Matrix[] blocks = blocks(m,n);
     for (int i=0;i<m;i++) { 
-      for (int j=0;j<n;j++) {
-        rows[i][j] = g.invokePrim(); } }
-    return new LinearRows(rows); }
+      final double[] block = blocks[block(i,n)].data();
+      final int k = offset(i,n);
+      for (int j=0;j<n;j++) { block[k+j] = g.invokePrim(); } }
+    return new LinearRows(blocks,m,n); }
 
   //--------------------------------------------------------------
  } // end class
@@ -6,6 +6,7 @@ import java.util.List;
 import com.google.common.collect.ImmutableList;
 
 import zana.java.geometry.Dn;
+import zana.java.geometry.Matrix;
 
 //----------------------------------------------------------------
 /** Map a functional (a real-valued function) valued function to 
@@ -20,7 +21,7 @@ import zana.java.geometry.Dn;
  * argument, so it is its own derivative.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-04
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -37,54 +38,57 @@ public final class Sample extends Function  {
    * (homogeneous coordinates for the dual vector) to affine 
    * functionals from <b>R</b><sup>n</sup> to <b>R</b>.
    * The composition maps <b>R</b><sup>n+1</sup> to 
-   * <b>R</b><sup>m</sup>
+   * <b>R</b><sup>m</sup>.
+   * The rows are copied once into contiguous blocks; evaluate 
+   * many parameter vectors at once with 
+   * {@link LinearRows#values(Matrix,Matrix)}.
    */
-  @SuppressWarnings("unused")
   public final LinearRows compose (final AffineDual ad) {
     final int m  = ((Dn) codomain()).dimension();
     final int np1 = ((Dn) ad.domain()).dimension();
-    final double[][] rows = new double[m][np1];
+    final Matrix[] blocks = LinearRows.blocks(m,np1);
     for (int i=0;i<m;i++) {
-      final double[] row = rows[i];
       // data must be vectors in R^n for this to work
       final double[] datum = (double[]) _data.get(i);
       final int n = datum.length;
-      assert np1 == n+1;
+      if (np1 != n+1) {
+        throw new IllegalArgumentException(
+          "datum " + i + " has dimension " + n + ", not " + (np1-1) +
+          "\n" + Arrays.toString(datum)); }
       // represent the composition as a linear function from 
       // <b>R</b><sup>n+1</sup> to <b>R</b><sup>m</sup>
       // using homogeneous coordinates for 'points' in 
       // <b>R</b><sup>n</sup>
-      try { 
-        System.arraycopy(datum,0,row,0,n); 
-        row[n] = 1.0; }
-      catch (final Throwable t) {
-        System.err.println(np1 + " " + n +
-          "\nrow:" + row.length + "\n" + 
-          Arrays.toString(row) + 
-          "\ndatum:" + datum.length + "\n" + 
-          Arrays.toString(datum)); 
-        throw t;
-      } }
-    return new LinearRows(rows); }
+      final double[] a = blocks[LinearRows.block(i,np1)].data();
+      final int k = LinearRows.offset(i,np1);
+      System.arraycopy(datum,0,a,k,n); 
+      a[k+n] = 1.0; }
+    return new LinearRows(blocks,m,np1); }
 
   /** {@link LinearDual} maps <b>R</b><sup>n</sup> 
    * (the dual vector) to linear functionals from 
    * <b>R</b><sup>n</sup> to <b>R</b>.
    * The composition maps <b>R</b><sup>n</sup> to 
-   * <b>R</b><sup>m</sup>
+   * <b>R</b><sup>m</sup>.
+   * The rows are copied once into contiguous blocks; evaluate 
+   * many parameter vectors at once with 
+   * {@link LinearRows#values(Matrix,Matrix)}.
    */
-  @SuppressWarnings("unused")
   public final LinearRows compose (final LinearDual ld) {
     final int m  = ((Dn) codomain()).dimension();
     final int n = ((Dn) ld.domain()).dimension();
-    final double[][] rows = new double[m][n];
+    final Matrix[] blocks = LinearRows.blocks(m,n);
     for (int i=0;i<m;i++) {
-      final double[] row = rows[i];
       // data must be vectors in R^n for this to work
       final double[] datum = (double[]) _data.get(i);
-      assert n == datum.length;
-      System.arraycopy(datum,0,row,0,n); }
-      return new LinearRows(rows); }
+      if (n != datum.length) {
+        throw new IllegalArgumentException(
+          "datum " + i + " has dimension " + datum.length + 
+          ", not " + n); }
+      System.arraycopy(
+        datum,0,blocks[LinearRows.block(i,n)].data(),
+        LinearRows.offset(i,n),n); }
+    return new LinearRows(blocks,m,n); }
 
   //--------------------------------------------------------------
   // Function methods
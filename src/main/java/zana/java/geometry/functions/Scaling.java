@@ -6,7 +6,7 @@ import zana.java.geometry.Dn;
 /** Multiply arg by a double.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-02-27
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -27,6 +27,9 @@ public final class Scaling extends Function  {
   @Override
   public final double doubleValue (final double x) { 
     return _a*x; }
+
+  @Override
+  public final double slopeAt (final double x) { return _a; }
   
   //--------------------------------------------------------------
   // construction
@@ -1,13 +1,13 @@
 package zana.java.geometry.functions;
 
 import zana.java.geometry.Dn;
-import zana.java.math.Statistics;
+import zana.java.math.Compensated;
 
 //----------------------------------------------------------------
 /** Sum the coordinates.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-02
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -22,7 +22,7 @@ public final class Sum extends Function  {
   
   @Override
   public final double doubleValue (final Object x) { 
-    return Statistics.kahanSum((double[]) x); }
+    return Compensated.sum((double[]) x); }
   
   @Override
   public final Function derivativeAt (final Object x) { 
@@ -6,7 +6,7 @@ import zana.java.geometry.Dn;
 /** Apply a scalar function to each coordinate.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-04-02
+ * @version 2026-10-18
  */
 
 @SuppressWarnings("unchecked")
@@ -15,6 +15,8 @@ public final class UniDiagonal extends Function  {
   private static final long serialVersionUID = 0L;
 
   private final Function _coordinateTransform;
+
+  final Function transform () { return _coordinateTransform; }
   
   //--------------------------------------------------------------
   // methods
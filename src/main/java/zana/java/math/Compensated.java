@@ -0,0 +1,334 @@
+package zana.java.math;
+
+//----------------------------------------------------------------
+/** Compensated sums, dot products, and sums of squares, for the
+ * hot reductions in {@link zana.java.prob.WEPDF},
+ * {@link zana.java.prob.WECDF}, the
+ * <code>zana.java.geometry.functions</code> norms, etc.
+ * <p>
+ * A Kahan loop carries both the sum and the correction from one
+ * element to the next, so each iteration waits on the last. These
+ * kernels keep 4 (2, for the heavier kernels) independent
+ * lanes, each accumulating with
+ * branch-free error-free transformations: Knuth's
+ * <em>TwoSum</em>, and, for products, <em>TwoProduct</em> via
+ * {@link Math#fma(double,double,double)}. The lanes are combined
+ * at the end with the same transformations. The result is as
+ * accurate as if computed in twice the working precision, then
+ * rounded (Ogita, Rump and Oishi's <em>Sum2</em> and
+ * <em>Dot2</em>), which is at least as good as Kahan summation,
+ * and good even where Kahan fails, as when large terms cancel.
+ * <p>
+ * <code>float</code> inputs are accumulated in
+ * <code>double</code>; their products are exact, so need no
+ * <code>fma</code>.
+ * <p>
+ * Results depend only on the values and their order, not on
+ * timing, but are generally not bitwise identical to
+ * {@link Statistics#kahanSum(double[])}.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class Compensated extends Object {
+
+  //--------------------------------------------------------------
+  // combining lanes
+  //--------------------------------------------------------------
+  /** TwoSum the 4 lane sums, and add all the errors. */
+  private static final double combine (final double s0,
+                                       final double s1,
+                                       final double s2,
+                                       final double s3,
+                                       final double c) {
+    final double a = s0 + s1;
+    final double ab = a - s0;
+    final double ea = (s0 - (a - ab)) + (s1 - ab);
+    final double b = s2 + s3;
+    final double bb = b - s2;
+    final double eb = (s2 - (b - bb)) + (s3 - bb);
+    final double s = a + b;
+    final double sb = s - a;
+    final double es = (a - (s - sb)) + (b - sb);
+    return s + (((c + ea) + eb) + es); }
+
+  //--------------------------------------------------------------
+  // sums
+  //--------------------------------------------------------------
+  /** Compensated sum of <code>x[start..end)</code>. */
+  public static final double sum (final double[] x,
+                                  final int start,
+                                  final int end) {
+    assert 0 <= start;
+    assert start <= end;
+    assert end <= x.length;
+    double s0 = 0.0; double s1 = 0.0;
+    double s2 = 0.0; double s3 = 0.0;
+    double c0 = 0.0; double c1 = 0.0;
+    double c2 = 0.0; double c3 = 0.0;
+    int i = start;
+    for (;i+3<end;i+=4) {
+      final double x0 = x[i];
+      final double x1 = x[i+1];
+      final double x2 = x[i+2];
+      final double x3 = x[i+3];
+      final double t0 = s0 + x0;
+      final double t1 = s1 + x1;
+      final double t2 = s2 + x2;
+      final double t3 = s3 + x3;
+      final double b0 = t0 - s0;
+      final double b1 = t1 - s1;
+      final double b2 = t2 - s2;
+      final double b3 = t3 - s3;
+      c0 += (s0 - (t0 - b0)) + (x0 - b0);
+      c1 += (s1 - (t1 - b1)) + (x1 - b1);
+      c2 += (s2 - (t2 - b2)) + (x2 - b2);
+      c3 += (s3 - (t3 - b3)) + (x3 - b3);
+      s0 = t0; s1 = t1; s2 = t2; s3 = t3; }
+    for (;i<end;i++) {
+      final double xi = x[i];
+      final double t = s0 + xi;
+      final double b = t - s0;
+      c0 += (s0 - (t - b)) + (xi - b);
+      s0 = t; }
+    return combine(s0,s1,s2,s3,(c0 + c1) + (c2 + c3)); }
+
+  /** Compensated sum of <code>x</code>. */
+  public static final double sum (final double[] x) {
+    return sum(x,0,x.length); }
+
+  /** Compensated sum of <code>x[start..end)</code>. */
+  public static final double sum (final float[] x,
+                                  final int start,
+                                  final int end) {
+    assert 0 <= start;
+    assert start <= end;
+    assert end <= x.length;
+    double s0 = 0.0; double s1 = 0.0;
+    double s2 = 0.0; double s3 = 0.0;
+    double c0 = 0.0; double c1 = 0.0;
+    double c2 = 0.0; double c3 = 0.0;
+    int i = start;
+    for (;i+3<end;i+=4) {
+      final double x0 = x[i];
+      final double x1 = x[i+1];
+      final double x2 = x[i+2];
+      final double x3 = x[i+3];
+      final double t0 = s0 + x0;
+      final double t1 = s1 + x1;
+      final double t2 = s2 + x2;
+      final double t3 = s3 + x3;
+      final double b0 = t0 - s0;
+      final double b1 = t1 - s1;
+      final double b2 = t2 - s2;
+      final double b3 = t3 - s3;
+      c0 += (s0 - (t0 - b0)) + (x0 - b0);
+      c1 += (s1 - (t1 - b1)) + (x1 - b1);
+      c2 += (s2 - (t2 - b2)) + (x2 - b2);
+      c3 += (s3 - (t3 - b3)) + (x3 - b3);
+      s0 = t0; s1 = t1; s2 = t2; s3 = t3; }
+    for (;i<end;i++) {
+      final double xi = x[i];
+      final double t = s0 + xi;
+      final double b = t - s0;
+      c0 += (s0 - (t - b)) + (xi - b);
+      s0 = t; }
+    return combine(s0,s1,s2,s3,(c0 + c1) + (c2 + c3)); }
+
+  /** Compensated sum of <code>x</code>. */
+  public static final double sum (final float[] x) {
+    return sum(x,0,x.length); }
+
+  //--------------------------------------------------------------
+  // dot products
+  //--------------------------------------------------------------
+  /** Compensated <code>sum(x[i]*y[i])</code>. */
+  public static final double dot (final double[] x,
+                                  final double[] y) {
+    final int n = x.length;
+    assert n == y.length;
+    double s0 = 0.0; double s1 = 0.0;
+    double s2 = 0.0; double s3 = 0.0;
+    double c0 = 0.0; double c1 = 0.0;
+    double c2 = 0.0; double c3 = 0.0;
+    int i = 0;
+    for (;i+3<n;i+=4) {
+      final double p0 = x[i]*y[i];
+      final double p1 = x[i+1]*y[i+1];
+      final double p2 = x[i+2]*y[i+2];
+      final double p3 = x[i+3]*y[i+3];
+      final double e0 = Math.fma(x[i],y[i],-p0);
+      final double e1 = Math.fma(x[i+1],y[i+1],-p1);
+      final double e2 = Math.fma(x[i+2],y[i+2],-p2);
+      final double e3 = Math.fma(x[i+3],y[i+3],-p3);
+      final double t0 = s0 + p0;
+      final double t1 = s1 + p1;
+      final double t2 = s2 + p2;
+      final double t3 = s3 + p3;
+      final double b0 = t0 - s0;
+      final double b1 = t1 - s1;
+      final double b2 = t2 - s2;
+      final double b3 = t3 - s3;
+      c0 += ((s0 - (t0 - b0)) + (p0 - b0)) + e0;
+      c1 += ((s1 - (t1 - b1)) + (p1 - b1)) + e1;
+      c2 += ((s2 - (t2 - b2)) + (p2 - b2)) + e2;
+      c3 += ((s3 - (t3 - b3)) + (p3 - b3)) + e3;
+      s0 = t0; s1 = t1; s2 = t2; s3 = t3; }
+    for (;i<n;i++) {
+      final double p = x[i]*y[i];
+      final double e = Math.fma(x[i],y[i],-p);
+      final double t = s0 + p;
+      final double b = t - s0;
+      c0 += ((s0 - (t - b)) + (p - b)) + e;
+      s0 = t; }
+    return combine(s0,s1,s2,s3,(c0 + c1) + (c2 + c3)); }
+
+  /** Compensated <code>sum(x[i]*y[i])</code>, in
+   * <code>double</code>.
+   */
+  public static final double dot (final float[] x,
+                                  final float[] y) {
+    final int n = x.length;
+    assert n == y.length;
+    double s0 = 0.0; double s1 = 0.0;
+    double s2 = 0.0; double s3 = 0.0;
+    double c0 = 0.0; double c1 = 0.0;
+    double c2 = 0.0; double c3 = 0.0;
+    int i = 0;
+    for (;i+3<n;i+=4) {
+      // exact in double
+      final double p0 = ((double) x[i])*y[i];
+      final double p1 = ((double) x[i+1])*y[i+1];
+      final double p2 = ((double) x[i+2])*y[i+2];
+      final double p3 = ((double) x[i+3])*y[i+3];
+      final double t0 = s0 + p0;
+      final double t1 = s1 + p1;
+      final double t2 = s2 + p2;
+      final double t3 = s3 + p3;
+      final double b0 = t0 - s0;
+      final double b1 = t1 - s1;
+      final double b2 = t2 - s2;
+      final double b3 = t3 - s3;
+      c0 += (s0 - (t0 - b0)) + (p0 - b0);
+      c1 += (s1 - (t1 - b1)) + (p1 - b1);
+      c2 += (s2 - (t2 - b2)) + (p2 - b2);
+      c3 += (s3 - (t3 - b3)) + (p3 - b3);
+      s0 = t0; s1 = t1; s2 = t2; s3 = t3; }
+    for (;i<n;i++) {
+      final double p = ((double) x[i])*y[i];
+      final double t = s0 + p;
+      final double b = t - s0;
+      c0 += (s0 - (t - b)) + (p - b);
+      s0 = t; }
+    return combine(s0,s1,s2,s3,(c0 + c1) + (c2 + c3)); }
+
+  /** Compensated <code>sum(x[i]*x[i])</code>. */
+  public static final double sumOfSquares (final double[] x) {
+    return dot(x,x); }
+
+  /** Compensated <code>sum(w[i]*(z[i]-center)^2)</code>, in
+   * <code>double</code>. The differences are rounded.
+   */
+  public static final double weightedSumOfSquares (final float[] z,
+                                                   final float[] w,
+                                                   final double center) {
+    final int n = z.length;
+    assert n == w.length;
+    double s0 = 0.0; double s1 = 0.0;
+    double c0 = 0.0; double c1 = 0.0;
+    int i = 0;
+    for (;i+1<n;i+=2) {
+      final double d0 = z[i] - center;
+      final double d1 = z[i+1] - center;
+      final double q0 = d0*d0;
+      final double q1 = d1*d1;
+      final double p0 = q0*w[i];
+      final double p1 = q1*w[i+1];
+      // rounding error of both products
+      final double e0 = Math.fma(d0,d0,-q0)*w[i] + Math.fma(q0,w[i],-p0);
+      final double e1 =
+        Math.fma(d1,d1,-q1)*w[i+1] + Math.fma(q1,w[i+1],-p1);
+      final double t0 = s0 + p0;
+      final double t1 = s1 + p1;
+      final double b0 = t0 - s0;
+      final double b1 = t1 - s1;
+      c0 += ((s0 - (t0 - b0)) + (p0 - b0)) + e0;
+      c1 += ((s1 - (t1 - b1)) + (p1 - b1)) + e1;
+      s0 = t0; s1 = t1; }
+    if (i < n) {
+      final double d = z[i] - center;
+      final double q = d*d;
+      final double p = q*w[i];
+      final double e = Math.fma(d,d,-q)*w[i] + Math.fma(q,w[i],-p);
+      final double t = s0 + p;
+      final double b = t - s0;
+      c0 += ((s0 - (t - b)) + (p - b)) + e;
+      s0 = t; }
+    return combine(s0,s1,0.0,0.0,c0 + c1); }
+
+  /** Compensated <code>sum(w[i]*(z[i]-center)^2)</code>. The
+   * differences are rounded.
+   */
+  public static final double weightedSumOfSquares (final double[] z,
+                                                   final double[] w,
+                                                   final double center) {
+    final int n = z.length;
+    assert n == w.length;
+    double s0 = 0.0; double s1 = 0.0;
+    double c0 = 0.0; double c1 = 0.0;
+    int i = 0;
+    for (;i+1<n;i+=2) {
+      final double d0 = z[i] - center;
+      final double d1 = z[i+1] - center;
+      final double q0 = d0*d0;
+      final double q1 = d1*d1;
+      final double p0 = q0*w[i];
+      final double p1 = q1*w[i+1];
+      // rounding error of both products
+      final double e0 = Math.fma(d0,d0,-q0)*w[i] + Math.fma(q0,w[i],-p0);
+      final double e1 =
+        Math.fma(d1,d1,-q1)*w[i+1] + Math.fma(q1,w[i+1],-p1);
+      final double t0 = s0 + p0;
+      final double t1 = s1 + p1;
+      final double b0 = t0 - s0;
+      final double b1 = t1 - s1;
+      c0 += ((s0 - (t0 - b0)) + (p0 - b0)) + e0;
+      c1 += ((s1 - (t1 - b1)) + (p1 - b1)) + e1;
+      s0 = t0; s1 = t1; }
+    if (i < n) {
+      final double d = z[i] - center;
+      final double q = d*d;
+      final double p = q*w[i];
+      final double e = Math.fma(d,d,-q)*w[i] + Math.fma(q,w[i],-p);
+      final double t = s0 + p;
+      final double b = t - s0;
+      c0 += ((s0 - (t - b)) + (p - b)) + e;
+      s0 = t; }
+    return combine(s0,s1,0.0,0.0,c0 + c1); }
+
+  //--------------------------------------------------------------
+  // means
+  //--------------------------------------------------------------
+  /** <code>dot(x,w) / sum(w)</code>. */
+  public static final double weightedMean (final double[] x,
+                                           final double[] w) {
+    return dot(x,w) / sum(w); }
+
+  /** <code>dot(x,w) / sum(w)</code>. */
+  public static final double weightedMean (final float[] x,
+                                           final float[] w) {
+    return dot(x,w) / sum(w); }
+
+  //--------------------------------------------------------------
+  // disabled constructor
+  //--------------------------------------------------------------
+
+  private Compensated () {
+    throw new UnsupportedOperationException(
+      "Can't instantiate " + getClass()); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,329 @@
+package zana.java.math;
+
+import java.util.Arrays;
+
+import zana.java.arrays.Sorter;
+
+//----------------------------------------------------------------
+/** Several quantiles of a (weighted) sample in one multi-target
+ * quickselect, rather than a sort, or a selection per quantile.
+ * <p>
+ * Each level 3-way partitions its range around a median-of-3
+ * pivot, into smaller, equal and larger parts, and recurses only
+ * into the parts that contain a requested cumulative weight. Ties
+ * end up in the equal part, so many-tied data doesn't degrade
+ * the selection. Ranges that are small, or that have been split
+ * too many times (adversarial pivots), are sorted instead.
+ * <p>
+ * Interpolation follows commons-math's <code>Percentile</code>
+ * (the <code>LEGACY</code> estimation used by
+ * <code>DescriptiveStatistics</code>): the <code>k</code>th
+ * smallest of <code>n</code> values is the
+ * <code>k/(n+1)</code> quantile, interpolated linearly in between,
+ * and clamped to the minimum and maximum outside
+ * <code>[1/(n+1),n/(n+1)]</code>. With weights, the
+ * <code>k</code>th value is at
+ * <code>S<sub>k</sub>/(W+W/n)</code>, where
+ * <code>S<sub>k</sub></code> is the cumulative weight, and
+ * <code>W</code> the total; tied values share their weight
+ * equally, so the result doesn't depend on their order. Unit
+ * weights give the unweighted result, bit for bit.
+ * <p>
+ * Mutable! Not Synchronized! One instance per call.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+final class MultiSelect {
+
+  //--------------------------------------------------------------
+  // constants
+  //--------------------------------------------------------------
+  /** Ranges this small are sorted. */
+  private static final int SMALL = 32;
+
+  //--------------------------------------------------------------
+  // fields
+  //--------------------------------------------------------------
+  private final double[] _z;
+  /** <code>null</code> means unit weights. */
+  private final double[] _w;
+  /** Target cumulative weights, in the order of the
+   * probabilities.
+   */
+  private final double[] _target;
+  /** Indexes into <code>_target</code>, sorted by target. */
+  private final int[] _order;
+  /** The value at each target. */
+  private final double[] _value;
+  /** The largest value before the target's, where the target
+   * falls in the first of its tied values.
+   */
+  private final double[] _lower;
+  /** Interpolation weight between <code>_lower</code> and
+   * <code>_value</code>; 1.0 means just <code>_value</code>.
+   */
+  private final double[] _fraction;
+  private final int _maxDepth;
+
+  //--------------------------------------------------------------
+  // partitioning
+  //--------------------------------------------------------------
+
+  private final double weight (final int i) {
+    return (null == _w) ? 1.0 : _w[i]; }
+
+  private final void swap (final int i, final int j) {
+    final double zi = _z[i]; _z[i] = _z[j]; _z[j] = zi;
+    if (null != _w) {
+      final double wi = _w[i]; _w[i] = _w[j]; _w[j] = wi; } }
+
+  private final double medianOf3 (final int lo, final int hi) {
+    final double a = _z[lo];
+    final double b = _z[(lo + hi) >>> 1];
+    final double c = _z[hi-1];
+    if (a < b) {
+      if (b < c) { return b; }
+      return (a < c) ? c : a; }
+    if (a < c) { return a; }
+    return (b < c) ? c : b; }
+
+  private final double max (final int lo, final int hi) {
+    double m = _z[lo];
+    for (int i=lo+1;i<hi;i++) { if (_z[i] > m) { m = _z[i]; } }
+    return m; }
+
+  private final void sort (final int lo, final int hi) {
+    if (null == _w) { Arrays.sort(_z,lo,hi); }
+    else { Sorter.quicksort(_z,_w,lo,hi-lo); } }
+
+  //--------------------------------------------------------------
+  // resolution
+  //--------------------------------------------------------------
+  /** Target <code>j</code> falls among the <code>m</code> values
+   * equal to <code>v</code>, whose weights sum to
+   * <code>wg</code>, preceded by cumulative weight
+   * <code>s0</code>.
+   * @return whether the largest smaller value is still needed.
+   */
+  private final boolean resolve (final int j,
+                                 final double v,
+                                 final double s0,
+                                 final double wg,
+                                 final long m,
+                                 final double lower) {
+    _value[j] = v;
+    final double t = (_target[j] - s0) / (wg / m);
+    if ((t >= 1.0) || (0.0 == s0)) { _fraction[j] = 1.0; return false; }
+    _fraction[j] = Math.max(0.0,t);
+    if (Double.isNaN(lower)) { return true; }
+    _lower[j] = lower;
+    return false; }
+
+  private final void resolveLower (final int[] lowerFor,
+                                   final double max) {
+    for (final int j : lowerFor) { _lower[j] = max; } }
+
+  private final boolean isSorted (final int lo, final int hi) {
+    for (int i=lo+1;i<hi;i++) { if (_z[i] < _z[i-1]) { return false; } }
+    return true; }
+
+  /** Resolve the targets in sorted <code>[lo,hi)</code> by
+   * scanning the runs of tied values.
+   */
+  private final void leaf (final int lo,
+                           final int hi,
+                           final double offset,
+                           final int tlo,
+                           final int thi,
+                           final int[] lowerFor,
+                           final double leftMax) {
+    resolveLower(lowerFor,_z[hi-1]);
+    double s0 = offset;
+    double previous = leftMax;
+    int i = lo;
+    int t = tlo;
+    while (t < thi) {
+      final double v = _z[i];
+      int k = i;
+      double wg = 0.0;
+      while ((k < hi) && (_z[k] == v)) { wg += weight(k); k++; }
+      while ((t < thi) && ((k == hi) || (_target[_order[t]] <= s0 + wg))) {
+        final boolean pending = resolve(_order[t],v,s0,wg,k-i,previous);
+        assert ! pending;
+        t++; }
+      s0 += wg;
+      previous = v;
+      i = k; } }
+
+  //--------------------------------------------------------------
+  // selection
+  //--------------------------------------------------------------
+  /** Resolve the targets <code>_order[tlo..thi)</code>, which
+   * fall in <code>[lo,hi)</code>, and find the maximum of that
+   * range for the targets in <code>lowerFor</code>.
+   * @param offset cumulative weight before <code>lo</code>
+   * @param leftMax largest value before <code>lo</code>,
+   * <code>NaN</code> if none
+   */
+  private final void select (final int lo,
+                             final int hi,
+                             final double offset,
+                             final int tlo,
+                             final int thi,
+                             final int[] lowerFor,
+                             final double leftMax,
+                             final int depth) {
+    if ((tlo == thi) && (0 == lowerFor.length)) { return; }
+    if (tlo == thi) { resolveLower(lowerFor,max(lo,hi)); return; }
+    if (((hi - lo) <= SMALL) || (depth > _maxDepth)) {
+      sort(lo,hi);
+      leaf(lo,hi,offset,tlo,thi,lowerFor,leftMax);
+      return; }
+
+    // 3-way partition: [lo,lt) < v, [lt,gt) == v, [gt,hi) > v
+    final double v = medianOf3(lo,hi);
+    int lt = lo;
+    int i = lo;
+    int gt = hi;
+    double wl = 0.0;
+    double we = 0.0;
+    if (null == _w) {
+      while (i < gt) {
+        final double x = _z[i];
+        if (x < v) { _z[i] = _z[lt]; _z[lt] = x; lt++; i++; }
+        else if (x > v) { gt--; _z[i] = _z[gt]; _z[gt] = x; }
+        else { i++; } }
+      wl = lt - lo;
+      we = gt - lt; }
+    else {
+      while (i < gt) {
+        final double x = _z[i];
+        if (x < v) { wl += _w[i]; swap(lt,i); lt++; i++; }
+        else if (x > v) { gt--; swap(i,gt); }
+        else { we += _w[i]; i++; } } }
+
+    // route the targets
+    final double sLeft = offset + wl;
+    final double sEqual = sLeft + we;
+    int t = tlo;
+    if (lt > lo) {
+      while ((t < thi) && (_target[_order[t]] <= sLeft)) { t++; } }
+    final int tEqual = t;
+    if (gt < hi) {
+      while ((t < thi) && (_target[_order[t]] <= sEqual)) { t++; } }
+    else { t = thi; }
+    final int tRight = t;
+
+    // targets among the ties, some needing the largest smaller value
+    int nLower = 0;
+    final int[] lowerLeft = new int[tRight - tEqual];
+    final double below = (lt > lo) ? Double.NaN : leftMax;
+    for (int k=tEqual;k<tRight;k++) {
+      final int j = _order[k];
+      if (resolve(j,v,sLeft,we,gt-lt,below)) { lowerLeft[nLower++] = j; } }
+
+    final int[] leftLowerFor = Arrays.copyOf(lowerLeft,nLower);
+    if ((tlo == tEqual) && (0 < nLower)) {
+      resolveLower(leftLowerFor,max(lo,lt)); }
+    else if (lt > lo) {
+      select(lo,lt,offset,tlo,tEqual,leftLowerFor,leftMax,depth+1); }
+
+    if (gt < hi) {
+      select(gt,hi,sEqual,tRight,thi,lowerFor,v,depth+1); }
+    else {
+      resolveLower(lowerFor,v); } }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  private MultiSelect (final double[] z,
+                       final double[] w,
+                       final double[] target) {
+    _z = z;
+    _w = w;
+    _target = target;
+    final int m = target.length;
+    _value = new double[m];
+    _lower = new double[m];
+    _fraction = new double[m];
+    // sort target indexes by target
+    final double[] sorted = target.clone();
+    _order = Sorter.iota(m);
+    Sorter.quicksort(sorted,_order);
+    _maxDepth = 2 * (32 - Integer.numberOfLeadingZeros(z.length)) + 4; }
+
+  //--------------------------------------------------------------
+  /** Remove NaNs and zero weights, by moving the kept elements
+   * to the front.
+   * @return the number kept.
+   */
+  private static final int compact (final double[] z,
+                                    final double[] w) {
+    int n = 0;
+    for (int i=0;i<z.length;i++) {
+      final double zi = z[i];
+      if ((zi == zi) && ((null == w) || (0.0 < w[i]))) {
+        z[n] = zi;
+        if (null != w) { w[n] = w[i]; }
+        n++; } }
+    return n; }
+
+  /** Weighted quantiles of <code>z</code>, at the probabilities
+   * <code>p</code>.
+   * <code>z</code> and <code>w</code> are permuted, and
+   * overwritten by compaction.
+   * @param w <code>null</code> for unit weights
+   */
+  static final double[] quantiles (final double[] z,
+                                   final double[] w,
+                                   final double[] p) {
+    final int m = p.length;
+    for (int j=0;j<m;j++) {
+      if (! ((0.0 <= p[j]) && (p[j] <= 1.0))) {
+        throw new IllegalArgumentException(
+          "Probability not in [0,1]: " + p[j]); } }
+    if (null != w) {
+      if (w.length != z.length) {
+        throw new IllegalArgumentException(
+          "Lengths differ: " + z.length + ", " + w.length); }
+      for (final double wi : w) {
+        if (! ((0.0 <= wi) && (wi < Double.POSITIVE_INFINITY))) {
+          throw new IllegalArgumentException(
+            "Weight not finite and non-negative: " + wi); } } }
+
+    final int n = compact(z,w);
+    final double[] q = new double[m];
+    if (0 == n) { Arrays.fill(q,Double.NaN); return q; }
+
+    final double total = (null == w) ? n : Compensated.sum(w,0,n);
+    final double denominator = total + (total / n);
+    final double[] target = new double[m];
+    for (int j=0;j<m;j++) {
+      // LEGACY puts p==1 at exactly n
+      target[j] = (1.0 == p[j]) ? total : Math.min(total,p[j]*denominator); }
+
+    final MultiSelect s = new MultiSelect(z,w,target);
+    s.run(n);
+    for (int j=0;j<m;j++) {
+      final double f = s._fraction[j];
+      final double v = s._value[j];
+      if (1.0 <= f) { q[j] = v; }
+      else {
+        final double u = s._lower[j];
+        q[j] = u + (f * (v - u)); } }
+    return q; }
+
+  private final void run (final int n) {
+    // common for columns, and the worst case for the partitioning
+    if (isSorted(0,n)) {
+      leaf(0,n,0.0,0,_target.length,new int[0],Double.NaN); }
+    else {
+      select(0,n,0.0,0,_target.length,new int[0],Double.NaN,0); } }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
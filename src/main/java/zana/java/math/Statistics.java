@@ -8,7 +8,7 @@ import clojure.lang.IFn;
 /** Summary statistics.
  *
  * @author wahpenayo at gmail dot com
- * @version 2017-12-06
+ * @version 2026-10-18
  */
 
 public final class Statistics {
@@ -276,23 +276,23 @@ public final class Statistics {
   //--------------------------------------------------------------
   public static final void normalize (final double[] w) {
     final int n = w.length;
-    final double s = kahanSum(w);
+    final double s = Compensated.sum(w);
     for (int i=0;i<n;i++ ) { w[i] = w[i] / s; } }
   public static final double[] normalized (final double[] w) {
     final int n = w.length;
     final double[] u = new double[n];
-    final double s = kahanSum(w);
+    final double s = Compensated.sum(w);
     for (int i=0;i<n;i++ ) { u[i] = w[i] / s; } 
     return u; }
   //--------------------------------------------------------------
   public static final void normalize (final float[] w) {
     final int n = w.length;
-    final double s = kahanSum(w);
+    final double s = Compensated.sum(w);
     for (int i=0;i<n;i++ ) { w[i] = (float) (w[i] / s); } }
   public static final float[] normalized (final float[] w) {
     final int n = w.length;
     final float[] u = new float[n];
-    final double s = kahanSum(w);
+    final double s = Compensated.sum(w);
     for (int i=0;i<n;i++ ) { u[i] = (float) (w[i] / s); } 
     return u; }
   //--------------------------------------------------------------
@@ -321,7 +321,7 @@ public final class Statistics {
   public static final boolean isConvex (final double[] w) {
     return 
       hasConvexElements(w) 
-      && approximatelyEqual(1.0,kahanSum(w)); }
+      && approximatelyEqual(1.0,Compensated.sum(w)); }
   //--------------------------------------------------------------
   public static final boolean isIncreasing (final float[] z) {
     float z0 = z[0];
@@ -368,7 +368,7 @@ public final class Statistics {
   public static final boolean isConvex (final float[] w) {
     return 
       hasConvexElements(w) 
-      && approximatelyEqual(1.0F,(float) kahanSum(w)); }
+      && approximatelyEqual(1.0F,(float) Compensated.sum(w)); }
   //--------------------------------------------------------------
   public static final double presortedCDF (final double[] x,
                                            final double q) {
@@ -415,6 +415,58 @@ public final class Statistics {
     final int jm = Math.min(n - 1, j);
     return ((1.0 - g) * x[jm1]) + (g * x[jm]); }
   //--------------------------------------------------------------
+  /** Return the quantiles of <code>z</code> at each of the
+   * probabilities <code>p</code>, with one multi-target
+   * quickselect, rather than a sort.
+   * <p>
+   * Interpolates like commons-math's
+   * <code>DescriptiveStatistics.getPercentile</code>: the
+   * <code>k</code>th smallest of <code>n</code> values is the
+   * <code>k/(n+1)</code> quantile. <code>p</code> equal to 0.0 and
+   * 1.0 give the minimum and maximum. NaNs are ignored; if there
+   * is nothing else, the quantiles are all NaN.
+   * @param inPlace if true, <code>z</code> is permuted and
+   * overwritten; otherwise it is copied.
+   * @throws IllegalArgumentException if any <code>p</code> isn't
+   * in <code>[0,1]</code>.
+   */
+  public static final double[] quantiles (final double[] z,
+                                          final double[] p,
+                                          final boolean inPlace) {
+    return MultiSelect.quantiles(inPlace ? z : z.clone(),null,p); }
+
+  public static final double[] quantiles (final double[] z,
+                                          final double[] p) {
+    return quantiles(z,p,false); }
+
+  /** Weighted version of
+   * {@link #quantiles(double[],double[],boolean)}: the
+   * <code>k</code>th smallest value is at
+   * <code>S<sub>k</sub>/(W+W/n)</code>, where
+   * <code>S<sub>k</sub></code> is the cumulative weight, and
+   * <code>W</code> the total, so unit weights give the unweighted
+   * quantiles. Tied values share their total weight equally.
+   * Values with zero weight are ignored.
+   * @param inPlace if true, <code>z</code> and <code>w</code> are
+   * permuted and overwritten; otherwise they are copied.
+   * @throws IllegalArgumentException if any <code>p</code> isn't
+   * in <code>[0,1]</code>, any weight is negative or not finite,
+   * or the lengths of <code>z</code> and <code>w</code> differ.
+   */
+  public static final double[] quantiles (final double[] z,
+                                          final double[] w,
+                                          final double[] p,
+                                          final boolean inPlace) {
+    return MultiSelect.quantiles(
+      inPlace ? z : z.clone(),
+      inPlace ? w : w.clone(),
+      p); }
+
+  public static final double[] quantiles (final double[] z,
+                                          final double[] w,
+                                          final double[] p) {
+    return quantiles(z,w,p,false); }
+  //--------------------------------------------------------------
   /** Return the [xmin,xmax] X [ymin,ymax] rectangle.
    */
   public static final Rectangle2D.Double bounds (final IFn.OD xf,
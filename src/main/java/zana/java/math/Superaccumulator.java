@@ -0,0 +1,267 @@
+package zana.java.math;
+
+//----------------------------------------------------------------
+/** Exact summation of <code>double</code>s, with a correctly
+ * rounded result.
+ * <p>
+ * Radford Neal's <em>small superaccumulator</em>
+ * (<a href="https://arxiv.org/abs/1505.05571">arXiv:1505.05571</a>):
+ * a fixed point number covering the whole range of finite
+ * doubles, from <code>2<sup>-1074</sup></code> up, held as 32
+ * bit chunks in signed <code>long</code>s. Each addend's 53 bit
+ * significand is split over 3 adjacent chunks and added
+ * without rounding; the 31 spare bits per chunk absorb carries
+ * until {@link #CARRY_EVERY} additions have been made, when the
+ * carries are propagated.
+ * <p>
+ * Because nothing is ever rounded until {@link #doubleValue()},
+ * the result is bit-identical whatever the order of the
+ * additions, and however they are partitioned among
+ * accumulators that are later {@link #merge(Superaccumulator)}d.
+ * That's what makes it suitable for parallel reductions, where
+ * the partitioning depends on the thread pool.
+ * <p>
+ * Infinities and NaNs are tracked separately, and the result
+ * follows IEEE 754: NaN if any addend is NaN, or if both
+ * infinities were added; otherwise the infinity, if any.
+ * <p>
+ * Mutable! Not Synchronized!
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class Superaccumulator {
+
+  //--------------------------------------------------------------
+  // constants
+  //--------------------------------------------------------------
+  /** Chunk <code>k</code> holds bits
+   * <code>32k &lt;= b &lt; 32(k+1)</code>, weighted by
+   * <code>2<sup>b-1074</sup></code>. 2098 bits cover the finite
+   * doubles; the top chunk is an overflow guard.
+   */
+  private static final int CHUNKS = 67;
+
+  private static final long LOW32 = 0xFFFFFFFFL;
+
+  /** Each addition changes a chunk by less than
+   * <code>2<sup>32</sup></code>, so a normalized chunk can take
+   * this many before its magnitude could reach
+   * <code>2<sup>63</sup></code>.
+   */
+  public static final int CARRY_EVERY = 1 << 30;
+
+  //--------------------------------------------------------------
+  // fields
+  //--------------------------------------------------------------
+
+  private final long[] _chunk = new long[CHUNKS];
+
+  /** Additions since the carries were last propagated. */
+  private int _adds = 0;
+
+  private boolean _nan = false;
+  private boolean _positiveInfinity = false;
+  private boolean _negativeInfinity = false;
+
+  //--------------------------------------------------------------
+  // carries
+  //--------------------------------------------------------------
+  /** Propagate carries, leaving every chunk but the top in
+   * <code>[0,2<sup>32</sup>)</code>, and the sign in the top.
+   */
+  private static final void normalize (final long[] chunk) {
+    final int top = chunk.length-1;
+    for (int k=0;k<top;k++) {
+      final long carry = chunk[k] >> 32;
+      chunk[k] -= carry << 32;
+      chunk[k+1] += carry; } }
+
+  private final void normalize () {
+    normalize(_chunk);
+    _adds = 0; }
+
+  //--------------------------------------------------------------
+  // accumulation
+  //--------------------------------------------------------------
+
+  private final void special (final double x) {
+    if (Double.isNaN(x)) { _nan = true; }
+    else if (x > 0.0) { _positiveInfinity = true; }
+    else { _negativeInfinity = true; } }
+
+  /** The fast path: branch free, except for non-finite
+   * <code>x</code>, and the periodic carry propagation.
+   */
+  public final void add (final double x) {
+    final long bits = Double.doubleToRawLongBits(x);
+    final int e = (int) ((bits >>> 52) & 0x7FF);
+    if (0x7FF == e) { special(x); return; }
+    final long m = bits & 0x000FFFFFFFFFFFFFL;
+    // subnormals (and zeros) have the same scale as e==1,
+    // without the implicit leading bit
+    final long significand = (0 == e) ? m : (m | (1L << 52));
+    final int p = (0 == e) ? 0 : e - 1;
+    final int k = p >>> 5;
+    final int r = p & 31;
+    final long shifted = significand << r;
+    // 0 or -1, to negate branch free
+    final long s = bits >> 63;
+    final long lo = shifted & LOW32;
+    final long mid = shifted >>> 32;
+    final long hi = (significand >>> 32) >>> (32 - r);
+    final long[] c = _chunk;
+    c[k] += (lo ^ s) - s;
+    c[k+1] += (mid ^ s) - s;
+    c[k+2] += (hi ^ s) - s;
+    if (CARRY_EVERY == ++_adds) { normalize(); } }
+
+  public final void subtract (final double x) { add(-x); }
+
+  /** Adds <code>a*b</code> exactly, as the rounded product plus
+   * its rounding error, computed with
+   * {@link Math#fma(double,double,double)}. Exact unless the
+   * product underflows or overflows.
+   */
+  public final void addProduct (final double a,
+                                final double b) {
+    final double p = a*b;
+    add(p);
+    if (Double.isFinite(p)) { add(Math.fma(a,b,-p)); } }
+
+  /** Adds <code>x[i]</code>, <code>start &lt;= i &lt; end</code>.
+   */
+  public final void addAll (final double[] x,
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(x[i]); } }
+
+  public final void addAll (final double[] x) {
+    addAll(x,0,x.length); }
+
+  public final void addAll (final float[] x,
+                            final int start,
+                            final int end) {
+    for (int i=start;i<end;i++) { add(x[i]); } }
+
+  public final void addAll (final float[] x) {
+    addAll(x,0,x.length); }
+
+  /** Adds <code>x[i]*y[i]</code>, exactly, for all
+   * <code>i</code>.
+   */
+  public final void addProducts (final double[] x,
+                                 final double[] y) {
+    assert x.length == y.length;
+    for (int i=0;i<x.length;i++) { addProduct(x[i],y[i]); } }
+
+  /** Adds <code>that</code>'s exact sum to this one.
+   * <code>that</code> is normalized, which doesn't change its
+   * value.
+   */
+  public final void merge (final Superaccumulator that) {
+    normalize();
+    that.normalize();
+    final long[] c = _chunk;
+    final long[] d = that._chunk;
+    for (int k=0;k<CHUNKS;k++) { c[k] += d[k]; }
+    _adds = 1;
+    _nan |= that._nan;
+    _positiveInfinity |= that._positiveInfinity;
+    _negativeInfinity |= that._negativeInfinity; }
+
+  public final void clear () {
+    java.util.Arrays.fill(_chunk,0L);
+    _adds = 0;
+    _nan = false;
+    _positiveInfinity = false;
+    _negativeInfinity = false; }
+
+  //--------------------------------------------------------------
+  // value
+  //--------------------------------------------------------------
+  /** The exact sum, rounded to nearest, ties to even. An exact
+   * zero is returned as <code>+0.0</code>.
+   */
+  public final double doubleValue () {
+    if (_nan || (_positiveInfinity && _negativeInfinity)) {
+      return Double.NaN; }
+    if (_positiveInfinity) { return Double.POSITIVE_INFINITY; }
+    if (_negativeInfinity) { return Double.NEGATIVE_INFINITY; }
+
+    normalize();
+    final long[] c;
+    final boolean negative = (_chunk[CHUNKS-1] < 0);
+    if (negative) {
+      c = new long[CHUNKS];
+      for (int k=0;k<CHUNKS;k++) { c[k] = -_chunk[k]; }
+      normalize(c); }
+    else {
+      c = _chunk; }
+    final double magnitude = roundedMagnitude(c);
+    return negative ? -magnitude : magnitude; }
+
+  /** <code>c</code> is normalized and non-negative. */
+  private static final double roundedMagnitude (final long[] c) {
+    if (0 != c[CHUNKS-1]) { return Double.POSITIVE_INFINITY; }
+    int h = CHUNKS-2;
+    while ((0 <= h) && (0 == c[h])) { h--; }
+    if (h < 0) { return 0.0; }
+
+    // the leading 96 bits, and whether there are any more
+    long u = (c[h] << 32) | ((1 <= h) ? c[h-1] : 0L);
+    final long low = (2 <= h) ? c[h-2] : 0L;
+    boolean sticky = false;
+    for (int k=h-3;(!sticky) && (0 <= k);k--) { sticky = (0 != c[k]); }
+    final int lz = Long.numberOfLeadingZeros(u);
+    assert lz < 32;
+    u = (u << lz) | (low >>> (32 - lz));
+    sticky |= (0 != (low & ((1L << (32 - lz)) - 1)));
+    // round 64 bits to 53, to nearest, ties to even
+    long significand = u >>> 11;
+    final long rest = u & 0x7FF;
+    int exponent = 32*(h-1) - lz - 1074 + 11;
+    if ((rest > 0x400)
+      || ((rest == 0x400) && (sticky || (0 != (significand & 1L))))) {
+      significand++;
+      if ((1L << 53) == significand) {
+        significand >>>= 1;
+        exponent++; } }
+    // exact: sums below 2^-1022 have no more than 52 bits
+    return Math.scalb((double) significand,exponent); }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  public Superaccumulator () { }
+
+  public static final Superaccumulator make () {
+    return new Superaccumulator(); }
+
+  /** Correctly rounded sum of <code>x[i]</code>,
+   * <code>start &lt;= i &lt; end</code>.
+   */
+  public static final double sum (final double[] x,
+                                  final int start,
+                                  final int end) {
+    final Superaccumulator s = new Superaccumulator();
+    s.addAll(x,start,end);
+    return s.doubleValue(); }
+
+  public static final double sum (final double[] x) {
+    return sum(x,0,x.length); }
+
+  /** Correctly rounded <code>sum<sub>i</sub>(x[i]*y[i])</code>.
+   */
+  public static final double dot (final double[] x,
+                                  final double[] y) {
+    final Superaccumulator s = new Superaccumulator();
+    s.addProducts(x,y);
+    return s.doubleValue(); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,135 @@
+package zana.java.prob;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+//----------------------------------------------------------------
+/** Walker's alias method, as constructed by Vose, for O(1)
+ * sampling of an index <code>i</code> with probability
+ * proportional to <code>mass[i]</code>.
+ * <p>
+ * Each draw uses a single <code>nextDouble()</code>: its
+ * integer part (times <code>n</code>) picks a column, and its
+ * fractional part decides between the column and its alias.
+ * <p>
+ * Immutable, so one table can be shared by threads, each with
+ * its own {@link RandomGenerator}.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class AliasTable extends Object {
+
+  /** Probability of keeping column <code>i</code>, rather than
+   * jumping to <code>alias[i]</code>.
+   */
+  private final double[] _keep;
+  private final int[] _alias;
+
+  /** Number of columns (outcomes). */
+  public final int size () { return _keep.length; }
+
+  /** Approximate size of an array, including its header. */
+  static final long bytes (final double[] a) {
+    return 16L + (8L * a.length); }
+
+  /** Approximate size of this table. */
+  public final long bytes () {
+    return 16L + bytes(_keep) + 16L + (4L * _alias.length); }
+
+  //--------------------------------------------------------------
+  // sampling
+  //--------------------------------------------------------------
+  /** @return an index in <code>[0,size())</code>, with
+   * probability proportional to its mass.
+   */
+  public final int sample (final RandomGenerator rng) {
+    final int n = _keep.length;
+    final double u = rng.nextDouble() * n;
+    final int i = Math.min((int) u, n-1);
+    return ((u - i) < _keep[i]) ? i : _alias[i]; }
+
+  /** Fill <code>out[0,n)</code> with sampled indexes.
+   * @return <code>out</code>
+   */
+  public final int[] sample (final RandomGenerator rng,
+                             final int n,
+                             final int[] out) {
+    assert n <= out.length;
+    for (int k=0;k<n;k++) { out[k] = sample(rng); }
+    return out; }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  private AliasTable (final double[] keep,
+                      final int[] alias) {
+    _keep = keep;
+    _alias = alias; }
+
+  /** @param mass non-negative, finite, with a positive sum; need
+   * not be normalized.
+   */
+  public static final AliasTable make (final double[] mass) {
+    final int n = mass.length;
+    assert 0 < n;
+    double sum = 0.0;
+    for (final double m : mass) {
+      assert (0.0 <= m) && (m < Double.POSITIVE_INFINITY) : m;
+      sum += m; }
+    assert 0.0 < sum : Arrays.toString(mass);
+    final double[] p = new double[n];
+    for (int i=0;i<n;i++) { p[i] = (mass[i] * n) / sum; }
+    final double[] keep = new double[n];
+    final int[] alias = new int[n];
+    // small and large share one array: smalls from the front,
+    // larges from the back.
+    final int[] stack = new int[n];
+    int ns = 0;
+    int nl = 0;
+    for (int i=0;i<n;i++) {
+      if (p[i] < 1.0) { stack[ns++] = i; }
+      else { stack[n - (++nl)] = i; } }
+    while ((0 < ns) && (0 < nl)) {
+      final int s = stack[--ns];
+      final int l = stack[n - nl];
+      keep[s] = p[s];
+      alias[s] = l;
+      p[l] = (p[l] + p[s]) - 1.0;
+      if (p[l] < 1.0) { nl--; stack[ns++] = l; } }
+    // what's left is 1, up to rounding error
+    while (0 < nl) {
+      final int l = stack[n - (nl--)];
+      keep[l] = 1.0; alias[l] = l; }
+    while (0 < ns) {
+      final int s = stack[--ns];
+      keep[s] = 1.0; alias[s] = s; }
+    return new AliasTable(keep,alias); }
+
+  /** @param mass non-negative, finite, with a positive sum; need
+   * not be normalized.
+   */
+  public static final AliasTable make (final float[] mass) {
+    final double[] m = new double[mass.length];
+    for (int i=0;i<m.length;i++) { m[i] = mass[i]; }
+    return make(m); }
+
+  /** @param cumulative non-decreasing cumulative masses, eg
+   * {@link WECDF#getW()}.
+   */
+  public static final AliasTable fromCumulative (final float[] cumulative) {
+    final double[] m = new double[cumulative.length];
+    double previous = 0.0;
+    for (int i=0;i<m.length;i++) {
+      final double c = cumulative[i];
+      m[i] = Math.max(0.0, c - previous);
+      previous = c; }
+    return make(m); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,339 @@
+package zana.java.prob;
+
+import zana.java.concurrent.Parallel;
+
+//----------------------------------------------------------------
+/** Distances between {@link WECDF}s, and scores of a
+ * {@link WECDF} as a prediction of an observed value.
+ * <p>
+ * Two distributions are compared in a single merge sweep over
+ * their sorted atoms, in O(n0+n1), with no boxing and no cdf
+ * searches, since both cdfs are constant between consecutive
+ * atoms of either one:
+ * <ul>
+ * <li>{@link #ks(WECDF,WECDF) ks}: Kolmogorov-Smirnov,
+ * <code>sup |F-G|</code>.
+ * <li>{@link #wasserstein(WECDF,WECDF) wasserstein}:
+ * Wasserstein-1 (earth mover's), <code>&int; |F-G| dx</code>.
+ * <li>{@link #cramer(WECDF,WECDF) cramer}: Cram&eacute;r
+ * (L2), <code>&int; (F-G)<sup>2</sup> dx</code>.
+ * <li>{@link #cramerVonMises(WECDF,WECDF) cramerVonMises}:
+ * <code>&int; (F-G)<sup>2</sup> dH</code>, where
+ * <code>H=(F+G)/2</code> is the pooled distribution. For
+ * unweighted samples of sizes <code>n0</code> and
+ * <code>n1</code>, the usual two sample statistic uses the
+ * pooled <code>H</code> with weights proportional to sample
+ * size; this is that for <code>n0==n1</code>, without the
+ * <code>n0*n1/(n0+n1)</code> factor.
+ * </ul>
+ * A distribution <code>F</code> and an observation
+ * <code>y</code> are compared in one sweep (or search) over
+ * <code>F</code>'s atoms:
+ * <ul>
+ * <li>{@link #ks(WECDF,double) ks}: KS distance to the point
+ * mass at <code>y</code>.
+ * <li>{@link #wasserstein(WECDF,double) wasserstein}:
+ * <code>E|X-y|</code>.
+ * <li>{@link #crps(WECDF,double) crps}: continuous ranked
+ * probability score, <code>&int; (F(x) - [y&le;x])<sup>2</sup>
+ * dx</code>, the Cram&eacute;r distance to the point mass.
+ * <li>{@link #pinball(WECDF,double,double[]) pinball}: quantile
+ * (pinball) loss, averaged over probabilities <code>p</code>.
+ * </ul>
+ * The batch forms score arrays of (distribution, observation)
+ * or (distribution, distribution) pairs in parallel, using
+ * {@link Parallel#parallelism()} threads.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class Distance extends Object {
+
+  /** Shorter batches run in the calling thread. */
+  private static final int PARALLEL_MIN = 256;
+
+  private static final int threads (final int n) {
+    return (n < PARALLEL_MIN) ? 1 : Parallel.parallelism(); }
+
+  //--------------------------------------------------------------
+  // two distributions
+  //--------------------------------------------------------------
+
+  private static final int KS = 0;
+  private static final int WASSERSTEIN = 1;
+  private static final int CRAMER = 2;
+  private static final int CVM = 3;
+
+  /** Merge sweep over the atoms of <code>f</code> and
+   * <code>g</code>, tracking both cdfs.
+   */
+  private static final double sweep (final int metric,
+                                     final WECDF f,
+                                     final WECDF g) {
+    final float[] z0 = f.zs(); final float[] c0 = f.ws();
+    final float[] z1 = g.zs(); final float[] c1 = g.ws();
+    final int n0 = z0.length;
+    final int n1 = z1.length;
+    int i0 = 0;
+    int i1 = 0;
+    double f0 = 0.0;
+    double f1 = 0.0;
+    double x0 = Double.NaN;
+    double s = 0.0;
+    while ((i0 < n0) || (i1 < n1)) {
+      final float x;
+      if (i1 >= n1) { x = z0[i0]; }
+      else if (i0 >= n0) { x = z1[i1]; }
+      else { x = Math.min(z0[i0],z1[i1]); }
+      // F and G are constant on [x0,x)
+      if ((WASSERSTEIN == metric) || (CRAMER == metric)) {
+        if (! Double.isNaN(x0)) {
+          final double d = f0 - f1;
+          s += (x - x0) * ((WASSERSTEIN == metric) ? Math.abs(d) : d*d); } }
+      double dh = 0.0;
+      if ((i0 < n0) && (z0[i0] == x)) {
+        dh += c0[i0] - f0; f0 = c0[i0]; i0++; }
+      if ((i1 < n1) && (z1[i1] == x)) {
+        dh += c1[i1] - f1; f1 = c1[i1]; i1++; }
+      final double d = f0 - f1;
+      if (KS == metric) { s = Math.max(s,Math.abs(d)); }
+      else if (CVM == metric) { s += 0.5 * dh * d * d; }
+      x0 = x; }
+    return s; }
+
+  /** @return <code>sup |F-G|</code>. */
+  public static final double ks (final WECDF f,
+                                 final WECDF g) {
+    return sweep(KS,f,g); }
+
+  /** @return <code>&int; |F-G| dx</code>. */
+  public static final double wasserstein (final WECDF f,
+                                          final WECDF g) {
+    return sweep(WASSERSTEIN,f,g); }
+
+  /** @return <code>&int; (F-G)<sup>2</sup> dx</code>. */
+  public static final double cramer (final WECDF f,
+                                     final WECDF g) {
+    return sweep(CRAMER,f,g); }
+
+  /** @return <code>&int; (F-G)<sup>2</sup> d((F+G)/2)</code>. */
+  public static final double cramerVonMises (final WECDF f,
+                                             final WECDF g) {
+    return sweep(CVM,f,g); }
+
+  //--------------------------------------------------------------
+  // distribution and observation
+  //--------------------------------------------------------------
+
+  /** @return number of atoms <code>&lt; y</code> (if
+   * <code>!inclusive</code>), or <code>&lt;= y</code>.
+   */
+  private static final int count (final float[] z,
+                                  final double y,
+                                  final boolean inclusive) {
+    int lo = 0;
+    int hi = z.length;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if ((z[mid] < y) || (inclusive && (z[mid] == y))) { lo = mid + 1; }
+      else { hi = mid; } }
+    return lo; }
+
+  /** @return <code>sup |F(x) - [y&le;x]|</code>, which is the
+   * larger of <code>F(y-)</code> and <code>1-F(y)</code>.
+   */
+  public static final double ks (final WECDF f,
+                                 final double y) {
+    final float[] z = f.zs();
+    final float[] c = f.ws();
+    final int below = count(z,y,false);
+    final int upto = count(z,y,true);
+    final double left = (0 == below) ? 0.0 : c[below-1];
+    final double right = (0 == upto) ? 0.0 : c[upto-1];
+    return Math.max(left,1.0 - right); }
+
+  /** @return <code>E|X-y|</code>, which is also
+   * <code>&int; |F(x) - [y&le;x]| dx</code>.
+   */
+  public static final double wasserstein (final WECDF f,
+                                          final double y) {
+    final float[] z = f.zs();
+    final float[] c = f.ws();
+    double s = 0.0;
+    double c0 = 0.0;
+    for (int i=0;i<z.length;i++) {
+      final double ci = c[i];
+      s += (ci - c0) * Math.abs(z[i] - y);
+      c0 = ci; }
+    return s; }
+
+  /** @return <code>&int; (F(x) - [y&le;x])<sup>2</sup> dx</code>.
+   */
+  public static final double crps (final WECDF f,
+                                   final double y) {
+    final float[] z = f.zs();
+    final float[] c = f.ws();
+    final int n = z.length;
+    // events: the atoms, and y, where the step function jumps.
+    double s = 0.0;
+    double fx = 0.0;
+    double hx = 0.0;
+    double x0 = Double.NaN;
+    boolean yDone = false;
+    int i = 0;
+    while ((i < n) || (! yDone)) {
+      final boolean atY = (! yDone) && ((i >= n) || (y <= z[i]));
+      final double x = atY ? y : z[i];
+      if (! Double.isNaN(x0)) {
+        final double d = fx - hx;
+        s += (x - x0) * d * d; }
+      if (atY) { hx = 1.0; yDone = true; }
+      else { fx = c[i]; i++; }
+      x0 = x; }
+    return s; }
+
+  /** @return <code>(y-q)*(p - [y&lt;q])</code>, where
+   * <code>q</code> is the <code>p</code> quantile.
+   */
+  private static final double pinball (final double y,
+                                       final double q,
+                                       final double p) {
+    final double u = y - q;
+    return (u < 0.0) ? ((p - 1.0) * u) : (p * u); }
+
+  /** @return the pinball loss of the <code>p</code> quantile of
+   * <code>f</code>, as a prediction of <code>y</code>.
+   * @param p in <code>(0,1)</code>.
+   */
+  public static final double pinball (final WECDF f,
+                                      final double y,
+                                      final double p) {
+    assert (0.0 < p) && (p < 1.0) : p;
+    return pinball(y,f.inverseCumulativeProbability(p),p); }
+
+  /** @return the mean pinball loss of the <code>p[i]</code>
+   * quantiles of <code>f</code>, as predictions of
+   * <code>y</code>. The quantiles are found in a single sweep if
+   * <code>p</code> is sorted.
+   * @param p all in <code>(0,1)</code>.
+   */
+  public static final double pinball (final WECDF f,
+                                      final double y,
+                                      final double[] p) {
+    final int m = p.length;
+    if (0 == m) {
+      throw new IllegalArgumentException("no probabilities"); }
+    final double[] q = f.inverseCumulativeProbabilities(p,new double[m]);
+    double s = 0.0;
+    for (int i=0;i<m;i++) {
+      assert (0.0 < p[i]) && (p[i] < 1.0) : p[i];
+      s += pinball(y,q[i],p[i]); }
+    return s / m; }
+
+  //--------------------------------------------------------------
+  // batches
+  //--------------------------------------------------------------
+
+  private static final void checkLengths (final int n0,
+                                          final int n1) {
+    if (n0 != n1) {
+      throw new IllegalArgumentException(
+        "unequal lengths: " + n0 + ", " + n1); } }
+
+  private static final double[] observed (final int metric,
+                                          final WECDF[] f,
+                                          final double[] y) {
+    checkLengths(f.length,y.length);
+    final double[] out = new double[f.length];
+    Parallel.run(threads(f.length),f.length,new Parallel.Body() {
+      @Override
+      public final void apply (final int start, final int end) {
+        for (int i=start;i<end;i++) {
+          switch (metric) {
+          case KS : out[i] = ks(f[i],y[i]); break;
+          case WASSERSTEIN : out[i] = wasserstein(f[i],y[i]); break;
+          default : out[i] = crps(f[i],y[i]); } } } });
+    return out; }
+
+  /** @return <code>ks(f[i],y[i])</code> for each <code>i</code>. */
+  public static final double[] ks (final WECDF[] f,
+                                   final double[] y) {
+    return observed(KS,f,y); }
+
+  /** @return <code>wasserstein(f[i],y[i])</code> for each
+   * <code>i</code>.
+   */
+  public static final double[] wasserstein (final WECDF[] f,
+                                            final double[] y) {
+    return observed(WASSERSTEIN,f,y); }
+
+  /** @return <code>crps(f[i],y[i])</code> for each <code>i</code>.
+   */
+  public static final double[] crps (final WECDF[] f,
+                                     final double[] y) {
+    return observed(CRAMER,f,y); }
+
+  /** @return <code>pinball(f[i],y[i],p)</code> for each
+   * <code>i</code>.
+   */
+  public static final double[] pinball (final WECDF[] f,
+                                        final double[] y,
+                                        final double[] p) {
+    checkLengths(f.length,y.length);
+    final double[] out = new double[f.length];
+    Parallel.run(threads(f.length),f.length,new Parallel.Body() {
+      @Override
+      public final void apply (final int start, final int end) {
+        for (int i=start;i<end;i++) { out[i] = pinball(f[i],y[i],p); } } });
+    return out; }
+
+  private static final double[] paired (final int metric,
+                                        final WECDF[] f,
+                                        final WECDF[] g) {
+    checkLengths(f.length,g.length);
+    final double[] out = new double[f.length];
+    Parallel.run(threads(f.length),f.length,new Parallel.Body() {
+      @Override
+      public final void apply (final int start, final int end) {
+        for (int i=start;i<end;i++) { out[i] = sweep(metric,f[i],g[i]); } } });
+    return out; }
+
+  /** @return <code>ks(f[i],g[i])</code> for each <code>i</code>. */
+  public static final double[] ks (final WECDF[] f,
+                                   final WECDF[] g) {
+    return paired(KS,f,g); }
+
+  /** @return <code>wasserstein(f[i],g[i])</code> for each
+   * <code>i</code>.
+   */
+  public static final double[] wasserstein (final WECDF[] f,
+                                            final WECDF[] g) {
+    return paired(WASSERSTEIN,f,g); }
+
+  /** @return <code>cramer(f[i],g[i])</code> for each
+   * <code>i</code>.
+   */
+  public static final double[] cramer (final WECDF[] f,
+                                       final WECDF[] g) {
+    return paired(CRAMER,f,g); }
+
+  /** @return <code>cramerVonMises(f[i],g[i])</code> for each
+   * <code>i</code>.
+   */
+  public static final double[] cramerVonMises (final WECDF[] f,
+                                               final WECDF[] g) {
+    return paired(CVM,f,g); }
+
+  //--------------------------------------------------------------
+  // disabled constructor
+  //--------------------------------------------------------------
+
+  private Distance () {
+    throw new UnsupportedOperationException(
+      "Can't instantiate " + getClass()); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
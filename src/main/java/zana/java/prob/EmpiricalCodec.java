@@ -0,0 +1,504 @@
+package zana.java.prob;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import zana.java.arrays.Search;
+import zana.java.math.Compensated;
+
+//----------------------------------------------------------------
+/** Compact binary files of {@link WEPDF}s and {@link WECDF}s, for
+ * models holding millions of them, where EDN, JSON and Java
+ * serialization spend most of their time formatting and parsing
+ * floats.
+ * <p>
+ * Everything is little-endian. A file is:
+ * <ul>
+ * <li>a header: magic number, version, and the number of
+ * records, as <code>int</code>s, and 4 bytes of padding;
+ * <li>the byte offset of each record, and of the end of the
+ * last, as <code>long</code>s, so records can be read in any
+ * order;
+ * <li>the records, each starting on a 4 byte boundary.
+ * </ul>
+ * A record is a kind byte ({@link WEPDF} or {@link WECDF}), the
+ * encodings of <code>z</code> and <code>w</code> as bytes, a
+ * padding byte, the number of atoms <code>n</code> as an
+ * <code>int</code>, then the <code>z</code> and <code>w</code>
+ * sections. Sections are encoded as:
+ * <ul>
+ * <li>{@link #RAW}: the IEEE bits of the <code>n</code> floats.
+ * <li>{@link #DELTA}: the length in bytes, then zigzag varints of
+ * the differences between successive
+ * {@link Search#sortable(float)} keys, padded to 4 bytes.
+ * Sorted <code>z</code>, and cumulative <code>w</code>, have
+ * small positive differences, usually 1 to 3 bytes each.
+ * <li>{@link #QUANTIZED}, for <code>w</code> only: like
+ * {@link #DELTA}, for the point masses (differences of a
+ * {@link WECDF}'s cumulative weights), rounded to
+ * {@link #QUANTIZED_BITS} mantissa bits. Lossy: relative error
+ * of each mass at most
+ * <code>2<sup>-(QUANTIZED_BITS+1)</sup></code>, before they are
+ * renormalized, and re-accumulated for a {@link WECDF}.
+ * </ul>
+ * {@link #RAW} and {@link #DELTA} round-trip exactly, to
+ * <code>equals</code> objects.
+ * <p>
+ * {@link #map(File)} memory-maps a file, and returns {@link View}s
+ * whose {@link #RAW} sections are {@link FloatBuffer}s over the
+ * mapped bytes, without copying. Mapped files are limited to
+ * <code>Integer.MAX_VALUE</code> bytes.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class EmpiricalCodec extends Object {
+
+  private static final int MAGIC = 0x6364657a; // "zedc"
+  private static final int VERSION = 1;
+  private static final int HEADER = 16;
+
+  private static final byte PDF = 0;
+  private static final byte CDF = 1;
+
+  /** IEEE floats, 4 bytes each. Can be viewed without copying. */
+  public static final byte RAW = 0;
+  /** Zigzag varint differences of sortable keys. Lossless. */
+  public static final byte DELTA = 1;
+  /** {@link #DELTA} after rounding mantissas. Lossy.
+   * <code>w</code> only.
+   */
+  public static final byte QUANTIZED = 2;
+
+  /** Mantissa bits kept by {@link #QUANTIZED}. */
+  public static final int QUANTIZED_BITS = 12;
+  private static final int DROPPED = 23 - QUANTIZED_BITS;
+
+  //--------------------------------------------------------------
+  // sections
+  //--------------------------------------------------------------
+
+  private static final int pad (final int n) { return (n + 3) & ~3; }
+
+  /** Round to nearest, ties away from zero, keeping
+   * {@link #QUANTIZED_BITS} mantissa bits, and return the
+   * sortable key shifted right by the dropped bits.
+   */
+  private static final int quantizedKey (final float x) {
+    final int bits = Float.floatToIntBits(x);
+    final int magnitude = bits & 0x7fffffff;
+    final int rounded =
+      ((magnitude + (1 << (DROPPED-1))) >>> DROPPED) << DROPPED;
+    // rounding up to infinity isn't a concern for weights in [0,1]
+    return Search.sortable(
+      Float.intBitsToFloat((bits & 0x80000000) | rounded))
+      >> DROPPED; }
+
+  private static final float unsortable (final int k) {
+    return Float.intBitsToFloat(k ^ ((k >> 31) & 0x7fffffff)); }
+
+  private static final float unquantized (final int k) {
+    final int s = k << DROPPED;
+    // negative keys had their low bits set by sortable()
+    return unsortable((0 > s) ? (s | ((1 << DROPPED) - 1)) : s); }
+
+  private static final void putVarint (final ByteBuffer b,
+                                       long x) {
+    while (0L != (x & ~0x7FL)) {
+      b.put((byte) ((x & 0x7F) | 0x80));
+      x >>>= 7; }
+    b.put((byte) x); }
+
+  private static final long getVarint (final ByteBuffer b) {
+    long x = 0L;
+    int shift = 0;
+    while (true) {
+      final byte bi = b.get();
+      x |= ((long) (bi & 0x7F)) << shift;
+      if (0 <= bi) { return x; }
+      shift += 7; } }
+
+  /** Upper bound on encoded section size, in bytes. */
+  private static final int maxBytes (final int n) {
+    return 4 + pad(5*n); }
+
+  private static final void encode (final ByteBuffer b,
+                                    final float[] x,
+                                    final byte coding) {
+    if (RAW == coding) {
+      for (final float xi : x) { b.putFloat(xi); }
+      return; }
+    final int start = b.position();
+    b.putInt(0);
+    long previous = 0L;
+    for (final float xi : x) {
+      final long k = (QUANTIZED == coding)
+        ? quantizedKey(xi) : Search.sortable(xi);
+      final long d = k - previous;
+      putVarint(b,(d << 1) ^ (d >> 63));
+      previous = k; }
+    final int length = b.position() - start - 4;
+    b.putInt(start,length);
+    while (0 != (b.position() & 3)) { b.put((byte) 0); } }
+
+  private static final float[] decode (final ByteBuffer b,
+                                       final int n,
+                                       final byte coding) {
+    final float[] x = new float[n];
+    if (RAW == coding) {
+      b.asFloatBuffer().get(x);
+      b.position(b.position() + 4*n);
+      return x; }
+    final int length = b.getInt();
+    final int end = b.position() + pad(length);
+    long previous = 0L;
+    for (int i=0;i<n;i++) {
+      final long z = getVarint(b);
+      previous += (z >>> 1) ^ -(z & 1L);
+      x[i] = (QUANTIZED == coding)
+        ? unquantized((int) previous) : unsortable((int) previous); }
+    b.position(end);
+    return x; }
+
+  private static final FloatBuffer section (final ByteBuffer b,
+                                            final int n,
+                                            final byte coding) {
+    if (RAW == coding) {
+      final ByteBuffer s = b.slice().order(ByteOrder.LITTLE_ENDIAN);
+      s.limit(4*n);
+      b.position(b.position() + 4*n);
+      return s.asFloatBuffer(); }
+    return FloatBuffer.wrap(decode(b,n,coding)); }
+
+  //--------------------------------------------------------------
+  // records
+  //--------------------------------------------------------------
+
+  /** Point masses, from cumulative weights. */
+  private static final float[] masses (final float[] w) {
+    final float[] m = new float[w.length];
+    float previous = 0.0F;
+    for (int i=0;i<w.length;i++) {
+      m[i] = w[i] - previous;
+      previous = w[i]; }
+    return m; }
+
+  /** Quantized masses no longer sum to 1. Returns
+   * <code>m</code>, renormalized in place, and accumulated if
+   * <code>cumulative</code>.
+   */
+  private static final float[] normalized (final float[] m,
+                                           final boolean cumulative) {
+    final int n = m.length;
+    final double s = Compensated.sum(m);
+    if (! cumulative) {
+      for (int i=0;i<n;i++) { m[i] = (float) (m[i] / s); }
+      return m; }
+    double c = 0.0;
+    for (int i=0;i<n;i++) { c += m[i]; m[i] = (float) (c / s); }
+    m[n-1] = 1.0F;
+    return m; }
+
+  private static final float[] decodeWeights (final ByteBuffer b,
+                                              final int n,
+                                              final byte coding,
+                                              final boolean cumulative) {
+    final float[] w = decode(b,n,coding);
+    if (QUANTIZED == coding) { return normalized(w,cumulative); }
+    return w; }
+
+  private static final void checkCoding (final byte coding,
+                                         final byte max) {
+    if ((0 > coding) || (max < coding)) {
+      throw new IllegalArgumentException(
+        "Unknown encoding: " + coding); } }
+
+  /** Upper bound on the encoded size of a distribution with
+   * <code>n</code> atoms, in bytes.
+   */
+  public static final int maxRecordBytes (final int n) {
+    return 8 + 2*maxBytes(n); }
+
+  /** Append <code>rpm</code> to <code>b</code>, which must be
+   * little-endian, with at least {@link #maxRecordBytes(int)}
+   * remaining, and positioned on a 4 byte boundary.
+   * @throws IllegalArgumentException if <code>rpm</code> isn't a
+   * {@link WEPDF} or {@link WECDF}, or for unknown encodings.
+   */
+  public static final void encode (final ByteBuffer b,
+                                   final Object rpm,
+                                   final byte zCoding,
+                                   final byte wCoding) {
+    checkCoding(zCoding,DELTA);
+    checkCoding(wCoding,QUANTIZED);
+    final byte kind;
+    final float[] z;
+    final float[] w;
+    if (rpm instanceof WEPDF) {
+      kind = PDF; z = ((WEPDF) rpm).zs(); w = ((WEPDF) rpm).ws(); }
+    else if (rpm instanceof WECDF) {
+      kind = CDF; z = ((WECDF) rpm).zs(); w = ((WECDF) rpm).ws(); }
+    else {
+      throw new IllegalArgumentException(
+        "Can't encode " + ((null == rpm) ? null : rpm.getClass())); }
+    b.put(kind);
+    b.put(zCoding);
+    b.put(wCoding);
+    b.put((byte) 0);
+    b.putInt(z.length);
+    encode(b,z,zCoding);
+    encode(b,((CDF == kind) && (QUANTIZED == wCoding)) ? masses(w) : w,
+      wCoding); }
+
+  /** Read a {@link WEPDF} or {@link WECDF} written by
+   * {@link #encode(ByteBuffer,Object,byte,byte)}, from the
+   * current position of <code>b</code>, which must be
+   * little-endian.
+   */
+  public static final Object decode (final ByteBuffer b) {
+    final byte kind = b.get();
+    final byte zCoding = b.get();
+    final byte wCoding = b.get();
+    b.get();
+    final int n = b.getInt();
+    final float[] z = decode(b,n,zCoding);
+    if (PDF == kind) {
+      return WEPDF.sortedAndNormalized(z,decodeWeights(b,n,wCoding,false)); }
+    if (CDF == kind) {
+      return WECDF.sortedAndNormalized(z,decodeWeights(b,n,wCoding,true)); }
+    throw new IllegalArgumentException("Unknown kind: " + kind); }
+
+  //--------------------------------------------------------------
+  // views
+  //--------------------------------------------------------------
+  /** A read-only record, whose {@link #RAW} sections are
+   * backed by the underlying (usually mapped) buffer, rather
+   * than copied. Other encodings are decoded when the view is
+   * created.
+   */
+
+  public static final class View extends Object {
+
+    private final boolean cumulative;
+    private final FloatBuffer z;
+    private final FloatBuffer w;
+
+    /** Is this a {@link WECDF}, with cumulative weights? */
+    public final boolean isCumulative () { return cumulative; }
+    public final int size () { return z.limit(); }
+    public final float z (final int i) { return z.get(i); }
+    public final float w (final int i) { return w.get(i); }
+
+    /** Like {@link java.util.Arrays#binarySearch(float[],float)}.
+     */
+    private static final int binarySearch (final FloatBuffer a,
+                                           final float key) {
+      int lo = 0;
+      int hi = a.limit() - 1;
+      final int k = Search.sortable(key);
+      while (lo <= hi) {
+        final int mid = (lo + hi) >>> 1;
+        final int km = Search.sortable(a.get(mid));
+        if (km < k) { lo = mid + 1; }
+        else if (km > k) { hi = mid - 1; }
+        else { return mid; } }
+      return -(lo + 1); }
+
+    private final void checkCumulative () {
+      if (! cumulative) {
+        throw new UnsupportedOperationException(
+          "Only WECDF views support cdf and quantile queries."); } }
+
+    /** Identical to {@link WECDF#cumulativeProbability(double)}.
+     * @throws UnsupportedOperationException for {@link WEPDF}s.
+     */
+    public final double cumulativeProbability (final double x) {
+      checkCumulative();
+      final int i = binarySearch(z,(float) x);
+      final int j = (0 <= i) ? i : (-2 - i);
+      if (-1 == j) { return 0.0; }
+      return w.get(j); }
+
+    /** Identical to
+     * {@link WECDF#inverseCumulativeProbability(double)}.
+     * @throws UnsupportedOperationException for {@link WEPDF}s.
+     */
+    public final double inverseCumulativeProbability (final double p) {
+      assert ((0.0 <= p) && (p <= 1.0));
+      checkCumulative();
+      final int n = z.limit();
+      if (0.0 == p) { return Double.NEGATIVE_INFINITY; }
+      if (1.0 == p) { return z.get(n-1); }
+      final int i = binarySearch(w,(float) p);
+      if (0 <= i) { return z.get(i); }
+      final int j = -1 - i;
+      if (0 == j) { return z.get(0); }
+      if ((p - w.get(j-1)) < Math.ulp(1.0F)) { return z.get(j-1); }
+      return z.get(j); }
+
+    /** Copy into a {@link WEPDF} or {@link WECDF}. */
+    public final Object toDistribution () {
+      final int n = z.limit();
+      final float[] zz = new float[n];
+      final float[] ww = new float[n];
+      z.duplicate().get(zz);
+      w.duplicate().get(ww);
+      if (cumulative) { return WECDF.sortedAndNormalized(zz,ww); }
+      return WEPDF.sortedAndNormalized(zz,ww); }
+
+    private View (final ByteBuffer b) {
+      final byte kind = b.get();
+      final byte zCoding = b.get();
+      final byte wCoding = b.get();
+      b.get();
+      final int n = b.getInt();
+      if ((PDF != kind) && (CDF != kind)) {
+        throw new IllegalArgumentException("Unknown kind: " + kind); }
+      cumulative = (CDF == kind);
+      z = section(b,n,zCoding);
+      w = (RAW == wCoding) ? section(b,n,wCoding)
+        : FloatBuffer.wrap(decodeWeights(b,n,wCoding,cumulative)); } }
+
+  //--------------------------------------------------------------
+  // files
+  //--------------------------------------------------------------
+
+  private static final void flush (final FileChannel channel,
+                                   final ByteBuffer b)
+    throws IOException {
+    b.flip();
+    while (b.hasRemaining()) { channel.write(b); }
+    b.clear(); }
+
+  /** Write <code>rpms</code>, {@link WEPDF}s and/or
+   * {@link WECDF}s, to <code>f</code>, with the given encodings
+   * of <code>z</code> ({@link #RAW} or {@link #DELTA}) and
+   * <code>w</code> ({@link #RAW}, {@link #DELTA}, or
+   * {@link #QUANTIZED}).
+   */
+  public static final void write (final List rpms,
+                                  final File f,
+                                  final byte zCoding,
+                                  final byte wCoding)
+    throws IOException {
+    final int count = rpms.size();
+    final long[] offsets = new long[count+1];
+    try (final RandomAccessFile file = new RandomAccessFile(f,"rw");
+      final FileChannel channel = file.getChannel()) {
+      channel.truncate(0L);
+      // file offset of b[0]
+      long flushed = HEADER + 8L*(count+1);
+      channel.position(flushed);
+      ByteBuffer b = ByteBuffer.allocate(1 << 16)
+        .order(ByteOrder.LITTLE_ENDIAN);
+      for (int i=0;i<count;i++) {
+        final Object rpm = rpms.get(i);
+        final int n = (rpm instanceof WEPDF)
+          ? ((WEPDF) rpm).zs().length
+          : (rpm instanceof WECDF) ? ((WECDF) rpm).zs().length : 0;
+        final int m = maxRecordBytes(n);
+        if (b.remaining() < m) {
+          flushed += b.position();
+          flush(channel,b);
+          if (b.capacity() < m) {
+            b = ByteBuffer.allocate(m).order(ByteOrder.LITTLE_ENDIAN); } }
+        offsets[i] = flushed + b.position();
+        encode(b,rpm,zCoding,wCoding); }
+      offsets[count] = flushed + b.position();
+      flush(channel,b);
+      final ByteBuffer h = ByteBuffer.allocate(HEADER + 8*(count+1))
+        .order(ByteOrder.LITTLE_ENDIAN);
+      h.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0);
+      for (final long offset : offsets) { h.putLong(offset); }
+      channel.position(0L);
+      flush(channel,h); } }
+
+  //--------------------------------------------------------------
+  // the records of a mapped file
+  //--------------------------------------------------------------
+
+  private static final class Records extends AbstractList<View>
+  implements RandomAccess {
+
+    private final ByteBuffer bytes;
+    private final int count;
+
+    @Override
+    public final int size () { return count; }
+
+    @Override
+    public final View get (final int i) {
+      if ((0 > i) || (count <= i)) {
+        throw new IndexOutOfBoundsException(
+          i + " not in [0," + count + ")"); }
+      final ByteBuffer b = bytes.duplicate()
+        .order(ByteOrder.LITTLE_ENDIAN);
+      b.position((int) bytes.getLong(HEADER + 8*i));
+      return new View(b); }
+
+    private Records (final ByteBuffer bytes,
+                     final Object source) {
+      this.bytes = bytes.order(ByteOrder.LITTLE_ENDIAN);
+      if ((HEADER > bytes.limit())
+        || (MAGIC != bytes.getInt(0))
+        || (VERSION != bytes.getInt(4))) {
+        throw new IllegalArgumentException(
+          "Not an empirical distribution file: " + source); }
+      this.count = bytes.getInt(8); } }
+
+  /** Memory-map <code>f</code>, written by
+   * {@link #write(List,File,byte,byte)}, as a read-only list of
+   * {@link View}s, each created on demand.
+   * @throws IllegalArgumentException if <code>f</code> isn't
+   * such a file, or is too large to map.
+   */
+  public static final List<View> map (final File f)
+    throws IOException {
+    try (final RandomAccessFile file = new RandomAccessFile(f,"r");
+      final FileChannel channel = file.getChannel()) {
+      final long size = channel.size();
+      if (Integer.MAX_VALUE < size) {
+        throw new IllegalArgumentException(
+          "Can't map " + f + ", " + size + " bytes."); }
+      // the mapping remains valid after the channel is closed
+      return new Records(
+        channel.map(FileChannel.MapMode.READ_ONLY,0L,size),f); } }
+
+  /** Read all the distributions in <code>f</code>, written by
+   * {@link #write(List,File,byte,byte)}.
+   * @return a list of {@link WEPDF}s and/or {@link WECDF}s.
+   */
+  public static final List<Object> read (final File f)
+    throws IOException {
+    final Records records = (Records) map(f);
+    final int count = records.size();
+    final List<Object> rpms = new ArrayList<Object>(count);
+    final ByteBuffer b = records.bytes.duplicate()
+      .order(ByteOrder.LITTLE_ENDIAN);
+    for (int i=0;i<count;i++) {
+      b.position((int) records.bytes.getLong(HEADER + 8*i));
+      rpms.add(decode(b)); }
+    return rpms; }
+
+  //--------------------------------------------------------------
+  // disabled constructor
+  //--------------------------------------------------------------
+
+  private EmpiricalCodec () {
+    throw new UnsupportedOperationException(
+      "Can't instantiate " + getClass()); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
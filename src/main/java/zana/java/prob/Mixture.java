@@ -0,0 +1,314 @@
+package zana.java.prob;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+import zana.java.arrays.KeySorter;
+import zana.java.math.Compensated;
+import zana.java.math.Statistics;
+
+//----------------------------------------------------------------
+/** Mixtures (convex combinations) of {@link WEPDF}s and
+ * {@link WECDF}s, eg averaging the leaf distributions of a
+ * quantile forest.
+ * <p>
+ * The components' atoms are already sorted and unique, so a few
+ * components are combined by a heap based k-way merge, in
+ * O(total atoms * log(components)), with no re-sort. More than
+ * 16 components are concatenated and radix sorted by
+ * {@link KeySorter}, which is then faster. Either way, the
+ * masses of tied atoms are summed in <code>double</code>.
+ * <p>
+ * The result is exact, up to rounding the masses to
+ * <code>float</code>, unless it has more than
+ * <code>maxAtoms</code> atoms. Then adjacent atoms are pooled
+ * into at most <code>maxAtoms</code> bins of about equal
+ * mass, each represented by one atom at the bin's mean, as in
+ * {@link QuantileSketch}. That preserves the mean (up to
+ * rounding), and changes the cdf by at most one bin's mass:
+ * about <code>1/maxAtoms</code>, plus the largest atom's.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class Mixture extends Object {
+
+  //--------------------------------------------------------------
+  // merge
+  //--------------------------------------------------------------
+  // Merged atoms, with unnormalized double masses.
+
+  private static final class Atoms {
+    private final float[] z;
+    private final double[] m;
+    private final int n;
+    Atoms (final float[] z, final double[] m, final int n) {
+      this.z = z; this.m = m; this.n = n; } }
+
+  private static final float[] locations (final Object d) {
+    if (d instanceof WEPDF) { return ((WEPDF) d).zs(); }
+    if (d instanceof WECDF) { return ((WECDF) d).zs(); }
+    throw new IllegalArgumentException(
+      "not a WEPDF or WECDF: "
+      + ((null == d) ? "null" : d.getClass().getName())); }
+
+  /** @return point masses, <em>not</em> cumulative. */
+  private static final float[] masses (final Object d) {
+    if (d instanceof WEPDF) { return ((WEPDF) d).ws(); }
+    return Statistics.differences(((WECDF) d).ws()); }
+
+  private static final double[] checkWeights (final int n,
+                                              final double[] weights) {
+    if (0 == n) {
+      throw new IllegalArgumentException("no components"); }
+    if (null == weights) {
+      final double[] u = new double[n];
+      Arrays.fill(u,1.0/n);
+      return u; }
+    if (n != weights.length) {
+      throw new IllegalArgumentException(
+        n + " components, but " + weights.length + " weights"); }
+    double s = 0.0;
+    for (final double wi : weights) {
+      if (! ((0.0 <= wi) && (wi < Double.POSITIVE_INFINITY))) {
+        throw new IllegalArgumentException(
+          "mixture weights must be finite and non-negative: "
+          + Arrays.toString(weights)); }
+      s += wi; }
+    if (0.0 >= s) {
+      throw new IllegalArgumentException(
+        "mixture weights sum to zero: " + Arrays.toString(weights)); }
+    return weights; }
+
+  /** With more components, concatenating and radix sorting with
+   * {@link KeySorter} is faster than a k-way merge.
+   */
+  private static final int HEAP_MAX = 16;
+
+  private static final Atoms merge (final List ds,
+                                    final double[] mixtureWeights) {
+    final int k = ds.size();
+    final double[] a = checkWeights(k,mixtureWeights);
+    final float[][] zs = new float[k][];
+    final float[][] ms = new float[k][];
+    final double[] as = new double[k];
+    int h = 0;
+    int total = 0;
+    for (int j=0;j<k;j++) {
+      final Object d = ds.get(j);
+      final float[] z = locations(d);
+      if ((0.0 < a[j]) && (0 < z.length)) {
+        zs[h] = z;
+        ms[h] = masses(d);
+        as[h] = a[j];
+        total += z.length;
+        h++; } }
+    if (h <= HEAP_MAX) { return heapMerge(zs,ms,as,h,total); }
+    return sortMerge(zs,ms,as,h,total); }
+
+  /** Append an atom, summing ties, and dropping zero masses.
+   * @return the new number of atoms.
+   */
+  private static final int append (final float[] z,
+                                   final double[] m,
+                                   final int n,
+                                   final float zi,
+                                   final double mi) {
+    if ((0 < n) && (z[n-1] == zi)) { m[n-1] += mi; return n; }
+    if (0.0 < mi) { z[n] = zi; m[n] = mi; return n + 1; }
+    return n; }
+
+  private static final Atoms heapMerge (final float[][] zs,
+                                        final float[][] ms,
+                                        final double[] as,
+                                        final int k,
+                                        final int total) {
+    // min heap of components, on the location of each one's next
+    // atom, kept alongside, so comparisons don't chase pointers.
+    final int[] heap = new int[k];
+    final float[] keys = new float[k];
+    final int[] next = new int[k];
+    for (int j=0;j<k;j++) { heap[j] = j; keys[j] = zs[j][0]; }
+    int h = k;
+    for (int i=(h >>> 1)-1;i>=0;i--) {
+      siftDown(heap,keys,h,i,heap[i],keys[i]); }
+    final float[] z = new float[total];
+    final double[] m = new double[total];
+    int n = 0;
+    while (0 < h) {
+      final int j = heap[0];
+      final int i = next[j];
+      n = append(z,m,n,keys[0],as[j]*ms[j][i]);
+      final int i1 = i + 1;
+      next[j] = i1;
+      if (i1 < zs[j].length) { siftDown(heap,keys,h,0,j,zs[j][i1]); }
+      else {
+        h--;
+        if (0 < h) { siftDown(heap,keys,h,0,heap[h],keys[h]); } } }
+    return new Atoms(z,m,n); }
+
+  private static final Atoms sortMerge (final float[][] zs,
+                                        final float[][] ms,
+                                        final double[] as,
+                                        final int k,
+                                        final int total) {
+    final float[] z = new float[total];
+    final double[] m = new double[total];
+    for (int j=0,i=0;j<k;j++) {
+      final float[] zj = zs[j];
+      final float[] mj = ms[j];
+      final double aj = as[j];
+      System.arraycopy(zj,0,z,i,zj.length);
+      for (int ij=0;ij<mj.length;ij++,i++) { m[i] = aj*mj[ij]; } }
+    KeySorter.sort(z,new Object[] { m });
+    int n = 0;
+    for (int i=0;i<total;i++) { n = append(z,m,n,z[i],m[i]); }
+    return new Atoms(z,m,n); }
+
+  /** Put component <code>j</code>, with key <code>zj</code>, at
+   * <code>start</code>, and restore the heap below it.
+   */
+  private static final void siftDown (final int[] heap,
+                                      final float[] keys,
+                                      final int h,
+                                      final int start,
+                                      final int j,
+                                      final float zj) {
+    int i = start;
+    for (;;) {
+      int c = (2*i) + 1;
+      if (c >= h) { break; }
+      float zc = keys[c];
+      if ((c + 1) < h) {
+        final float zr = keys[c+1];
+        if (zr < zc) { c++; zc = zr; } }
+      if (zj <= zc) { break; }
+      heap[i] = heap[c];
+      keys[i] = zc;
+      i = c; }
+    heap[i] = j;
+    keys[i] = zj; }
+
+  //--------------------------------------------------------------
+  // bounded size
+  //--------------------------------------------------------------
+  /** Pool adjacent atoms into at most <code>maxAtoms</code>
+   * bins, assigning each atom to the bin containing the middle
+   * of its mass.
+   */
+  private static final Atoms bin (final Atoms atoms,
+                                  final int maxAtoms) {
+    if (maxAtoms < 1) {
+      throw new IllegalArgumentException(
+        "maxAtoms must be positive: " + maxAtoms); }
+    final int n = atoms.n;
+    if (n <= maxAtoms) { return atoms; }
+    final float[] z = atoms.z;
+    final double[] m = atoms.m;
+    final double total = Compensated.sum(m,0,n);
+    final float[] bz = new float[maxAtoms];
+    final double[] bm = new double[maxAtoms];
+    int nb = 0;
+    int bin = -1;
+    double cum = 0.0;
+    double sm = 0.0;
+    double szm = 0.0;
+    for (int i=0;i<n;i++) {
+      final int b =
+        Math.min(maxAtoms-1,
+                 (int) (((cum + (0.5*m[i])) / total) * maxAtoms));
+      if (b != bin) {
+        if (0.0 < sm) { bz[nb] = (float) (szm/sm); bm[nb] = sm; nb++; }
+        bin = b; sm = 0.0; szm = 0.0; }
+      sm += m[i];
+      szm += m[i] * z[i];
+      cum += m[i]; }
+    bz[nb] = (float) (szm/sm); bm[nb] = sm; nb++;
+    // bins cover disjoint ranges of sorted floats, so their
+    // rounded means are still strictly increasing.
+    return new Atoms(bz,bm,nb); }
+
+  //--------------------------------------------------------------
+  // mixtures
+  //--------------------------------------------------------------
+  /** Mixture of <code>ds</code>.
+   *
+   * @param rng source of randomness for sampling. May be null.
+   * @param ds {@link WEPDF}s and/or {@link WECDF}s.
+   * @param weights non-negative mixture weights, one per
+   * component; need not be normalized. <code>null</code> means
+   * equal weights.
+   * @param maxAtoms bound on the size of the result.
+   */
+  public static final WEPDF wepdf (final RandomGenerator rng,
+                                   final List ds,
+                                   final double[] weights,
+                                   final int maxAtoms) {
+    final Atoms atoms = bin(merge(ds,weights),maxAtoms);
+    final int n = atoms.n;
+    final double total = Compensated.sum(atoms.m,0,n);
+    final float[] w = new float[n];
+    for (int i=0;i<n;i++) { w[i] = (float) (atoms.m[i] / total); }
+    return WEPDF.sortedAndNormalized(
+      rng,Arrays.copyOf(atoms.z,n),w); }
+
+  /** Exact mixture of <code>ds</code>.
+   *
+   * @param ds {@link WEPDF}s and/or {@link WECDF}s.
+   * @param weights non-negative mixture weights, one per
+   * component; need not be normalized. <code>null</code> means
+   * equal weights.
+   */
+  public static final WEPDF wepdf (final List ds,
+                                   final double[] weights) {
+    return wepdf(null,ds,weights,Integer.MAX_VALUE); }
+
+  /** Mixture of <code>ds</code>, as a cumulative distribution.
+   *
+   * @param rng source of randomness for sampling. May be null.
+   * @param ds {@link WEPDF}s and/or {@link WECDF}s.
+   * @param weights non-negative mixture weights, one per
+   * component; need not be normalized. <code>null</code> means
+   * equal weights.
+   * @param maxAtoms bound on the size of the result.
+   */
+  public static final WECDF wecdf (final RandomGenerator rng,
+                                   final List ds,
+                                   final double[] weights,
+                                   final int maxAtoms) {
+    final Atoms atoms = bin(merge(ds,weights),maxAtoms);
+    final int n = atoms.n;
+    final double[] c = Arrays.copyOf(atoms.m,n);
+    Statistics.normalizeCumulativeSums(c);
+    final float[] w = new float[n];
+    for (int i=0;i<n;i++) { w[i] = (float) c[i]; }
+    return WECDF.sortedAndNormalized(
+      rng,Arrays.copyOf(atoms.z,n),w); }
+
+  /** Exact mixture of <code>ds</code>, as a cumulative
+   * distribution.
+   *
+   * @param ds {@link WEPDF}s and/or {@link WECDF}s.
+   * @param weights non-negative mixture weights, one per
+   * component; need not be normalized. <code>null</code> means
+   * equal weights.
+   */
+  public static final WECDF wecdf (final List ds,
+                                   final double[] weights) {
+    return wecdf(null,ds,weights,Integer.MAX_VALUE); }
+
+  //--------------------------------------------------------------
+  // disabled constructor
+  //--------------------------------------------------------------
+
+  private Mixture () {
+    throw new UnsupportedOperationException(
+      "Can't instantiate " + getClass()); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,347 @@
+package zana.java.prob;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+//----------------------------------------------------------------
+/** A mutable weighted empirical distribution, for sliding window
+ * quantiles, etc., where rebuilding a {@link WECDF} with
+ * {@link WECDF#make} on every change would cost
+ * O(n log n).
+ * <p>
+ * A treap (randomized balanced binary search tree) keyed by the
+ * distinct <code>float</code> values, each node holding the total
+ * weight of its value, and of its subtree, so {@link #insert},
+ * {@link #delete}, {@link #cdf} and {@link #quantile} are
+ * O(log n) expected, and {@link #toWECDF()} is an O(n)
+ * in-order walk, with no sorting.
+ * <p>
+ * Each value also counts how many times it has been inserted,
+ * less deleted, and is removed when that reaches zero, so
+ * rounding errors in the weights can't leave stray atoms
+ * behind. Subtree weights are recomputed from their children,
+ * rather than incremented, so they don't drift over long runs
+ * of updates.
+ * <p>
+ * <code>-0.0</code> is treated as <code>0.0</code>.
+ * <p>
+ * Like {@link QuantileSketch}, <strong>NOT</strong> thread-safe.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class OrderStatisticTree {
+
+  //--------------------------------------------------------------
+  // slots
+  //--------------------------------------------------------------
+
+  private static final int NIL = -1;
+
+  // nodes, in parallel arrays; free nodes are chained
+  // through _left.
+
+  private float[] _z;
+  private double[] _w;
+  private double[] _sum;
+  private int[] _count;
+  private int[] _left;
+  private int[] _right;
+  private int[] _priority;
+
+  private int _root;
+  private int _free;
+  private int _capacity;
+  private int _size;
+  private int _seed;
+
+  /** Number of distinct values. */
+  public final int size () { return _size; }
+
+  public final boolean isEmpty () { return 0 == _size; }
+
+  public final double totalWeight () {
+    return (NIL == _root) ? 0.0 : _sum[_root]; }
+
+  //--------------------------------------------------------------
+  // nodes
+  //--------------------------------------------------------------
+
+  private final double sum (final int t) {
+    return (NIL == t) ? 0.0 : _sum[t]; }
+
+  private final void update (final int t) {
+    _sum[t] = sum(_left[t]) + _w[t] + sum(_right[t]); }
+
+  /** xorshift; priorities need only be distinct and
+   * unpredictable from the keys.
+   */
+  private final int nextPriority () {
+    int x = _seed;
+    x ^= x << 13; x ^= x >>> 17; x ^= x << 5;
+    _seed = x;
+    return x; }
+
+  private final void grow () {
+    final int m = Math.max(16, 2*_capacity);
+    _z = Arrays.copyOf(_z,m);
+    _w = Arrays.copyOf(_w,m);
+    _sum = Arrays.copyOf(_sum,m);
+    _count = Arrays.copyOf(_count,m);
+    _left = Arrays.copyOf(_left,m);
+    _right = Arrays.copyOf(_right,m);
+    _priority = Arrays.copyOf(_priority,m);
+    for (int i=m-1;i>=_capacity;i--) { _left[i] = _free; _free = i; }
+    _capacity = m; }
+
+  private final int node (final float z,
+                          final double w) {
+    if (NIL == _free) { grow(); }
+    final int t = _free;
+    _free = _left[t];
+    _z[t] = z; _w[t] = w; _sum[t] = w; _count[t] = 1;
+    _left[t] = NIL; _right[t] = NIL;
+    _priority[t] = nextPriority();
+    _size++;
+    return t; }
+
+  private final void release (final int t) {
+    _left[t] = _free;
+    _free = t;
+    _size--; }
+
+  private final int rotateRight (final int t) {
+    final int l = _left[t];
+    _left[t] = _right[l];
+    _right[l] = t;
+    update(t);
+    update(l);
+    return l; }
+
+  private final int rotateLeft (final int t) {
+    final int r = _right[t];
+    _right[t] = _left[r];
+    _left[r] = t;
+    update(t);
+    update(r);
+    return r; }
+
+  //--------------------------------------------------------------
+  // updating
+  //--------------------------------------------------------------
+
+  private static final float key (final float z) {
+    if (z != z) {
+      throw new IllegalArgumentException("Can't add NaN."); }
+    // -0.0 == 0.0
+    return (0.0F == z) ? 0.0F : z; }
+
+  private final int insert (final int t,
+                            final float z,
+                            final double w) {
+    if (NIL == t) { return node(z,w); }
+    final float zt = _z[t];
+    if (z == zt) { _w[t] += w; _count[t]++; update(t); return t; }
+    // insert may grow the node arrays, so don't write into
+    // them until it returns.
+    if (z < zt) {
+      final int l = insert(_left[t],z,w);
+      _left[t] = l;
+      update(t);
+      if (_priority[l] > _priority[t]) { return rotateRight(t); } }
+    else {
+      final int r = insert(_right[t],z,w);
+      _right[t] = r;
+      update(t);
+      if (_priority[r] > _priority[t]) { return rotateLeft(t); } }
+    return t; }
+
+  /** Add <code>z</code> with weight <code>w</code>.
+   * @throws IllegalArgumentException if <code>z</code> is
+   * <code>NaN</code>.
+   */
+  public final void insert (final float z,
+                            final double w) {
+    final float k = key(z);
+    assert (0.0 < w) && (w < Double.POSITIVE_INFINITY) :
+      "weight not positive and finite: " + w;
+    _root = insert(_root,k,w); }
+
+  /** Add <code>z</code> with weight 1.0. */
+  public final void insert (final float z) { insert(z,1.0); }
+
+  /** Add <code>z[i]</code> with weight <code>w[i]</code>. */
+  public final void insert (final float[] z,
+                            final float[] w) {
+    assert z.length == w.length;
+    for (int i=0;i<z.length;i++) { insert(z[i],w[i]); } }
+
+  /** Remove the root of subtree <code>t</code>.
+   * @return the new root.
+   */
+  private final int remove (final int t) {
+    final int l = _left[t];
+    final int r = _right[t];
+    if (NIL == l) { release(t); return r; }
+    if (NIL == r) { release(t); return l; }
+    if (_priority[l] > _priority[r]) {
+      final int s = rotateRight(t);
+      _right[s] = remove(t);
+      update(s);
+      return s; }
+    final int s = rotateLeft(t);
+    _left[s] = remove(t);
+    update(s);
+    return s; }
+
+  private final int delete (final int t,
+                            final float z,
+                            final double w) {
+    if (NIL == t) {
+      throw new IllegalArgumentException(
+        "Can't delete " + z + ", not present."); }
+    final float zt = _z[t];
+    if (z == zt) {
+      if (0 == --_count[t]) { return remove(t); }
+      _w[t] = Math.max(0.0, _w[t] - w); }
+    else if (z < zt) { _left[t] = delete(_left[t],z,w); }
+    else { _right[t] = delete(_right[t],z,w); }
+    update(t);
+    return t; }
+
+  /** Remove one previous {@link #insert(float,double)} of
+   * <code>z</code> with weight <code>w</code>.
+   * @throws IllegalArgumentException if <code>z</code> isn't
+   * present.
+   */
+  public final void delete (final float z,
+                            final double w) {
+    _root = delete(_root,key(z),w); }
+
+  /** Remove one previous {@link #insert(float)} of
+   * <code>z</code>.
+   */
+  public final void delete (final float z) { delete(z,1.0); }
+
+  /** Reset to empty. */
+  public final void clear () {
+    _root = NIL;
+    _free = NIL;
+    _size = 0;
+    for (int i=_capacity-1;i>=0;i--) { _left[i] = _free; _free = i; } }
+
+  //--------------------------------------------------------------
+  // queries
+  //--------------------------------------------------------------
+  /** Like {@link WECDF#cumulativeProbability(double)}: the
+   * fraction of the total weight at values
+   * <code>&lt;= (float) x</code>.
+   */
+  public final double cdf (final double x) {
+    if (NIL == _root) {
+      throw new IllegalStateException("Empty " + getClass()); }
+    final float xf = (float) x;
+    double s = 0.0;
+    int t = _root;
+    while (NIL != t) {
+      if (_z[t] <= xf) { s += sum(_left[t]) + _w[t]; t = _right[t]; }
+      else { t = _left[t]; } }
+    return Math.min(1.0, s / _sum[_root]); }
+
+  /** Like {@link WECDF#inverseCumulativeProbability(double)}:
+   * the smallest value whose {@link #cdf} is at least
+   * <code>p</code> (less <code>Math.ulp(1.0F)</code>, for
+   * rounding errors).
+   */
+  public final double quantile (final double p) {
+    assert ((0.0 <= p) && (p <= 1.0)) : p;
+    if (NIL == _root) {
+      throw new IllegalStateException("Empty " + getClass()); }
+    if (0.0 == p) { return Double.NEGATIVE_INFINITY; }
+    int t = _root;
+    if (1.0 == p) {
+      while (NIL != _right[t]) { t = _right[t]; }
+      return _z[t]; }
+    double target = (p - Math.ulp(1.0F)) * _sum[_root];
+    int last = t;
+    while (NIL != t) {
+      last = t;
+      final double sl = sum(_left[t]);
+      if (sl > target) { t = _left[t]; }
+      else if ((sl + _w[t]) > target) { return _z[t]; }
+      else { target -= sl + _w[t]; t = _right[t]; } }
+    // only reachable through rounding errors
+    return _z[last]; }
+
+  //--------------------------------------------------------------
+  // snapshots
+  //--------------------------------------------------------------
+  /** An immutable copy of the current distribution, built by an
+   * O(n) in-order walk.
+   * @param rng source of randomness for sampling. May be null.
+   */
+  public final WECDF toWECDF (final RandomGenerator rng) {
+    if (NIL == _root) {
+      throw new IllegalStateException("Empty " + getClass()); }
+    final int n = _size;
+    final float[] z = new float[n];
+    final double[] c = new double[n];
+    final int[] stack = new int[n];
+    int top = 0;
+    int i = 0;
+    int t = _root;
+    double s = 0.0;
+    while ((NIL != t) || (0 < top)) {
+      while (NIL != t) { stack[top++] = t; t = _left[t]; }
+      t = stack[--top];
+      s += _w[t];
+      z[i] = _z[t];
+      c[i] = s;
+      i++;
+      t = _right[t]; }
+    final float[] w = new float[n];
+    for (int j=0;j<n;j++) { w[j] = (float) (c[j] / s); }
+    w[n-1] = 1.0F;
+    return WECDF.sortedAndNormalized(rng,z,w); }
+
+  /** An immutable copy of the current distribution. */
+  public final WECDF toWECDF () {
+    return toWECDF((RandomGenerator) null); }
+
+  //--------------------------------------------------------------
+  // Object interface
+  //--------------------------------------------------------------
+
+  @Override
+  public final String toString () {
+    return "(OrderStatisticTree " + _size
+      + " " + totalWeight() + ")"; }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  private OrderStatisticTree () {
+    super();
+    _z = new float[0];
+    _w = new double[0];
+    _sum = new double[0];
+    _count = new int[0];
+    _left = new int[0];
+    _right = new int[0];
+    _priority = new int[0];
+    _root = NIL;
+    _free = NIL;
+    _capacity = 0;
+    _size = 0;
+    _seed = 0x2545F491; }
+
+  public static final OrderStatisticTree make () {
+    return new OrderStatisticTree(); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
@@ -0,0 +1,355 @@
+package zana.java.prob;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+import zana.java.arrays.KeySorter;
+
+//----------------------------------------------------------------
+/** Weighted, mergeable, bounded memory approximation to an
+ * empirical distribution, for data too large to hold in memory
+ * as the <code>float[] z, w</code> needed by
+ * {@link WECDF#make(float[],float[])}.
+ * <p>
+ * A variant of Dunning's merging t-digest: the sketch is a
+ * list of centroids (mean, total weight, min, max), sorted by
+ * mean, plus a buffer of recently added points. When the buffer
+ * fills, it is sorted and merged into the centroids, combining
+ * neighbors as long as no centroid weighs more than
+ * <code>epsilon*totalWeight()</code>, or more than the total
+ * weight on either side of it.
+ * The first limit means there are at most about
+ * <code>2/epsilon</code> centroids in the middle of the
+ * distribution; the second keeps the minimum and maximum exact,
+ * makes the error in the tails relative rather than absolute,
+ * and adds only <code>O(log(epsilon*n))</code> centroids.
+ * At <code>epsilon=0.01</code>, a sketch of
+ * <code>10<sup>5</sup></code> points is about 150 centroids,
+ * about 16 kilobytes in all.
+ * <p>
+ * {@link #toWECDF()} and {@link #toWEPDF()} put each centroid's
+ * weight at its mean. {@link #rankErrorBound()} returns a
+ * guaranteed bound on the resulting error in the cdf, computed
+ * from the centroids' weights, means, and ranges. It is
+ * typically 2 to 4 times the actual error, which is about
+ * <code>epsilon/2</code>.
+ * Merging sketches with overlapping ranges can increase it,
+ * roughly by <code>epsilon</code> per level of merging.
+ * <p>
+ * Like {@link zana.java.accumulator.Accumulator}s, sketches are
+ * mutable and <strong>NOT</strong> thread-safe. To use multiple
+ * threads, give each its own sketch, and {@link #merge} the
+ * results.
+ *
+ * @author wahpenayo at gmail dot com
+ * @since 2026-10-18
+ * @version 2026-10-18
+ */
+
+public final class QuantileSketch {
+
+  //--------------------------------------------------------------
+  // slots
+  //--------------------------------------------------------------
+
+  private final double _epsilon;
+  /** Maximum centroid weight, as a fraction of the total
+   * weight.
+   */
+  public final double epsilon () { return _epsilon; }
+
+  private double _totalWeight;
+  public final double totalWeight () { return _totalWeight; }
+
+  // centroids, sorted by mean
+
+  private int _n;
+  private double[] _mean;
+  private double[] _weight;
+  private double[] _min;
+  private double[] _max;
+
+  // reused when merging centroids, swapped with the above
+
+  private double[] _mean1;
+  private double[] _weight1;
+  private double[] _min1;
+  private double[] _max1;
+
+  // recently added points, not yet in any centroid
+
+  private int _nb;
+  private final double[] _bz;
+  private final double[] _bw;
+
+  //--------------------------------------------------------------
+  /** Number of centroids, after merging buffered points. */
+  public final int centroidCount () { compress(); return _n; }
+
+  //--------------------------------------------------------------
+  // merging centroids
+  //--------------------------------------------------------------
+
+  private final void ensureCapacity (final int n) {
+    if (n > _mean1.length) {
+      final int m = Math.max(n, 2*_mean1.length);
+      _mean1 = new double[m];
+      _weight1 = new double[m];
+      _min1 = new double[m];
+      _max1 = new double[m]; } }
+
+  /** Merge sorted centroids <code>(m,w,lo,hi)</code> with this
+   * sketch's centroids, combining neighbors up to the weight
+   * limit.
+   */
+  private final void merge (final double[] m,
+                            final double[] w,
+                            final double[] lo,
+                            final double[] hi,
+                            final int n) {
+    if (0 == n) { return; }
+    ensureCapacity(_n + n);
+    final double total = _totalWeight;
+    final double limit = _epsilon * total;
+    // weight of centroids left of k
+    double before = 0.0;
+    final double[] m1 = _mean1;
+    final double[] w1 = _weight1;
+    final double[] lo1 = _min1;
+    final double[] hi1 = _max1;
+    int k = -1;
+    int i = 0;
+    int j = 0;
+    while ((i < _n) || (j < n)) {
+      final double mk;
+      final double wk;
+      final double lok;
+      final double hik;
+      if ((j >= n) || ((i < _n) && (_mean[i] <= m[j]))) {
+        mk = _mean[i]; wk = _weight[i]; lok = _min[i]; hik = _max[i];
+        i++; }
+      else {
+        mk = m[j]; wk = w[j]; lok = lo[j]; hik = hi[j];
+        j++; }
+      final double wsum = (0 <= k) ? w1[k] + wk : Double.NaN;
+      final double after = total - before - wsum;
+      // always merge ties, which costs nothing in accuracy
+      if ((0 <= k)
+        && ((wsum <= Math.min(limit,Math.min(before,after)))
+          || ((lo1[k] == hik) && (hi1[k] == lok)))) {
+        m1[k] += (mk - m1[k]) * (wk / wsum);
+        w1[k] = wsum;
+        if (lok < lo1[k]) { lo1[k] = lok; }
+        if (hik > hi1[k]) { hi1[k] = hik; } }
+      else {
+        if (0 <= k) { before += w1[k]; }
+        k++;
+        m1[k] = mk; w1[k] = wk; lo1[k] = lok; hi1[k] = hik; } }
+    // swap
+    _mean1 = _mean; _weight1 = _weight; _min1 = _min; _max1 = _max;
+    _mean = m1; _weight = w1; _min = lo1; _max = hi1;
+    _n = k + 1; }
+
+  /** Merge any buffered points into the centroids. */
+  private final void compress () {
+    if (0 == _nb) { return; }
+    KeySorter.sort(_bz,0,_nb,new Object[] { _bw });
+    merge(_bz,_bw,_bz,_bz,_nb);
+    _nb = 0; }
+
+  //--------------------------------------------------------------
+  // updating
+  //--------------------------------------------------------------
+  /** Add <code>z</code> with weight <code>w</code>.
+   * @throws IllegalArgumentException if <code>z</code> is
+   * <code>NaN</code>.
+   */
+  public final void add (final double z,
+                         final double w) {
+    if (z != z) {
+      throw new IllegalArgumentException("Can't add NaN."); }
+    assert 0.0 < w : "non-positive weight: " + w;
+    if (_nb == _bz.length) { compress(); }
+    _bz[_nb] = z;
+    _bw[_nb] = w;
+    _nb++;
+    _totalWeight += w; }
+
+  /** Add <code>z</code> with weight 1.0. */
+  public final void add (final double z) { add(z,1.0); }
+
+  /** Add <code>z[i]</code> with weight <code>w[i]</code>. */
+  public final void add (final float[] z,
+                         final float[] w) {
+    assert z.length == w.length;
+    for (int i=0;i<z.length;i++) { add(z[i],w[i]); } }
+
+  /** Add <code>z[i]</code> with weight <code>w[i]</code>. */
+  public final void add (final double[] z,
+                         final double[] w) {
+    assert z.length == w.length;
+    for (int i=0;i<z.length;i++) { add(z[i],w[i]); } }
+
+  /** Add everything in <code>that</code> to this sketch.
+   * <code>that</code> is not modified.
+   */
+  public final void merge (final QuantileSketch that) {
+    if (this == that) {
+      throw new IllegalArgumentException("Can't merge with itself."); }
+    for (int i=0;i<that._nb;i++) { add(that._bz[i],that._bw[i]); }
+    compress();
+    _totalWeight += that._totalWeight;
+    for (int i=0;i<that._nb;i++) { _totalWeight -= that._bw[i]; }
+    merge(that._mean,that._weight,that._min,that._max,that._n); }
+
+  /** Reset to an empty sketch. */
+  public final void clear () {
+    _n = 0;
+    _nb = 0;
+    _totalWeight = 0.0; }
+
+  //--------------------------------------------------------------
+  // accuracy
+  //--------------------------------------------------------------
+  /** A guaranteed bound on
+   * <code>|F(x) - G(x)|</code>, over all <code>x</code>, where
+   * <code>F</code> is the cdf of the data added so far and
+   * <code>G</code> is the cdf of {@link #toWECDF()}, as a fraction
+   * of the total weight (ignoring rounding of weights to
+   * <code>float</code>).
+   * <p>
+   * <code>G</code> puts each centroid's weight at its mean
+   * <code>t</code>, so can only be wrong about centroids with
+   * <code>min &lt;= x &lt; max</code>. Those with
+   * <code>x &lt; t</code> make <code>G</code> too small; those
+   * with <code>t &lt;= x</code> too large, so the error is at most
+   * the larger of the two sums.
+   * A centroid's share of either sum is at most its weight, and
+   * also, since its mean is <code>t</code>, at most
+   * <code>w*(max-t)/(max-x)</code> when <code>x&lt;t</code>,
+   * and <code>w*(t-min)/(x-min)</code> when <code>t&lt;=x</code>.
+   * The first sum is largest just before, and the second at, some
+   * centroid mean, so it's enough to check those.
+   */
+  public final double rankErrorBound () {
+    compress();
+    if (0.0 >= _totalWeight) { return 0.0; }
+    final int n = _n;
+    // locations of point masses in G
+    final float[] t = zs();
+    final double[] under = new double[n];
+    final double[] over = new double[n];
+    for (int c=0;c<n;c++) {
+      final double m = _weight[c];
+      final double mu = _mean[c];
+      final double a = _min[c];
+      final double b = _max[c];
+      final double tc = t[c];
+      if (a == b) { continue; }
+      // centroids with the same float mean
+      int j0 = c;
+      while ((0 < j0) && (t[j0-1] == tc)) { j0--; }
+      int j1 = c;
+      while ((j1+1 < n) && (t[j1+1] == tc)) { j1++; }
+      // x approaching t[j] from below, a < t[j] <= t[c]
+      for (int j=j1;(0<=j) && (a<t[j]);j--) {
+        if (t[j] == tc) {
+          if (mu < tc) { under[j] += m; }
+          else if (b > tc) { under[j] += m * Math.min(1.0,(b-mu)/(b-tc)); } }
+        else {
+          under[j] += m * Math.min(1.0,(b-mu)/(b-t[j])); } }
+      // x == t[j], t[c] <= t[j] < b
+      for (int j=j0;(j<n) && (t[j]<b);j++) {
+        if (mu > t[j]) { over[j] += m; }
+        else if (t[j] > a) {
+          over[j] += m * Math.min(1.0,(mu-a)/(t[j]-a)); } } }
+    double worst = 0.0;
+    for (int j=0;j<n;j++) {
+      worst = Math.max(worst,Math.max(under[j],over[j])); }
+    return Math.min(1.0, worst / _totalWeight); }
+
+  //--------------------------------------------------------------
+  // conversion
+  //--------------------------------------------------------------
+
+  private final float[] zs () {
+    final float[] z = new float[_n];
+    for (int i=0;i<_n;i++) { z[i] = (float) _mean[i]; }
+    return z; }
+
+  private final float[] ws () {
+    final float[] w = new float[_n];
+    for (int i=0;i<_n;i++) { w[i] = (float) _weight[i]; }
+    return w; }
+
+  /** A point mass at the mean of each centroid.
+   * @param rng source of randomness for sampling. May be null.
+   */
+  public final WEPDF toWEPDF (final RandomGenerator rng) {
+    compress();
+    if (0 == _n) {
+      throw new IllegalStateException("Empty " + getClass()); }
+    return WEPDF.make(rng,zs(),ws()); }
+
+  /** A point mass at the mean of each centroid. */
+  public final WEPDF toWEPDF () {
+    return toWEPDF((RandomGenerator) null); }
+
+  /** A point mass at the mean of each centroid.
+   * @param rng source of randomness for sampling. May be null.
+   */
+  public final WECDF toWECDF (final RandomGenerator rng) {
+    compress();
+    if (0 == _n) {
+      throw new IllegalStateException("Empty " + getClass()); }
+    return WECDF.make(rng,zs(),ws()); }
+
+  /** A point mass at the mean of each centroid. */
+  public final WECDF toWECDF () {
+    return toWECDF((RandomGenerator) null); }
+
+  //--------------------------------------------------------------
+  // Object interface
+  //--------------------------------------------------------------
+
+  @Override
+  public final String toString () {
+    return "(QuantileSketch " + _epsilon
+      + " " + _totalWeight
+      + " " + (_n + _nb) + ")"; }
+
+  //--------------------------------------------------------------
+  // construction
+  //--------------------------------------------------------------
+
+  private QuantileSketch (final double epsilon) {
+    super();
+    assert (0.0 < epsilon) && (epsilon < 1.0) :
+      "epsilon not in (0,1): " + epsilon;
+    _epsilon = epsilon;
+    _totalWeight = 0.0;
+    // in the middle, any 2 adjacent centroids weigh more than
+    // epsilon*total; grown as needed for the tails
+    final int capacity = ((int) Math.ceil(2.0 / epsilon)) + 2;
+    _n = 0;
+    _mean = new double[capacity];
+    _weight = new double[capacity];
+    _min = new double[capacity];
+    _max = new double[capacity];
+    _mean1 = new double[capacity];
+    _weight1 = new double[capacity];
+    _min1 = new double[capacity];
+    _max1 = new double[capacity];
+    _nb = 0;
+    _bz = new double[capacity];
+    _bw = new double[capacity]; }
+
+  /** An empty sketch.
+   * @param epsilon maximum centroid weight, as a fraction
+   * of the total weight, in <code>(0,1)</code>.
+   */
+  public static final QuantileSketch make (final double epsilon) {
+    return new QuantileSketch(epsilon); }
+
+  //--------------------------------------------------------------
+} // end class
+//----------------------------------------------------------------
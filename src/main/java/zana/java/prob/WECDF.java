@@ -5,7 +5,8 @@ import java.util.Arrays;
 import org.apache.commons.math3.distribution.AbstractRealDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
 
-import zana.java.arrays.Sorter;
+import zana.java.arrays.Search;
+import zana.java.arrays.KeySorter;
 import zana.java.math.Statistics;
 
 //----------------------------------------------------------------
@@ -25,7 +26,7 @@ import zana.java.math.Statistics;
  * like hurts significantly in space and time.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-02-12
+ * @version 2026-10-18
  */
 
 public final class WECDF extends AbstractRealDistribution 
@@ -45,6 +46,10 @@ implements ApproximatelyEqual {
   public final float[] getW () { 
     return Arrays.copyOf(w,w.length); }
 
+  // not copies; for merging, etc., in this package. Don't modify.
+  final float[] zs () { return z; }
+  final float[] ws () { return w; }
+
   //--------------------------------------------------------------
   // RealDistribution interface
   //--------------------------------------------------------------
@@ -78,6 +83,149 @@ implements ApproximatelyEqual {
     if ((p - w[j-1]) < Math.ulp(1.0F)) { return z[j-1]; }
     return z[j]; }
 
+  //--------------------------------------------------------------
+  // batch queries
+  //--------------------------------------------------------------
+  // Results are identical to the scalar methods above, which
+  // depend on Arrays.binarySearch(float[],float), so the
+  // searches compare Search.sortable keys rather than using <.
+
+  /** <code>w[upperBound-1]</code>, or 0.0 if
+   * <code>upperBound==0</code>.
+   */
+  private final double cdfAt (final int upperBound) {
+    return (0 == upperBound) ? 0.0 : w[upperBound-1]; }
+
+  /** Equivalent to
+   * <code>cumulativeProbability(x[i])</code>, for all
+   * <code>i</code>.
+   * If <code>x</code> is sorted, the values are computed in a
+   * single sweep over <code>z</code>; otherwise each is found
+   * by a branch-free binary search.
+   * @param x points at which to evaluate the cdf.
+   * @param cdf output array, at least as long as <code>x</code>.
+   * @return <code>cdf</code>.
+   */
+  public final double[] cumulativeProbabilities (final double[] x,
+                                                 final double[] cdf) {
+    final int m = x.length;
+    assert m <= cdf.length;
+    final int n = z.length;
+    if (Search.isSortable(x)) {
+      int k = 0;
+      for (int i=0;i<m;i++) {
+        k = Search.gallopUpperBound(z,k,Search.sortable((float) x[i]));
+        cdf[i] = cdfAt(k); } }
+    else {
+      for (int i=0;i<m;i++) {
+        cdf[i] = cdfAt(
+          Search.upperBound(z,0,n,Search.sortable((float) x[i]))); } }
+    return cdf; }
+
+  /** Equivalent to
+   * <code>cumulativeProbability(x[i])</code>, for all
+   * <code>i</code>.
+   * If <code>x</code> is sorted, the values are computed in a
+   * single sweep over <code>z</code>; otherwise each is found
+   * by a branch-free binary search.
+   * @param x points at which to evaluate the cdf.
+   * @param cdf output array, at least as long as <code>x</code>.
+   * @return <code>cdf</code>.
+   */
+  public final double[] cumulativeProbabilities (final float[] x,
+                                                 final double[] cdf) {
+    final int m = x.length;
+    assert m <= cdf.length;
+    final int n = z.length;
+    if (Search.isSortable(x)) {
+      int k = 0;
+      for (int i=0;i<m;i++) {
+        k = Search.gallopUpperBound(z,k,Search.sortable(x[i]));
+        cdf[i] = cdfAt(k); } }
+    else {
+      for (int i=0;i<m;i++) {
+        cdf[i] = cdfAt(
+          Search.upperBound(z,0,n,Search.sortable(x[i]))); } }
+    return cdf; }
+
+  /** Same logic as {@link #inverseCumulativeProbability(double)},
+   * given the first index of <code>w</code> not less than
+   * <code>(float) p</code>.
+   */
+  private final double quantileAt (final double p,
+                                   final int lowerBound) {
+    final int n = w.length;
+    final float pf = (float) p;
+    if ((lowerBound < n)
+      && (Search.sortable(w[lowerBound]) == Search.sortable(pf))) {
+      return z[lowerBound]; }
+    final int j = lowerBound;
+    if (0 == j) { return z[0]; }
+    if ((p - w[j-1]) < Math.ulp(1.0F)) { return z[j-1]; }
+    return z[j]; }
+
+  /** Equivalent to
+   * <code>inverseCumulativeProbability(p[i])</code>, for all
+   * <code>i</code>.
+   * If <code>p</code> is sorted, the values are computed in a
+   * single sweep over <code>w</code>; otherwise each is found
+   * by a branch-free binary search.
+   * @param p probabilities, all in <code>[0,1]</code>.
+   * @param q output array, at least as long as <code>p</code>.
+   * @return <code>q</code>.
+   */
+  public final double[]
+    inverseCumulativeProbabilities (final double[] p,
+                                    final double[] q) {
+    final int m = p.length;
+    assert m <= q.length;
+    final int n = w.length;
+    final boolean sorted = Search.isSortable(p);
+    int k = 0;
+    for (int i=0;i<m;i++) {
+      final double pi = p[i];
+      assert ((0.0 <= pi) && (pi <= 1.0));
+      if (0.0 == pi) { q[i] = Double.NEGATIVE_INFINITY; }
+      else if (1.0 == pi) { q[i] = z[n-1]; }
+      else {
+        final int key = Search.sortable((float) pi);
+        k = sorted
+          ? Search.gallopLowerBound(w,k,key)
+            : Search.lowerBound(w,0,n,key);
+        q[i] = quantileAt(pi,k); } }
+    return q; }
+
+  /** Equivalent to
+   * <code>inverseCumulativeProbability(p[i])</code>, for all
+   * <code>i</code>.
+   * If <code>p</code> is sorted, the values are computed in a
+   * single sweep over <code>w</code>; otherwise each is found
+   * by a branch-free binary search.
+   * @param p probabilities, all in <code>[0,1]</code>.
+   * @param q output array, at least as long as <code>p</code>.
+   * @return <code>q</code>.
+   */
+  public final double[]
+    inverseCumulativeProbabilities (final float[] p,
+                                    final double[] q) {
+    final int m = p.length;
+    assert m <= q.length;
+    final int n = w.length;
+    final boolean sorted = Search.isSortable(p);
+    int k = 0;
+    for (int i=0;i<m;i++) {
+      final double pi = p[i];
+      assert ((0.0 <= pi) && (pi <= 1.0));
+      if (0.0 == pi) { q[i] = Double.NEGATIVE_INFINITY; }
+      else if (1.0 == pi) { q[i] = z[n-1]; }
+      else {
+        final int key = Search.sortable(p[i]);
+        k = sorted
+          ? Search.gallopLowerBound(w,k,key)
+            : Search.lowerBound(w,0,n,key);
+        q[i] = quantileAt(pi,k); } }
+    return q; }
+
   @Override
   public final double density (final double x) {
     throw new UnsupportedOperationException(
@@ -85,19 +233,18 @@ implements ApproximatelyEqual {
 
   @Override
   public final double getNumericalMean () {
-    // TODO: use fused-multiply-add in JDK9 for more accurate value
     // TODO: cache value?
-    double w0 = w[0];
-    double s = z[0]*w0;
+    // Kahan, point masses differenced in double
+    double w0 = 0.0;
+    double s = 0.0;
     double c = 0.0;
-    for (int i=1;i<z.length;i++) {
+    for (int i=0;i<z.length;i++) {
       final double w1 = w[i];
       final double zi = z[i]*(w1 - w0) - c;
       w0 = w1;
       final double t = s + zi;
       c = (t - s) - zi;
-      s = t; 
-    } 
+      s = t; }
     return s; }
 
   @Override
@@ -105,17 +252,17 @@ implements ApproximatelyEqual {
     // TODO: Chan algorithm?
     // TODO: cache value?
     final double mean = getNumericalMean();
-    double w0 = w[0];
-    double s = w0*(z[0]-mean)*(z[0]-mean);
+    double w0 = 0.0;
+    double s = 0.0;
     double c = 0.0;
     for (int i=0;i<z.length;i++) {
       final double dz = z[i] - mean;
       final double w1 = w[i];
-      final double zi = dz*dz*(w1-w0) - c;
+      final double zi = dz*dz*(w1 - w0) - c;
       w0 = w1;
       final double t = s + zi;
       c = (t - s) - zi;
-      s = t; } 
+      s = t; }
     return s; }
 
   @Override
@@ -133,6 +280,60 @@ implements ApproximatelyEqual {
   @Override
   public final boolean isSupportConnected () { return false; }
 
+  //--------------------------------------------------------------
+  // sampling
+  //--------------------------------------------------------------
+  // Walker/Vose alias table, built on first use, instead of
+  // inverting the cdf for each draw.
+
+  private transient volatile AliasTable _alias = null;
+
+  private final AliasTable aliasTable () {
+    AliasTable a = _alias;
+    if (null == a) { a = AliasTable.fromCumulative(w); _alias = a; }
+    return a; }
+
+  /** @return approximate bytes held by the cached alias table,
+   * which {@link #clearCache()} would release.
+   */
+  public final long cacheBytes () {
+    final AliasTable a = _alias;
+    return (null == a) ? 0L : a.bytes(); }
+
+  /** Drop the cached alias table, eg for distributions that are
+   * no longer sampled. It is rebuilt if needed.
+   */
+  public final void clearCache () { _alias = null; }
+
+  /** O(1) per draw, using this distribution's generator. */
+  @Override
+  public final double sample () { return sample(random); }
+
+  @Override
+  public final double[] sample (final int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException(
+        "number of samples must be positive: " + n); }
+    return sample(random,n,new double[n]); }
+
+  /** O(1) per draw, using <code>rng</code>, so threads can
+   * share this distribution, each with its own generator.
+   */
+  public final double sample (final RandomGenerator rng) {
+    return z[aliasTable().sample(rng)]; }
+
+  /** Fill <code>out[0,n)</code> with draws using
+   * <code>rng</code>.
+   * @return <code>out</code>
+   */
+  public final double[] sample (final RandomGenerator rng,
+                                final int n,
+                                final double[] out) {
+    assert n <= out.length;
+    final AliasTable a = aliasTable();
+    for (int i=0;i<n;i++) { out[i] = z[a.sample(rng)]; }
+    return out; }
+
   //--------------------------------------------------------------
   // ApproximatelyEquals interface
   //--------------------------------------------------------------
@@ -238,7 +439,7 @@ implements ApproximatelyEqual {
     assert Statistics.isPositive(w) : Arrays.toString(w);
     final float[] z1 = Arrays.copyOf(z,n);
     final float[] w1 = Arrays.copyOf(w,n);
-    Sorter.quicksort(z1,w1);
+    KeySorter.sort(z1,new Object[] { w1 });
     // TODO: better messages with large arrays
     assert Statistics.notDecreasing(z1) :
       "not non-decreasing:\n" + Arrays.toString(z1);
@@ -258,9 +459,8 @@ implements ApproximatelyEqual {
       else {
         // no tie, increment both counters
         // copy to left counter if needed
-        i++;
-        if (i != j) { 
-          zi = zj; wi = wj; z1[i] = zj; w1[i] = wj; } } }
+        i++; zi = zj; wi = wj;
+        if (i != j) { z1[i] = zj; w1[i] = wj; } } }
 
     // copy into shorter arrays if needed
     final float[] z2;
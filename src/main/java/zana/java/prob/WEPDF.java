@@ -6,7 +6,7 @@ import java.util.List;
 import org.apache.commons.math3.distribution.AbstractRealDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
 
-import zana.java.arrays.Sorter;
+import zana.java.arrays.KeySorter;
 import zana.java.math.Statistics;
 
 //----------------------------------------------------------------
@@ -25,7 +25,7 @@ import zana.java.math.Statistics;
  * like hurts significantly in space and time.
  * 
  * @author wahpenayo at gmail dot com
- * @version 2018-02-12
+ * @version 2026-10-18
  */
 
 public final class WEPDF extends AbstractRealDistribution 
@@ -45,6 +45,10 @@ implements ApproximatelyEqual {
   public final float[] getW () { 
     return Arrays.copyOf(w,w.length); }
 
+  // not copies; for merging, etc., in this package. Don't modify.
+  final float[] zs () { return z; }
+  final float[] ws () { return w; }
+
   //--------------------------------------------------------------
   // RealDistribution interface
   //--------------------------------------------------------------
@@ -63,10 +67,7 @@ implements ApproximatelyEqual {
     else { k = -1 - i; }
     assert (0 <= k);
     if (0 == k) { return 0.0; }
-    return 
-      Math.min(
-        Math.max(0.0, Statistics.kahanSum(w,0,k)), 
-        1.0); }
+    return index().cdf[k-1]; }
 
   @Override
   public final double inverseCumulativeProbability (final double p) {
@@ -74,15 +75,17 @@ implements ApproximatelyEqual {
     if (0.0 == p) { return Double.NEGATIVE_INFINITY; }
     final int n = z.length;
     if (1.0 == p) { return z[n-1]; }
-    double s = w[0];
-    for (int i=0;;) {
-      // shouldn't be possible to go outside array bounds 
-      // with valid <code>z,w</code>.
-      assert (i < n);
-      if ((p - s) < Math.ulp(1.0F)) { return z[i]; }
-      i++;
-      s += w[i];
-      s = Math.min(Math.max(0.0, s), 1.0); } }
+    // first i with (p - s[i]) < ulp(1.0F); the predicate is
+    // monotone, since s is non-decreasing.
+    final double[] s = index().walk;
+    final float eps = Math.ulp(1.0F);
+    int lo = 0;
+    int hi = n-1;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if ((p - s[mid]) < eps) { hi = mid; }
+      else { lo = mid + 1; } }
+    return z[lo]; }
 
   @Override
   public final double density (final double x) {
@@ -91,15 +94,15 @@ implements ApproximatelyEqual {
 
   @Override
   public final double getNumericalMean () {
-    // TODO: use fused-multiply-add in JDK9 for more accurate value
     // TODO: cache value?
+    // Kahan, products exact in double
     double s = 0.0;
     double c = 0.0;
     for (int i=0;i<z.length;i++) {
-      final double zi = z[i]*w[i] - c;
+      final double zi = ((double) z[i])*w[i] - c;
       final double t = s + zi;
       c = (t - s) - zi;
-      s = t; } 
+      s = t; }
     return s; }
 
   @Override
@@ -114,7 +117,7 @@ implements ApproximatelyEqual {
       final double zi = dz*dz*w[i] - c;
       final double t = s + zi;
       c = (t - s) - zi;
-      s = t; } 
+      s = t; }
     return s; }
 
   @Override
@@ -132,6 +135,108 @@ implements ApproximatelyEqual {
   @Override
   public final boolean isSupportConnected () { return false; }
 
+  //--------------------------------------------------------------
+  // cached indexes
+  //--------------------------------------------------------------
+  // Built on first use, and may be dropped with clearCache().
+  // Racing threads may each build one; they are equal, and only
+  // published whole, through the volatile fields.
+
+  /** Prefix sums of <code>w</code>: <code>cdf[i]</code> is the
+   * Kahan sum of <code>w[0..i]</code>, clamped to
+   * <code>[0,1]</code>, the value
+   * <code>cumulativeProbability(z[i])</code> has always
+   * returned. <code>walk[i]</code> is the naive, clamped running
+   * sum, which <code>inverseCumulativeProbability</code> has
+   * always compared to <code>p</code>. Keeping both means
+   * queries are O(log n) rather than O(n), with the same
+   * answers.
+   */
+  private static final class Index {
+    private final double[] cdf;
+    private final double[] walk;
+    Index (final float[] w) {
+      final int n = w.length;
+      cdf = new double[n];
+      walk = new double[n];
+      double s = 0.0;
+      double c = 0.0;
+      double sw = w[0];
+      for (int i=0;i<n;i++) {
+        final double wi = w[i] - c;
+        final double t = s + wi;
+        c = (t - s) - wi;
+        s = t;
+        cdf[i] = Math.min(Math.max(0.0, s), 1.0);
+        if (0 < i) { sw = Math.min(Math.max(0.0, sw + w[i]), 1.0); }
+        walk[i] = sw; } }
+    final long bytes () {
+      return AliasTable.bytes(cdf) + AliasTable.bytes(walk); } }
+
+  private transient volatile Index _index = null;
+
+  private final Index index () {
+    Index a = _index;
+    if (null == a) { a = new Index(w); _index = a; }
+    return a; }
+
+  private transient volatile AliasTable _alias = null;
+
+  /** @return approximate bytes held by cached indexes, which
+   * {@link #clearCache()} would release.
+   */
+  public final long cacheBytes () {
+    final Index i = _index;
+    final AliasTable a = _alias;
+    return
+      ((null == i) ? 0L : i.bytes())
+      + ((null == a) ? 0L : a.bytes()); }
+
+  /** Drop the cached indexes, eg for distributions that are no
+   * longer queried. They are rebuilt if needed.
+   */
+  public final void clearCache () { _index = null; _alias = null; }
+
+  //--------------------------------------------------------------
+  // sampling
+  //--------------------------------------------------------------
+  // Walker/Vose alias table, instead of inverting the cdf for
+  // each draw.
+
+  private final AliasTable aliasTable () {
+    AliasTable a = _alias;
+    if (null == a) { a = AliasTable.make(w); _alias = a; }
+    return a; }
+
+  /** O(1) per draw, using this distribution's generator. */
+  @Override
+  public final double sample () { return sample(random); }
+
+  @Override
+  public final double[] sample (final int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException(
+        "number of samples must be positive: " + n); }
+    return sample(random,n,new double[n]); }
+
+  /** O(1) per draw, using <code>rng</code>, so threads can
+   * share this distribution, each with its own generator.
+   */
+  public final double sample (final RandomGenerator rng) {
+    return z[aliasTable().sample(rng)]; }
+
+  /** Fill <code>out[0,n)</code> with draws using
+   * <code>rng</code>.
+   * @return <code>out</code>
+   */
+  public final double[] sample (final RandomGenerator rng,
+                                final int n,
+                                final double[] out) {
+    assert n <= out.length;
+    final AliasTable a = aliasTable();
+    for (int i=0;i<n;i++) { out[i] = z[a.sample(rng)]; }
+    return out; }
+
   //--------------------------------------------------------------
   // ApproximatelyEquals interface
   //--------------------------------------------------------------
@@ -234,7 +339,7 @@ implements ApproximatelyEqual {
     assert Statistics.isPositive(w) : Arrays.toString(w);
     final float[] z1 = Arrays.copyOf(z,n);
     final float[] w1 = Arrays.copyOf(w,n);
-    Sorter.quicksort(z1,w1);
+    KeySorter.sort(z1,new Object[] { w1 });
     
     // TODO: better messages with large arrays
     assert Statistics.notDecreasing(z1) :
@@ -328,24 +433,12 @@ implements ApproximatelyEqual {
   
   /** Return the average distribution (convex sum with equal 
    * weight for each distribution, not equal weight for each 
-   * datum on each distribution).
+   * datum on each distribution), by a k-way merge of the
+   * already sorted atoms.
+   * @see Mixture
    */
   public static final WEPDF average (final List wepdfs) {
-    int n=0;
-    for (final Object x : wepdfs) {
-      n += ((WEPDF) x).z.length; }
-    final float[] zz = new float[n];
-    final float[] ww = new float[n];
-    int i=0;
-    for (final Object x : wepdfs) {
-      final WEPDF wepdf = (WEPDF) x;
-      final float[] zi = wepdf.z;
-      final float[] wi = wepdf.w;
-      final int ni = zi.length;
-      System.arraycopy(zi,0,zz,i,ni);
-      System.arraycopy(wi,0,ww,i,ni);
-      i += ni; }
-    return make(zz,ww); }
+    return Mixture.wepdf(wepdfs,null); }
   //--------------------------------------------------------------
 } // end class
 //----------------------------------------------------------------
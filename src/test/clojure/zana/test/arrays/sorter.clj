@@ -0,0 +1,119 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com"
+      :date "2026-10-18"
+      :doc "Unit tests for zana.java.arrays.KeySorter." }
+
+    zana.test.arrays.sorter
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+
+  (:import [java.util Arrays]
+           [org.apache.commons.math3.random RandomGenerator]
+           [zana.java.arrays KeySorter]))
+;; mvn -Dtest=zana.test.arrays.sorter clojure:test
+;;------------------------------------------------------------------------------
+(defn- random-keys
+  "Doubles of several kinds: many ties, all distinct, sorted, reversed,
+  and with signed zeros and infinities mixed in."
+  ^doubles [^RandomGenerator prng ^long n kind]
+  (let [z (double-array n)]
+    (dotimes [i n]
+      (aset z i
+            (double
+              (case kind
+                :ties (- (.nextInt prng 7) 3)
+                :distinct (* 1.0e3 (.nextGaussian prng))
+                :sorted (- i 5)
+                :reversed (- n i)
+                :special (case (.nextInt prng 6)
+                           0 -0.0
+                           1 0.0
+                           2 Double/POSITIVE_INFINITY
+                           3 Double/NEGATIVE_INFINITY
+                           4 Double/MIN_VALUE
+                           5 (- Double/MAX_VALUE))))))
+    z))
+
+(defn- stable?
+  "Is <code>z0[p[i]]</code> equal to <code>z[i]</code>, with ties in
+  index order?"
+  [^doubles z0 ^doubles z ^ints p]
+  (let [n (alength p)]
+    (loop [i 0]
+      (if (>= i n)
+        true
+        (let [pi (aget p i)]
+          (if (and (== 0 (Double/compare (aget z0 pi) (aget z i)))
+                   (or (== 0 i)
+                       (< (aget p (dec i)) pi)
+                       (not (== 0 (Double/compare 
+                                    (aget z0 (aget p (dec i)))
+                                    (aget z0 pi))))))
+            (recur (inc i))
+            false))))))
+
+(defn- check-double [^RandomGenerator prng ^long n kind]
+  (let [^doubles z0 (random-keys prng n kind)
+        expected (Arrays/copyOf z0 n)
+        z (Arrays/copyOf z0 n)
+        p (int-array (range n))
+        w (double-array (map #(- (double %)) (range n)))
+        o (object-array (range n))
+        ^ints q (KeySorter/permutation z0)]
+    (Arrays/sort expected)
+    (KeySorter/sort z (object-array [p w o]))
+    (test/is (Arrays/equals expected z) (str n " " kind))
+    (test/is (Arrays/equals p q))
+    (test/is (stable? z0 z p))
+    (test/is (every? (fn [^long i]
+                       (and (== (- (aget p i)) (aget w i))
+                            (== (aget p i) (long (aget o i)))))
+                     (range n)))))
+
+(defn- check-float [^RandomGenerator prng ^long n kind]
+  (let [z0 (float-array (random-keys prng n kind))
+        expected (Arrays/copyOf z0 n)
+        z (Arrays/copyOf z0 n)
+        p (int-array (range n))
+        w (float-array (range n))
+        l (long-array (range n))
+        ^ints q (KeySorter/permutation z0)]
+    (Arrays/sort expected)
+    (KeySorter/sort z (object-array [p w l]))
+    (test/is (Arrays/equals expected z) (str n " " kind))
+    (test/is (Arrays/equals p q))
+    (test/is (stable? (double-array z0) (double-array z) p))
+    (test/is (every? (fn [^long i]
+                       (== (aget p i) (aget w i) (aget l i)))
+                     (range n)))))
+
+(test/deftest key-sorter
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")]
+    ;; sizes hitting insertion, intro, serial and parallel radix sorts
+    (doseq [n [0 1 2 15 17 100 511 512 5000 200000]
+            kind [:ties :distinct :sorted :reversed :special]]
+      (check-double prng n kind)
+      (check-float prng n kind))))
+
+(test/deftest key-sorter-range
+  (let [z (double-array [9.0 3.0 1.0 2.0 1.0 0.0])
+        w (float-array [0.0 1.0 2.0 3.0 4.0 5.0])]
+    (KeySorter/sort z 1 5 (object-array [w]))
+    (test/is (= [9.0 1.0 1.0 2.0 3.0 0.0] (vec z)))
+    (test/is (= [0.0 2.0 4.0 3.0 1.0 5.0] (vec w)))
+    (test/is (= [3 0 2 1] (vec (KeySorter/permutation
+                                 (double-array [9.0 3.0 1.0 2.0 1.0 0.0])
+                                 2 6))))))
+
+(test/deftest key-sorter-errors
+  (test/is (thrown? IllegalArgumentException
+                    (KeySorter/sort (float-array [1.0 Float/NaN 0.0])
+                                    (object-array 0))))
+  (test/is (thrown? IllegalArgumentException
+                    (KeySorter/permutation (double-array [Double/NaN]))))
+  (test/is (thrown? UnsupportedOperationException
+                    (KeySorter/sort (double-array [2.0 1.0])
+                                    (object-array [(short-array 2)])))))
+;;------------------------------------------------------------------------------
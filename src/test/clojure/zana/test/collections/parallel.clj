@@ -0,0 +1,89 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com"
+      :since "2026-10-18"
+      :date "2026-10-18"
+      :doc "Tests for nmap, pmap, and friends." }
+
+    zana.test.collections.parallel
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+  (:import [java.util.concurrent.atomic AtomicLong]))
+;;----------------------------------------------------------------
+;; mvn -Dtest=zana.test.collections.parallel clojure:test
+#_(test/run-tests 'zana.test.collections.parallel)
+;;----------------------------------------------------------------
+(test/deftest nmap
+  (let [xs (vec (range 10001))
+        ys (mapv inc xs)]
+    (doseq [^long n [1 2 3 7]]
+      (test/is (= ys (vec (z/nmap n inc xs))))
+      (test/is (= (mapv + xs ys) (vec (z/nmap n + xs ys))))
+      (test/is (= (mapv + xs ys xs) (vec (z/nmap n + xs ys xs))))
+      ;; shortest input determines length
+      (test/is (= [1 3] (vec (z/nmap n + [0 1 2] [1 2]))))
+      ;; iterators, sets, arrays
+      (test/is (= ys (vec (z/nmap n inc (.iterator ^Iterable xs)))))
+      (test/is (= (set ys) (set (z/nmap n inc (set xs)))))
+      (test/is (= [2.0 3.0] (vec (z/nmap n inc (double-array [1 2]))))))
+    (test/is (= ys (vec (z/pmap inc xs))))
+    (test/is (empty? (z/pmap inc [])))
+    ;; infinite inputs stop at the shortest finite one, as with map
+    (test/is (= [10 21 32] (vec (z/pmap + (range) [10 20 30]))))
+    (test/is (= [[0 :a 1] [1 :a 2]]
+                (vec (z/pmap vector (range) (repeat :a) (list 1 2)))))
+    (test/is (= [1 3] (vec (z/pmap + (iterate inc 1)
+                                  (.iterator (java.util.ArrayList. [0 1]))))))
+    (test/is (= [0.0 2.0] (vec (z/pmap-doubles
+                                 #(+ (double %1) (double %2) (double %3))
+                                 (range) (double-array 2) (range)))))
+    (test/is (thrown? UnsupportedOperationException
+                      (.add ^java.util.List (z/pmap inc xs) 0)))))
+;;----------------------------------------------------------------
+(test/deftest nmap-doubles
+  (let [xs (vec (range 1001))
+        ys (double-array (map #(* 0.5 (double %)) xs))]
+    (doseq [^long n [1 4]]
+      (test/is (= (vec ys)
+                  (vec (z/nmap-doubles n (fn ^double [x] (* 0.5 (double x))) xs))))
+      (test/is (= (vec ys) (vec (z/nmap-doubles n #(* 0.5 (double %)) xs))))
+      (test/is (= (mapv #(* 2.0 (double %)) xs)
+                  (vec (z/nmap-doubles n #(+ (double %1) (double %2)) xs xs))))
+      (test/is (= (mapv #(* 3.0 (double %)) xs)
+                  (vec (z/nmap-doubles n #(+ (double %1) (double %2) (double %3))
+                                       xs xs xs)))))
+    (test/is (= (vec ys) (vec (z/pmap-doubles #(* 0.5 (double %)) xs))))))
+;;----------------------------------------------------------------
+(test/deftest side-effects
+  (let [xs (vec (range 10001))
+        total (AtomicLong.)]
+    (z/nmapc 3 #(.addAndGet total (long %)) xs)
+    (test/is (== (* 5000 10001) (.get total)))
+    (z/pmapc #(.addAndGet total (- (long %1) (long %2))) xs xs)
+    (test/is (== (* 5000 10001) (.get total)))
+    (z/pmapc #(.addAndGet total (- (long %1) (long %2))) xs (range))
+    (test/is (== (* 5000 10001) (.get total)))
+    (test/is (= (mapcat #(repeat % %) (range 20))
+                (vec (z/pmapcat #(repeat % %) (range 20)))))))
+;;----------------------------------------------------------------
+(test/deftest blocking
+  (let [xs (vec (range 100))]
+    (test/is (= (mapv inc xs)
+                (vec (z/pmap-blocking #(do (Thread/sleep 1) (inc (long %)))
+                                      xs))))))
+;;----------------------------------------------------------------
+(test/deftest errors
+  (test/is (thrown? ArithmeticException
+                    (z/pmap #(/ 1 (long %)) (range 1000))))
+  (test/is (thrown? ArithmeticException
+                    (z/pmap-blocking #(/ 1 (long %)) (range 10))))
+  (test/is (thrown? IllegalArgumentException (z/nmap 0 inc [1])))
+  (let [p (z/parallelism)]
+    (try
+      (z/parallelism 3)
+      (test/is (== 3 (z/parallelism)))
+      (test/is (= [2 3] (vec (z/pmap inc [1 2]))))
+      (finally (z/parallelism p)))
+    (test/is (thrown? IllegalArgumentException (z/parallelism 0)))))
+;;----------------------------------------------------------------
@@ -0,0 +1,83 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com"
+      :since "2026-10-18"
+      :date "2026-10-18"
+      :doc "Tests for sort-by, sort-by-keys, and ranks." }
+
+    zana.test.collections.sort
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+  (:import [java.util ArrayList]
+           [com.google.common.collect ImmutableList]
+           [zana.java.comparator SortBy]))
+;;----------------------------------------------------------------
+;; mvn -Dtest=zana.test.collections.sort clojure:test
+#_(test/run-tests 'zana.test.collections.sort)
+;;----------------------------------------------------------------
+(defn- key0 ^double [x] (double (first x)))
+(defn- key1 ^double [x] (double (second x)))
+;;----------------------------------------------------------------
+(test/deftest stable-sort-by
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        data (vec (for [i (range 50000)]
+                    [(.nextInt prng 100) (.nextInt prng 100) i]))]
+    ;; stable, primitive keys, with and without parallel key evaluation
+    (doseq [n [0 1 2 17 1000 50000]]
+      (let [d (subvec data 0 n)
+            expected (clojure.core/sort-by first d)]
+        (test/is (instance? ImmutableList (z/sort-by key0 d)))
+        (test/is (= expected (vec (z/sort-by key0 d))))
+        (test/is (= expected 
+                    (vec (z/sort-by 4 (com.google.common.collect.Ordering/natural) 
+                                    key0 d))))
+        (test/is (= (clojure.core/sort-by (juxt first second) d)
+                    (vec (z/sort-by-keys 4 [key0 key1] d))))))
+    ;; boxed keys, natural ordering
+    (test/is (= (clojure.core/sort-by first data)
+                (vec (z/sort-by first data))))
+    ;; other orderings
+    (test/is (= (clojure.core/sort-by first #(compare %2 %1) data)
+                (vec (z/sort-by (.reverse (com.google.common.collect.Ordering/natural))
+                                first data))))
+    ;; lexicographic keys
+    (test/is (= (clojure.core/sort-by (juxt first second) data)
+                (vec (z/sort-by-keys [key0 key1] data))))
+    (test/is (= data (vec (z/sort-by-keys [] data))))))
+;;----------------------------------------------------------------
+;; keys are only evaluated off the calling thread on request
+(test/deftest calling-thread
+  (let [data (vec (range 50000))
+        caller (Thread/currentThread)
+        threads (java.util.concurrent.ConcurrentHashMap/newKeySet)
+        z (fn ^double [x] 
+            (.add threads (Thread/currentThread)) 
+            (- (double (long x))))]
+    (test/is (= (reverse data) (vec (z/sort-by z data))))
+    (test/is (= (reverse data) (vec (z/sort-by-keys [z] data))))
+    (test/is (= #{caller} (set threads)))))
+;;----------------------------------------------------------------
+(test/deftest special-values
+  (let [xs [[3.0] [Double/NaN] [-0.0] [Double/NEGATIVE_INFINITY] [0.0]
+            [Double/NaN] [-1.0]]
+        expected (clojure.core/sort-by first #(Double/compare %1 %2) xs)
+        sorted (vec (z/sort-by key0 xs))]
+    (test/is (= (map str expected) (map str sorted)))
+    (test/is (identical? (nth xs 1) (nth sorted 5)))
+    (test/is (identical? (nth xs 5) (nth sorted 6)))))
+;;----------------------------------------------------------------
+(test/deftest in-place
+  (let [a (ArrayList. ^java.util.Collection (map vector [5 4 3 2 1 0]))]
+    (SortBy/quicksort key0 a 1 4)
+    (test/is (= [[5] [1] [2] [3] [4] [0]] (vec a)))
+    (SortBy/quicksort key0 a)
+    (test/is (= (map vector (range 6)) (vec a)))))
+;;----------------------------------------------------------------
+(test/deftest ranks
+  (let [data [[3.0] [1.0] [2.0] [0.0]]
+        r (z/ranks key0 data)
+        fr (z/franks key0 data)]
+    (test/is (= [3 1 2 0] (mapv #(r %) data)))
+    (test/is (= [1.0 (/ 1.0 3.0) (/ 2.0 3.0) 0.0] (mapv #(fr %) data)))))
+;;----------------------------------------------------------------
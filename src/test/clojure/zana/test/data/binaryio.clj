@@ -1,7 +1,7 @@
 (set! *warn-on-reflection* true)
 (set! *unchecked-math* :warn-on-boxed)
 (ns ^{:author "wahpenayo at gmail dot com"
-      :date "2018-01-31"
+      :date "2026-10-18"
       :doc "Tests for zana.data.datum." }
     
     zana.test.data.binaryio
@@ -15,6 +15,7 @@
             [zana.test.defs.data.change :as change]
             [zana.test.data.setup :as setup])
   (:import [java.time LocalDateTime LocalDate]
+           [zana.java.data ColumnCodec]
            [zana.test.defs.data.empty Empty]
            [zana.test.defs.data.primitive Primitive]
            [zana.test.defs.data.typical Typical]
@@ -72,4 +73,105 @@
     (test/is (every? #(instance? Change %) cs1))
     (z/mapc (fn [c0 c1] (test/is (setup/equal-changes? c0 c1))) 
             cs0 cs1)))
-;;----------------------------------------------------------------
\ No newline at end of file
+;;----------------------------------------------------------------
+;;----------------------------------------------------------------
+;; columnar files
+;;----------------------------------------------------------------
+
+(test/deftest columnar-empty
+  (let [es0 (setup/empties)
+        f (io/file "tst" "empty.zcb")
+        _ (empty/write-columnar-file es0 f)
+        es1 (empty/read-columnar-file f)]
+    (test/is (== 3 (count es1)))
+    (test/is (every? #(instance? Empty %) es1))))
+;;----------------------------------------------------------------
+
+(test/deftest columnar-primitive
+  (let [ps0 (setup/primitives)
+        f (io/file "tst" "primitive.zcb")
+        _ (primitive/write-columnar-file ps0 f)
+        ps1 (primitive/read-columnar-file f)]
+    (test/is (== 5 (count ps0) (count ps1)))
+    (test/is (every? #(instance? Primitive %) ps1))
+    (z/mapc (fn [p0 p1] (test/is (setup/equal-primitives? p0 p1)))
+            ps0 ps1)
+    ;; wrong datum type
+    (test/is (thrown? IllegalArgumentException
+                      (typical/read-columnar-file f)))))
+;;----------------------------------------------------------------
+
+(test/deftest columnar-typical
+  (let [ts0 (conj (setup/typicals)
+                  (typical/map->Typical {:n -1 :x 2.0}))]
+    (doseq [compress? [false true]]
+      (let [f (io/file "tst" "typical.zcb.gz")
+            _ (typical/write-columnar-file ts0 f compress?)
+            ts1 (typical/read-columnar-file f)]
+        (test/is (== 6 (count ts0) (count ts1)))
+        (test/is (every? #(instance? Typical %) ts1))
+        (z/mapc (fn [t0 t1] (test/is (setup/equal-typicals? t0 t1)))
+                (butlast ts0) ts1)
+        (let [t (last ts1)]
+          (test/is (== -1 (typical/n t)))
+          (test/is (nil? (typical/string t)))
+          (test/is (nil? (typical/p t)))
+          (test/is (nil? (typical/ymd t)))
+          (test/is (nil? (typical/dt t))))
+        ;; dictionary and date values are shared within a block
+        (test/is (identical? (typical/string (nth ts1 0))
+                             (typical/string (nth ts1 1))))
+        (test/is (identical? (typical/ymd (nth ts1 0))
+                             (typical/ymd (nth ts1 1))))))))
+;;----------------------------------------------------------------
+
+(test/deftest columnar-change
+  (let [cs0 (setup/changes)
+        f (io/file "tst" "change.zcb")
+        _ (change/write-columnar-file cs0 f true)
+        cs1 (change/read-columnar-file f)]
+    (test/is (== 8 (count cs0) (count cs1)))
+    (test/is (every? #(instance? Change %) cs1))
+    (z/mapc (fn [c0 c1] (test/is (setup/equal-changes? c0 c1)))
+            cs0 cs1)))
+;;----------------------------------------------------------------
+;; skipping columns, several blocks, size relative to write-binary-file
+
+(test/deftest columnar-skip
+  (let [n (+ 7 (* 2 ColumnCodec/BLOCK))
+        names ["Galileo" "Darwin" "Kepler" "Newton"]
+        p (first (setup/primitives))
+        ^LocalDate ymd (setup/galileo-birthdate)
+        ^LocalDateTime dt (LocalDateTime/parse "2015-02-20T10:15:30")
+        ts0 (mapv (fn [^long i]
+                    (Typical. i (* 0.5 i) (names (mod i 4)) p
+                              (.plusDays ymd (quot i 1000))
+                              (.plusSeconds dt i)))
+                  (range n))
+        f (io/file "tst" "skip.zcb")
+        _ (typical/write-columnar-file ts0 f)
+        ts1 (typical/read-columnar-file f)
+        ts2 (typical/read-columnar-file f #{:n :string})
+        fb (io/file "tst" "skip.bin")]
+    (test/is (== n (count ts1) (count ts2)))
+    (test/is (every? true? (map setup/equal-typicals? ts0 ts1)))
+    (test/is (= (map typical/n ts0) (map typical/n ts2)))
+    (test/is (= (map typical/string ts0) (map typical/string ts2)))
+    (test/is (every? #(Double/isNaN (typical/x %)) ts2))
+    (test/is (every? nil? (map typical/p ts2)))
+    (test/is (every? nil? (map typical/ymd ts2)))
+    (test/is (every? nil? (map typical/dt ts2)))
+    (typical/write-binary-file (take 10000 ts0) fb)
+    (typical/write-columnar-file (take 10000 ts0) f)
+    (test/is (< (* 3 (.length f)) (.length fb)))))
+;;----------------------------------------------------------------
+;; dictionaries of non-String values
+
+(test/deftest columnar-objects
+  (let [x (object-array [:a nil 1.0 :a "b" nil [1 2] 1.0])
+        y (ColumnCodec/decodeObjects (ColumnCodec/encodeObjects x) 8)]
+    (test/is (= (vec x) (vec y)))
+    (test/is (identical? (aget y 0) (aget y 3)))
+    (test/is (thrown? ClassCastException
+                      (ColumnCodec/encodeLocalDates x)))))
+;;----------------------------------------------------------------
@@ -0,0 +1,140 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com"
+      :date "2026-10-18"
+      :doc "Tests for columnar datum storage." }
+
+    zana.test.data.columns
+
+  (:require [clojure.java.io :as io]
+            [clojure.test :as test]
+            [zana.api :as z]
+            [zana.test.defs.data.empty :as empty]
+            [zana.test.defs.data.primitive :as primitive]
+            [zana.test.defs.data.typical :as typical]
+            [zana.test.defs.data.change :as change]
+            [zana.test.data.setup :as setup])
+  (:import [zana.java.data Column ColumnStore]
+           [zana.test.defs.data.empty Empty]
+           [zana.test.defs.data.primitive Primitive]
+           [zana.test.defs.data.typical Typical]
+           [zana.test.defs.data.change Change]))
+;;----------------------------------------------------------------
+;; mvn -Dtest=zana.test.data.columns clojure:test
+#_(test/run-tests 'zana.test.data.columns)
+;;----------------------------------------------------------------
+;; edge case
+
+(test/deftest empty-datum
+  (let [es0 (setup/empties)
+        f (io/file "tst" "empty.columns")
+        _ (empty/write-column-store es0 f)
+        es1 (empty/read-column-store f)]
+    (test/is (== 3 (count es1)))
+    (test/is (every? #(instance? Empty %) es1))))
+;;----------------------------------------------------------------
+;; no recursion
+
+(test/deftest primitive
+  (let [ps0 (setup/primitives)
+        ^ColumnStore s (primitive/column-store ps0)
+        f (io/file "tst" "primitive.columns")
+        _ (primitive/write-column-store s f)
+        ^ColumnStore ps1 (primitive/read-column-store f)]
+    (test/is (== 5 (count ps0) (count s) (count ps1)))
+    (test/is (every? #(instance? Primitive %) ps1))
+    (z/mapc (fn [p0 p1] (test/is (setup/equal-primitives? p0 p1)))
+            ps0 s)
+    (z/mapc (fn [p0 p1] (test/is (setup/equal-primitives? p0 p1)))
+            ps0 ps1)
+    ;; attribute functions on the on-demand records
+    (test/is (= (map primitive/d ps0) (map primitive/d ps1)))
+    (test/is (== 6.0 (.getDouble ^Column (.column ps1 "d") 2)))
+    (test/is (= "double" (.type ^Column (.column ps1 "d"))))
+    (test/is (thrown? IndexOutOfBoundsException (.get ps1 5)))
+    (test/is (thrown? UnsupportedOperationException (.add ps1 nil)))))
+;;----------------------------------------------------------------
+;; one level of recursion, dictionary encoded objects
+
+(test/deftest typical
+  (let [ts0 (conj (setup/typicals)
+                  (typical/map->Typical {:n 1 :x 2.0 :p (first (setup/primitives))}))
+        f (io/file "tst" "typical.columns")
+        _ (typical/write-column-store ts0 f)
+        ^ColumnStore ts1 (typical/read-column-store f)]
+    (test/is (== 6 (count ts0) (count ts1)))
+    (test/is (every? #(instance? Typical %) ts1))
+    (test/is (== 5.0 (typical/p-d (first ts1))))
+    (test/is (== 5.5 (typical/p-d (second ts1))))
+    (z/mapc (fn [t0 t1] (test/is (setup/equal-typicals? t0 t1)))
+            ts0 ts1)
+    ;; nil object fields, de-duped values
+    (test/is (nil? (typical/string (last ts1))))
+    (test/is (nil? (typical/ymd (last ts1))))
+    (test/is (= ["Galileo" "Darwin"]
+                (vec (.dictionary ^Column (.column ts1 "string")))))
+    (test/is (identical? (typical/ymd (nth ts1 0))
+                         (typical/ymd (nth ts1 1))))
+    (test/is (instance? ColumnStore (.column ts1 "p")))
+    ;; wrong datum type
+    (test/is (thrown? IllegalArgumentException
+                      (primitive/read-column-store f)))))
+;;----------------------------------------------------------------
+;; truncated column files fail, rather than hang
+
+(defn- truncate [f ^long n]
+  (with-open [raf (java.io.RandomAccessFile. (io/file f) "rw")]
+    (.setLength raf (- (.length raf) n))))
+
+(test/deftest truncated
+  (let [f (io/file "tst" "truncated.columns")]
+    (typical/write-column-store (setup/typicals) f)
+    ;; inside the dictionary
+    (truncate (io/file f "string.col") 4)
+    (test/is (thrown? java.io.EOFException (typical/read-column-store f)))
+    (typical/write-column-store (setup/typicals) f)
+    ;; inside the values
+    (truncate (io/file f "x.col") 4)
+    (test/is (thrown-with-msg? java.io.EOFException #"missing 4 bytes"
+                               (typical/read-column-store f)))))
+;;----------------------------------------------------------------
+;; nil nested datums and nil records, in the null masks
+
+(test/deftest nil-datums
+  (let [t (typical/map->Typical {:n 1 :x 2.0 :p nil})
+        ts0 [(first (setup/typicals)) t nil]
+        ^ColumnStore s (typical/column-store ts0)
+        f (io/file "tst" "nil.columns")
+        _ (typical/write-column-store s f)
+        ^ColumnStore ts1 (typical/read-column-store f)]
+    (doseq [^ColumnStore ts [s ts1]]
+      (test/is (== 3 (count ts)))
+      (test/is (setup/equal-typicals? (first ts0) (first ts)))
+      (test/is (nil? (typical/p (second ts))))
+      (test/is (== 1 (typical/n (second ts))))
+      (test/is (== 2.0 (typical/x (second ts))))
+      (test/is (nil? (nth ts 2)))
+      (test/is (= [false false true]
+                  (map #(.getBoolean (.nulls ts) (int %)) (range 3))))
+      (let [^ColumnStore p (.column ts "p")]
+        (test/is (== 3 (count p)))
+        (test/is (= [false true true]
+                    (map #(.getBoolean (.nulls p) (int %)) (range 3))))))
+    ;; no mask without nils
+    (test/is (nil? (.nulls ^ColumnStore (typical/column-store
+                                          (setup/typicals)))))
+    (typical/write-column-store (setup/typicals) f)
+    (test/is (nil? (.nulls ^ColumnStore (typical/read-column-store f))))))
+;;----------------------------------------------------------------
+;; two levels of recursion
+
+(test/deftest change
+  (let [cs0 (setup/changes)
+        f (io/file "tst" "change.columns")
+        _ (change/write-column-store cs0 f)
+        cs1 (change/read-column-store f)]
+    (test/is (== 8 (count cs0) (count cs1)))
+    (test/is (every? #(instance? Change %) cs1))
+    (z/mapc (fn [c0 c1] (test/is (setup/equal-changes? c0 c1)))
+            cs0 cs1)))
+;;----------------------------------------------------------------
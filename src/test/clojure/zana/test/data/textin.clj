@@ -7,7 +7,8 @@
   
   (:require [clojure.java.io :as io]
             [clojure.test :as test]
-            [zana.data.textin :as textin]))
+            [zana.data.textin :as textin])
+  (:import [zana.java.data LineTokens]))
 ;;------------------------------------------------------------------------------
 ;;  mvn -Dtest=zana.test.data.textin clojure:test
 #_(test/run-tests 'zana.test.data.textin)
@@ -18,3 +19,29 @@
     (test/is (= (textin/tuple-tree header tokens)
                 {:a 1 :b {:c 2} :d 3}))))
 ;;------------------------------------------------------------------------------
+(test/deftest line-tokens
+  (let [tab (LineTokens. #"\t")
+        ws (LineTokens. #"\s")]
+    (.split tab "a\t\t-12\t3.5\tTRUE\t")
+    (test/is (== 6 (.count tab)))
+    (test/is (= ["a" "" "-12" "3.5" "TRUE" ""] (vec (.tokens tab))))
+    (test/is (== -12 (.parseLong tab 2) (.parseInt tab 2)))
+    (test/is (== 3.5 (.parseDouble tab 3) (.parseFloat tab 3)))
+    (test/is (.parseBoolean tab 4))
+    (test/is (not (.parseBoolean tab 0)))
+    (test/is (not (.parseBoolean tab 17)))
+    (test/is (Double/isNaN (.parseDouble tab 1)))
+    (test/is (Double/isNaN (.parseDouble tab 6)))
+    (test/is (nil? (.token tab 6)))
+    (test/is (thrown? NumberFormatException (.parseLong tab 1)))
+    (test/is (thrown? NumberFormatException (.parseLong tab 6)))
+    (test/is (thrown? NumberFormatException (.parseLong tab 3)))
+    (.split tab "+7\t-9223372036854775808\t300\t2147483648")
+    (test/is (== 7 (.parseLong tab 0)))
+    (test/is (== Long/MIN_VALUE (.parseLong tab 1)))
+    (test/is (thrown? NumberFormatException (.parseByte tab 2)))
+    (test/is (== 300 (.parseShort tab 2)))
+    (test/is (thrown? NumberFormatException (.parseInt tab 3)))
+    (.split ws "x  y\tz")
+    (test/is (= ["x" "" "y" "z"] (vec (.tokens ws))))))
+;;------------------------------------------------------------------------------
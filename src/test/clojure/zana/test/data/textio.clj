@@ -101,4 +101,22 @@
     (test/is (every? #(instance? Change %) cs0))
     (test/is (every? #(instance? Change %) cs1))
     (z/mapc (fn [c0 c1] (test/is (setup/equal-changes? c0 c1))) cs0 cs1)))
-;;----------------------------------------------------------------
\ No newline at end of file
+;;----------------------------------------------------------------
+;; many batches, parsed in parallel, tab separated
+
+(test/deftest parallel
+  (let [ps0 (mapv (fn [^long i]
+                    (Primitive. (even? i) (byte (rem i 100)) (short i) 
+                                (int (* 7 i)) (* -1000000007 i) 
+                                (float (/ i 8.0)) (* Math/PI i) 
+                                (char (+ 97 (rem i 26)))))
+                  (range 20000))
+        f (io/file "tst" "primitives.tsv")
+        _ (primitive/write-tsv-file ps0 f)
+        ps1 (primitive/read-tsv-file f)
+        ps2 (primitive/read-tsv-file f #"\t" primitive/default-header-key 5)]
+    (test/is (== (count ps0) (count ps1)))
+    (test/is (every? true? (map setup/equal-primitives? ps0 ps1)))
+    (test/is (== 5 (count ps2)))
+    (test/is (every? true? (map setup/equal-primitives? ps0 ps2)))))
+;;----------------------------------------------------------------
@@ -0,0 +1,97 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com" 
+      :date "2026-10-18"
+      :doc 
+      "DesignCost gives the same results as the data-backed costs
+       composed with affine and linear parameterizations." }
+     
+    zana.test.geometry.functions.design
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+  
+  (:import [java.util Arrays]
+           [clojure.lang IFn$OD]
+           [org.apache.commons.math3.random RandomGenerator]
+           [zana.java.geometry Dn]
+           [zana.java.geometry.functions 
+            AffineDual DesignCost Function Huber L2Cost L2Distance2From
+            LinearDual LinearFunctional PredictionCost Sample]))
+;; mvn -Dtest=zana.test.geometry.functions.design clojure:test
+;;------------------------------------------------------------------------------
+(def ^:private ^IFn$OD ground-truth
+  (fn ^double [^doubles x] 
+    (+ 1.0 
+       (* 2.0 (aget x 0)) 
+       (* -3.0 (aget x 1)) 
+       (* 0.01 (Math/sin (* 1000.0 (aget x 0)))))))
+
+(defn- random-data [^long n]
+  (let [^RandomGenerator prng (z/well44497b 
+                                "seeds/Well44497b-2017-11-05-00.edn")]
+    (vec (repeatedly n #(double-array [(.nextGaussian prng)
+                                       (.nextGaussian prng)])))))
+;;------------------------------------------------------------------------------
+(test/deftest same-as-composed
+  ;; the longer data is summed in parallel partitions
+  (doseq [n [1000 40000]]
+    (let [data (random-data n)
+          p (double-array [0.5 -1.0 2.0])]
+      (doseq [^Function cost [(L2Cost/make ground-truth data)
+                              (PredictionCost/make 
+                                (Huber/get 0.5) ground-truth data)]
+              ^Function parameterization [(AffineDual/make (Dn/get 3))
+                                          (LinearDual/make (Dn/get 2))]]
+        (let [k (.dimension ^Dn (.domain parameterization))
+              p (Arrays/copyOf p k)
+              ^Function f (z/compose cost parameterization)
+              ^DesignCost d (if (instance? L2Cost cost)
+                              (.design ^L2Cost cost parameterization)
+                              (.design ^PredictionCost cost parameterization))
+              g (double-array k)
+              gd (double-array k)
+              y (.valueAndGradient f p g)]
+          (test/is (== (.doubleValue f p) (.doubleValue d p)))
+          (test/is (== y (.valueAndGradient d p gd)))
+          (test/is (Arrays/equals g gd))
+          (test/is (Arrays/equals 
+                     g (.dual ^LinearFunctional (.derivativeAt d p)))))))))
+;;------------------------------------------------------------------------------
+(test/deftest from-design-matrix
+  (let [data (random-data 1000)
+        y (double-array (map #(.invokePrim ground-truth %) data))
+        parameterization (AffineDual/make (Dn/get 3))
+        design (.compose (Sample/make data) parameterization)
+        ^DesignCost d (DesignCost/make design y)
+        ^DesignCost dh (DesignCost/make (Huber/get 0.5) design y)
+        p (double-array [0.5 -1.0 2.0])]
+    (test/is (= d (.design (L2Cost/make ground-truth data) parameterization)))
+    (test/is (= dh (.design (PredictionCost/make 
+                              (Huber/get 0.5) ground-truth data)
+                            parameterization)))
+    (test/is (not= d dh))
+    ;; same as the squared distance of the design times p from y
+    (test/is (z/approximately== 
+               1.0e3
+               (.doubleValue 
+                 ^Function (z/compose (L2Distance2From/make y) design) p)
+               (.doubleValue d p)))
+    (test/is (thrown? IllegalArgumentException 
+                      (DesignCost/make design (double-array 999))))
+    (test/is (thrown? IllegalArgumentException 
+                      (.design (L2Cost/make ground-truth data) design)))))
+;;------------------------------------------------------------------------------
+(test/deftest linear-regression
+  (let [data (random-data 1000)
+        d (.design (L2Cost/make ground-truth data) 
+                   (AffineDual/make (Dn/get 3)))
+        [^doubles x ^double y] (z/optimize-cg 
+                                 {:objective d
+                                  :max-iterations 100
+                                  :start [0.0 0.0 0.0]})]
+    (test/is (< y (* 0.01 0.01 1000)))
+    (test/is (z/approximately== 1.0e12 2.0 (aget x 0)))
+    (test/is (z/approximately== 1.0e12 -3.0 (aget x 1)))
+    (test/is (z/approximately== 1.0e12 1.0 (aget x 2)))))
+;;------------------------------------------------------------------------------
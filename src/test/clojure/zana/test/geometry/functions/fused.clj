@@ -0,0 +1,182 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com"
+      :date "2026-10-18"
+      :doc
+      "Tests for FusedComposition: same values as the generic
+       compositions, and gradients." }
+
+    zana.test.geometry.functions.fused
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+
+  (:import [java.util Arrays]
+           [clojure.lang IFn$OD]
+           [org.apache.commons.math3.random RandomGenerator]
+           [zana.java.geometry Dn]
+           [zana.java.geometry.functions
+            AffineDual AffineFunctional Composition Composition2
+            Diagonal DiagonalScaling Function FusedComposition Huber
+            HuberDistanceFrom HuberQR L2Cost L2Distance2From L2Norm2
+            LinearFunctional LinearRows QRDistanceFrom Scaling Square
+            Sum UniDiagonal]))
+;; mvn -Dtest=zana.test.geometry.functions.fused clojure:test
+;;------------------------------------------------------------------------------
+(defn- prng ^RandomGenerator []
+  (z/well44497b "seeds/Well44497b-2017-11-05-00.edn"))
+
+(defn- random-point ^doubles [^RandomGenerator prng n]
+  (double-array (repeatedly n #(.nextGaussian prng))))
+
+(defn- random-rows ^LinearRows [^RandomGenerator prng m n]
+  (LinearRows/make
+    ^"[[D" (into-array (repeatedly m #(random-point prng n)))))
+
+;; central differences
+(defn- numerical-gradient ^doubles [^Function f ^doubles p]
+  (let [n (alength p)
+        h 1.0e-6]
+    (double-array
+      (map (fn [^long j]
+             (let [^doubles p+ (aclone p)
+                   ^doubles p- (aclone p)]
+               (aset p+ j (+ (aget p j) h))
+               (aset p- j (- (aget p j) h))
+               (/ (- (.doubleValue f p+) (.doubleValue f p-))
+                  (* 2.0 h))))
+           (range n)))))
+
+(defn- close? [^doubles x ^doubles y]
+  (every? (fn [^long i]
+            (<= (Math/abs (- (aget x i) (aget y i)))
+                (* 1.0e-5 (+ 1.0 (Math/abs (aget x i))))))
+          (range (alength x))))
+;;------------------------------------------------------------------------------
+;; terms, outermost first
+(defn- chains [^RandomGenerator prng]
+  (let [n 5
+        m 7
+        d (Dn/get m)]
+    [[(Sum/make d)
+      (UniDiagonal/make d (Square/get))
+      (DiagonalScaling/make (random-point prng m))
+      (random-rows prng m n)]
+     [(L2Distance2From/make (random-point prng m))
+      (random-rows prng m n)]
+     [(L2Norm2/get d)
+      (Diagonal/make
+        ^"[Lzana.java.geometry.functions.Function;"
+        (into-array Function
+                    (concat [(Huber/get 0.5) (Scaling/make -2.0)
+                             (HuberQR/get 0.25 0.5)]
+                            (repeat (- m 3) (Square/get)))))
+      (UniDiagonal/make d (Scaling/make 3.0))
+      (random-rows prng m n)]
+     [(AffineFunctional/make (random-point prng 3) 1.5)
+      (random-rows prng 3 m)
+      (UniDiagonal/make d (Huber/get 1.0))
+      (random-rows prng m n)]
+     [(HuberDistanceFrom/make 0.5 (random-point prng m))
+      (random-rows prng m m)
+      (random-rows prng m n)]]))
+
+;; QRDistanceFrom's derivative is in terms of target - x, so values
+;; only
+(defn- value-chains [^RandomGenerator prng]
+  (conj (chains prng)
+        [(QRDistanceFrom/make 0.25 0.5 (random-point prng 3))
+         (random-rows prng 3 5)]))
+
+(defn- composition2 ^Function [terms]
+  (reduce (fn [^Function f ^Function g] (Composition2/compose f g))
+          terms))
+;;------------------------------------------------------------------------------
+(test/deftest same-values
+  (let [prng (prng)]
+    (doseq [terms (value-chains prng)]
+      (let [n (.dimension ^Dn (.domain ^Function (last terms)))
+            ^Function f2 (composition2 terms)
+            ^Function ff (z/fuse (Composition/compose ^java.util.List terms))
+            ^Function ff2 (z/fuse f2)]
+        (test/is (instance? FusedComposition ff) (str terms))
+        (test/is (instance? FusedComposition ff2) (str terms))
+        (dotimes [_ 8]
+          (let [p (random-point prng n)
+                y (.doubleValue f2 p)]
+            (test/is (== y (.doubleValue ff p)))
+            (test/is (== y (.doubleValue ff2 p)))))))))
+;;------------------------------------------------------------------------------
+(test/deftest gradients
+  (let [prng (prng)]
+    (doseq [terms (chains prng)]
+      (let [n (.dimension ^Dn (.domain ^Function (last terms)))
+            ^Function f (z/fuse (composition2 terms))]
+        (dotimes [_ 8]
+          (let [p (random-point prng n)
+                g (double-array n)
+                y (.valueAndGradient f p g)]
+            (test/is (== (.doubleValue f p) y))
+            (test/is (close? (numerical-gradient f p) g)
+                     (str terms))
+            (test/is (Arrays/equals
+                       g (.dual ^LinearFunctional (.derivativeAt f p))))))))))
+
+;; same arithmetic as the specialized Composition2 gradient
+(test/deftest linear-rows
+  (let [prng (prng)
+        lr (random-rows prng 11 4)
+        ^Function f (Composition2/compose
+                      (L2Distance2From/make (random-point prng 11)) lr)
+        ^Function ff (z/fuse f)]
+    (dotimes [_ 8]
+      (let [p (random-point prng 4)
+            g (double-array 4)
+            gf (double-array 4)]
+        (test/is (== (.valueAndGradient f p g)
+                     (.valueAndGradient ff p gf)))
+        (test/is (Arrays/equals g gf))))))
+
+(test/deftest vector-valued
+  (let [prng (prng)
+        lr (random-rows prng 3 2)
+        ^Function f (Composition2/compose
+                      (UniDiagonal/make (Dn/get 3) (Square/get)) lr)
+        ^Function ff (z/fuse f)
+        p (double-array [0.5 -2.0])
+        ^LinearRows d (.derivativeAt ff p)
+        ^doubles ap (.value lr p)]
+    (test/is (Arrays/equals ^doubles (.value f p) ^doubles (.value ff p)))
+    ;; d(a.p)^2/dp = 2 (a.p) a
+    (dotimes [i 3]
+      (dotimes [j 2]
+        (test/is (z/approximately==
+                   4.0
+                   (* 2.0 (aget ap i) (.coordinate lr i j))
+                   (.coordinate d i j)))))))
+;;------------------------------------------------------------------------------
+;; single-pass gradients match the derivative
+(test/deftest distance-gradients
+  (let [prng (prng)]
+    (doseq [^Function f [(HuberDistanceFrom/make 0.5 (random-point prng 9))
+                         (QRDistanceFrom/make 0.25 0.5 (random-point prng 9))]]
+      (dotimes [_ 8]
+        (let [p (random-point prng 9)
+              g (double-array 9)]
+          (test/is (== (.doubleValue f p) (.valueAndGradient f p g)))
+          (test/is (Arrays/equals
+                     (.dual ^LinearFunctional (.derivativeAt f p)) g)))))))
+;;------------------------------------------------------------------------------
+(test/deftest fallback
+  (let [data [(double-array [1.0 2.0]) (double-array [3.0 -1.0])]
+        ^IFn$OD truth (fn ^double [^doubles x] (aget x 0))
+        f (Composition2/compose (L2Cost/make truth data)
+                                (AffineDual/make (Dn/get 3)))
+        l2 (L2Norm2/get (Dn/get 3))
+        ^Function ff (z/fuse (Composition2/compose
+                               l2 (UniDiagonal/make (Dn/get 3) (Square/get))))]
+    (test/is (identical? f (z/fuse f)))
+    (test/is (identical? l2 (z/fuse l2)))
+    (test/is (= ff (z/fuse ff)))
+    (test/is (== 98.0 (.doubleValue ff (double-array [1.0 2.0 -3.0]))))))
+;;------------------------------------------------------------------------------
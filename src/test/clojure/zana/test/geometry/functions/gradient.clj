@@ -0,0 +1,123 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com" 
+      :date "2026-10-18"
+      :doc 
+      "Tests for Function.valueAndGradient, and the cached 
+       evaluations in zana.optimization.math3.cg." }
+     
+    zana.test.geometry.functions.gradient
+
+  (:require [clojure.test :as test]
+            [zana.api :as z]
+            [zana.optimization.math3.cg :as cg])
+  
+  (:import [java.util Arrays]
+           [clojure.lang IFn$OD]
+           [org.apache.commons.math3.random RandomGenerator]
+           [zana.java.geometry Dn]
+           [zana.java.geometry.functions 
+            AffineDual Function Huber L2Cost L2Distance2From 
+            LinearDual LinearFunctional LinearRows PredictionCost]
+           [zana.optimization.math3.cg Evaluations]))
+;; mvn -Dtest=zana.test.geometry.functions.gradient clojure:test
+;;------------------------------------------------------------------------------
+(def ^:private ^IFn$OD ground-truth
+  (fn ^double [^doubles x] 
+    (+ 1.0 
+       (* 2.0 (aget x 0)) 
+       (* -3.0 (aget x 1)) 
+       (* 0.01 (Math/sin (* 1000.0 (aget x 0)))))))
+
+(defn- random-data [^long n]
+  (let [^RandomGenerator prng (z/well44497b 
+                                "seeds/Well44497b-2017-11-05-00.edn")]
+    (vec (repeatedly n #(double-array [(.nextGaussian prng)
+                                       (.nextGaussian prng)])))))
+
+(defn- basis ^doubles [^long n ^long j]
+  (doto (double-array n) (aset j 1.0)))
+
+;; the gradient from the derivative of the cost, which is a function 
+;; on functions, applied to the basis models
+(defn- gradient-by-derivative ^doubles [^Function cost 
+                                        ^Function parameterization
+                                        ^doubles p]
+  (let [d (.derivativeAt cost (.value parameterization p))
+        n (alength p)]
+    (double-array 
+      (map (fn [^long j] 
+             (.doubleValue d (.value parameterization (basis n j))))
+           (range n)))))
+;;------------------------------------------------------------------------------
+(test/deftest data-costs
+  (let [data (random-data 1000)
+        p (double-array [0.5 -1.0 2.0])]
+    (doseq [^Function cost [(L2Cost/make ground-truth data)
+                            (PredictionCost/make 
+                              (Huber/get 0.5) ground-truth data)]
+            ^Function parameterization [(AffineDual/make (Dn/get 3))
+                                        (LinearDual/make (Dn/get 2))]]
+      (let [n (.dimension ^Dn (.domain parameterization))
+            p (Arrays/copyOf p n)
+            f (z/compose cost parameterization)
+            g (double-array n)
+            y (.valueAndGradient ^Function f p g)]
+        (test/is (== (.doubleValue ^Function f p) y))
+        (test/is (Arrays/equals 
+                   (gradient-by-derivative cost parameterization p) g))))))
+;;------------------------------------------------------------------------------
+(test/deftest linear-rows
+  (let [lr (LinearRows/make [[1.0 2.0 -3.0] [2.0 1.0 3.0] [-3.0 0.0 -9.0]])
+        ^Function f (z/compose (L2Distance2From/make [1 1 1]) lr)
+        p (double-array [0.1 0.2 0.3])
+        g (double-array 3)
+        y (.valueAndGradient f p g)]
+    (test/is (== (.doubleValue f p) y))
+    (test/is (Arrays/equals 
+               (.dual ^LinearFunctional (.derivativeAt f p)) g))))
+;;------------------------------------------------------------------------------
+;; data costs of parameterized models couldn't be optimized before:
+;; their derivatives aren't LinearFunctionals
+(test/deftest linear-regression
+  (let [data (random-data 1000)
+        f (z/compose (L2Cost/make ground-truth data) 
+                     (AffineDual/make (Dn/get 3)))
+        [^doubles x ^double y] (z/optimize-cg 
+                                 {:objective f
+                                  :max-iterations 100
+                                  :start [0.0 0.0 0.0]})]
+    (test/is (< y (* 0.01 0.01 1000)))
+    (test/is (z/approximately== 1.0e12 2.0 (aget x 0)))
+    (test/is (z/approximately== 1.0e12 -3.0 (aget x 1)))
+    (test/is (z/approximately== 1.0e12 1.0 (aget x 2)))))
+;;------------------------------------------------------------------------------
+(test/deftest cached-evaluations
+  (let [values (atom 0)
+        fused (atom 0)
+        ^Function l2 (L2Distance2From/make [1.0 2.0])
+        ^Function f (proxy [Function] [(Dn/get 2) (Dn/get 1)]
+                      (doubleValue [p] 
+                        (swap! values inc) 
+                        (.doubleValue l2 p))
+                      (valueAndGradient [p g] 
+                        (swap! fused inc) 
+                        (.valueAndGradient l2 p g)))
+        ^Evaluations e (#'cg/cached-evaluations f)
+        p (double-array [0.0 0.0])
+        q (double-array [1.0 0.0])]
+    (test/is (== 5.0 (.value e p)))
+    (test/is (== 5.0 (.value e p)))
+    (test/is (= [1 0] [@values @fused]))
+    (test/is (= [-2.0 -4.0] (vec (.gradient e p))))
+    (test/is (= [1 1] [@values @fused]))
+    ;; the value comes with the gradient
+    (test/is (= [0.0 -4.0] (vec (.gradient e q))))
+    (test/is (== 4.0 (.value e q)))
+    (test/is (= [1 2] [@values @fused]))
+    ;; returned gradients are copies; the point is copied too
+    (let [^doubles g (.gradient e q)] (aset g 0 99.0))
+    (aset q 0 0.0)
+    (test/is (= [-2.0 -4.0] (vec (.gradient e q))))
+    (test/is (= [1 3] [@values @fused]))))
+;;------------------------------------------------------------------------------
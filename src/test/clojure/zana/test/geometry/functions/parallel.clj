@@ -0,0 +1,102 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com" 
+      :date "2026-10-18"
+      :doc 
+      "Parallel evaluation of L2Cost, PredictionCost and DesignCost 
+       gives the same results, bit for bit, on any number of threads
+       greater than 1, close to the serial Kahan sums, and is only 
+       used on request." }
+     
+    zana.test.geometry.functions.parallel
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+  
+  (:import [clojure.lang IFn$OD]
+           [java.util.concurrent ConcurrentHashMap]
+           [org.apache.commons.math3.random RandomGenerator]
+           [zana.java.geometry Dn]
+           [zana.java.geometry.functions 
+            AffineDual DesignCost Function Huber L2Cost PredictionCost]))
+;; mvn -Dtest=zana.test.geometry.functions.parallel clojure:test
+;;------------------------------------------------------------------------------
+(def ^:private ^IFn$OD ground-truth
+  (fn ^double [^doubles x] 
+    (+ 1.0 
+       (* 2.0e8 (aget x 0)) 
+       (* -3.0 (aget x 1)) 
+       (* 0.01 (Math/sin (* 1000.0 (aget x 0)))))))
+
+;; long enough to be split into partitions
+(defn- random-data [^long n]
+  (let [^RandomGenerator prng (z/well44497b 
+                                "seeds/Well44497b-2017-11-05-00.edn")]
+    (vec (repeatedly n #(double-array [(.nextGaussian prng)
+                                       (* 1.0e6 (.nextGaussian prng))])))))
+
+(defn- costs [data ^long threads]
+  [(L2Cost/make ground-truth data (int threads))
+   (PredictionCost/make (Huber/get 0.5) ground-truth data (int threads))])
+
+(defn- evaluate [^Function cost 
+                 ^Function parameterization 
+                 ^doubles p 
+                 ^doubles q]
+  (let [f (.value parameterization p)
+        df (.value parameterization q)
+        g (double-array 3)
+        ^Function c (z/compose cost parameterization)
+        y (.valueAndGradient c p g)
+        ^DesignCost d (if (instance? L2Cost cost)
+                        (.design ^L2Cost cost parameterization)
+                        (.design ^PredictionCost cost parameterization))
+        gd (double-array 3)
+        yd (.valueAndGradient d p gd)]
+    [(.doubleValue cost f)
+     (.doubleValue ^Function (.derivativeAt cost f) df)
+     y
+     (vec g)
+     yd
+     (vec gd)]))
+;;------------------------------------------------------------------------------
+(defn- close? [^double x ^double y]
+  (<= (Math/abs (- x y)) (* 1.0e-12 (Math/max 1.0 (Math/abs x)))))
+
+(defn- approximately= [a b]
+  (every? true? (map close? (flatten a) (flatten b))))
+
+(test/deftest same-on-any-threads
+  (let [data (random-data 100000)
+        ^Function parameterization (AffineDual/make (Dn/get 3))
+        p (double-array [0.5 -1.0 2.0])
+        q (double-array [1.0 2.0 -3.0])
+        serial (mapv #(evaluate % parameterization p q) (costs data 1))
+        exact (mapv #(evaluate % parameterization p q) (costs data 2))]
+    ;; Kahan in the calling thread, exact on more threads
+    (test/is (approximately= serial exact))
+    (doseq [^long threads [3 4 7 16]]
+      (test/is 
+        (= exact 
+           (mapv #(evaluate % parameterization p q) (costs data threads)))))))
+;;------------------------------------------------------------------------------
+;; serial unless asked
+(test/deftest calling-thread
+  (let [data (random-data 100000)
+        caller (Thread/currentThread)
+        threads (ConcurrentHashMap/newKeySet)
+        ^IFn$OD truth (fn ^double [^doubles x]
+                        (.add threads (Thread/currentThread))
+                        (.invokePrim ground-truth x))
+        ^Function parameterization (AffineDual/make (Dn/get 3))
+        p (double-array [0.5 -1.0 2.0])
+        cost (L2Cost/make truth data)]
+    (test/is (== 1 (.threads cost)))
+    (.doubleValue cost (.value parameterization p))
+    (.valueAndGradient ^Function (z/compose cost parameterization)
+      p (double-array 3))
+    (.doubleValue (.design cost parameterization) p)
+    (test/is (= #{caller} (set threads)))
+    (test/is (thrown? IllegalArgumentException 
+                      (L2Cost/make ground-truth data 0)))))
+;;------------------------------------------------------------------------------
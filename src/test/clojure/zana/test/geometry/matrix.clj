@@ -0,0 +1,202 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com" 
+      :date "2026-10-18"
+      :doc 
+      "Unit tests for zana.java.geometry.Matrix, and the batched 
+       evaluations that use it." }
+     
+    zana.test.geometry.matrix
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+  
+  (:import [java.util Arrays]
+           [org.apache.commons.math3.random RandomGenerator]
+           [zana.java.geometry Dn Matrix]
+           [zana.java.geometry.functions 
+            AffineDual Function LinearDual LinearRows Sample]))
+;; mvn -Dtest=zana.test.geometry.matrix clojure:test
+;;------------------------------------------------------------------------------
+(defn- random-matrix ^Matrix [^RandomGenerator prng m n row-major]
+  (let [m (int m)
+        n (int n)
+        a (Matrix/make m n (boolean row-major))]
+    (dotimes [i m] 
+      (dotimes [j n] 
+        (.set a (int i) (int j) (* (.nextGaussian prng) 
+                                   (Math/pow 10.0 (double (.nextInt prng 8))))))) 
+    a))
+
+(defn- row ^doubles [^Matrix a ^long i]
+  (let [r (double-array (.columns a))] (.row a (int i) r) r))
+
+(defn- column ^doubles [^Matrix a ^long j]
+  (let [c (double-array (.rows a))] 
+    (.row (.transpose a) (int j) c) 
+    c))
+
+;; the reference: each element an fma dot product
+(defn- dot ^double [^doubles x ^doubles y] (zana.java.arrays.Arrays/dot x y))
+;;------------------------------------------------------------------------------
+(test/deftest layouts
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        ^Matrix a (random-matrix prng 7 5 true)
+        ^Matrix b (.copy a false)]
+    (test/is (= a b))
+    (test/is (= (hash a) (hash b)))
+    (test/is (= (.transpose a) (.transpose b)))
+    (test/is (not= a (.transpose b)))
+    (test/is (== (.get a 3 4) (.get (.transpose b) 4 3)))
+    (test/is (identical? (.data a) (.data (.transpose a))))
+    (test/is (thrown? IllegalArgumentException 
+                      (Matrix/wrap (double-array 10) 3 4 true)))))
+;;------------------------------------------------------------------------------
+(test/deftest kernels
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")]
+    ;; sizes around the block size
+    (doseq [[^long m ^long n ^long p] [[1 1 1] [3 5 2] [64 64 64] 
+                                       [65 130 63] [200 7 129]]
+            ^Boolean ra [true false]
+            ^Boolean rb [true false]
+            ^Boolean rc [true false]]
+      (let [^Matrix a (random-matrix prng m n ra)
+            ^Matrix b (random-matrix prng n p rb)
+            c (Matrix/make (int m) (int p) (boolean rc))
+            x (row (random-matrix prng 1 n true) 0)
+            v (row (random-matrix prng 1 m true) 0)
+            y (double-array m)
+            u (double-array n)]
+        (Matrix/multiply a b c)
+        (.times a x y)
+        (.transposeTimes a v u)
+        (test/is (every? (fn [[i k]] 
+                           (== (dot (row a i) (column b k)) (.get c i k)))
+                         (for [i (range m) k (range p)] [i k])))
+        (test/is (every? (fn [^long i] (== (dot (row a i) x) (aget y i))) 
+                         (range m)))
+        (test/is (every? (fn [^long j] (== (dot v (column a j)) (aget u j))) 
+                         (range n)))))
+    (let [a (Matrix/make 3 3 true)]
+      (test/is (thrown? IllegalArgumentException (Matrix/multiply a a a)))
+      (test/is (thrown? IllegalArgumentException 
+                        (.times a (double-array 2) (double-array 3)))))))
+;;------------------------------------------------------------------------------
+(test/deftest batched
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        data (vec (repeatedly 300 #(double-array (repeatedly 4 (fn [] (.nextGaussian prng))))))
+        x (Matrix/make ^"[[D" (into-array data) true)
+        ad (AffineDual/make (Dn/get 5))
+        ld (LinearDual/make (Dn/get 4))
+        p (double-array [0.5 -1.0 2.0 3.0 -4.0])
+        q (Arrays/copyOf p 4)
+        out (double-array 300)]
+    (.values ad p x out)
+    (test/is (every? (fn [^long i] 
+                       (== (.doubleValue ^Function (.value ad p) (nth data i))
+                           (aget out i)))
+                     (range 300)))
+    (test/is (thrown? IllegalArgumentException 
+                      (.values ad p x (double-array 299))))
+    (.values ld q (.copy x false) out)
+    (test/is (every? (fn [^long i] 
+                       (== (.doubleValue ^Function (.value ld q) (nth data i))
+                           (aget out i)))
+                     (range 300)))
+    ;; Sample.compose(AffineDual) at many parameter vectors
+    (let [^LinearRows lr (.compose (Sample/make data) ^AffineDual ad)
+          ^Matrix ps (random-matrix prng 70 5 true)
+          ys (Matrix/make 70 300 true)
+          y (double-array 300)]
+      (.values lr ps ys)
+      (test/is (every? (fn [^long r]
+                         (let [pr (row ps r)]
+                           (.value lr pr y)
+                           (and (Arrays/equals ^doubles (.value lr ^Object pr) y)
+                                (Arrays/equals y ^doubles (row ys r))
+                                (== (aget y 7) 
+                                    (.doubleValue ^Function (.value ad pr) 
+                                                  (nth data 7))))))
+                       (range 70)))
+      (test/is (= lr (LinearRows/make (.matrix lr))))
+      (test/is (= lr (LinearRows/make ^"[[D" (into-array 
+                                               (map #(row (.matrix lr) %) 
+                                                    (range 300)))))))))
+;;------------------------------------------------------------------------------
+;; rows stored in blocks: the same results as one matrix, on either side of the
+;; block boundaries
+(test/deftest row-blocks
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        b LinearRows/BLOCK
+        ad (AffineDual/make (Dn/get 5))
+        ld (LinearDual/make (Dn/get 4))
+        p (double-array [0.5 -1.0 2.0 3.0 -4.0])
+        q (Arrays/copyOf p 4)
+        ^Matrix ps (random-matrix prng 3 5 true)]
+    (doseq [^long m [(dec b) b (inc b) (+ 3 (* 2 b))]]
+      (let [data (vec (repeatedly m #(double-array (repeatedly 4 (fn [] (.nextGaussian prng))))))
+            ^LinearRows lr (.compose (Sample/make data) ^AffineDual ad)
+            ^Matrix a (.matrix lr)
+            y (double-array m)
+            ya (double-array m)
+            v (double-array (repeatedly m #(.nextGaussian prng)))
+            g (double-array 5)
+            ga (double-array 5)
+            ys (Matrix/make 3 m true)
+            yas (Matrix/make 3 m true)
+            edges (filter #(< (long %) m) [0 (dec b) b (dec m)])]
+        (test/is (== m (.rows a)))
+        (test/is (every? (fn [^long i] 
+                           (and (== 1.0 (.coordinate lr (int i) 4))
+                                (Arrays/equals ^doubles (row a i)
+                                               (double-array 
+                                                 (concat (nth data i) [1.0])))))
+                         edges))
+        (.value lr p y)
+        (.times a p ya)
+        (test/is (Arrays/equals y ya))
+        (test/is (every? (fn [^long i] 
+                           (== (aget y i) 
+                               (.doubleValue ^Function (.value ad p) (nth data i))))
+                         edges))
+        (.transposeTimes lr v g)
+        (.transposeTimes a v ga)
+        (test/is (Arrays/equals g ga))
+        (.values lr ps ys)
+        (Matrix/multiply ps (.transpose a) yas)
+        (test/is (= ys yas))
+        (test/is (= lr (LinearRows/make a)))
+        (test/is (= lr (LinearRows/make ^"[[D" (into-array (map #(row a %) (range m))))))
+        (let [^LinearRows ll (.compose (Sample/make data) ^LinearDual ld)
+              yl (double-array m)]
+          (.value ll q yl)
+          (test/is (every? (fn [^long i] 
+                             (== (aget yl i) 
+                                 (.doubleValue ^Function (.value ld q) (nth data i))))
+                           (range m))))))))
+;;------------------------------------------------------------------------------
+;; offset kernels: products with consecutive row blocks, in order, are the
+;; products with the whole matrix
+(test/deftest offsets
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        ^Matrix a (random-matrix prng 150 70 true)
+        ^Matrix a0 (Matrix/wrap (Arrays/copyOfRange (.data a) 0 (* 64 70)) 64 70 true)
+        ^Matrix a1 (Matrix/wrap (Arrays/copyOfRange (.data a) (* 64 70) (* 150 70)) 86 70 true)
+        x (double-array (repeatedly 72 #(.nextGaussian prng)))
+        v (double-array (repeatedly 150 #(.nextGaussian prng)))
+        y (double-array 150)
+        ys (double-array 152)
+        out (double-array 70)
+        outs (double-array 70)]
+    (.times a (Arrays/copyOfRange x 2 72) y)
+    (.times a0 x 2 ys 1)
+    (.times a1 x 2 ys 65)
+    (test/is (Arrays/equals y (Arrays/copyOfRange ys 1 151)))
+    (test/is (== 0.0 (aget ys 0) (aget ys 151)))
+    (.transposeTimes a v out)
+    (.transposeTimesAdd a0 v 0 outs)
+    (.transposeTimesAdd a1 v 64 outs)
+    (test/is (Arrays/equals out outs))
+    (test/is (thrown? IllegalArgumentException (.times a0 x 3 ys 0)))
+    (test/is (thrown? IllegalArgumentException (.transposeTimesAdd a1 v 65 outs)))))
+;;------------------------------------------------------------------------------
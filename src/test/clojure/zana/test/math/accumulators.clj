@@ -0,0 +1,246 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com"
+      :date "2026-10-18"
+      :doc "Unit tests for zana.stats.accumulators." }
+
+    zana.test.math.accumulators
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+
+  (:import [org.apache.commons.math3.random RandomGenerator]
+           [zana.java.accumulator Accumulator VectorSumBase]))
+;; mvn -Dtest=zana.test.math.accumulators clojure:test
+;;------------------------------------------------------------------------------
+(defn- approximately== [^double x ^double y]
+  (<= (Math/abs (- x y)) (* 1.0e-12 (max 1.0 (Math/abs x) (Math/abs y)))))
+
+(defn- random-data [^long n binary?]
+  (let [^RandomGenerator prng (z/well44497b
+                                "seeds/Well44497b-2017-11-05-00.edn")
+        z (double-array n)
+        w (double-array n)]
+    (dotimes [i n]
+      (aset z i (if binary?
+                  (double (.nextInt prng 2))
+                  (* 1.0e3 (.nextGaussian prng))))
+      (aset w i (.nextDouble prng)))
+    [z w]))
+
+(defn- check-merge [factory binary? weighted?]
+  (let [n 10000
+        [^doubles z ^doubles w] (random-data n binary?)
+        add (fn [^Accumulator a ^long start ^long end]
+              (loop [i start]
+                (when (< i end)
+                  (if weighted?
+                    (.add a (aget z i) (aget w i))
+                    (.add a (aget z i)))
+                  (recur (inc i))))
+              a)
+        ^Accumulator whole (add (factory) 0 n)
+        ^Accumulator a0 (add (factory) 0 3000)
+        ^Accumulator a1 (add (factory) 3000 3001)
+        ^Accumulator a2 (add (factory) 3001 n)
+        ^Accumulator empty (factory)]
+    (.merge a0 a1)
+    (.merge a0 empty)
+    (.merge a0 a2)
+    (test/is (== (.netCount whole) (.netCount a0)))
+    (when weighted?
+      (test/is (approximately== (.netWeight whole) (.netWeight a0))))
+    (test/is (approximately== (.doubleValue whole) (.doubleValue a0)))
+    ;; merged accumulators unchanged
+    (test/is (== 1 (.netCount a1)))
+    (test/is (== 0 (.netCount empty)))
+    ;; delete after merge
+    (dotimes [i 3000]
+      (if weighted?
+        (.delete a0 (aget z i) (aget w i))
+        (.delete a0 (aget z i))))
+    (test/is (== (- n 3000) (.netCount a0)))
+    (let [^Accumulator a12 (factory)]
+      (.merge a12 a1)
+      (.merge a12 a2)
+      (test/is (approximately== (.doubleValue a12) (.doubleValue a0))))
+    ;; clear resets everything, including Kahan corrections
+    (.clear a0)
+    (.merge a0 a1)
+    (test/is (== (.doubleValue a1) (.doubleValue a0)))))
+
+(test/deftest merge-chunks
+  (doseq [factory [z/mean-accumulator z/mssn-accumulator
+                   z/exact-sum-accumulator z/exact-mean-accumulator]]
+    (check-merge factory false false))
+  (doseq [factory [z/gini-accumulator z/positive-fraction-accumulator
+                   z/majority-vote-accumulator]]
+    (check-merge factory true false))
+  (doseq [factory [z/weighted-mean-accumulator z/weighted-mssn-accumulator]]
+    (check-merge factory false true))
+  (doseq [factory [z/weighted-gini-accumulator
+                   z/weighted-positive-fraction-accumulator
+                   z/weighted-majority-vote-accumulator]]
+    (check-merge factory true true)))
+
+(defn- check-bulk [factory binary? weighted?]
+  (let [n 1000
+        [^doubles z ^doubles w] (random-data n binary?)
+        ;; a permutation with repeats
+        index (int-array (map #(mod (* 7 (long %)) n) (range n)))
+        ^Accumulator one (factory)
+        ^Accumulator bulk (factory)
+        same? (fn []
+                (test/is (== (.netCount one) (.netCount bulk)))
+                (when weighted?
+                  (test/is (== (.netWeight one) (.netWeight bulk))))
+                (test/is (== (.doubleValue one) (.doubleValue bulk))))]
+    (if weighted?
+      (do
+        (dotimes [i n] (.add one (aget z i) (aget w i)))
+        (.addAll bulk z w 0 n)
+        (same?)
+        (doseq [i (range 100 900)] 
+          (let [j (aget index i)] (.add one (aget z j) (aget w j))))
+        (.addAll bulk z w index 100 900)
+        (same?)
+        (doseq [i (range 10 500)] (.delete one (aget z i) (aget w i)))
+        (.deleteAll bulk z w 10 500)
+        (same?)
+        (doseq [i (range 200 300)] 
+          (let [j (aget index i)] (.delete one (aget z j) (aget w j))))
+        (.deleteAll bulk z w index 200 300)
+        (same?))
+      (do
+        (dotimes [i n] (.add one (aget z i)))
+        (.addAll bulk z 0 n)
+        (same?)
+        (doseq [i (range 100 900)] (.add one (aget z (aget index i))))
+        (.addAll bulk z index 100 900)
+        (same?)
+        (doseq [i (range 10 500)] (.delete one (aget z i)))
+        (.deleteAll bulk z 10 500)
+        (same?)
+        (doseq [i (range 200 300)] (.delete one (aget z (aget index i))))
+        (.deleteAll bulk z index 200 300)
+        (same?)
+        (when-not (instance? zana.java.accumulator.weighted.AccumulatorBase 
+                             bulk)
+          (test/is (thrown? UnsupportedOperationException 
+                            (.addAll bulk z w 0 n))))))))
+
+(test/deftest bulk
+  (doseq [factory [z/mean-accumulator z/mssn-accumulator
+                   z/exact-sum-accumulator z/exact-mean-accumulator]]
+    (check-bulk factory false false))
+  (doseq [factory [z/gini-accumulator z/positive-fraction-accumulator
+                   z/majority-vote-accumulator]]
+    (check-bulk factory true false))
+  (doseq [factory [z/weighted-mean-accumulator z/weighted-mssn-accumulator]]
+    (check-bulk factory false true)
+    (check-bulk factory false false))
+  (doseq [factory [z/weighted-gini-accumulator
+                   z/weighted-positive-fraction-accumulator
+                   z/weighted-majority-vote-accumulator]]
+    (check-bulk factory true true)
+    (check-bulk factory true false))
+  (let [^VectorSumBase one (z/vector-mssn-accumulator 2)
+        ^VectorSumBase bulk (z/vector-mssn-accumulator 2)
+        z (into-array (map #(double-array [% (- 1.0 (double %))]) (range 10)))
+        index (int-array [3 1 4 1 5 9 2 6])]
+    (doseq [i (range 8)] (.add one (aget ^objects z (aget index i))))
+    (.addAll bulk ^"[[D" z index 0 8)
+    (test/is (== (.doubleValue one) (.doubleValue bulk)))
+    (doseq [i (range 2 7)] (.delete one (aget ^objects z i)))
+    (.deleteAll bulk ^"[[D" z 2 7)
+    (test/is (== (.netCount one) (.netCount bulk)))
+    (test/is (== (.doubleValue one) (.doubleValue bulk)))
+    (test/is (thrown? UnsupportedOperationException 
+                      (.addAll bulk (double-array 2) 0 2)))))
+
+(test/deftest merge-mismatch
+  (test/is (thrown? UnsupportedOperationException
+                    (.merge ^Accumulator (z/mean-accumulator)
+                      (z/mssn-accumulator))))
+  (test/is (thrown? UnsupportedOperationException
+                    (.merge 
+                      ^Accumulator 
+                      (z/minimum-expected-cost-class-accumulator 0.25)
+                      (z/minimum-expected-cost-class-accumulator 0.5))))
+  (test/is (thrown? UnsupportedOperationException
+                    (.merge ^Accumulator (z/vector-mean-accumulator 2)
+                      (z/vector-mean-accumulator 3)))))
+
+(test/deftest vector-merge
+  (let [^Accumulator a (z/vector-mean-accumulator 2)
+        ^Accumulator b (z/vector-mean-accumulator 2)
+        ^Accumulator c (z/vector-mean-accumulator 2)]
+    (.add a (double-array [1.0 2.0]))
+    (.add b (float-array [3.0 4.0]))
+    (.add b (double-array [5.0 6.0]))
+    (.add c (double-array [1.0 2.0]))
+    (.add c (double-array [3.0 4.0]))
+    (.add c (double-array [5.0 6.0]))
+    (.merge a b)
+    (test/is (== 3 (.netCount a)))
+    (test/is (= (vec (.value c)) (vec (.value a))))))
+
+(test/deftest parallel-calculator
+  ;; big enough to be split into chunks
+  (let [n 200000
+        [^doubles z ^doubles w] (random-data n false)
+        mean (z/make-calculator z/mean-accumulator)
+        weighted-mean (z/make-calculator z/weighted-mean-accumulator)
+        serial (fn ^double [^Accumulator a ^doubles w]
+                 (dotimes [i n]
+                   (if w (.add a (aget z i) (aget w i)) (.add a (aget z i))))
+                 (.doubleValue a))
+        data (vec (range n))
+        zf (fn ^double [i] (aget z (int i)))
+        wf (fn ^double [i] (aget w (int i)))]
+    ;; default: serial, in the calling thread
+    (test/is (== (serial (z/mean-accumulator) nil) (mean z)))
+    (test/is (== (serial (z/weighted-mean-accumulator) w)
+                 (weighted-mean z w)))
+    (let [caller (Thread/currentThread)
+          threads (java.util.concurrent.ConcurrentHashMap/newKeySet)
+          zt (fn ^double [i] (.add threads (Thread/currentThread)) (zf i))]
+      (test/is (== (mean z)
+                   ((z/make-calculator z/mean-accumulator zt) data)))
+      (test/is (== (weighted-mean z w)
+                   ((z/make-calculator z/weighted-mean-accumulator zt wf)
+                     data)))
+      (test/is (= #{caller} (set threads))))
+    ;; explicit threads
+    (doseq [^long k [1 2 4]]
+      (test/is (approximately== 
+                 (mean z) ((z/make-calculator k z/mean-accumulator) z)))
+      (test/is (approximately== 
+                 (weighted-mean z w)
+                 ((z/make-calculator k z/weighted-mean-accumulator) z w)))
+      (test/is (approximately== 
+                 (mean z)
+                 ((z/make-calculator k z/mean-accumulator zf) data)))
+      (test/is (approximately== 
+                 (weighted-mean z w)
+                 ((z/make-calculator k z/weighted-mean-accumulator zf wf)
+                   data))))
+    ;; same chunks, so same results, for any number of threads > 1
+    (test/is (== ((z/make-calculator 2 z/mean-accumulator) z)
+                 ((z/make-calculator 7 z/mean-accumulator) z)))
+    (test/is (thrown? IllegalArgumentException 
+                      (z/make-calculator 0 z/mean-accumulator)))
+    ;; small data, serial path
+    (test/is (== 2.0 (mean (double-array [1.0 2.0 3.0]))))
+    (test/is (== 2.0 ((z/make-calculator 4 z/mean-accumulator)
+                       (double-array [1.0 2.0 3.0]))))
+    (let [vectors (mapv (fn [i] (double-array [(aget z (int i)) 1.0])) data)]
+      (doseq [^doubles mu [((z/make-object-calculator
+                              #(z/vector-mean-accumulator 2) identity)
+                             vectors)
+                           ((z/make-object-calculator
+                              4 #(z/vector-mean-accumulator 2) identity)
+                             vectors)]]
+        (test/is (approximately== (mean z) (aget mu 0)))
+        (test/is (approximately== 1.0 (aget mu 1)))))))
+;;------------------------------------------------------------------------------
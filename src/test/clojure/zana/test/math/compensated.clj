@@ -0,0 +1,119 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com"
+      :date "2026-10-18"
+      :doc "Unit tests for zana.java.math.Compensated." }
+
+    zana.test.math.compensated
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+
+  (:import [java.math BigDecimal]
+           [org.apache.commons.math3.random RandomGenerator]
+           [zana.java.math Compensated Statistics]))
+;; mvn -Dtest=zana.test.math.compensated clojure:test
+;;------------------------------------------------------------------------------
+;; exact references
+(defn- exact-dot ^double [^doubles x ^doubles y]
+  (.doubleValue
+    ^BigDecimal (reduce (fn [^BigDecimal s ^long i]
+                          (.add s (.multiply (BigDecimal. (aget x i))
+                                             (BigDecimal. (aget y i)))))
+                        BigDecimal/ZERO
+                        (range (alength x)))))
+(defn- exact-sum ^double [^doubles x]
+  (exact-dot x (double-array (alength x) 1.0)))
+(defn- exact-weighted-ss ^double [^doubles z ^doubles w ^double center]
+  (exact-dot (double-array (map (fn [^double zi]
+                                  (let [d (- zi center)] (* d d)))
+                                z))
+             w))
+;;------------------------------------------------------------------------------
+(defn- random-doubles ^doubles [^RandomGenerator prng ^long n]
+  ;; wide range of magnitudes and signs, so there is cancellation
+  (let [x (double-array n)]
+    (dotimes [i n]
+      (aset x i (* (.nextGaussian prng)
+                   (Math/pow 10.0 (double (.nextInt prng 12))))))
+    x))
+(defn- floats->doubles ^doubles [^floats x]
+  (let [y (double-array (alength x))]
+    (dotimes [i (alength x)] (aset y i (aget x i)))
+    y))
+;;------------------------------------------------------------------------------
+(defn- abs-doubles ^doubles [^doubles x]
+  (double-array (map (fn [^double xi] (Math/abs xi)) x)))
+;; Ogita, Rump, Oishi, Accurate sum and dot product, 2005:
+;; |Sum2 - s| <= u|s| + gamma(n)^2 sum|p|, the same for Dot2, with
+;; the products p[i] exact for floats. A further u|s| allows for
+;; rounding the exact reference.
+(def ^:private ^:const u (* 0.5 (Math/ulp 1.0)))
+(defn- gamma ^double [^long n]
+  (let [nu (* n u)] (/ nu (- 1.0 nu))))
+(defn- within-bound? [^double exact ^double abs-sum ^long n ^double result]
+  (let [g (gamma n)]
+    (<= (Math/abs (- result exact))
+        (+ (* 2.0 u (Math/abs exact)) (* g g abs-sum)))))
+
+(test/deftest error-bound
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")]
+    (doseq [^long n [0 1 2 3 4 5 7 8 9 100 1001]]
+      (let [^doubles x (random-doubles prng n)
+            ^doubles y (random-doubles prng n)
+            ^floats xf (float-array x)
+            ^floats yf (float-array y)
+            xd (floats->doubles xf)
+            yd (floats->doubles yf)]
+        (test/is (within-bound? (exact-sum x) (exact-sum (abs-doubles x)) n
+                                (Compensated/sum x)))
+        (test/is (within-bound? (exact-dot x y)
+                                (exact-dot (abs-doubles x) (abs-doubles y)) n
+                                (Compensated/dot x y)))
+        (test/is (within-bound? (exact-dot x x) (exact-dot x x) n
+                                (Compensated/sumOfSquares x)))
+        (test/is (within-bound? (exact-sum xd) (exact-sum (abs-doubles xd)) n
+                                (Compensated/sum xf)))
+        (test/is (within-bound? (exact-dot xd yd)
+                                (exact-dot (abs-doubles xd) (abs-doubles yd))
+                                n
+                                (Compensated/dot xf yf)))
+        (when (< 2 n)
+          (let [xs (java.util.Arrays/copyOfRange x 1 (dec n))]
+            (test/is (within-bound? (exact-sum xs) (exact-sum (abs-doubles xs))
+                                    (alength xs)
+                                    (Compensated/sum x 1 (dec n))))))))))
+;;------------------------------------------------------------------------------
+(test/deftest cancellation
+  ;; Kahan loses the 1.0s; the kernels don't
+  (let [x (double-array [1.0 1.0e100 1.0 -1.0e100 1.0 1.0e100 1.0 -1.0e100 1.0])]
+    (test/is (not (== 5.0 (Statistics/kahanSum x))))
+    (test/is (== 5.0 (Compensated/sum x)))
+    (test/is (== 5.0 (Compensated/dot x (double-array (alength x) 1.0))))))
+;;------------------------------------------------------------------------------
+(test/deftest weighted
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")]
+    (doseq [n [1 2 3 100 1001]]
+      (let [zf (float-array (repeatedly n #(* 100.0 (.nextGaussian prng))))
+            wf (float-array (repeatedly n #(.nextDouble prng)))
+            z (floats->doubles zf)
+            w (floats->doubles wf)
+            center (Compensated/weightedMean zf wf)
+            expected (exact-weighted-ss z w center)]
+        ;; the rounded ratio of Dot2 and Sum2 results, weights positive
+        (let [sw (exact-sum w)
+              q (/ (exact-dot z w) sw)
+              g (gamma n)]
+          (test/is (<= (Math/abs (- q center))
+                       (+ (* 5.0 u (Math/abs q))
+                          (* 2.0 g g (+ (/ (exact-dot (abs-doubles z) w) sw)
+                                        (Math/abs q)))))))
+        (test/is (== center (Compensated/weightedMean z w)))
+        ;; differences are rounded before squaring
+        (test/is (z/approximately==
+                   4.0 expected
+                   (Compensated/weightedSumOfSquares zf wf center)))
+        (test/is (z/approximately==
+                   4.0 expected
+                   (Compensated/weightedSumOfSquares z w center)))))))
+;;------------------------------------------------------------------------------
@@ -0,0 +1,125 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com"
+      :date "2026-10-18"
+      :doc "Unit tests for zana.java.math.Statistics/quantiles." }
+
+    zana.test.math.quantiles
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+
+  (:import [java.util Arrays]
+           [org.apache.commons.math3.random RandomGenerator]
+           [org.apache.commons.math3.stat.descriptive DescriptiveStatistics]
+           [zana.java.math Statistics]))
+;; mvn -Dtest=zana.test.math.quantiles clojure:test
+;;------------------------------------------------------------------------------
+;; what zana.stats.statistics/quantiles used to do
+(defn- legacy ^double [^DescriptiveStatistics ds ^double p]
+  (cond (== 0.0 p) (.getMin ds)
+        (== 1.0 p) (.getMax ds)
+        :else (.getPercentile ds (* 100.0 p))))
+;;------------------------------------------------------------------------------
+;; sort, then walk the runs of tied values
+(defn- weighted-reference ^double [^doubles z ^doubles w ^double p]
+  (let [pairs (sort-by first (filter (fn [[_ ^double wi]] (< 0.0 wi)) 
+                                     (map vector z w)))
+        groups (partition-by first pairs)
+        n (count pairs)
+        total (double (reduce + (map second pairs)))
+        target (if (== 1.0 p) total (min total (* p (+ total (/ total n)))))]
+    (loop [groups groups
+           s0 0.0
+           lower Double/NaN]
+      (let [g (first groups)
+            v (double (ffirst g))
+            wg (double (reduce + (map second g)))
+            s1 (+ s0 wg)]
+        (if (and (next groups) (< s1 target))
+          (recur (next groups) s1 v)
+          (let [t (/ (- target s0) (/ wg (count g)))]
+            (if (or (<= 1.0 t) (== 0.0 s0))
+              v
+              (+ lower (* (max 0.0 t) (- v lower))))))))))
+;;------------------------------------------------------------------------------
+(defn- random-data ^doubles [^RandomGenerator prng ^long n ^long distinct]
+  ;; distinct > 0 gives many ties
+  (double-array 
+    (repeatedly n #(if (< 0 distinct)
+                     (double (.nextInt prng (int distinct)))
+                     (.nextGaussian prng)))))
+(def ^:private ^"[D" ps 
+  (double-array (concat [0.0 1.0 0.5 1.0e-9 (- 1.0 1.0e-9)] 
+                        (map #(/ (double %) 100.0) (range 1 100)))))
+;;------------------------------------------------------------------------------
+(test/deftest descriptive-statistics
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")]
+    (doseq [^long n [1 2 3 10 33 1000 100000]
+            ^long distinct [0 3 1000]]
+      (let [^doubles z (random-data prng n distinct)
+            ds (DescriptiveStatistics. z)
+            ^doubles q (Statistics/quantiles z ps)]
+        (dotimes [j (alength ps)]
+          ;; DescriptiveStatistics rounds p through percent
+          (test/is (z/approximately== 
+                     4.0 (legacy ds (aget ps j)) (aget q j))
+                   (str n " " distinct " " (aget ps j))))
+        ;; unit weights are bit identical
+        (test/is (Arrays/equals 
+                   q (Statistics/quantiles z (double-array n 1.0) ps)))
+        ;; and so is any constant weight
+        (test/is (z/doubles-approximately==
+                   4.0 q (Statistics/quantiles z (double-array n 0.25) ps)))
+        ;; the clojure wrapper
+        (test/is (= (vec q) (z/quantiles (vec z) ps)))))))
+;;------------------------------------------------------------------------------
+(test/deftest weighted
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")]
+    (doseq [^long n [1 2 5 40 1000 20000]
+            ^long distinct [0 4 500]]
+      (let [^doubles z (random-data prng n distinct)
+            ^doubles w (double-array (repeatedly n #(if (< (.nextDouble prng) 0.1)
+                                             0.0
+                                             (.nextDouble prng))))]
+        (when (some pos? w)
+          (let [^doubles q (Statistics/quantiles z w ps)]
+            (dotimes [j (alength ps)]
+              (test/is (z/approximately== 
+                         1.0e6 (weighted-reference z w (aget ps j)) (aget q j))
+                       (str n " " distinct " " (aget ps j))))))))))
+;;------------------------------------------------------------------------------
+(test/deftest edge-cases
+  (let [q (fn [zs & [ws]]
+            (vec (if ws
+                   (Statistics/quantiles 
+                     (double-array zs) (double-array ws) 
+                     (double-array [0.0 0.5 1.0]))
+                   (Statistics/quantiles 
+                     (double-array zs) (double-array [0.0 0.5 1.0])))))]
+    (test/is (every? #(Double/isNaN %) (q [])))
+    (test/is (every? #(Double/isNaN %) (q [Double/NaN])))
+    (test/is (= [1.0 2.0 3.0] (q [3.0 Double/NaN 1.0 2.0])))
+    (test/is (= [1.0 1.0 1.0] (q [1.0 1.0 1.0])))
+    (test/is (= [7.0 7.0 7.0] (q [7.0])))
+    ;; zero weights are ignored
+    (test/is (= [1.0 2.0 3.0] (q [3.0 100.0 1.0 2.0] [1.0 0.0 1.0 1.0])))
+    (test/is (every? #(Double/isNaN %) (q [1.0 2.0] [0.0 0.0])))
+    (test/is (thrown? IllegalArgumentException (q [1.0 2.0] [1.0 -1.0])))
+    (test/is (thrown? IllegalArgumentException (q [1.0 2.0] [1.0])))
+    (test/is (thrown? IllegalArgumentException 
+                      (Statistics/quantiles 
+                        (double-array [1.0]) (double-array [1.5]))))))
+;;------------------------------------------------------------------------------
+(test/deftest in-place
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        ^doubles z (random-data prng 10000 0)
+        z0 (Arrays/copyOf z (alength z))
+        ^doubles q (Statistics/quantiles z ps)]
+    (test/is (Arrays/equals z0 z))
+    (test/is (Arrays/equals q (Statistics/quantiles z ps true)))
+    ;; permuted, not changed
+    (Arrays/sort z)
+    (Arrays/sort z0)
+    (test/is (Arrays/equals z0 z))))
+;;------------------------------------------------------------------------------
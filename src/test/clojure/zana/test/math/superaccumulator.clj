@@ -0,0 +1,150 @@
+(set! *warn-on-reflection* true)
+(set! *unchecked-math* :warn-on-boxed)
+(ns ^{:author "wahpenayo at gmail dot com"
+      :date "2026-10-18"
+      :doc "Unit tests for zana.java.math.Superaccumulator." }
+
+    zana.test.math.superaccumulator
+
+  (:require [clojure.test :as test]
+            [zana.api :as z])
+
+  (:import [java.math BigDecimal MathContext]
+           [java.util Arrays]
+           [org.apache.commons.math3.random RandomGenerator]
+           [zana.java.accumulator Accumulator]
+           [zana.java.math Superaccumulator]))
+;; mvn -Dtest=zana.test.math.superaccumulator clojure:test
+;;------------------------------------------------------------------------------
+;; BigDecimal.doubleValue is correctly rounded (JDK 9+)
+(defn- exact-sum ^double [^doubles x]
+  (.doubleValue
+    ^BigDecimal (reduce (fn [^BigDecimal s ^double xi] (.add s (BigDecimal. xi)))
+                        BigDecimal/ZERO
+                        x)))
+(defn- exact-dot ^double [^doubles x ^doubles y]
+  (.doubleValue
+    ^BigDecimal (reduce (fn [^BigDecimal s ^long i]
+                          (.add s (.multiply (BigDecimal. (aget x i))
+                                             (BigDecimal. (aget y i)))))
+                        BigDecimal/ZERO
+                        (range (alength x)))))
+;;------------------------------------------------------------------------------
+(defn- random-doubles ^doubles [^RandomGenerator prng ^long n ^long decades]
+  ;; wide range of magnitudes and signs, so there is cancellation
+  (let [x (double-array n)]
+    (dotimes [i n]
+      (aset x i (* (.nextGaussian prng)
+                   (Math/pow 10.0 (double (- (.nextInt prng (int decades))
+                                             (quot decades 2)))))))
+    x))
+(defn- shuffle! ^doubles [^RandomGenerator prng ^doubles x]
+  (loop [i (dec (alength x))]
+    (when (< 0 i)
+      (let [j (.nextInt prng (int (inc i)))
+            xi (aget x i)]
+        (aset x i (aget x j))
+        (aset x j xi)
+        (recur (dec i)))))
+  x)
+;;------------------------------------------------------------------------------
+(test/deftest correctly-rounded
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")]
+    (doseq [^long n [0 1 2 3 10 100 1001]
+            ^long decades [1 12 200 600]]
+      (let [x (random-doubles prng n decades)
+            y (random-doubles prng n decades)]
+        (test/is (== (exact-sum x) (Superaccumulator/sum x)) 
+                 (str n " " decades))
+        ;; products are exact only if they neither overflow nor underflow
+        (when (< decades 600)
+          (test/is (== (exact-dot x y) (Superaccumulator/dot x y))
+                   (str n " " decades)))))))
+;;------------------------------------------------------------------------------
+(test/deftest edge-cases
+  (let [sum (fn ^double [xs] (Superaccumulator/sum (double-array xs)))
+        tiny Double/MIN_VALUE
+        big Double/MAX_VALUE
+        ulp (Math/ulp 1.0)]
+    (test/is (== 0.0 (sum [])))
+    (test/is (== 5.0 (sum [1.0 1.0e100 1.0 -1.0e100 1.0 1.0e100 1.0 -1.0e100 1.0])))
+    (test/is (== 0.0 (sum [1.0e308 -1.0e308 1.0e-308 -1.0e-308])))
+    ;; subnormals are exact
+    (test/is (== (* 3.0 tiny) (sum [tiny tiny tiny])))
+    (test/is (== Double/MIN_NORMAL (sum [(- Double/MIN_NORMAL tiny) tiny])))
+    (test/is (== (- tiny) (sum [tiny (* -2.0 tiny)])))
+    ;; ties to even, decided by far away bits
+    (test/is (== 1.0 (sum [1.0 (* 0.5 ulp)])))
+    (test/is (== (+ 1.0 ulp) (sum [1.0 (* 0.5 ulp) tiny])))
+    (test/is (== (+ 1.0 (* 2.0 ulp)) (sum [1.0 ulp (* 0.5 ulp)])))
+    (test/is (== (+ 1.0 ulp) (sum [1.0 ulp (* 0.5 ulp) (- tiny)])))
+    ;; overflow only if the exact sum does
+    (test/is (== big (sum [big big (- big)])))
+    (test/is (== Double/POSITIVE_INFINITY (sum [big big])))
+    (test/is (== Double/NEGATIVE_INFINITY (sum [(- big) (- big)])))
+    (test/is (== Double/POSITIVE_INFINITY (sum [1.0 Double/POSITIVE_INFINITY])))
+    (test/is (Double/isNaN (sum [Double/POSITIVE_INFINITY 
+                                 Double/NEGATIVE_INFINITY])))
+    (test/is (Double/isNaN (sum [1.0 Double/NaN])))))
+;;------------------------------------------------------------------------------
+(test/deftest carries
+  ;; enough additions of values that fill each chunk to force propagation
+  (let [s (Superaccumulator.)
+        n (+ 3 Superaccumulator/CARRY_EVERY)
+        x (- 1.0 (Math/ulp 0.5))]
+    (dotimes [_ n] (.add s x))
+    (test/is (== (.doubleValue 
+                   (.multiply (BigDecimal. x) (BigDecimal. (long n)) 
+                              MathContext/DECIMAL128))
+                 (.doubleValue s)))
+    (dotimes [_ n] (.subtract s x))
+    (test/is (== 0.0 (.doubleValue s)))))
+;;------------------------------------------------------------------------------
+;; bit identical whatever the order and partitioning
+(test/deftest order-independent
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        ^doubles x (random-doubles prng 10000 40)
+        expected (exact-sum x)]
+    (dotimes [_ 8]
+      (shuffle! prng x)
+      (test/is (== expected (Superaccumulator/sum x)))
+      ;; random partition, merged in random order
+      (let [cuts (Arrays/copyOf 
+                   (int-array (sort (repeatedly 7 #(.nextInt prng 10000))))
+                   9)
+            _ (aset cuts 7 (int 0))
+            _ (aset cuts 8 (int 10000))
+            cuts (int-array (sort cuts))
+            parts (mapv (fn [^long k]
+                          (doto (Superaccumulator.)
+                            (.addAll x (aget cuts k) (aget cuts (inc k)))))
+                        (range 8))
+            s (Superaccumulator.)]
+        (doseq [^Superaccumulator p (shuffle parts)] (.merge s p))
+        (test/is (== expected (.doubleValue s)))))))
+;;------------------------------------------------------------------------------
+(test/deftest accumulators
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        n 5000
+        ^doubles x (random-doubles prng n 40)
+        expected (exact-sum x)
+        fill (fn ^Accumulator [^Accumulator a ^long start ^long end]
+               (.addAll a x (int start) (int end))
+               a)
+        ^Accumulator whole (fill (z/exact-sum-accumulator) 0 n)
+        ^Accumulator a0 (fill (z/exact-sum-accumulator) 0 1234)
+        ^Accumulator a1 (fill (z/exact-sum-accumulator) 1234 n)
+        ^Accumulator m (fill (z/exact-mean-accumulator) 0 n)]
+    (test/is (== expected (.doubleValue whole)))
+    (test/is (== (/ expected n) (.doubleValue m)))
+    (.merge a1 a0)
+    (test/is (== expected (.doubleValue a1)))
+    (test/is (== n (.netCount a1)))
+    ;; deletion in a different order undoes addition exactly
+    (.deleteAll a1 x 0 (int n))
+    (test/is (== 0.0 (.doubleValue a1)))
+    (test/is (== 0 (.netCount a1)))
+    (test/is (== 0.0 (.doubleValue (z/exact-mean-accumulator))))
+    (test/is (thrown? UnsupportedOperationException
+                      (.merge whole (z/mean-accumulator))))))
+;;------------------------------------------------------------------------------
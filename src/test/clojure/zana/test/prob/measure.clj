@@ -12,7 +12,9 @@
             [zana.prob.measure :as zpm]
             [zana.api :as z])
   (:import [java.util Arrays]
-           [zana.java.prob WEPDF]))
+           [org.apache.commons.math3.distribution RealDistribution]
+           [org.apache.commons.math3.random RandomGenerator]
+           [zana.java.prob EmpiricalCodec$View QuantileSketch WECDF WEPDF]))
 ;; mvn -Dtest=zana.test.prob.measure clojure:test
 ;; TODO: randomized data for larger tests
 ;;----------------------------------------------------------------
@@ -141,3 +143,483 @@
                  (float (/ 9.0 n0) ) 
                  (float (z/cdf rpm 6.0)))))))
 ;;----------------------------------------------------------------
+;; batch queries must agree exactly with the scalar ones
+;;----------------------------------------------------------------
+(defn- random-wecdf ^WECDF [^RandomGenerator prng ^long n]
+  ;; many ties, some negative values, and a zero
+  (let [z (float-array n)
+        w (float-array n)]
+    (dotimes [i n]
+      (aset z i (float (- (.nextInt prng 64) 32)))
+      (aset w i (float (- 1.0 (.nextDouble prng)))))
+    (z/make-wecdf prng z w)))
+(defn- scalar ^doubles [f xs] (double-array (map f xs)))
+(defn- check-batch [^RealDistribution rpm ^doubles x ^doubles p]
+  (let [xf (float-array x)
+        pf (float-array p)]
+    (test/is (Arrays/equals (scalar #(z/cdf rpm %) x) 
+                            (z/cdf-doubles rpm x)))
+    (test/is (Arrays/equals (scalar #(z/cdf rpm %) xf) 
+                            (z/cdf-doubles rpm xf)))
+    (test/is (Arrays/equals (scalar #(z/quantile rpm %) p) 
+                            (z/quantile-doubles rpm p)))
+    (test/is (Arrays/equals (scalar #(z/quantile rpm %) pf) 
+                            (z/quantile-doubles rpm pf)))))
+(test/deftest batch
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        cdfs (concat rpms 
+                     (map #(random-wecdf prng %) [1 2 7 100 1000]))]
+    (doseq [^RealDistribution rpm cdfs]
+      (let [zmin (.getSupportLowerBound rpm)
+            zmax (.getSupportUpperBound rpm)
+            ;; atoms, their neighbors, signed zeros, and random
+            x (double-array 
+                (concat
+                  [-0.0 0.0 (- zmin 1.0) (+ zmax 1.0) zmin zmax]
+                  (mapcat (fn [^double zi] 
+                            [zi (Math/nextUp zi) (Math/nextDown zi)
+                             (Math/nextUp (float zi)) 
+                             (Math/nextDown (float zi))])
+                          (range -33.0 34.0 0.5))
+                  (repeatedly 
+                    200 #(+ zmin (* (- zmax zmin) 
+                                    (.nextDouble prng))))))
+            p (double-array
+                (concat 
+                  [0.0 1.0 (Math/nextDown 1.0) Double/MIN_VALUE]
+                  (mapcat (fn [^double pi] 
+                            [pi (Math/nextUp pi) (Math/nextDown pi)
+                             (Math/nextUp (float pi)) 
+                             (Math/nextDown (float pi))])
+                          (z/cdf-doubles rpm x))
+                  (repeatedly 200 #(.nextDouble prng))))
+            p (double-array (filter #(<= 0.0 (double %) 1.0) p))]
+        ;; unsorted
+        (check-batch rpm x p)
+        ;; sorted
+        (Arrays/sort x)
+        (Arrays/sort p)
+        (check-batch rpm x p)))))
+;;----------------------------------------------------------------
+(defn- check-sketch [^QuantileSketch sketch ^floats z ^floats w]
+  (let [epsilon (.epsilon sketch)
+        exact (z/make-wecdf z w)
+        approx (.toWECDF sketch)
+        bound (.rankErrorBound sketch)
+        x (double-array (concat (take 1000 z) [-1.0e6 1.0e6]))]
+    (test/is (<= (.centroidCount sketch) (/ 4.0 epsilon)))
+    (test/is (<= 0.0 bound 1.0))
+    (test/is (== (.getSupportLowerBound exact) 
+                 (.getSupportLowerBound approx)))
+    (test/is (== (.getSupportUpperBound exact) 
+                 (.getSupportUpperBound approx)))
+    (dotimes [i (alength x)]
+      (let [xi (aget x i)]
+        (test/is (<= (Math/abs (- (z/cdf exact xi) (z/cdf approx xi)))
+                     (+ bound 1.0e-5)))))
+    bound))
+(test/deftest sketch
+  (let [^RandomGenerator prng (z/well44497b 
+                                "seeds/Well44497b-2017-11-05-00.edn")
+        n 100000
+        epsilon 0.01
+        z (float-array n)
+        w (float-array n)
+        _ (dotimes [i n]
+            (aset z i (float (.nextGaussian prng)))
+            (aset w i (float (+ 0.5 (.nextDouble prng)))))
+        ^QuantileSketch whole (z/make-quantile-sketch epsilon z w)
+        ;; 8 partitions, sketched separately, then merged
+        parts (map (fn [^long i]
+                     (let [start (quot (* i n) 8)
+                           end (quot (* (inc i) n) 8)]
+                       (z/make-quantile-sketch 
+                         epsilon 
+                         (Arrays/copyOfRange z start end)
+                         (Arrays/copyOfRange w start end))))
+                   (range 8))
+        ^QuantileSketch merged (reduce (fn [^QuantileSketch a b] 
+                                         (.merge a b) a)
+                                       (z/make-quantile-sketch epsilon)
+                                       parts)
+        exact (z/make-wecdf z w)]
+    (test/is (< (Math/abs (- (.totalWeight whole) 
+                             (.totalWeight merged)))
+                1.0e-6))
+    (test/is (<= (check-sketch whole z w) (* 2.0 epsilon)))
+    (test/is (<= (check-sketch merged z w) (* 4.0 epsilon)))
+    ;; quantiles close in probability
+    (doseq [p [0.01 0.1 0.25 0.5 0.75 0.9 0.99]]
+      (let [p (double p)
+            q (z/quantile (.toWECDF merged) p)]
+        (test/is (<= (Math/abs (- p (z/cdf exact q)))
+                     (+ (.rankErrorBound merged) epsilon))))))
+  ;; integer weights, one value
+  (let [^QuantileSketch sketch (z/make-quantile-sketch 0.1 (float-array 1000 3.0))]
+    (test/is (== 1 (.centroidCount sketch)))
+    (test/is (== 0.0 (.rankErrorBound sketch)))
+    (test/is (== 3.0 (z/quantile (.toWEPDF sketch) 0.5)))))
+;;----------------------------------------------------------------
+(defn- check-sample [^RealDistribution rpm ^long n]
+  (let [seed "seeds/Well44497b-2017-11-05-00.edn"
+        ^RandomGenerator prng0 (z/well44497b seed)
+        ^RandomGenerator prng1 (z/well44497b seed)
+        x (z/sample-doubles rpm prng0 n)
+        counts (frequencies x)]
+    ;; batch and scalar draws agree for the same stream
+    (test/is (= (vec x)
+                (vec (repeatedly 
+                       n #(if (instance? WEPDF rpm)
+                            (.sample ^WEPDF rpm prng1)
+                            (.sample ^WECDF rpm prng1))))))
+    ;; only atoms, with about the right frequencies
+    (doseq [[xi ^long ci] counts]
+      (test/is (< 0.0 (z/pointmass rpm xi))))
+    (doseq [zi (if (instance? WEPDF rpm)
+                 (.getZ ^WEPDF rpm)
+                 (.getZ ^WECDF rpm))]
+      (let [zi (double zi)
+            p (z/pointmass rpm zi)
+            f (/ (double (get counts zi 0)) n)]
+        ;; 5 standard deviations
+        (test/is (<= (Math/abs (- p f)) 
+                     (+ 1.0e-6 (* 5.0 (Math/sqrt (/ (* p (- 1.0 p)) n)))))
+                 (print-str zi p f))))))
+
+(test/deftest sample
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")]
+    (doseq [rpm (concat rpms 
+                        (map #(random-wecdf prng %) [1 2 7 1000])
+                        [(z/wecdf-to-wepdf (random-wecdf prng 1000))])]
+      (check-sample rpm 20000))
+    ;; zero mass atoms are never drawn
+    (let [pdf (WEPDF/sortedAndNormalized 
+                (float-array [0.0 1.0 2.0 3.0])
+                (float-array [0.0 0.5 0.0 0.5]))
+          x (z/sample-doubles pdf prng 10000)]
+      (test/is (every? #{1.0 3.0} x)))
+    ;; other distributions fall back on the quantile function
+    (let [u (z/uniform-distribution prng 0.0 1.0)
+          x (z/sample-doubles u prng 100 (double-array 200))]
+      (test/is (every? #(<= 0.0 (double %) 1.0) (take 100 x)))
+      (test/is (every? zero? (drop 100 x))))))
+;;----------------------------------------------------------------
+;; WEPDF queries through the cached prefix sums must agree exactly
+;; with the original O(n) versions.
+;;----------------------------------------------------------------
+(defn- linear-cdf ^double [^floats w ^floats z ^double x]
+  (let [i (Arrays/binarySearch z (float x))
+        k (if (<= 0 i) (inc i) (- -1 i))]
+    (if (zero? k)
+      0.0
+      (Math/min (Math/max 0.0 (zana.java.math.Statistics/kahanSum w 0 k))
+                1.0))))
+(defn- linear-quantile ^double [^floats w ^floats z ^double p]
+  (cond (== 0.0 p) Double/NEGATIVE_INFINITY
+        (== 1.0 p) (double (aget z (dec (alength z))))
+        :else
+        (loop [i 0
+               s (double (aget w 0))]
+          (if (< (- p s) (Math/ulp (float 1.0)))
+            (double (aget z i))
+            (let [i (inc i)]
+              (recur i (Math/min (Math/max 0.0 (+ s (aget w i))) 1.0)))))))
+(test/deftest wepdf-index
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")]
+    (doseq [^WEPDF pdf (concat 
+                         (filter #(instance? WEPDF %) rpms)
+                         (map #(z/wecdf-to-wepdf (random-wecdf prng %)) 
+                              [1 2 7 1000]))]
+      (let [z (.getZ pdf)
+            w (.getW pdf)
+            x (concat (map double z) 
+                      [-100.0 100.0 -0.0 0.0]
+                      (repeatedly 200 #(- (* 80.0 (.nextDouble prng)) 40.0)))
+            p (concat [0.0 1.0 (Math/nextDown 1.0) Double/MIN_VALUE]
+                      (map #(.cumulativeProbability pdf (double %)) z)
+                      (repeatedly 200 #(.nextDouble prng)))]
+        (.clearCache pdf)
+        (test/is (== 0 (.cacheBytes pdf)))
+        (doseq [xi x]
+          (test/is (== (linear-cdf w z xi) 
+                       (.cumulativeProbability pdf (double xi)))))
+        (doseq [pi p]
+          (test/is (== (linear-quantile w z pi) 
+                       (.inverseCumulativeProbability pdf (double pi)))))
+        (test/is (< 0 (.cacheBytes pdf)))
+        (.clearCache pdf)
+        (test/is (== 0 (.cacheBytes pdf)))))))
+;;----------------------------------------------------------------
+;; mixtures by k-way merge agree with concatenating and re-sorting
+;;----------------------------------------------------------------
+(defn- concatenated ^WEPDF [rpms weights]
+  (let [zw (mapcat (fn [rpm ^double a]
+                     (let [pdf (if (instance? WECDF rpm) 
+                                 (z/wecdf-to-wepdf rpm) 
+                                 rpm)]
+                       (map (fn [zi wi] [zi (* a (double wi))])
+                            (.getZ ^WEPDF pdf) (.getW ^WEPDF pdf))))
+                   rpms weights)
+        zw (filter #(< 0.0 (double (second %))) zw)]
+    (z/make-wepdf (float-array (map first zw)) 
+                  (float-array (map second zw)))))
+(defn- check-mixture [leaves weights]
+  (let [^WEPDF expected (concatenated leaves weights)
+        ^WEPDF pdf (z/wepdf-mixture leaves weights)
+        ^WECDF cdf (z/wecdf-mixture leaves weights)]
+    (test/is (Arrays/equals (.getZ expected) (.getZ pdf)))
+    (test/is (z/approximatelyEqual expected pdf))
+    (test/is (Arrays/equals (.getZ expected) (.getZ cdf)))
+    (test/is (z/approximatelyEqual (z/wepdf-to-wecdf expected) cdf))))
+(test/deftest mixture
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        leaves (concat rpms (map #(random-wecdf prng %) [1 2 7 100 1000]))
+        leaves (concat leaves (map z/wecdf-to-wepdf (take-last 3 leaves)))
+        weights (repeatedly (count leaves) #(.nextDouble prng))
+        weights (concat [0.0] (rest weights))
+        ^WEPDF expected (concatenated leaves weights)
+        ^WEPDF pdf (z/wepdf-mixture leaves weights)]
+    ;; k-way merge and sort paths
+    (doseq [k [1 2 3 8 16 17 (count leaves)]]
+      (check-mixture (take-last k leaves) (take-last k weights)))
+    ;; equal weights
+    (test/is (z/approximatelyEqual 
+               (concatenated leaves (repeat 1.0))
+               (z/wepdf-mixture leaves)))
+    (test/is (z/approximatelyEqual 
+               (z/wepdf-to-wecdf (concatenated leaves (repeat 1.0)))
+               (z/wecdf-mixture leaves)))
+    ;; bounded size
+    (doseq [^long m [1 2 10 100]]
+      (let [^WEPDF small (z/wepdf-mixture leaves weights m)
+            ^WECDF smallc (z/wecdf-mixture leaves weights m)]
+        (test/is (<= (alength (.getZ small)) m))
+        (test/is (Arrays/equals (.getZ small) (.getZ smallc)))
+        ;; bin locations are rounded to float
+        (test/is (z/float-approximately== 
+                   4.0
+                   (float (.getNumericalMean expected))
+                   (float (.getNumericalMean small))))
+        (doseq [x (range -40.0 40.0 0.25)]
+          (test/is (<= (Math/abs (- (z/cdf small x) (z/cdf expected x)))
+                       (+ (/ 2.0 m) 1.0e-6))))))
+    (test/is (= pdf (z/wepdf-mixture [pdf] nil 100000)))
+    (test/is (thrown? IllegalArgumentException (z/wepdf-mixture [])))
+    (test/is (thrown? IllegalArgumentException 
+                      (z/wepdf-mixture leaves [1.0])))
+    (test/is (thrown? IllegalArgumentException 
+                      (z/wepdf-mixture [pdf] [-1.0])))
+    (test/is (thrown? IllegalArgumentException 
+                      (z/wepdf-mixture [pdf] nil 0)))
+    (test/is (thrown? IllegalArgumentException 
+                      (z/wepdf-mixture [(z/gaussian-distribution prng 0.0 1.0)])))))
+;;----------------------------------------------------------------
+;; distances by merge sweep agree with pointwise cdf evaluation
+;;----------------------------------------------------------------
+(defn- union-atoms [^RealDistribution f ^RealDistribution g]
+  (let [zs (fn [rpm] (map double (if (instance? WEPDF rpm)
+                                   (.getZ ^WEPDF rpm)
+                                   (.getZ ^WECDF rpm))))]
+    (vec (sort (distinct (concat (zs f) (zs g)))))))
+(defn- pointwise [metric ^RealDistribution f ^RealDistribution g]
+  (let [x (union-atoms f g)
+        d (mapv #(- (z/cdf f %) (z/cdf g %)) x)]
+    (case metric
+      :ks (reduce max 0.0 (map #(Math/abs (double %)) d))
+      :wasserstein (reduce + 0.0 (map (fn [^double x0 ^double x1 ^double di] 
+                                        (* (- x1 x0) (Math/abs di)))
+                                      x (rest x) d))
+      :cramer (reduce + 0.0 (map (fn [^double x0 ^double x1 ^double di] 
+                                   (* (- x1 x0) di di))
+                                 x (rest x) d))
+      :cramer-von-mises (reduce + 0.0 
+                                (map (fn [^double xi ^double di]
+                                       (* 0.5 di di 
+                                          (+ (z/pointmass f xi) 
+                                             (z/pointmass g xi))))
+                                     x d)))))
+(defn- close? [^double expected ^double actual]
+  (<= (Math/abs (- expected actual)) 
+      (* 1.0e-5 (+ 1.0 (Math/abs expected)))))
+(test/deftest distances
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        fs (vec (concat rpms (map #(random-wecdf prng %) [1 2 7 100 1000])))
+        gs (vec (shuffle fs))
+        ys (mapv (fn [_] (double (float (- (* 80.0 (.nextDouble prng)) 40.0))))
+                 fs)
+        ys (assoc ys 0 1.0 1 3.0 2 -100.0 3 100.0)
+        ps [0.9 0.1 0.5 0.25]]
+    (doseq [[f g ^double y] (map vector fs gs ys)]
+      (doseq [[metric distance] [[:ks z/ks-distance]
+                                 [:wasserstein z/wasserstein-distance]
+                                 [:cramer z/cramer-distance]
+                                 [:cramer-von-mises z/cramer-von-mises]]]
+        (test/is (close? (pointwise metric f g) (distance f g))
+                 (print-str metric))
+        (test/is (== 0.0 (double (distance f f))))
+        (test/is (close? (distance f g) (distance g f))))
+      ;; observations are point masses
+      (let [h (z/make-wecdf [y])]
+        (test/is (close? (z/ks-distance f h) (z/ks-distance f y)))
+        (test/is (close? (z/wasserstein-distance f h) 
+                         (z/wasserstein-distance f y)))
+        (test/is (close? (z/cramer-distance f h) (z/crps f y)))
+        (test/is (== (z/crps f y) (z/cramer-distance f y))))
+      ;; crps = E|X-y| - E|X-X'|/2
+      (let [zs (if (instance? WEPDF f) (.getZ ^WEPDF f) (.getZ ^WECDF f))
+            ps (map #(z/pointmass f %) zs)
+            ^double exy (reduce + 0.0 (map (fn [zi ^double pi] 
+                                     (* pi (Math/abs (- (double zi) y))))
+                                   zs ps))
+            ^double exx (reduce + 0.0 (for [[zi ^double pi] (map vector zs ps)
+                                    [zj ^double pj] (map vector zs ps)]
+                                (* pi pj (Math/abs (- (double zi) 
+                                                      (double zj))))))]
+        (when (< (count zs) 200)
+          (test/is (close? (- exy (* 0.5 exx)) (z/crps f y)))))
+      ;; pinball
+      (let [loss (fn ^double [^double p]
+                   (let [u (- y (z/quantile f p))]
+                     (* u (- p (if (< u 0.0) 1.0 0.0)))))]
+        (test/is (== (loss 0.25) (z/pinball-loss f y 0.25)))
+        (test/is (close? (/ (double (reduce + (map loss ps))) (count ps))
+                         (z/pinball-loss f y ps)))))
+    ;; batches, in parallel, agree with scalars
+    (let [fs (vec (take 1000 (cycle fs)))
+          gs (vec (take 1000 (cycle gs)))
+          ys (vec (take 1000 (cycle ys)))
+          check (fn [metric distance ys]
+                  (test/is (= (mapv distance fs ys)
+                              (vec (z/score-doubles metric fs ys)))
+                           (print-str metric)))]
+      (check :ks z/ks-distance ys)
+      (check :wasserstein z/wasserstein-distance ys)
+      (check :crps z/crps ys)
+      (check :cramer z/cramer-distance ys)
+      (check :ks z/ks-distance gs)
+      (check :wasserstein z/wasserstein-distance gs)
+      (check :cramer z/cramer-distance gs)
+      (check :cramer-von-mises z/cramer-von-mises gs)
+      (test/is (= (mapv #(z/pinball-loss %1 %2 ps) fs ys)
+                  (vec (z/score-doubles :pinball fs ys ps))))
+      (test/is (thrown? IllegalArgumentException 
+                        (z/score-doubles :cramer-von-mises fs ys)))
+      (test/is (thrown? IllegalArgumentException 
+                        (z/score-doubles :crps fs (rest ys)))))))
+;;----------------------------------------------------------------
+;; sliding window of an OrderStatisticTree agrees with rebuilding
+;;----------------------------------------------------------------
+(test/deftest order-statistic-tree
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        n 5000
+        window 500
+        z (float-array n)
+        w (float-array n)
+        _ (dotimes [i n]
+            ;; ties, signed zeros
+            (aset z i (float (* 0.5 (- (.nextInt prng 200) 100))))
+            (aset w i (float (- 1.0 (.nextDouble prng)))))
+        _ (aset z 10 (float -0.0))
+        tree (z/make-order-statistic-tree)
+        xs (range -51.0 51.0 0.25)
+        ps (concat [0.0 1.0 Double/MIN_VALUE] 
+                   (repeatedly 50 #(.nextDouble prng)))]
+    (dotimes [i n]
+      (.insert tree (aget z i) (aget w i))
+      (when (<= window i)
+        (let [j (- i window)]
+          (.delete tree (aget z j) (aget w j))))
+      (when (zero? (rem i 97))
+        (let [start (max 0 (- (inc i) window))
+              zi (Arrays/copyOfRange z start (inc i))
+              wi (Arrays/copyOfRange w start (inc i))
+              expected (z/make-wecdf zi wi)
+              snapshot (.toWECDF tree)]
+          ;; -0.0 == 0.0
+          (test/is (every? true? (map == (.getZ expected) (.getZ snapshot))))
+          (test/is (z/approximatelyEqual expected snapshot))
+          (test/is (== (alength (.getZ expected)) (.size tree)))
+          (doseq [x xs]
+            (test/is (close? (z/cdf expected x) (.cdf tree x))))
+          (doseq [p ps]
+            (test/is (== (z/quantile snapshot p) (.quantile tree p)))))))
+    (test/is (thrown? IllegalArgumentException (.delete tree 1000.0 1.0)))
+    (test/is (thrown? IllegalArgumentException (.insert tree Float/NaN 1.0)))
+    ;; empty
+    (let [tree (z/make-order-statistic-tree [1.0 2.0 2.0])]
+      (test/is (== 2 (.size tree)))
+      (test/is (close? (/ 1.0 3.0) (.cdf tree 1.5)))
+      (.delete tree 2.0) (.delete tree 1.0) (.delete tree 2.0)
+      (test/is (.isEmpty tree))
+      (test/is (thrown? IllegalStateException (.toWECDF tree)))
+      (.insert tree 3.0)
+      (test/is (== 3.0 (.quantile tree 0.5)))
+      (.clear tree)
+      (test/is (.isEmpty tree)))))
+;;----------------------------------------------------------------
+;; binary files round trip to = and mapped views agree exactly
+;;----------------------------------------------------------------
+(defn- random-wepdf ^WEPDF [^RandomGenerator prng ^long n]
+  (let [z (float-array n)
+        w (float-array n)]
+    (dotimes [i n]
+      (aset z i (float (* 1000.0 (.nextGaussian prng))))
+      (aset w i (float (- 1.0 (.nextDouble prng)))))
+    (aset z 0 (float -0.0))
+    (z/make-wepdf prng z w)))
+(test/deftest binary-files
+  (let [prng (z/well44497b "seeds/Well44497b-2017-11-05-00.edn")
+        folder (apply io/file "tst" (s/split nss #"\."))
+        file (io/file folder "distributions.bin")
+        _ (io/make-parents file)
+        pdfs (mapv #(random-wepdf prng %) [1 10 1000])
+        all (vec (concat rpms pdfs (map z/wepdf-to-wecdf pdfs)
+                         (map #(random-wecdf prng %) [1 10 1000])))
+        xs (concat [-1.0e6 -0.0 0.0 1.0e6] 
+                   (repeatedly 100 #(* 2000.0 (.nextGaussian prng))))
+        ps (concat [0.0 1.0 Double/MIN_VALUE] 
+                   (repeatedly 100 #(.nextDouble prng)))]
+    (doseq [zc [:raw :delta] wc [:raw :delta]]
+      (z/write-distributions all file {:z zc :w wc})
+      (test/is (= all (vec (z/read-distributions file))))
+      (let [views (z/map-distributions file)]
+        (test/is (== (count all) (count views)))
+        (doseq [[rpm ^EmpiricalCodec$View view] (map vector all views)]
+          (test/is (= rpm (.toDistribution view)))
+          (if (instance? WECDF rpm)
+            (do
+              (doseq [x xs]
+                (test/is (== (z/cdf rpm x) 
+                             (.cumulativeProbability view x))))
+              (doseq [p ps]
+                (test/is (== (z/quantile rpm p) 
+                             (.inverseCumulativeProbability view p)))))
+            (test/is (thrown? UnsupportedOperationException
+                              (.cumulativeProbability view 0.0)))))))
+    ;; quantized weights: same atoms, weights within rounding
+    (z/write-distributions all file {:z :delta :w :quantized})
+    (test/is (= (vec (z/read-distributions file))
+                (mapv #(.toDistribution ^EmpiricalCodec$View %)
+                      (z/map-distributions file))))
+    (doseq [[rpm q] (map vector all (z/read-distributions file))]
+      (let [w0 (if (instance? WECDF rpm) 
+                 (.getW ^WECDF rpm) (.getW ^WEPDF rpm))
+            w1 (if (instance? WECDF q) (.getW ^WECDF q) (.getW ^WEPDF q))
+            z1 (if (instance? WECDF q) (.getZ ^WECDF q) (.getZ ^WEPDF q))]
+        (test/is (= (class rpm) (class q)))
+        (test/is (Arrays/equals 
+                   (if (instance? WECDF rpm) 
+                     (.getZ ^WECDF rpm) (.getZ ^WEPDF rpm))
+                   ^floats z1))
+        (test/is (every? true? 
+                         (map (fn [^double a ^double b] 
+                                (<= (Math/abs (- a b)) 
+                                    (* (Math/abs a) (Math/pow 2.0 -12))))
+                              w0 w1)))))
+    (test/is (thrown? IllegalArgumentException
+                      (z/write-distributions [(z/gaussian-distribution 
+                                                prng 0.0 1.0)] 
+                                             file)))
+    (test/is (thrown? IllegalArgumentException
+                      (z/write-distributions all file {:z :quantized})))))
+;;----------------------------------------------------------------